@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A per-thread cache of {@link Cipher}s and {@link KeyGenerator}s, along with
+ * counters for how much we have encrypted and decrypted.
+ *
+ * <P>
+ *     Looking up a Cipher by name goes through the provider framework every
+ *     time, which is a lot of work to do for every file and every journal
+ *     record.  A Cipher is not thread safe, so each thread gets its own.
+ * </P>
+ */
+public class Ciphers {
+    private static ThreadLocal<Map<String, Cipher>> ourCiphers = new ThreadLocal<Map<String, Cipher>>() {
+        protected Map<String, Cipher> initialValue() {
+            return new HashMap<String, Cipher>();
+        }
+    };
+
+    private static ThreadLocal<Map<String, KeyGenerator>> ourKeyGenerators = new ThreadLocal<Map<String, KeyGenerator>>() {
+        protected Map<String, KeyGenerator> initialValue() {
+            return new HashMap<String, KeyGenerator>();
+        }
+    };
+
+    private static AtomicLong ourEncryptions = new AtomicLong();
+    private static AtomicLong ourBytesEncrypted = new AtomicLong();
+    private static AtomicLong ourDecryptions = new AtomicLong();
+    private static AtomicLong ourBytesDecrypted = new AtomicLong();
+    private static AtomicLong ourKeysWrapped = new AtomicLong();
+    private static AtomicLong ourKeysUnwrapped = new AtomicLong();
+
+    public static long getEncryptions() {
+        return ourEncryptions.get();
+    }
+
+    public static long getBytesEncrypted() {
+        return ourBytesEncrypted.get();
+    }
+
+    public static long getDecryptions() {
+        return ourDecryptions.get();
+    }
+
+    public static long getBytesDecrypted() {
+        return ourBytesDecrypted.get();
+    }
+
+    public static long getKeysWrapped() {
+        return ourKeysWrapped.get();
+    }
+
+    public static long getKeysUnwrapped() {
+        return ourKeysUnwrapped.get();
+    }
+
+    /**
+     * Get this thread's Cipher for a transformation.  The caller must
+     * initialize it before using it.
+     */
+    public static Cipher getCipher (String transformation) throws GeneralSecurityException {
+        Map<String, Cipher> map = ourCiphers.get();
+        Cipher cipher = map.get(transformation);
+
+        if (null == cipher) {
+            cipher = Cipher.getInstance(transformation);
+            map.put(transformation, cipher);
+        }
+
+        return cipher;
+    }
+
+    public static SecretKey generateKey (String algorithm, int keySize) throws GeneralSecurityException {
+        Map<String, KeyGenerator> map = ourKeyGenerators.get();
+        KeyGenerator keyGenerator = map.get(algorithm);
+
+        if (null == keyGenerator) {
+            keyGenerator = KeyGenerator.getInstance(algorithm);
+            map.put(algorithm, keyGenerator);
+        }
+
+        keyGenerator.init(keySize);
+        return keyGenerator.generateKey();
+    }
+
+    public static void encrypted (long bytes) {
+        ourEncryptions.incrementAndGet();
+        ourBytesEncrypted.addAndGet(bytes);
+    }
+
+    public static void decrypted (long bytes) {
+        ourDecryptions.incrementAndGet();
+        ourBytesDecrypted.addAndGet(bytes);
+    }
+
+    public static void keyWrapped () {
+        ourKeysWrapped.incrementAndGet();
+    }
+
+    public static void keyUnwrapped () {
+        ourKeysUnwrapped.incrementAndGet();
+    }
+}
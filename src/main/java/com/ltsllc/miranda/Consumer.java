@@ -19,11 +19,20 @@ package com.ltsllc.miranda;
 import com.ltsllc.miranda.deliveries.Comparer;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.miranda.messages.StopMessage;
+import com.ltsllc.miranda.scheduler.Scheduler;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by Clark on 1/1/2017.
@@ -40,6 +49,15 @@ public class Consumer extends Subsystem implements Comparer {
     }
 
     private State currentState;
+    private AtomicBoolean scheduled = new AtomicBoolean(false);
+    private boolean scheduledStart = false;
+    private Deque<Message> batch = new ArrayDeque<Message>();
+    private Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<Long, PendingRequest>();
+    private AtomicLong nextSweep = new AtomicLong(Long.MAX_VALUE);
+
+    public Map<Long, PendingRequest> getPendingRequests() {
+        return pendingRequests;
+    }
 
     public State getCurrentState() {
         return currentState;
@@ -74,7 +92,55 @@ public class Consumer extends Subsystem implements Comparer {
     public Consumer () {}
 
     public void basicConstructor (String name) {
-        super.basicConstructor(name, null);
+        super.basicConstructor(name, Mailbox.build(this, name));
+    }
+
+    /**
+     * Can this Consumer be run by a {@link Scheduler}?
+     *
+     * <P>
+     *     The scheduler only finds out about new messages through a {@link Mailbox},
+     *     so Consumers that were given some other kind of queue need a thread of
+     *     their own.  Subclasses that block while processing a message should
+     *     also return false.
+     * </P>
+     */
+    public boolean isSchedulable () {
+        return getQueue() instanceof Mailbox;
+    }
+
+    /**
+     * Start the Consumer.
+     *
+     * <P>
+     *     If {@link Miranda#scheduler} is defined, and the Consumer can be
+     *     scheduled, then the Consumer is handed to the scheduler; otherwise
+     *     it gets a thread of its own.
+     * </P>
+     */
+    public void start () {
+        Scheduler scheduler = Miranda.scheduler;
+
+        if (null == scheduler || !isSchedulable()) {
+            super.start();
+        } else {
+            setStarted(true);
+            scheduler.start(this);
+        }
+    }
+
+    /**
+     * Try to claim the Consumer for a scheduler.
+     *
+     * @return true if the caller now owns the Consumer, false if the Consumer is
+     * already running or waiting to run.
+     */
+    public boolean claim () {
+        return scheduled.compareAndSet(false, true);
+    }
+
+    public void release () {
+        scheduled.set(false);
     }
 
 
@@ -99,6 +165,9 @@ public class Consumer extends Subsystem implements Comparer {
 
     public State processMessageInCurrentState(Message message) {
         try {
+            if (processReply(message))
+                return getCurrentState();
+
             State nextState = processMessage(message);
             return nextState;
         } catch (Throwable t) {
@@ -110,6 +179,132 @@ public class Consumer extends Subsystem implements Comparer {
     }
 
 
+    /**
+     * Send a request and get a future for its reply.
+     *
+     * <P>
+     *     The message is sent with this Consumer as its sender and a new
+     *     correlation ID.  The reply does not go to the current state;
+     *     instead it completes the future, on this Consumer's thread, so
+     *     whatever runs when the future completes can use the Consumer the
+     *     way a state would.  Any number of requests can be outstanding at
+     *     once.
+     * </P>
+     *
+     * <P>
+     *     The target has to answer with {@link Message#reply(Message)}, since
+     *     that is what marks the answer as a reply.  If no reply arrives in
+     *     time, the future fails with a {@link TimeoutException} and a reply
+     *     that shows up later goes to the current state like any other message.
+     * </P>
+     *
+     * @param target The queue to send the request to.
+     * @param message The request.
+     * @param timeout The number of milliseconds to wait.  Zero or less means wait forever.
+     * @return A future that is completed by the reply.
+     */
+    public CompletableFuture<Message> ask (BlockingQueue<Message> target, Message message, long timeout) {
+        long correlationId = Message.nextCorrelationId();
+        long expires = Long.MAX_VALUE;
+
+        if (timeout > 0)
+            expires = System.currentTimeMillis() + timeout;
+
+        PendingRequest pendingRequest = new PendingRequest(correlationId, expires);
+        getPendingRequests().put(correlationId, pendingRequest);
+
+        message.setSender(getQueue());
+        message.setCorrelationId(correlationId);
+
+        scheduleSweep(expires);
+        send(message, target);
+
+        return pendingRequest.getFuture();
+    }
+
+    /**
+     * Make sure that the pending requests are swept no later than a given time.
+     *
+     * <P>
+     *     The sweep is a {@link SweepRequestsMessage} from {@link Miranda#timer}.
+     *     Without a timer, the requests are swept when the next message arrives.
+     * </P>
+     */
+    public void scheduleSweep (long when) {
+        if (Long.MAX_VALUE == when)
+            return;
+
+        long current = nextSweep.get();
+
+        while (when < current) {
+            if (nextSweep.compareAndSet(current, when)) {
+                if (null != Miranda.timer) {
+                    long delay = Math.max(1, when - System.currentTimeMillis());
+                    SweepRequestsMessage sweepRequestsMessage = new SweepRequestsMessage(getQueue(), this);
+                    Miranda.timer.sendScheduleOnce(delay, getQueue(), sweepRequestsMessage);
+                }
+
+                return;
+            }
+
+            current = nextSweep.get();
+        }
+    }
+
+    /**
+     * Fail the pending requests that have timed out and schedule a sweep for the rest.
+     */
+    public void sweepRequests (long now) {
+        nextSweep.set(Long.MAX_VALUE);
+        long earliest = Long.MAX_VALUE;
+
+        Iterator<PendingRequest> iterator = getPendingRequests().values().iterator();
+        while (iterator.hasNext()) {
+            PendingRequest pendingRequest = iterator.next();
+
+            if (pendingRequest.expired(now)) {
+                iterator.remove();
+                TimeoutException timeoutException = new TimeoutException("Request " + pendingRequest.getCorrelationId()
+                        + " from " + this + " timed out");
+                pendingRequest.getFuture().completeExceptionally(timeoutException);
+            } else if (pendingRequest.getExpires() < earliest) {
+                earliest = pendingRequest.getExpires();
+            }
+        }
+
+        scheduleSweep(earliest);
+    }
+
+    /**
+     * Take care of the messages that belong to {@link #ask} rather than to the current state.
+     * A reply that no one is waiting for is left for the state.
+     *
+     * @return true if the message has been taken care of.
+     */
+    public boolean processReply (Message message) {
+        long now = System.currentTimeMillis();
+
+        if (message.getSubject() == Message.Subjects.SweepRequests) {
+            sweepRequests(now);
+            return true;
+        }
+
+        if (now >= nextSweep.get())
+            sweepRequests(now);
+
+        if (0 == message.getInReplyTo())
+            return false;
+
+        PendingRequest pendingRequest = getPendingRequests().remove(message.getInReplyTo());
+
+        if (null == pendingRequest)
+            return false;
+
+        pendingRequest.getFuture().complete(message);
+
+        return true;
+    }
+
     /**
      * run a Consumer.
      * <p>
@@ -124,15 +319,10 @@ public class Consumer extends Subsystem implements Comparer {
      */
     public void run() {
         State nextState = startCurrentState();
-        State stop = StopState.getInstance();
         logger.info(this + " starting");
 
-        while (nextState != stop && !Miranda.panicking && nextState != null && !getStopped()) {
-            State currentState = getCurrentState();
-            setCurrentState(nextState);
-            if (currentState != nextState) {
-                setCurrentState(nextState.start());
-            }
+        while (!isFinished(nextState)) {
+            transitionTo(nextState);
 
             Message m = getNextMessage();
             if (null != m) {
@@ -141,6 +331,78 @@ public class Consumer extends Subsystem implements Comparer {
             }
         }
 
+        logTermination();
+    }
+
+    /**
+     * Process the messages that are waiting for the Consumer.
+     *
+     * <P>
+     *     This is the {@link Scheduler} version of {@link #run()}.  The first
+     *     time it is called it starts the current state.  After that, it
+     *     processes up to {@link Scheduler#getBatchSize()} messages and returns
+     *     rather than waiting for more.  The Consumer must have been claimed
+     *     before this method is called.
+     * </P>
+     */
+    public void runScheduled (Scheduler scheduler) {
+        State nextState = getCurrentState();
+
+        if (!scheduledStart) {
+            scheduledStart = true;
+            nextState = startCurrentState();
+            logger.info(this + " starting");
+
+            if (!isFinished(nextState))
+                transitionTo(nextState);
+        }
+
+        int processed = 0;
+
+        while (!isFinished(nextState) && processed < scheduler.getBatchSize()) {
+            Message m = pollNextMessage();
+            if (null == m)
+                break;
+
+            processed++;
+            logger.info(this + " in state " + getCurrentState() + " received " + m);
+            nextState = processMessageInCurrentState(m);
+
+            if (!isFinished(nextState))
+                transitionTo(nextState);
+        }
+
+        if (isFinished(nextState)) {
+            //
+            // the Consumer stays claimed so that it never runs again
+            //
+            ((Mailbox) getQueue()).setScheduler(null);
+            logTermination();
+        } else {
+            release();
+
+            //
+            // a message that arrived after the last poll may have been
+            // turned away because we were still claimed
+            //
+            if (hasPendingMessages())
+                scheduler.schedule(this);
+        }
+    }
+
+    public boolean isFinished (State nextState) {
+        return nextState == StopState.getInstance() || Miranda.panicking || nextState == null || getStopped();
+    }
+
+    public void transitionTo (State nextState) {
+        State currentState = getCurrentState();
+        setCurrentState(nextState);
+        if (currentState != nextState) {
+            setCurrentState(nextState.start());
+        }
+    }
+
+    public void logTermination () {
         if (Miranda.panicking) {
             logger.error(this + " is terminating due to a panic");
         } else {
@@ -148,7 +410,39 @@ public class Consumer extends Subsystem implements Comparer {
         }
     }
 
+    /**
+     * Are there messages waiting to be processed, either on the queue or in
+     * the batch that has already been taken off it?
+     */
+    public boolean hasPendingMessages () {
+        return !getQueue().isEmpty() || !batch.isEmpty();
+    }
+
+    /**
+     * The number of messages to take off the queue at once.
+     */
+    public int getBatchSize () {
+        if (getQueue() instanceof Mailbox) {
+            Mailbox mailbox = (Mailbox) getQueue();
+            return mailbox.getBatchSize();
+        }
+
+        return 1;
+    }
+
+    /**
+     * Get the next message, waiting for one if the queue is empty.
+     *
+     * <P>
+     *     Messages are taken off the queue in batches of up to {@link #getBatchSize()}
+     *     and then handed out one at a time, so a busy Consumer only has to
+     *     contend for its queue once per batch.
+     * </P>
+     */
     public Message getNextMessage() {
+        if (!batch.isEmpty())
+            return batch.poll();
+
         Message nextMessage = null;
         boolean keepWaiting = true;
 
@@ -164,9 +458,22 @@ public class Consumer extends Subsystem implements Comparer {
             }
         }
 
+        if (getBatchSize() > 1)
+            getQueue().drainTo(batch, getBatchSize() - 1);
+
         return nextMessage;
     }
 
+    /**
+     * Get the next message, or null if there isn't one.
+     */
+    public Message pollNextMessage() {
+        if (batch.isEmpty())
+            getQueue().drainTo(batch, getBatchSize());
+
+        return batch.poll();
+    }
+
     /**
      * Process the next message.
      * <p>
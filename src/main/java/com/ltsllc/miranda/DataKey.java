@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda;
+
+import javax.crypto.SecretKey;
+
+/**
+ * An AES key that is used for many files before it is replaced.
+ *
+ * <P>
+ *     Wrapping a key with RSA is by far the most expensive part of encrypting
+ *     a small file, so a {@link PublicKey} wraps a data key once and then uses
+ *     it until it is older than the rotation period.  Every use of the key
+ *     gets its own nonce, which becomes the nonce prefix described in
+ *     {@link EncryptedFile}; together with the chunk index this keeps every
+ *     GCM IV unique for the key.
+ * </P>
+ */
+public class DataKey {
+    public static final long MAX_USES = 0xFFFFFFFFL;
+
+    private SecretKey secretKey;
+    private byte[] wrappedKey;
+    private long expires;
+    private long uses;
+
+    public SecretKey getSecretKey() {
+        return secretKey;
+    }
+
+    public byte[] getWrappedKey() {
+        return wrappedKey;
+    }
+
+    public long getExpires() {
+        return expires;
+    }
+
+    public DataKey (SecretKey secretKey, byte[] wrappedKey, long expires) {
+        this.secretKey = secretKey;
+        this.wrappedKey = wrappedKey;
+        this.expires = expires;
+    }
+
+    public synchronized boolean isUsable (long now) {
+        return now < expires && uses < MAX_USES;
+    }
+
+    public synchronized int nextNonce () {
+        int nonce = (int) uses;
+        uses++;
+        return nonce;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * The layout of an encrypted file.
+ *
+ * <P>
+ *     The old format was the JSON for an {@link EncryptedMessage}: the whole
+ *     file was encrypted in one piece and then hex encoded, so reading or
+ *     writing a file took several times its size in memory.  The new format
+ *     is binary and is read and written a chunk at a time.
+ * </P>
+ *
+ * <PRE>
+ *     header:
+ *         magic               4 bytes, "MRND"
+ *         version             1 byte
+ *         chunk size          int
+ *         wrapped key length  int
+ *         wrapped key         the AES key, encrypted with the RSA public key
+ *         nonce prefix        4 bytes
+ *     chunks:
+ *         length              int, the length of the ciphertext
+ *         last                1 byte, 1 for the last chunk and 0 otherwise
+ *         ciphertext          the AES/GCM encrypted chunk, including the tag
+ * </PRE>
+ *
+ * <P>
+ *     The IV for a chunk is the nonce prefix followed by the index of the
+ *     chunk, and the index and last flag are authenticated along with the
+ *     chunk, so chunks cannot be reordered, dropped or cut off without
+ *     decryption failing.
+ * </P>
+ */
+public class EncryptedFile {
+    public static final byte[] MAGIC = { 'M', 'R', 'N', 'D' };
+    public static final byte VERSION = 1;
+    public static final int CHUNK_SIZE = 64 * 1024;
+    public static final int KEY_SIZE = 128;
+    public static final int NONCE_PREFIX_LENGTH = 4;
+    public static final int IV_LENGTH = 12;
+    public static final int TAG_LENGTH = 128;
+    public static final int TAG_BYTES = TAG_LENGTH / 8;
+    public static final int MAX_WRAPPED_KEY_LENGTH = 4096;
+
+    public static final String CIPHER = "AES/GCM/NoPadding";
+
+    public static byte[] buildIv (byte[] noncePrefix, long index) {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(IV_LENGTH);
+        byteBuffer.put(noncePrefix);
+        byteBuffer.putLong(index);
+        return byteBuffer.array();
+    }
+
+    public static byte[] buildAad (long index, boolean last) {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(9);
+        byteBuffer.putLong(index);
+        byteBuffer.put(last ? (byte) 1 : (byte) 0);
+        return byteBuffer.array();
+    }
+
+    /**
+     * Is this the start of a file in the chunked format?
+     *
+     * @param start The first bytes of the file.  Files in the old format start with a '{'.
+     */
+    public static boolean hasMagic (byte[] start) {
+        return start.length >= MAGIC.length && Arrays.equals(MAGIC, Arrays.copyOf(start, MAGIC.length));
+    }
+
+    public static void writeFully (WritableByteChannel channel, ByteBuffer byteBuffer) throws IOException {
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+    }
+
+    /**
+     * Fill a buffer from a channel.
+     *
+     * @return The number of bytes read.  This is less than the space in the
+     * buffer only if the channel ran out.
+     */
+    public static int read (ReadableByteChannel channel, ByteBuffer byteBuffer) throws IOException {
+        int total = 0;
+
+        while (byteBuffer.hasRemaining()) {
+            int bytesRead = channel.read(byteBuffer);
+            if (bytesRead < 0)
+                break;
+
+            total += bytesRead;
+        }
+
+        return total;
+    }
+
+    public static void readFully (ReadableByteChannel channel, ByteBuffer byteBuffer) throws IOException {
+        read(channel, byteBuffer);
+
+        if (byteBuffer.hasRemaining())
+            throw new EOFException("Encrypted file is truncated");
+    }
+}
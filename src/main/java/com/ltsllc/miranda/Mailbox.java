@@ -0,0 +1,277 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda;
+
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
+import com.ltsllc.miranda.scheduler.Scheduler;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The queue that a {@link Consumer} gets its messages from.
+ *
+ * <P>
+ *     A Mailbox behaves like a {@link LinkedBlockingQueue} with a few additions.
+ * </P>
+ *
+ * <UL>
+ *     <LI>
+ *         Once its owner is handed to a {@link Scheduler}, every message that
+ *         is added to the mailbox asks the scheduler to run the owner.  Since
+ *         everyone sends messages by putting them on a queue, this is the only
+ *         way for the scheduler to find out that a Consumer has something to do.
+ *     </LI>
+ *     <LI>
+ *         A mailbox can have a capacity.  What happens when a message is put
+ *         into a full mailbox depends on its {@link OverflowPolicies}; the
+ *         default is to shed it.  Only put ever waits for room: offer and add
+ *         never block, whatever the policy.
+ *     </LI>
+ *     <LI>
+ *         A mailbox keeps track of its high water mark and the number of
+ *         messages it has shed so that the status servlet can show which
+ *         subsystem is falling behind.
+ *     </LI>
+ * </UL>
+ *
+ * <P>
+ *     The capacity, overflow policy and batch size for a subsystem are taken
+ *     from com.ltsllc.miranda.mailbox.&lt;name&gt;.Capacity and so on, where the
+ *     spaces in the name of the subsystem are replaced by underscores.  If
+ *     those are not defined the defaults for all mailboxes are used.
+ * </P>
+ */
+public class Mailbox extends LinkedBlockingQueue<Message> {
+    public enum OverflowPolicies {
+        Block, // put waits until there is room
+        Shed // the message is logged and dropped
+    }
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private static Logger logger = Logger.getLogger(Mailbox.class);
+    private static Map<Mailbox, Boolean> ourMailboxes = new WeakHashMap<Mailbox, Boolean>();
+
+    public static synchronized void register (Mailbox mailbox) {
+        ourMailboxes.put(mailbox, Boolean.TRUE);
+    }
+
+    public static synchronized List<Mailbox> getMailboxes () {
+        return new ArrayList<Mailbox>(ourMailboxes.keySet());
+    }
+
+    private transient Consumer owner;
+    private transient volatile Scheduler scheduler;
+    private transient String name;
+    private transient int capacity;
+    private transient OverflowPolicies overflowPolicy;
+    private transient int batchSize;
+    private transient AtomicInteger highWaterMark = new AtomicInteger();
+    private transient AtomicLong shedCount = new AtomicLong();
+
+    public Consumer getOwner() {
+        return owner;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicies getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    public long getShedCount() {
+        return shedCount.get();
+    }
+
+    public Mailbox (Consumer owner) {
+        this(owner, null, UNBOUNDED, OverflowPolicies.Shed, 1);
+    }
+
+    public Mailbox (Consumer owner, String name, int capacity, OverflowPolicies overflowPolicy, int batchSize) {
+        super(capacity);
+
+        this.owner = owner;
+        this.name = name;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+
+        register(this);
+    }
+
+    /**
+     * Build a mailbox for a subsystem, using {@link Miranda#properties} for its settings.
+     *
+     * @param owner The Consumer that will get messages from the mailbox.
+     * @param name The name of the subsystem.
+     * @return The new mailbox.
+     */
+    public static Mailbox build (Consumer owner, String name) {
+        MirandaProperties properties = Miranda.properties;
+
+        int capacity = UNBOUNDED;
+        OverflowPolicies overflowPolicy = OverflowPolicies.Shed;
+        int batchSize = Integer.parseInt(MirandaProperties.DEFAULT_MAILBOX_BATCH_SIZE);
+
+        if (null != properties) {
+            String prefix = MirandaProperties.MAILBOX_PACKAGE;
+            if (null != name)
+                prefix = prefix + name.replace(' ', '_') + ".";
+
+            capacity = getIntSetting(properties, prefix + MirandaProperties.MAILBOX_CAPACITY,
+                    MirandaProperties.PROPERTY_MAILBOX_CAPACITY);
+
+            if (capacity < 1)
+                capacity = UNBOUNDED;
+
+            String value = getSetting(properties, prefix + MirandaProperties.MAILBOX_OVERFLOW_POLICY,
+                    MirandaProperties.PROPERTY_MAILBOX_OVERFLOW_POLICY);
+
+            if (null != value && value.trim().equalsIgnoreCase(OverflowPolicies.Block.toString()))
+                overflowPolicy = OverflowPolicies.Block;
+
+            batchSize = getIntSetting(properties, prefix + MirandaProperties.MAILBOX_BATCH_SIZE,
+                    MirandaProperties.PROPERTY_MAILBOX_BATCH_SIZE);
+
+            if (batchSize < 1)
+                batchSize = 1;
+        }
+
+        return new Mailbox(owner, name, capacity, overflowPolicy, batchSize);
+    }
+
+    public static String getSetting (MirandaProperties properties, String name, String defaultName) {
+        String value = properties.getProperty(name);
+
+        if (null == value)
+            value = properties.getProperty(defaultName);
+
+        return value;
+    }
+
+    public static int getIntSetting (MirandaProperties properties, String name, String defaultName) {
+        String value = getSetting(properties, name, defaultName);
+
+        if (null == value)
+            return 0;
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value for " + name + ": " + value);
+            return 0;
+        }
+    }
+
+    public void messageArrived () {
+        int size = size();
+        int mark = highWaterMark.get();
+
+        while (size > mark && !highWaterMark.compareAndSet(mark, size)) {
+            mark = highWaterMark.get();
+        }
+
+        Scheduler scheduler = getScheduler();
+
+        if (null != scheduler)
+            scheduler.schedule(getOwner());
+    }
+
+    public void shed (Message message) {
+        shedCount.incrementAndGet();
+        logger.warn("The mailbox for " + getName() + " is full, shedding " + message);
+    }
+
+    @Override
+    public void put (Message message) throws InterruptedException {
+        if (getOverflowPolicy() == OverflowPolicies.Shed) {
+            offer(message);
+        } else {
+            super.put(message);
+            messageArrived();
+        }
+    }
+
+    /**
+     * Add a message to the mailbox if there is room.  Like any other queue,
+     * a mailbox never makes the caller of offer wait: if it is full the
+     * message is shed and the method returns false.
+     */
+    @Override
+    public boolean offer (Message message) {
+        boolean result = super.offer(message);
+
+        if (result)
+            messageArrived();
+        else
+            shed(message);
+
+        return result;
+    }
+
+    @Override
+    public boolean offer (Message message, long timeout, TimeUnit unit) throws InterruptedException {
+        boolean result = super.offer(message, timeout, unit);
+
+        if (result)
+            messageArrived();
+        else
+            shed(message);
+
+        return result;
+    }
+
+    /**
+     * Unlike other queues, adding to a full mailbox sheds the message instead
+     * of throwing an exception.
+     */
+    @Override
+    public boolean add (Message message) {
+        return offer(message);
+    }
+}
@@ -22,6 +22,7 @@ import com.ltsllc.miranda.miranda.Miranda;
 import org.apache.log4j.Logger;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by Clark on 12/30/2016.
@@ -31,11 +32,18 @@ public class Message implements Perishable {
         Auction,
         AddObjects,
         AddSession,
+        Acknowledge,
+        AcknowledgeResponse,
+        Append,
         Ballot,
         Broadcast,
+        Bulk,
+        BulkResponse,
+        ChannelHeartbeat,
         CheckSession,
         CheckSessionResponse,
         Close,
+        CloseChannel,
         CloseResponse,
         ClusterFile,
         ClusterFileChanged,
@@ -71,14 +79,18 @@ public class Message implements Perishable {
         DuplicateUser,
         Election,
         EndConversation,
+        EventsPublished,
         Evict,
         ExceptionDuringScanMessage,
         Expired,
         FileChanged,
         FileDoesNotExist,
         FileLoaded,
+        Flush,
         GarbageCollection,
         GetDeliveries,
+        GetEvent,
+        GetEventResponse,
         GetFile,
         GetSubscriptionsFile,
         GetClusterFile,
@@ -105,6 +117,7 @@ public class Message implements Perishable {
         GetVersions,
         GetVersion,
         HealthCheck,
+        Heartbeat,
         HealthCheckUpdate,
         HttpPost,
         Join,
@@ -138,12 +151,20 @@ public class Message implements Perishable {
         NodesUpdated,
         NodeUpdated,
         Notification,
+        OpenChannel,
         OwnerQuery,
         OwnerQueryResponse,
+        Place,
         Panic,
+        Publish,
+        PublishResponse,
         RemoveObjects,
         RemoteVersion,
+        Replicate,
+        ReplicateEvent,
+        Replicated,
         Read,
+        Rebalance,
         ReadResponse,
         Retry,
         Results,
@@ -162,6 +183,8 @@ public class Message implements Perishable {
         Starting,
         Stop,
         Synchronize,
+        SweepRequests,
+        Sync,
         Timeout,
         UnknownHandle,
         UnwatchFile,
@@ -187,11 +210,39 @@ public class Message implements Perishable {
 
     private static Gson ourGson = new Gson();
     private static Logger logger = Logger.getLogger(Message.class);
+    private static AtomicLong ourLastCorrelationId = new AtomicLong();
+
+    /**
+     * Correlation IDs are unique within the process, so a Consumer can tell
+     * its own requests from everyone else's.  They mean nothing to another
+     * node, which is why they are not serialized.
+     */
+    public static long nextCorrelationId () {
+        return ourLastCorrelationId.incrementAndGet();
+    }
 
     private Subjects subject;
     private BlockingQueue<Message> sender;
     private Object senderObject;
     private Exception where;
+    private transient long correlationId;
+    private transient long inReplyTo;
+
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(long correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public long getInReplyTo() {
+        return inReplyTo;
+    }
+
+    public void setInReplyTo(long inReplyTo) {
+        this.inReplyTo = inReplyTo;
+    }
 
     public BlockingQueue<Message> getSender () {
         return sender;
@@ -217,6 +268,7 @@ public class Message implements Perishable {
     }
 
     public void respond (Message m) throws InterruptedException {
+        m.setInReplyTo(getCorrelationId());
         getSender().put(m);
     }
 
@@ -229,8 +281,14 @@ public class Message implements Perishable {
         return ourGson.toJson(this);
     }
 
+    /**
+     * Send a message back to whoever sent this one.  If this message was sent
+     * with {@link Consumer#ask}, the reply is marked so that it completes the
+     * future for the request.
+     */
     public void reply (Message message) {
         try {
+            message.setInReplyTo(getCorrelationId());
             getSender().put(message);
         } catch (InterruptedException e) {
             Panic panic = new Panic("Interrupted trying to send reply.", e, Panic.Reasons.ExceptionSendingMessage);
@@ -52,6 +52,7 @@ public class Panic extends Exception {
         ExceptionPaesingJson,
         ExceptionReceivingMessage,
         ExceptionReadingFile,
+        ExceptionScheduling, // the scheduler refused to run a Consumer
         ExceptionSendingMessage,
         ExceptionStartingServlets,
         ExceptionTryingToCalculateVersion, // an exception was thrown while calculating a new version.
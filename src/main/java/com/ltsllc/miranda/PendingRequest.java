@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request that a {@link Consumer} has sent with {@link Consumer#ask} and
+ * that has not been answered yet.
+ */
+public class PendingRequest {
+    private long correlationId;
+    private long expires;
+    private CompletableFuture<Message> future;
+
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public long getExpires() {
+        return expires;
+    }
+
+    public CompletableFuture<Message> getFuture() {
+        return future;
+    }
+
+    public PendingRequest (long correlationId, long expires) {
+        this.correlationId = correlationId;
+        this.expires = expires;
+        this.future = new CompletableFuture<Message>();
+    }
+
+    public boolean expired (long now) {
+        return now >= getExpires();
+    }
+}
@@ -21,10 +21,18 @@ import com.ltsllc.miranda.util.Utils;
 
 import javax.crypto.Cipher;
 import javax.crypto.CipherOutputStream;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Created by Clark on 4/3/2017.
@@ -41,6 +49,9 @@ public class PrivateKey extends Key {
     }
 
     public static final int RSA_BLOCK_SIZE = 245 - 11;
+    public static final int MAX_CACHED_KEYS = 16;
+
+    private transient Map<ByteBuffer, SecretKey> dataKeys;
 
     public EncryptedMessage encrypt(byte[] plainText) throws GeneralSecurityException {
         throw new GeneralSecurityException("not implemented");
@@ -87,16 +98,12 @@ public class PrivateKey extends Key {
     }
 
     public byte[] decrypt (EncryptedMessage encryptedMessage) throws GeneralSecurityException, IOException {
-        Cipher cipher = Cipher.getInstance("RSA");
-        cipher.init(Cipher.DECRYPT_MODE, getSecurityPrivateKey());
         byte[] cipherText = Utils.hexStringToBytes(encryptedMessage.getMessage());
         byte[] encryptedKey = Utils.hexStringToBytes(encryptedMessage.getKey());
-        byte[] plainTextKey = cipher.doFinal(encryptedKey);
-
-        cipher = Cipher.getInstance("AES");
-        SecretKeySpec secretKeySpec = new SecretKeySpec(plainTextKey, "AES");
+        SecretKey secretKey = unwrap(encryptedKey);
 
-        cipher.init(Cipher.DECRYPT_MODE, secretKeySpec);
+        Cipher cipher = Ciphers.getCipher("AES");
+        cipher.init(Cipher.DECRYPT_MODE, secretKey);
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         CipherOutputStream cipherOutputStream = new CipherOutputStream(byteArrayOutputStream, cipher);
 
@@ -108,6 +115,134 @@ public class PrivateKey extends Key {
             Miranda.panicMiranda(panic);
         }
 
+        Ciphers.decrypted(byteArrayOutputStream.size());
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    public SecretKey unwrap (byte[] wrappedKey) throws GeneralSecurityException {
+        Cipher rsaCipher = Ciphers.getCipher("RSA");
+        rsaCipher.init(Cipher.DECRYPT_MODE, getSecurityPrivateKey());
+        SecretKeySpec secretKeySpec = new SecretKeySpec(rsaCipher.doFinal(wrappedKey), "AES");
+        Ciphers.keyUnwrapped();
+
+        return secretKeySpec;
+    }
+
+    /**
+     * Unwrap a {@link DataKey}.  A data key is used for many files and
+     * journal records, so the last few that we have seen are remembered.
+     */
+    public SecretKey unwrapDataKey (byte[] wrappedKey) throws GeneralSecurityException {
+        ByteBuffer key = ByteBuffer.wrap(wrappedKey);
+
+        synchronized (this) {
+            if (null == dataKeys)
+                dataKeys = new LinkedHashMap<ByteBuffer, SecretKey>(MAX_CACHED_KEYS, 0.75f, true) {
+                    protected boolean removeEldestEntry(Map.Entry<ByteBuffer, SecretKey> eldest) {
+                        return size() > MAX_CACHED_KEYS;
+                    }
+                };
+
+            SecretKey secretKey = dataKeys.get(key);
+            if (null != secretKey)
+                return secretKey;
+        }
+
+        SecretKey secretKey = unwrap(wrappedKey);
+
+        synchronized (this) {
+            dataKeys.put(key, secretKey);
+        }
+
+        return secretKey;
+    }
+
+    public byte[] decrypt (ReadableByteChannel channel) throws GeneralSecurityException, IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        decrypt(channel, byteArrayOutputStream);
         return byteArrayOutputStream.toByteArray();
     }
+
+    /**
+     * Decrypt something in the format described in {@link EncryptedFile}, a
+     * chunk at a time.
+     *
+     * @throws EOFException If the channel ends before the last chunk.
+     */
+    public void decrypt (ReadableByteChannel channel, OutputStream plainText) throws GeneralSecurityException, IOException {
+        ByteBuffer header = ByteBuffer.allocate(EncryptedFile.MAGIC.length + 1 + 4 + 4);
+        EncryptedFile.readFully(channel, header);
+        header.flip();
+
+        byte[] magic = new byte[EncryptedFile.MAGIC.length];
+        header.get(magic);
+        if (!EncryptedFile.hasMagic(magic))
+            throw new IOException("Not an encrypted file");
+
+        byte version = header.get();
+        if (version != EncryptedFile.VERSION)
+            throw new IOException("Unsupported encrypted file version: " + version);
+
+        int chunkSize = header.getInt();
+        int wrappedKeyLength = header.getInt();
+
+        if (chunkSize < 1 || chunkSize > 16 * EncryptedFile.CHUNK_SIZE)
+            throw new IOException("Invalid chunk size: " + chunkSize);
+
+        if (wrappedKeyLength < 1 || wrappedKeyLength > EncryptedFile.MAX_WRAPPED_KEY_LENGTH)
+            throw new IOException("Invalid key length: " + wrappedKeyLength);
+
+        ByteBuffer keyAndNonce = ByteBuffer.allocate(wrappedKeyLength + EncryptedFile.NONCE_PREFIX_LENGTH);
+        EncryptedFile.readFully(channel, keyAndNonce);
+        keyAndNonce.flip();
+
+        byte[] wrappedKey = new byte[wrappedKeyLength];
+        keyAndNonce.get(wrappedKey);
+        byte[] noncePrefix = new byte[EncryptedFile.NONCE_PREFIX_LENGTH];
+        keyAndNonce.get(noncePrefix);
+
+        SecretKey secretKey = unwrapDataKey(wrappedKey);
+
+        Cipher cipher = Ciphers.getCipher(EncryptedFile.CIPHER);
+        long total = 0;
+        ByteBuffer chunkHeader = ByteBuffer.allocate(4 + 1);
+        ByteBuffer cipherText = ByteBuffer.allocate(chunkSize + EncryptedFile.TAG_BYTES);
+        ByteBuffer chunk = ByteBuffer.allocate(chunkSize + EncryptedFile.TAG_BYTES);
+
+        long index = 0;
+        boolean last = false;
+
+        while (!last) {
+            chunkHeader.clear();
+            EncryptedFile.readFully(channel, chunkHeader);
+            chunkHeader.flip();
+
+            int length = chunkHeader.getInt();
+            last = chunkHeader.get() == 1;
+
+            if (length < EncryptedFile.TAG_BYTES || length > cipherText.capacity())
+                throw new IOException("Invalid chunk length: " + length);
+
+            cipherText.clear();
+            cipherText.limit(length);
+            EncryptedFile.readFully(channel, cipherText);
+            cipherText.flip();
+
+            GCMParameterSpec parameterSpec = new GCMParameterSpec(EncryptedFile.TAG_LENGTH,
+                    EncryptedFile.buildIv(noncePrefix, index));
+
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+            cipher.updateAAD(EncryptedFile.buildAad(index, last));
+
+            chunk.clear();
+            cipher.doFinal(cipherText, chunk);
+            plainText.write(chunk.array(), 0, chunk.position());
+            total += chunk.position();
+
+            index++;
+        }
+
+        Ciphers.decrypted(total);
+    }
 }
@@ -17,14 +17,18 @@
 package com.ltsllc.miranda;
 
 import com.google.gson.Gson;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.util.Utils;
 
 import javax.crypto.Cipher;
-import javax.crypto.CipherOutputStream;
-import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
-import java.io.ByteArrayOutputStream;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.security.GeneralSecurityException;
 
 /**
@@ -45,39 +49,163 @@ public class PublicKey extends Key {
 
     public static final int RSA_BLOCK_SIZE = 245;
 
-    public EncryptedMessage encrypt(byte[] plainText) throws GeneralSecurityException {
-        Cipher cipher = Cipher.getInstance("RSA");
-        cipher.init(Cipher.ENCRYPT_MODE, getSecurityPublicKey());
-        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
-        keyGenerator.init(128);
-        SecretKey secretKey = keyGenerator.generateKey();
-        byte[] encryptedKey = cipher.doFinal(secretKey.getEncoded());
-        String encryptedKeyHexString = Utils.bytesToString(encryptedKey);
-
-        cipher = Cipher.getInstance("AES");
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+    private transient DataKey dataKey;
 
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        CipherOutputStream cipherOutputStream = new CipherOutputStream(byteArrayOutputStream, cipher);
+    /**
+     * Encrypt a message in the old, one piece format.
+     *
+     * <P>
+     *     That format has no IV, so every message still gets a key of its own.
+     * </P>
+     */
+    public EncryptedMessage encrypt(byte[] plainText) throws GeneralSecurityException {
+        SecretKey secretKey = Ciphers.generateKey("AES", EncryptedFile.KEY_SIZE);
+        String encryptedKeyHexString = Utils.bytesToString(wrap(secretKey));
 
-        try {
-            cipherOutputStream.write(plainText);
-            cipherOutputStream.close();
-        } catch (IOException e) {
-            Panic panic = new Panic("Exception encrypting data", e, Panic.Reasons.ExceptionEncrypting);
-        }
+        Cipher cipher = Ciphers.getCipher("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+        byte[] cipherText = cipher.doFinal(plainText);
+        Ciphers.encrypted(plainText.length);
 
-        byte[] cipherText = byteArrayOutputStream.toByteArray();
         String cipherTextString = Utils.bytesToString(cipherText);
         EncryptedMessage encryptedMessage = new EncryptedMessage();
         encryptedMessage.setKey(encryptedKeyHexString);
         encryptedMessage.setMessage(cipherTextString);
 
-        String json = gson.toJson(encryptedMessage);
+        return encryptedMessage;
+    }
 
+    public byte[] wrap (SecretKey secretKey) throws GeneralSecurityException {
+        Cipher rsaCipher = Ciphers.getCipher("RSA");
+        rsaCipher.init(Cipher.ENCRYPT_MODE, getSecurityPublicKey());
+        byte[] wrappedKey = rsaCipher.doFinal(secretKey.getEncoded());
+        Ciphers.keyWrapped();
 
+        return wrappedKey;
+    }
 
-        return encryptedMessage;
+    /**
+     * Get the current data key, making a new one if the current one is too old.
+     */
+    public synchronized DataKey getDataKey () throws GeneralSecurityException {
+        long now = System.currentTimeMillis();
+
+        if (null == dataKey || !dataKey.isUsable(now)) {
+            SecretKey secretKey = Ciphers.generateKey("AES", EncryptedFile.KEY_SIZE);
+            dataKey = new DataKey(secretKey, wrap(secretKey), now + getKeyRotationPeriod());
+        }
+
+        return dataKey;
+    }
+
+    public static long getKeyRotationPeriod () {
+        String defaultValue = MirandaProperties.DEFAULT_ENCRYPTION_KEY_ROTATION_PERIOD;
+
+        if (null == Miranda.properties)
+            return Long.parseLong(defaultValue);
+
+        return Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_ENCRYPTION_KEY_ROTATION_PERIOD, defaultValue);
+    }
+
+    public void encrypt (byte[] plainText, WritableByteChannel channel) throws GeneralSecurityException, IOException {
+        encrypt(new ByteArrayInputStream(plainText), channel);
+    }
+
+    /**
+     * Encrypt a stream into the format described in {@link EncryptedFile}.
+     *
+     * <P>
+     *     Only two chunks of plain text and one of cipher text are in memory at
+     *     any one time, no matter how large the stream is.
+     * </P>
+     */
+    public void encrypt (InputStream plainText, WritableByteChannel channel) throws GeneralSecurityException, IOException {
+        DataKey dataKey = null;
+        int nonce = 0;
+
+        synchronized (this) {
+            dataKey = getDataKey();
+            nonce = dataKey.nextNonce();
+        }
+
+        SecretKey secretKey = dataKey.getSecretKey();
+        byte[] wrappedKey = dataKey.getWrappedKey();
+        byte[] noncePrefix = ByteBuffer.allocate(EncryptedFile.NONCE_PREFIX_LENGTH).putInt(nonce).array();
+
+        ByteBuffer header = ByteBuffer.allocate(EncryptedFile.MAGIC.length + 1 + 4 + 4 + wrappedKey.length
+                + noncePrefix.length);
+
+        header.put(EncryptedFile.MAGIC);
+        header.put(EncryptedFile.VERSION);
+        header.putInt(EncryptedFile.CHUNK_SIZE);
+        header.putInt(wrappedKey.length);
+        header.put(wrappedKey);
+        header.put(noncePrefix);
+        header.flip();
+        EncryptedFile.writeFully(channel, header);
+
+        Cipher cipher = Ciphers.getCipher(EncryptedFile.CIPHER);
+        long total = 0;
+        byte[] current = new byte[EncryptedFile.CHUNK_SIZE];
+        byte[] next = new byte[EncryptedFile.CHUNK_SIZE];
+        ByteBuffer chunk = ByteBuffer.allocate(4 + 1 + EncryptedFile.CHUNK_SIZE + EncryptedFile.TAG_BYTES);
+
+        int currentLength = readChunk(plainText, current);
+        long index = 0;
+        boolean last = false;
+
+        while (!last) {
+            //
+            // we have to look ahead to know if this is the last chunk
+            //
+            int nextLength = 0;
+            if (currentLength == current.length)
+                nextLength = readChunk(plainText, next);
+
+            last = nextLength < 1;
+
+            GCMParameterSpec parameterSpec = new GCMParameterSpec(EncryptedFile.TAG_LENGTH,
+                    EncryptedFile.buildIv(noncePrefix, index));
+
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
+            cipher.updateAAD(EncryptedFile.buildAad(index, last));
+
+            chunk.clear();
+            chunk.putInt(cipher.getOutputSize(currentLength));
+            chunk.put(last ? (byte) 1 : (byte) 0);
+            cipher.doFinal(ByteBuffer.wrap(current, 0, currentLength), chunk);
+            chunk.flip();
+            EncryptedFile.writeFully(channel, chunk);
+
+            total += currentLength;
+
+            byte[] temp = current;
+            current = next;
+            next = temp;
+            currentLength = nextLength;
+            index++;
+        }
+
+        Ciphers.encrypted(total);
+    }
+
+    /**
+     * Read until the buffer is full or the stream runs out.
+     *
+     * @return The number of bytes read.
+     */
+    public static int readChunk (InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+
+        while (total < buffer.length) {
+            int bytesRead = inputStream.read(buffer, total, buffer.length - total);
+            if (bytesRead < 0)
+                break;
+
+            total += bytesRead;
+        }
+
+        return total;
     }
 
     public byte[] encrypt (Cipher cipher, SecretKey secretKey, byte[] plainText) throws GeneralSecurityException {
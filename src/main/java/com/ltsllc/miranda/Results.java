@@ -33,6 +33,8 @@ public enum Results {
     SubscriptionNotFound,
     InvalidRequest,
     SessionNotFound,
+    EventNotFound,
+    ChannelNotFound,
     NotOwner,
     FileTooLarge,
     FileNotFound,
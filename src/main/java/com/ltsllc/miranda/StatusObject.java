@@ -72,6 +72,13 @@ public class StatusObject<E extends StatusObject> implements Matchable<E>, Updat
         setStatus(other.getStatus());
     }
 
+    /**
+     * Subclasses that are kept in a {@link com.ltsllc.miranda.file.SingleFile} override this.
+     */
+    public String getKey () {
+        return null;
+    }
+
     public boolean matches (E other) {
         return getStatus() == other.getStatus() && getModified() == other.getModified();
     }
@@ -144,6 +144,9 @@ public abstract class Subsystem implements Runnable,Comparer {
         if (!getQueue().equals(other.getQueue()))
             return false;
 
+        if (null == getThread())
+            return null == other.getThread();
+
         return getThread().equals(other.getThread());
     }
 }
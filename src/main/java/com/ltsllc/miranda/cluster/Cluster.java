@@ -19,21 +19,27 @@ package com.ltsllc.miranda.cluster;
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.State;
 import com.ltsllc.miranda.cluster.messages.*;
-import com.ltsllc.miranda.cluster.networkMessages.NewEventWireMessage;
 import com.ltsllc.miranda.cluster.states.ClusterStartState;
 import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.event.EventManager;
+import com.ltsllc.miranda.event.messages.RebalanceMessage;
 import com.ltsllc.miranda.file.SingleFile;
 import com.ltsllc.miranda.manager.Manager;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.network.Network;
 import com.ltsllc.miranda.node.Node;
 import com.ltsllc.miranda.node.NodeElement;
+import com.ltsllc.miranda.node.RoundTripTimes;
 import com.ltsllc.miranda.node.messages.EndConversationMessage;
 import com.ltsllc.miranda.node.messages.StartConversationMessage;
+import com.ltsllc.miranda.node.FailureDetector;
+import com.ltsllc.miranda.node.networkMessages.HeartbeatWireMessage;
 import com.ltsllc.miranda.node.networkMessages.WireMessage;
 import com.ltsllc.miranda.operations.WriteQuorum;
 import com.ltsllc.miranda.operations.events.AcknowledgeQuorum;
+import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.servlet.cluster.ClusterStatusObject;
+import com.ltsllc.miranda.servlet.cluster.LatencyStatus;
 import com.ltsllc.miranda.servlet.status.GetStatusMessage;
 import com.ltsllc.miranda.servlet.status.NodeStatus;
 import com.ltsllc.miranda.session.AddSessionMessage;
@@ -53,7 +59,9 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 
@@ -74,6 +82,25 @@ public class Cluster extends Manager<Node, NodeElement> {
 
     private Network network;
     private boolean clusterFileResponded;
+    private Map<Topic.RemotePolicies, RoundTripTimes> replicationLatencies = buildReplicationLatencies();
+
+    public static Map<Topic.RemotePolicies, RoundTripTimes> buildReplicationLatencies () {
+        Map<Topic.RemotePolicies, RoundTripTimes> map = new EnumMap<Topic.RemotePolicies, RoundTripTimes>(Topic.RemotePolicies.class);
+
+        for (Topic.RemotePolicies policy : Topic.RemotePolicies.values()) {
+            map.put(policy, new RoundTripTimes());
+        }
+
+        return map;
+    }
+
+    /**
+     * How long replication has taken, by remote policy.  The histograms are
+     * updated by the node threads that complete the replications.
+     */
+    public Map<Topic.RemotePolicies, RoundTripTimes> getReplicationLatencies() {
+        return replicationLatencies;
+    }
 
     public boolean getClusterFileResponded() {
         return clusterFileResponded;
@@ -153,7 +180,249 @@ public class Cluster extends Manager<Node, NodeElement> {
             statusOfNodes.add(status);
         }
 
-        return new ClusterStatusObject(statusOfNodes);
+        ClusterStatusObject clusterStatusObject = new ClusterStatusObject(statusOfNodes);
+
+        for (Topic.RemotePolicies policy : Topic.RemotePolicies.values()) {
+            LatencyStatus latencyStatus = new LatencyStatus(getReplicationLatencies().get(policy));
+            clusterStatusObject.getReplicationLatencies().put(policy.toString(), latencyStatus);
+        }
+
+        return clusterStatusObject;
+    }
+
+    private HashRing ring;
+
+    /**
+     * The key that the other nodes know this node by.
+     */
+    public static String getLocalKey () {
+        if (null == Miranda.properties)
+            return null;
+
+        String dns = Miranda.properties.getProperty(MirandaProperties.PROPERTY_MY_DNS);
+        String port = Miranda.properties.getProperty(MirandaProperties.PROPERTY_MY_PORT);
+
+        if (null == dns || null == port)
+            return null;
+
+        return dns + ":" + port.trim();
+    }
+
+    public static int getCopies () {
+        if (null == Miranda.properties)
+            return Integer.parseInt(MirandaProperties.DEFAULT_CLUSTER_COPIES);
+
+        return (int) Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_COPIES,
+                MirandaProperties.DEFAULT_CLUSTER_COPIES);
+    }
+
+    /**
+     * The number of copies of an event the policies count.  If the cluster is
+     * not partitioned that is one for every member, including the ones that
+     * are down.
+     */
+    public int getRequiredCopies () {
+        if (getCopies() > 0)
+            return getCopies();
+
+        int members = 1;
+        String localKey = getLocalKey();
+
+        for (Node node : getNodes()) {
+            if (null != node.getKey() && !node.getKey().equals(localKey))
+                members++;
+        }
+
+        return members;
+    }
+
+    public HashRing getRing () {
+        if (null == ring)
+            ring = buildRing();
+
+        return ring;
+    }
+
+    /**
+     * Build a ring from this node and the nodes we know the names of.
+     * Nodes that connected to us but have not said who they are yet are left
+     * out until they do, and so are nodes that their failure detectors
+     * suspect.
+     */
+    public HashRing buildRing () {
+        int virtualNodes = Integer.parseInt(MirandaProperties.DEFAULT_CLUSTER_VIRTUAL_NODES);
+
+        if (null != Miranda.properties)
+            virtualNodes = (int) Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_VIRTUAL_NODES,
+                    MirandaProperties.DEFAULT_CLUSTER_VIRTUAL_NODES);
+
+        HashRing hashRing = new HashRing(virtualNodes);
+
+        String localKey = getLocalKey();
+        if (null != localKey)
+            hashRing.add(localKey);
+
+        for (Node node : getNodes()) {
+            if (null != node.getKey() && !node.getFailureDetector().isSuspected())
+                hashRing.add(node.getKey());
+        }
+
+        return hashRing;
+    }
+
+    /**
+     * The membership of the cluster has changed: rebuild the ring and, if it
+     * came out different, have the event manager copy the events whose owners
+     * changed.  Only the events that moved are sent, and they are sent a batch
+     * at a time.
+     */
+    public void ringChanged () {
+        HashRing before = getRing();
+        HashRing after = buildRing();
+
+        if (before.getNodes().equals(after.getNodes()))
+            return;
+
+        ring = after;
+
+        logger.info("The cluster ring is now " + after.getNodes());
+
+        EventManager eventManager = null == Miranda.getInstance() ? null : Miranda.getInstance().getEventManager();
+
+        if (null != eventManager) {
+            RebalanceMessage rebalanceMessage = new RebalanceMessage(getQueue(), this, before.copy(), after.copy(),
+                    getCopies());
+            send(rebalanceMessage, eventManager.getQueue());
+        }
+    }
+
+    /**
+     * The nodes that own a key.  If the cluster is not partitioned that is
+     * every node in the ring.
+     */
+    public List<String> getOwners (String key) {
+        if (getCopies() < 1)
+            return new ArrayList<String>(getRing().getNodes());
+
+        return getRing().getOwners(key, getCopies());
+    }
+
+    public Node findNode (String key) {
+        for (Node node : getNodes()) {
+            if (key.equals(node.getKey()))
+                return node;
+        }
+
+        return null;
+    }
+
+    /**
+     * Send a message to the nodes that own a key, or to a given list of nodes.
+     *
+     * <P>
+     *     This node may be one of the owners; it is skipped, since the caller
+     *     already has the data.  If copies is less than 1 the cluster is not
+     *     partitioned and the message goes to everyone.
+     * </P>
+     */
+    public void place (String key, WireMessage wireMessage, List<String> targets) {
+        if (null == targets) {
+            if (getCopies() < 1) {
+                broadcast(wireMessage);
+                return;
+            }
+
+            targets = getOwners(key);
+        }
+
+        if (targets.size() > 1)
+            wireMessage.share();
+
+        for (String target : targets) {
+            Node node = findNode(target);
+
+            if (null != node && node.isAvailable())
+                node.sendSendNetworkMessage(getQueue(), this, wireMessage);
+        }
+    }
+
+    /**
+     * Start replicating an event to the other nodes that own it.
+     *
+     * <P>
+     *     The event is handed to the replication pipeline of each node, and the
+     *     publisher is told once enough of them have acknowledged it for the
+     *     policy.  With a policy of None the publisher is told straight away
+     *     and the event is still sent, but nobody waits for it.  If fewer
+     *     replicas are available than the policy needs, the publisher is told
+     *     that the replication failed straight away.
+     * </P>
+     */
+    public Replication replicate (Event event, Topic.RemotePolicies policy, BlockingQueue<Message> publisherQueue,
+                                  Object publisher) {
+        return replicate(event, policy, null, publisherQueue, publisher);
+    }
+
+    /**
+     * Replicate an event to some nodes.
+     *
+     * @param targets The nodes to send the event to.  Null means the nodes
+     *                that own the event.
+     */
+    public Replication replicate (Event event, Topic.RemotePolicies policy, List<String> targets,
+                                  BlockingQueue<Message> publisherQueue, Object publisher) {
+        if (null == policy)
+            policy = Topic.RemotePolicies.None;
+
+        if (null == targets)
+            targets = getOwners(event.getGuid());
+
+        List<Node> replicas = new ArrayList<Node>();
+        String localKey = getLocalKey();
+
+        for (String owner : targets) {
+            if (owner.equals(localKey))
+                continue;
+
+            Node node = findNode(owner);
+            if (null != node && node.isAvailable())
+                replicas.add(node);
+        }
+
+        int required = Replication.required(policy, getRequiredCopies());
+        Replication replication = new Replication(event, policy, required, replicas.size(), publisherQueue, publisher);
+        replication.setLatencies(getReplicationLatencies().get(policy));
+
+        for (Node node : replicas) {
+            node.sendReplicateEventMessage(getQueue(), this, replication);
+        }
+
+        replication.check();
+
+        return replication;
+    }
+
+    public void sendReplicateMessage (BlockingQueue<Message> senderQueue, Object sender, Event event,
+                                      Topic.RemotePolicies policy) {
+        ReplicateMessage replicateMessage = new ReplicateMessage(senderQueue, sender, event, policy);
+        sendToMe(replicateMessage);
+    }
+
+    public void sendReplicateMessage (BlockingQueue<Message> senderQueue, Object sender, Event event,
+                                      Topic.RemotePolicies policy, List<String> targets) {
+        ReplicateMessage replicateMessage = new ReplicateMessage(senderQueue, sender, event, policy, targets);
+        sendToMe(replicateMessage);
+    }
+
+    public void sendPlaceMessage (BlockingQueue<Message> senderQueue, Object sender, String key,
+                                  WireMessage wireMessage, List<String> targets) {
+        PlaceMessage placeMessage = new PlaceMessage(senderQueue, sender, key, wireMessage, targets);
+        sendToMe(placeMessage);
+    }
+
+    public void sendBroadcastMessage (BlockingQueue<Message> senderQueue, Object sender, WireMessage wireMessage) {
+        BroadcastMessage broadcastMessage = new BroadcastMessage(senderQueue, sender, wireMessage);
+        sendToMe(broadcastMessage);
     }
 
     public void merge (List<NodeElement> newNodes) {
@@ -175,6 +444,8 @@ public class Cluster extends Manager<Node, NodeElement> {
                 getNodes().add(node);
             }
 
+            ringChanged();
+
             List<NodeElement> nodeList = asNodeElements();
             NodesUpdatedMessage nodesUpdatedMessage = new NodesUpdatedMessage(getQueue(), this, nodeList);
             send(nodesUpdatedMessage, getClusterFile().getQueue());
@@ -192,6 +463,7 @@ public class Cluster extends Manager<Node, NodeElement> {
      */
     public void newNode (Node node) {
         getNodes().add(node);
+        ringChanged();
 
         List<NodeElement> nodeElementList = asNodeElements();
         NodesUpdatedMessage message = new NodesUpdatedMessage(getQueue(), this, nodeElementList);
@@ -211,22 +483,40 @@ public class Cluster extends Manager<Node, NodeElement> {
         getClusterFile().sendLoad(getQueue(), this);
     }
 
+    /**
+     * Tell the cluster file which nodes are alive and which should be dropped.
+     *
+     * <P>
+     *     Only nodes that are connected and not suspected count as alive.  A
+     *     node is dropped once its failure detector has suspected it without
+     *     a break for {@link MirandaProperties#PROPERTY_CLUSTER_TIMEOUT}.
+     * </P>
+     */
     public void performHealthCheck () {
         long now = System.currentTimeMillis();
 
-        boolean updated = false;
-        List<NodeElement> nodeList = new ArrayList<NodeElement>(getNodes().size());
+        long timeout = Long.parseLong(MirandaProperties.DEFAULT_CLUSTER_TIMEOUT);
+        if (null != Miranda.properties)
+            timeout = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_TIMEOUT,
+                    MirandaProperties.DEFAULT_CLUSTER_TIMEOUT);
+
+        List<NodeElement> updates = new ArrayList<NodeElement>();
+        List<NodeElement> drops = new ArrayList<NodeElement>();
+
         for (Node node : getNodes()) {
-            NodeElement nodeElement = node.asNodeElement();
-            if (node.isConnected()) {
+            if (node.isAvailable()) {
+                NodeElement nodeElement = node.asNodeElement();
                 nodeElement.setLastConnected(now);
-                updated = true;
+                updates.add(nodeElement);
+            } else if (node.getFailureDetector().getSuspectedFor(now) >= timeout) {
+                drops.add(node.asNodeElement());
             }
         }
 
-        if (updated) {
-            NodesUpdatedMessage nodesUpdatedMessage = new NodesUpdatedMessage (getQueue(), this, nodeList);
-            send(nodesUpdatedMessage, getFile().getQueue());
+        if (updates.size() > 0 || drops.size() > 0) {
+            HealthCheckUpdateMessage healthCheckUpdateMessage = new HealthCheckUpdateMessage(getQueue(), this,
+                    updates, drops);
+            send(healthCheckUpdateMessage, getFile().getQueue());
         }
     }
 
@@ -274,12 +564,82 @@ public class Cluster extends Manager<Node, NodeElement> {
         sendToMe(sessionsExpiredMessage);
     }
 
+    /**
+     * Send a message to every node.  The message is shared, so it is only
+     * encoded once no matter how many nodes there are.
+     */
     public void broadcast (WireMessage wireMessage) {
+        wireMessage.share();
+
         for (Node node : getNodes()) {
             node.sendSendNetworkMessage (getQueue(), this, wireMessage);
         }
     }
 
+    private boolean heartbeatsScheduled;
+
+    /**
+     * Arrange for a {@link HeartbeatMessage} every heartbeat period.  This
+     * only happens once, no matter how many times the cluster becomes ready.
+     */
+    public synchronized void scheduleHeartbeats () {
+        if (heartbeatsScheduled)
+            return;
+
+        long period = Long.parseLong(MirandaProperties.DEFAULT_CLUSTER_HEARTBEAT_PERIOD);
+
+        if (null != Miranda.properties)
+            period = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_HEARTBEAT_PERIOD,
+                    MirandaProperties.DEFAULT_CLUSTER_HEARTBEAT_PERIOD);
+
+        if (period < 1)
+            return;
+
+        HeartbeatMessage heartbeatMessage = new HeartbeatMessage(getQueue(), this);
+        Miranda.timer.sendSchedulePeriodic(period, getQueue(), heartbeatMessage);
+        heartbeatsScheduled = true;
+    }
+
+    /**
+     * Send a heartbeat to every connected node and check the failure
+     * detectors of all the nodes.
+     *
+     * <P>
+     *     A node that crosses the phi threshold is suspected.  Its connection
+     *     is left alone, but it is taken out of the ring, so it stops owning
+     *     events and being asked to replicate them.  It goes back in as soon
+     *     as we hear from it again.  A node that stays suspected long enough
+     *     is dropped by {@link #performHealthCheck()}.
+     * </P>
+     */
+    public void sendHeartbeats () {
+        long now = System.currentTimeMillis();
+        HeartbeatWireMessage heartbeatWireMessage = new HeartbeatWireMessage(now);
+        heartbeatWireMessage.share();
+
+        boolean changed = false;
+
+        for (Node node : getNodes()) {
+            if (node.isConnected())
+                node.sendSendNetworkMessage(getQueue(), this, heartbeatWireMessage);
+
+            FailureDetector failureDetector = node.getFailureDetector();
+
+            if (failureDetector.update(now)) {
+                changed = true;
+
+                if (failureDetector.isSuspected())
+                    logger.warn("Suspect that " + node.getDns() + ":" + node.getPort() + " has failed, phi = "
+                            + failureDetector.phi(now));
+                else
+                    logger.info(node.getDns() + ":" + node.getPort() + " is no longer suspected");
+            }
+        }
+
+        if (changed)
+            ringChanged();
+    }
+
     public void sendNewUserMessage (BlockingQueue<Message> senderQueue, Object sender, User user) {
         NewUserMessage newUserMessage = new NewUserMessage(senderQueue, sender, user);
         sendToMe(newUserMessage);
@@ -343,10 +703,12 @@ public class Cluster extends Manager<Node, NodeElement> {
         }
     }
 
+    /**
+     * Tell the other nodes about a new event.  Despite the name, the event
+     * only goes to the nodes that own its GUID, which store it.
+     */
     public void sendBroadcastNewEventMessage (BlockingQueue<Message> senderQueue, Object sender, String key, Event event) {
-        NewEventWireMessage newEventWireMessage = new NewEventWireMessage(key, event);
-        BroadcastMessage broadcastMessage = new BroadcastMessage (senderQueue, sender, newEventWireMessage);
-        sendToMe(broadcastMessage);
+        sendReplicateMessage(senderQueue, sender, event, Topic.RemotePolicies.None);
     }
 
     public void sendStartConversationMessage (BlockingQueue<Message> senderQueue, Object sender, String key,
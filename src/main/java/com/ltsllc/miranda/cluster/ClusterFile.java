@@ -139,12 +139,7 @@ public class ClusterFile extends SingleFile<NodeElement> {
             setData(new ArrayList<NodeElement>());
         }
 
-        for (NodeElement element : getData()) {
-            if (element.equals(nodeElement))
-                return true;
-        }
-
-        return false;
+        return null != matchingNode(nodeElement);
     }
 
 
@@ -159,12 +154,7 @@ public class ClusterFile extends SingleFile<NodeElement> {
 
 
     public boolean contains(NodeElement nodeElement) {
-        for (NodeElement element : getData()) {
-            if (element.equals(nodeElement))
-                return true;
-        }
-
-        return false;
+        return null != matchingNode(nodeElement);
     }
 
 
@@ -196,6 +186,7 @@ public class ClusterFile extends SingleFile<NodeElement> {
         for (NodeElement element : getData()) {
             if (element.equals(nodeElement)) {
                 element.setLastConnected(nodeElement.getLastConnected());
+                elementChanged(element);
             }
         }
     }
@@ -209,6 +200,11 @@ public class ClusterFile extends SingleFile<NodeElement> {
      * @return
      */
     public NodeElement matchingNode(NodeElement nodeElement) {
+        if (!getIndexedData().hasDuplicates()) {
+            NodeElement candidate = findByKey(nodeElement.getKey());
+            return (null != candidate && candidate.equals(nodeElement)) ? candidate : null;
+        }
+
         for (NodeElement element : getData())
             if (element.equals(nodeElement))
                 return element;
@@ -225,7 +221,7 @@ public class ClusterFile extends SingleFile<NodeElement> {
 
         NodeElement current = matchingNode(oldValue);
         current.update(newValue);
-        updateVersion();
+        elementChanged(current);
         write();
     }
 
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A consistent hash ring that decides which nodes own a key, such as the
+ * GUID of an event.
+ *
+ * <P>
+ *     Every node is placed on the ring at {@link #getVirtualNodes()} points.
+ *     The owners of a key are the first distinct nodes found going clockwise
+ *     from the point of the key: the first is the owner and the rest are
+ *     replicas.  Adding a node only takes over the keys just before its
+ *     points, so about 1/n of the keys move instead of nearly all of them.
+ * </P>
+ *
+ * <P>
+ *     Nodes are identified by the same key as {@link com.ltsllc.miranda.node.NodeElement}
+ *     (dns:port) so that every node builds the same ring from the cluster
+ *     file.  A ring is not thread safe; use {@link #copy()} to hand one to
+ *     another {@link com.ltsllc.miranda.Consumer}.
+ * </P>
+ */
+public class HashRing {
+    public static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    public static final long FNV_PRIME = 0x100000001b3L;
+
+    private int virtualNodes;
+    private TreeMap<Long, String> ring = new TreeMap<Long, String>();
+    private Set<String> nodes = new TreeSet<String>();
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public HashRing (int virtualNodes) {
+        if (virtualNodes < 1)
+            virtualNodes = 1;
+
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * A 64 bit FNV-1a hash, mixed with the murmur finalizer so that similar
+     * names like "node1:6789#0" and "node1:6789#1" land far apart.
+     */
+    public static long hash (String key) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    public int size () {
+        return getNodes().size();
+    }
+
+    public boolean contains (String node) {
+        return getNodes().contains(node);
+    }
+
+    public void add (String node) {
+        if (!getNodes().add(node))
+            return;
+
+        for (int i = 0; i < getVirtualNodes(); i++) {
+            long point = hash(node + "#" + i);
+
+            //
+            // in the unlikely event of a collision the lower name wins so
+            // that every node makes the same choice
+            //
+            String current = ring.get(point);
+            if (null == current || node.compareTo(current) < 0)
+                ring.put(point, node);
+        }
+    }
+
+    public void remove (String node) {
+        if (!getNodes().remove(node))
+            return;
+
+        Iterator<Map.Entry<Long, String>> iterator = ring.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().equals(node))
+                iterator.remove();
+        }
+
+        //
+        // put back any points the node won from another one
+        //
+        for (String other : new ArrayList<String>(getNodes())) {
+            getNodes().remove(other);
+            add(other);
+        }
+    }
+
+    /**
+     * The nodes that own a key, owner first.
+     *
+     * @param key The key.
+     * @param count The number of copies that should exist.
+     * @return The owners.  This has fewer than count entries when the ring has fewer nodes.
+     */
+    public List<String> getOwners (String key, int count) {
+        List<String> owners = new ArrayList<String>(count);
+
+        if (ring.isEmpty() || count < 1)
+            return owners;
+
+        if (count > size())
+            count = size();
+
+        long point = hash(key);
+
+        for (String node : ring.tailMap(point, true).values()) {
+            if (owners.size() >= count)
+                return owners;
+
+            if (!owners.contains(node))
+                owners.add(node);
+        }
+
+        for (String node : ring.values()) {
+            if (owners.size() >= count)
+                return owners;
+
+            if (!owners.contains(node))
+                owners.add(node);
+        }
+
+        return owners;
+    }
+
+    public String getOwner (String key) {
+        List<String> owners = getOwners(key, 1);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    /**
+     * The nodes that own a key in this ring but did not own it in another one;
+     * in other words, the nodes that a copy has to be sent to when the ring
+     * changes from the other one to this one.
+     */
+    public List<String> getNewOwners (HashRing before, String key, int count) {
+        List<String> owners = getOwners(key, count);
+
+        if (null != before)
+            owners.removeAll(before.getOwners(key, count));
+
+        return owners;
+    }
+
+    public HashRing copy () {
+        HashRing copy = new HashRing(getVirtualNodes());
+        copy.ring.putAll(ring);
+        copy.nodes.addAll(nodes);
+
+        return copy;
+    }
+}
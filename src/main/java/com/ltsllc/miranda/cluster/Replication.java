@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.cluster;
+
+import com.ltsllc.miranda.Consumer;
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.cluster.messages.ReplicatedMessage;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.node.RoundTripTimes;
+import com.ltsllc.miranda.topics.Topic;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The replication of one event to its replicas.
+ *
+ * <P>
+ *     The replicas acknowledge the event from their own threads, so the
+ *     counts are atomic.  As soon as enough replicas have acknowledged the
+ *     event, or so many have failed that enough never will, the publisher
+ *     gets a {@link ReplicatedMessage}.  It only ever gets one.
+ * </P>
+ */
+public class Replication {
+    private Event event;
+    private Topic.RemotePolicies policy;
+    private int required;
+    private int replicas;
+    private long started = System.nanoTime();
+    private BlockingQueue<Message> publisherQueue;
+    private Object publisher;
+    private AtomicInteger acknowledged = new AtomicInteger();
+    private AtomicInteger failed = new AtomicInteger();
+    private AtomicBoolean done = new AtomicBoolean();
+    private RoundTripTimes latencies;
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public Topic.RemotePolicies getPolicy() {
+        return policy;
+    }
+
+    public int getRequired() {
+        return required;
+    }
+
+    public int getReplicas() {
+        return replicas;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public BlockingQueue<Message> getPublisherQueue() {
+        return publisherQueue;
+    }
+
+    public Object getPublisher() {
+        return publisher;
+    }
+
+    public int getAcknowledged() {
+        return acknowledged.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public boolean isDone() {
+        return done.get();
+    }
+
+    /**
+     * The histogram that the latency of a successful replication goes in, or
+     * null if it is not kept.
+     */
+    public RoundTripTimes getLatencies() {
+        return latencies;
+    }
+
+    public void setLatencies(RoundTripTimes latencies) {
+        this.latencies = latencies;
+    }
+
+    public Replication (Event event, Topic.RemotePolicies policy, int required, int replicas,
+                        BlockingQueue<Message> publisherQueue, Object publisher) {
+        this.event = event;
+        this.policy = policy;
+        this.required = required;
+        this.replicas = replicas;
+        this.publisherQueue = publisherQueue;
+        this.publisher = publisher;
+    }
+
+    /**
+     * The number of replicas that have to acknowledge an event for a policy.
+     *
+     * <P>
+     *     None needs no acknowledgements.  The other policies need a majority
+     *     of the copies, counting the copy on this node.  The number does not
+     *     go down when replicas are unavailable: a replication that cannot get
+     *     enough of them fails.
+     * </P>
+     *
+     * @param policy The remote policy of the topic.
+     * @param copies The number of copies, including this one.
+     */
+    public static int required (Topic.RemotePolicies policy, int copies) {
+        if (null == policy || policy == Topic.RemotePolicies.None)
+            return 0;
+
+        return copies / 2;
+    }
+
+    public void acknowledge () {
+        if (acknowledged.incrementAndGet() >= getRequired())
+            complete(true);
+    }
+
+    public void fail () {
+        if (getReplicas() - failed.incrementAndGet() < getRequired())
+            complete(false);
+    }
+
+    /**
+     * Check whether the replication is already decided: it has succeeded when
+     * no acknowledgements are needed, and it has failed when there are fewer
+     * replicas than it needs.
+     */
+    public void check () {
+        if (getAcknowledged() >= getRequired())
+            complete(true);
+        else if (getReplicas() - getFailed() < getRequired())
+            complete(false);
+    }
+
+    public void complete (boolean success) {
+        if (!done.compareAndSet(false, true))
+            return;
+
+        long latency = System.nanoTime() - getStarted();
+
+        if (success && null != getLatencies())
+            getLatencies().record(TimeUnit.NANOSECONDS.toMillis(latency));
+
+        if (null == getPublisherQueue())
+            return;
+
+        ReplicatedMessage replicatedMessage = new ReplicatedMessage(null, this, getEvent().getGuid(), success,
+                getAcknowledged(), latency);
+
+        Consumer.staticSend(replicatedMessage, getPublisherQueue());
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.cluster.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Ask the cluster to send a message to every node.
+ */
+public class BroadcastMessage extends Message {
+    private WireMessage wireMessage;
+
+    public WireMessage getWireMessage() {
+        return wireMessage;
+    }
+
+    public BroadcastMessage (BlockingQueue<Message> senderQueue, Object sender, WireMessage wireMessage) {
+        super(Subjects.Broadcast, senderQueue, sender);
+
+        this.wireMessage = wireMessage;
+    }
+}
@@ -19,22 +19,40 @@ package com.ltsllc.miranda.cluster.messages;
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.node.NodeElement;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
 /**
  * Created by Clark on 2/10/2017.
+ *
+ * <P>
+ *     The result of a health check: the nodes that are alive, whose time of
+ *     last connection should be brought up to date, and the nodes that the
+ *     cluster has given up on and that should be dropped.
+ * </P>
  */
 public class HealthCheckUpdateMessage extends Message {
     private List<NodeElement> updates;
+    private List<NodeElement> drops;
 
     public HealthCheckUpdateMessage (BlockingQueue<Message> senderQueue, Object sender, List<NodeElement> updates) {
+        this(senderQueue, sender, updates, new ArrayList<NodeElement>());
+    }
+
+    public HealthCheckUpdateMessage (BlockingQueue<Message> senderQueue, Object sender, List<NodeElement> updates,
+                                     List<NodeElement> drops) {
         super(Subjects.HealthCheckUpdate, senderQueue, sender);
 
         this.updates = updates;
+        this.drops = drops;
     }
 
     public List<NodeElement> getUpdates() {
         return updates;
     }
+
+    public List<NodeElement> getDrops() {
+        return drops;
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.cluster.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Send a wire message to the nodes that own a key.
+ *
+ * <P>
+ *     If targets is null, the cluster works out the owners from its
+ *     {@link com.ltsllc.miranda.cluster.HashRing}; otherwise the message goes
+ *     to the nodes named in targets.
+ * </P>
+ */
+public class PlaceMessage extends Message {
+    private String key;
+    private WireMessage wireMessage;
+    private List<String> targets;
+
+    public String getKey() {
+        return key;
+    }
+
+    public WireMessage getWireMessage() {
+        return wireMessage;
+    }
+
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    public PlaceMessage (BlockingQueue<Message> senderQueue, Object sender, String key, WireMessage wireMessage,
+                         List<String> targets) {
+        super(Subjects.Place, senderQueue, sender);
+
+        this.key = key;
+        this.wireMessage = wireMessage;
+        this.targets = targets;
+    }
+}
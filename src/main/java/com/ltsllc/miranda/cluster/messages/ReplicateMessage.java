@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.cluster.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.topics.Topic;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Replicate an event to the other nodes that own it, or to a given list of
+ * nodes.  The sender gets a {@link ReplicatedMessage} when the remote policy
+ * has been satisfied.
+ */
+public class ReplicateMessage extends Message {
+    private Event event;
+    private Topic.RemotePolicies policy;
+    private List<String> targets;
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public Topic.RemotePolicies getPolicy() {
+        return policy;
+    }
+
+    /**
+     * The nodes to send the event to, or null for the nodes that own it.
+     */
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    public ReplicateMessage (BlockingQueue<Message> senderQueue, Object sender, Event event,
+                             Topic.RemotePolicies policy) {
+        this(senderQueue, sender, event, policy, null);
+    }
+
+    public ReplicateMessage (BlockingQueue<Message> senderQueue, Object sender, Event event,
+                             Topic.RemotePolicies policy, List<String> targets) {
+        super(Subjects.Replicate, senderQueue, sender);
+
+        this.event = event;
+        this.policy = policy;
+        this.targets = targets;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.cluster.messages;
+
+import com.ltsllc.miranda.Message;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Enough replicas have acknowledged an event to satisfy the remote policy of
+ * its topic, or it has become clear that they never will.
+ */
+public class ReplicatedMessage extends Message {
+    private String guid;
+    private boolean success;
+    private int acknowledgements;
+    private long latency;
+
+    public String getGuid() {
+        return guid;
+    }
+
+    public boolean getSuccess() {
+        return success;
+    }
+
+    public int getAcknowledgements() {
+        return acknowledgements;
+    }
+
+    /**
+     * The time from the start of the replication to this message, in nanoseconds.
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    public ReplicatedMessage (BlockingQueue<Message> senderQueue, Object sender, String guid, boolean success,
+                              int acknowledgements, long latency) {
+        super(Subjects.Replicated, senderQueue, sender);
+
+        this.guid = guid;
+        this.success = success;
+        this.acknowledgements = acknowledgements;
+        this.latency = latency;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.cluster.networkMessages;
+
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+
+/**
+ * The objects that were changed by a {@link BulkMessage}.
+ *
+ * <P>
+ *     The objects are kept as the JSON their file uses, since the kind of
+ *     object is not known until the message is read.
+ * </P>
+ */
+public class BulkWireMessage extends WireMessage {
+    public enum Kinds {
+        Users,
+        Topics,
+        Subscriptions
+    }
+
+    private Kinds kind;
+    private BulkMessage.Operations operation;
+    private String objects;
+
+    public Kinds getKind() {
+        return kind;
+    }
+
+    public BulkMessage.Operations getOperation() {
+        return operation;
+    }
+
+    public String getObjects() {
+        return objects;
+    }
+
+    public BulkWireMessage (Kinds kind, BulkMessage.Operations operation, String objects) {
+        super(WireSubjects.Bulk);
+
+        this.kind = kind;
+        this.operation = operation;
+        this.objects = objects;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.cluster.networkMessages;
+
+import com.ltsllc.miranda.deliveries.DeliveryManager;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+
+import java.util.List;
+
+/**
+ * A batch of events that was published on another node.
+ *
+ * <P>
+ *     Subscribers can have their push channels open on any node, so the node
+ *     that stores a batch sends it to every other node, which hands it to its
+ *     {@link DeliveryManager}.  The events are not stored again.
+ * </P>
+ */
+public class EventsPublishedWireMessage extends WireMessage {
+    private List<Event> events;
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public EventsPublishedWireMessage (List<Event> events) {
+        super(WireSubjects.EventsPublished);
+
+        this.events = events;
+    }
+}
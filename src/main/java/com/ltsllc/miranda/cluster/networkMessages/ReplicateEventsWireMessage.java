@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.cluster.networkMessages;
+
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+import com.ltsllc.miranda.topics.Topic;
+
+import java.util.List;
+
+/**
+ * A batch of events for a replica.
+ *
+ * <P>
+ *     Each event carries a sequence number, unique for the connection, and
+ *     the remote policy of its topic.  The replica answers with a
+ *     {@link ReplicationAcksWireMessage} naming the sequence numbers it has
+ *     acknowledged; events whose policy is None are not acknowledged at all.
+ * </P>
+ */
+public class ReplicateEventsWireMessage extends WireMessage {
+    public static class Entry {
+        private long sequence;
+        private Topic.RemotePolicies policy;
+        private Event event;
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Topic.RemotePolicies getPolicy() {
+            return policy;
+        }
+
+        public Event getEvent() {
+            return event;
+        }
+
+        public Entry (long sequence, Topic.RemotePolicies policy, Event event) {
+            this.sequence = sequence;
+            this.policy = policy;
+            this.event = event;
+        }
+    }
+
+    private List<Entry> entries;
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public ReplicateEventsWireMessage (List<Entry> entries) {
+        super(WireSubjects.ReplicateEvents);
+
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.cluster.networkMessages;
+
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+
+import java.util.List;
+
+/**
+ * The answer to one or more {@link ReplicateEventsWireMessage}s: the sequence
+ * numbers of the events that the replica has, and of the ones it could not
+ * write.
+ */
+public class ReplicationAcksWireMessage extends WireMessage {
+    private List<Long> acknowledged;
+    private List<Long> failed;
+
+    public List<Long> getAcknowledged() {
+        return acknowledged;
+    }
+
+    public List<Long> getFailed() {
+        return failed;
+    }
+
+    public ReplicationAcksWireMessage (List<Long> acknowledged, List<Long> failed) {
+        super(WireSubjects.ReplicationAcks);
+
+        this.acknowledged = acknowledged;
+        this.failed = failed;
+    }
+}
@@ -131,49 +131,36 @@ public class ClusterFileReadyState extends SingleFileReadyState {
     }
 
     /**
-     * This message means that we should update all the matching nodes time
-     * of last conection, and possibly drop the nodes that don't match.  A
-     * node that has not connected in an amount of time (in milliseconds)
-     * specifiede by {@link MirandaProperties#PROPERTY_CLUSTER_TIMEOUT}
-     * should be dropped.
+     * This message means that we should update the time of last connection of
+     * the nodes that are alive and drop the nodes that the cluster has given
+     * up on.  Whether a node is alive is up to the failure detectors in the
+     * cluster, not the time of last connection, so a node that pauses for a
+     * while is not dropped as long as it comes back.
      *
      * @param healthCheckUpdateMessage
      * @return
      */
     private State processHealthCheckUpdateMessage (HealthCheckUpdateMessage healthCheckUpdateMessage) {
-        //
-        // update the time of last connect for nodes in the message
-        //
-        boolean nodesUpdated = false;
+        boolean changed = false;
+
         for (NodeElement nodeElement : healthCheckUpdateMessage.getUpdates()) {
-            NodeElement match = getClusterFile().matchingNode(nodeElement);
-            if (null != match) {
-                match.setLastConnected(System.currentTimeMillis());
-                nodesUpdated = true;
+            if (null != getClusterFile().matchingNode(nodeElement)) {
+                getClusterFile().updateNode(nodeElement);
+                changed = true;
             }
         }
 
-        //
-        // check to see if we should drop any nodes
-        //
-        long timeout = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_TIMEOUT, MirandaProperties.DEFAULT_CLUSTER_TIMEOUT);
-        long now = System.currentTimeMillis();
         List<NodeElement> drops = new ArrayList<NodeElement>();
-        for (NodeElement nodeElement : getClusterFile().getData()) {
-            long timeSinceLastConnect = now - nodeElement.getLastConnected();
-            if (timeSinceLastConnect >= timeout)
-                drops.add(nodeElement);
+        for (NodeElement nodeElement : healthCheckUpdateMessage.getDrops()) {
+            NodeElement match = getClusterFile().matchingNode(nodeElement);
+            if (null != match)
+                drops.add(match);
         }
 
-        //
-        // drop nodes
-        //
         if (drops.size() > 0) {
-            logger.info("dropping nodes that have timed out: " + drops);
+            logger.info("dropping nodes that have failed: " + drops);
             getClusterFile().getData().removeAll(drops);
-
-            getClusterFile().updateVersion();
-            getClusterFile().write();
+            changed = true;
 
             for (NodeElement droppedNode : drops) {
                 DropNodeMessage message = new DropNodeMessage(getClusterFile().getQueue(), this, droppedNode);
@@ -181,16 +168,12 @@ public class ClusterFileReadyState extends SingleFileReadyState {
             }
         }
 
-        //
-        // if we changed anything, update the version and write out the file
-        //
-        if (nodesUpdated || drops.size() > 0) {
+        if (changed) {
             getClusterFile().updateVersion();
             getClusterFile().write();
         }
 
         return this;
-
     }
 
     @Override
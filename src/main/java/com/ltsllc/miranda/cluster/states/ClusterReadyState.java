@@ -69,10 +69,42 @@ public class ClusterReadyState extends ManagerReadyState<Node, NodeElement> {
         return cluster;
     }
 
+    public State start () {
+        State nextState = super.start();
+
+        getCluster().scheduleHeartbeats();
+
+        return nextState;
+    }
+
     public State processMessage(Message m) {
         State nextState = this;
 
         switch (m.getSubject()) {
+            case Replicate: {
+                ReplicateMessage replicateMessage = (ReplicateMessage) m;
+                nextState = processReplicateMessage(replicateMessage);
+                break;
+            }
+
+            case Place: {
+                PlaceMessage placeMessage = (PlaceMessage) m;
+                nextState = processPlaceMessage(placeMessage);
+                break;
+            }
+
+            case Broadcast: {
+                BroadcastMessage broadcastMessage = (BroadcastMessage) m;
+                nextState = processBroadcastMessage(broadcastMessage);
+                break;
+            }
+
+            case Heartbeat: {
+                HeartbeatMessage heartbeatMessage = (HeartbeatMessage) m;
+                nextState = processHeartbeatMessage(heartbeatMessage);
+                break;
+            }
+
             case Load: {
                 LoadMessage loadMessage = (LoadMessage) m;
                 nextState = processLoad(loadMessage);
@@ -258,6 +290,31 @@ public class ClusterReadyState extends ManagerReadyState<Node, NodeElement> {
         return this;
     }
 
+    private State processReplicateMessage (ReplicateMessage replicateMessage) {
+        getCluster().replicate(replicateMessage.getEvent(), replicateMessage.getPolicy(),
+                replicateMessage.getTargets(), replicateMessage.getSender(), replicateMessage.getSenderObject());
+
+        return this;
+    }
+
+    private State processPlaceMessage (PlaceMessage placeMessage) {
+        getCluster().place(placeMessage.getKey(), placeMessage.getWireMessage(), placeMessage.getTargets());
+
+        return this;
+    }
+
+    private State processBroadcastMessage (BroadcastMessage broadcastMessage) {
+        getCluster().broadcast(broadcastMessage.getWireMessage());
+
+        return this;
+    }
+
+    private State processHeartbeatMessage (HeartbeatMessage heartbeatMessage) {
+        getCluster().sendHeartbeats();
+
+        return this;
+    }
+
     private State processHealthCheck (HealthCheckMessage healthCheckMessage) {
         getCluster().performHealthCheck();
 
@@ -287,6 +344,7 @@ public class ClusterReadyState extends ManagerReadyState<Node, NodeElement> {
             } else {
                 logger.info("Dropping node from cluster: " + dropNodeMessage.getDroppedNode());
                 getCluster().getNodes().remove(node);
+                getCluster().ringChanged();
             }
         }
 
@@ -304,6 +362,7 @@ public class ClusterReadyState extends ManagerReadyState<Node, NodeElement> {
 
     private State processNewNodeMessage (NewNodeMessage newNodeMessage) {
         getCluster().getNodes().add(newNodeMessage.getNode());
+        getCluster().ringChanged();
 
         return this;
     }
@@ -86,6 +86,10 @@ public class Delivery implements Perishable, Updateable<Delivery>, Matchable<Del
         throw new IllegalStateException("updateFrom is not applicable for Delivery");
     }
 
+    public String getKey () {
+        return getGuid();
+    }
+
     public boolean matches (Delivery other) {
         return getGuid().equals(other.getGuid());
     }
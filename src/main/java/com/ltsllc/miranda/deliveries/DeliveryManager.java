@@ -16,19 +16,331 @@
 
 package com.ltsllc.miranda.deliveries;
 
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.deliveries.messages.AcknowledgeMessage;
+import com.ltsllc.miranda.deliveries.messages.AcknowledgeResponseMessage;
+import com.ltsllc.miranda.deliveries.messages.ChannelHeartbeatMessage;
+import com.ltsllc.miranda.deliveries.messages.CloseChannelMessage;
+import com.ltsllc.miranda.deliveries.messages.EventsPublishedMessage;
+import com.ltsllc.miranda.deliveries.messages.OpenChannelMessage;
+import com.ltsllc.miranda.directory.MirandaDirectory;
+import com.ltsllc.miranda.event.Event;
 import com.ltsllc.miranda.manager.DirectoryManager;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.reader.Reader;
+import com.ltsllc.miranda.session.Session;
+import com.ltsllc.miranda.subsciptions.Subscription;
+import com.ltsllc.miranda.writer.WriteFailedMessage;
 import com.ltsllc.miranda.writer.Writer;
+import org.apache.log4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Created by Clark on 5/1/2017.
+ *
+ * <P>
+ *     Pushes events to the subscribers that have a {@link PushChannel} open.
+ * </P>
+ *
+ * <P>
+ *     Each channel has a number of credits: how many events may be on their
+ *     way to the client without having been acknowledged.  Events for the
+ *     channel's subscriptions wait here until there are credits for them,
+ *     and whatever can be sent at once goes in one frame.  An acknowledgement
+ *     gives back a credit for each delivery it names, and may add more, so
+ *     a client that keeps up is never stopped while one that falls behind
+ *     only ever has its credits' worth of events in the pipe.  A channel
+ *     whose backlog grows past MaxBacklog is closed.
+ * </P>
+ *
+ * <P>
+ *     A client can also reject a delivery it could not handle.  That gives
+ *     the credit back and puts the event at the end of the backlog, unless
+ *     it has already been pushed MaxAttempts times, in which case it is
+ *     dropped without a {@link Delivery}.
+ * </P>
+ *
+ * <P>
+ *     Each acknowledgement becomes a {@link Delivery} for each event it names,
+ *     and all of them are written in one file.
+ * </P>
  */
 public class DeliveryManager extends DirectoryManager {
     public static final String NAME = "delivery manager";
+    public static final String DELIVERY_FILE = ".delivery";
+
+    private static Logger logger = Logger.getLogger(DeliveryManager.class);
+
+    /**
+     * What the manager knows about one push channel.
+     */
+    public static class Channel {
+        private PushChannel pushChannel;
+        private List<Subscription> subscriptions;
+        private int credits;
+        private LinkedList<PushedEvent> backlog = new LinkedList<PushedEvent>();
+        private Map<String, PushedEvent> unacknowledged = new LinkedHashMap<String, PushedEvent>();
+
+        public PushChannel getPushChannel() {
+            return pushChannel;
+        }
+
+        public List<Subscription> getSubscriptions() {
+            return subscriptions;
+        }
+
+        public int getCredits() {
+            return credits;
+        }
+
+        public void setCredits(int credits) {
+            this.credits = credits;
+        }
+
+        public LinkedList<PushedEvent> getBacklog() {
+            return backlog;
+        }
+
+        public Map<String, PushedEvent> getUnacknowledged() {
+            return unacknowledged;
+        }
+
+        public Channel (PushChannel pushChannel, List<Subscription> subscriptions, int credits) {
+            this.pushChannel = pushChannel;
+            this.subscriptions = subscriptions;
+            this.credits = credits;
+        }
+    }
+
+    private Map<String, Channel> channels = new HashMap<String, Channel>();
+
+    public Map<String, Channel> getChannels() {
+        return channels;
+    }
 
     public DeliveryManager (String directory, int objectLimit, Reader reader, Writer writer) throws IOException {
         super(NAME, directory, objectLimit, reader, writer);
+
+        DeliveryManagerReadyState deliveryManagerReadyState = new DeliveryManagerReadyState(this);
+        setCurrentState(deliveryManagerReadyState);
+    }
+
+    /**
+     * Start the manager, and the heartbeats that keep idle channels open
+     * and find the ones whose clients have gone away.
+     */
+    public void start () {
+        super.start();
+
+        long period = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_DELIVERY_HEARTBEAT_PERIOD,
+                MirandaProperties.DEFAULT_DELIVERY_HEARTBEAT_PERIOD);
+
+        if (period > 0)
+            Miranda.timer.sendSchedulePeriodic(period, getQueue(), new ChannelHeartbeatMessage());
+    }
+
+    public void sendOpenChannelMessage (BlockingQueue<Message> senderQueue, Object sender, PushChannel pushChannel,
+                                        List<Subscription> subscriptions, int credits) {
+        OpenChannelMessage openChannelMessage = new OpenChannelMessage(senderQueue, sender, pushChannel,
+                subscriptions, credits);
+        sendToMe(openChannelMessage);
+    }
+
+    public void sendCloseChannelMessage (BlockingQueue<Message> senderQueue, Object sender, String channelId) {
+        CloseChannelMessage closeChannelMessage = new CloseChannelMessage(senderQueue, sender, channelId);
+        sendToMe(closeChannelMessage);
+    }
+
+    public void sendEventsPublishedMessage (BlockingQueue<Message> senderQueue, Object sender, List<Event> events) {
+        EventsPublishedMessage eventsPublishedMessage = new EventsPublishedMessage(senderQueue, sender, events);
+        sendToMe(eventsPublishedMessage);
+    }
+
+    public void sendAcknowledgeMessage (BlockingQueue<Message> senderQueue, Object sender, Session session,
+                                        String channelId, List<String> deliveryIds, List<String> rejectedIds,
+                                        int credits) {
+        AcknowledgeMessage acknowledgeMessage = new AcknowledgeMessage(senderQueue, sender, session, channelId,
+                deliveryIds, rejectedIds, credits);
+        sendToMe(acknowledgeMessage);
+    }
+
+    public void openChannel (OpenChannelMessage openChannelMessage) {
+        PushChannel pushChannel = openChannelMessage.getChannel();
+
+        if (pushChannel.isClosed())
+            return;
+
+        Channel channel = new Channel(pushChannel, openChannelMessage.getSubscriptions(),
+                Math.max(1, openChannelMessage.getCredits()));
+
+        getChannels().put(pushChannel.getId(), channel);
+        pushChannel.send(new PushFrame(PushFrame.Types.Opened, pushChannel.getId(), null));
+
+        logger.info("Opened push channel " + pushChannel.getId() + " for " + pushChannel.getUserName() + " with "
+                + channel.getSubscriptions().size() + " subscriptions");
+    }
+
+    public void closeChannel (String channelId) {
+        Channel channel = getChannels().remove(channelId);
+
+        if (null == channel)
+            return;
+
+        channel.getPushChannel().close();
+
+        logger.info("Closed push channel " + channelId + " with " + channel.getUnacknowledged().size()
+                + " unacknowledged and " + channel.getBacklog().size() + " waiting events");
+    }
+
+    /**
+     * Queue newly published events for every channel that has a subscription
+     * to their topic.
+     */
+    public void eventsPublished (List<Event> events) {
+        if (getChannels().isEmpty())
+            return;
+
+        long maxBacklog = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_DELIVERY_MAX_BACKLOG,
+                MirandaProperties.DEFAULT_DELIVERY_MAX_BACKLOG);
+
+        List<String> overflowed = new ArrayList<String>();
+
+        for (Channel channel : getChannels().values()) {
+            for (Event event : events) {
+                for (Subscription subscription : channel.getSubscriptions()) {
+                    if (null != event.getTopicName() && event.getTopicName().equals(subscription.getTopic())) {
+                        PushedEvent pushedEvent = new PushedEvent(UUID.randomUUID().toString(),
+                                subscription.getName(), event);
+
+                        channel.getBacklog().add(pushedEvent);
+                    }
+                }
+            }
+
+            if (maxBacklog > 0 && channel.getBacklog().size() > maxBacklog)
+                overflowed.add(channel.getPushChannel().getId());
+            else
+                push(channel);
+        }
+
+        for (String channelId : overflowed) {
+            logger.warn("Push channel " + channelId + " has fallen too far behind");
+            closeChannel(channelId);
+        }
+    }
+
+    /**
+     * Send as many waiting events as the channel has credits for, in one frame.
+     */
+    public void push (Channel channel) {
+        if (channel.getBacklog().isEmpty() || channel.getCredits() <= 0)
+            return;
+
+        List<PushedEvent> events = new ArrayList<PushedEvent>();
+
+        while (channel.getCredits() > 0 && !channel.getBacklog().isEmpty()) {
+            PushedEvent pushedEvent = channel.getBacklog().removeFirst();
+
+            pushedEvent.setAttempts(pushedEvent.getAttempts() + 1);
+            channel.getUnacknowledged().put(pushedEvent.getDeliveryId(), pushedEvent);
+            channel.setCredits(channel.getCredits() - 1);
+            events.add(pushedEvent);
+        }
+
+        PushChannel pushChannel = channel.getPushChannel();
+        pushChannel.send(new PushFrame(PushFrame.Types.Events, pushChannel.getId(), events));
+    }
+
+    public void acknowledge (AcknowledgeMessage acknowledgeMessage) {
+        Channel channel = getChannels().get(acknowledgeMessage.getChannelId());
+        Results result = Results.Success;
+
+        if (null == channel) {
+            result = Results.ChannelNotFound;
+        } else if (!channel.getPushChannel().getUserName().equals(acknowledgeMessage.getSession().getUser().getName())) {
+            result = Results.NotOwner;
+        } else {
+            long now = System.currentTimeMillis();
+            List<Delivery> deliveries = new ArrayList<Delivery>();
+
+            if (null != acknowledgeMessage.getDeliveryIds()) {
+                for (String deliveryId : acknowledgeMessage.getDeliveryIds()) {
+                    PushedEvent pushedEvent = channel.getUnacknowledged().remove(deliveryId);
+
+                    if (null != pushedEvent) {
+                        deliveries.add(new Delivery(deliveryId, pushedEvent.getEvent().getGuid(), now,
+                                pushedEvent.getSubscription()));
+                    }
+                }
+            }
+
+            int rejected = 0;
+
+            if (null != acknowledgeMessage.getRejectedIds()) {
+                long maxAttempts = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_DELIVERY_MAX_ATTEMPTS,
+                        MirandaProperties.DEFAULT_DELIVERY_MAX_ATTEMPTS);
+
+                for (String deliveryId : acknowledgeMessage.getRejectedIds()) {
+                    PushedEvent pushedEvent = channel.getUnacknowledged().remove(deliveryId);
+
+                    if (null == pushedEvent)
+                        continue;
+
+                    rejected++;
+
+                    if (pushedEvent.getAttempts() < maxAttempts) {
+                        channel.getBacklog().add(pushedEvent);
+                    } else {
+                        logger.warn("Dropping delivery " + deliveryId + " of event " + pushedEvent.getEvent().getGuid()
+                                + " after " + pushedEvent.getAttempts() + " attempts");
+                    }
+                }
+            }
+
+            channel.setCredits(channel.getCredits() + deliveries.size() + rejected
+                    + Math.max(0, acknowledgeMessage.getCredits()));
+
+            writeDeliveries(deliveries);
+            push(channel);
+        }
+
+        if (null != acknowledgeMessage.getSender()) {
+            AcknowledgeResponseMessage response = new AcknowledgeResponseMessage(getQueue(), this, result);
+            acknowledgeMessage.reply(response);
+        }
+    }
+
+    public void writeDeliveries (List<Delivery> deliveries) {
+        if (deliveries.isEmpty())
+            return;
+
+        String name = deliveries.get(0).getGuid() + DELIVERY_FILE;
+        String filename = new File(getDirectory().getDirectory(), name).getPath();
+        byte[] data = MirandaDirectory.getGson().toJson(deliveries).getBytes();
+
+        getWriter().sendWrite(getQueue(), this, filename, data);
+    }
+
+    public void writeFailed (WriteFailedMessage writeFailedMessage) {
+        logger.error("Could not write deliveries to " + writeFailedMessage.getFilename(), writeFailedMessage.getCause());
+    }
+
+    public void heartbeat () {
+        for (Channel channel : getChannels().values()) {
+            PushChannel pushChannel = channel.getPushChannel();
+            pushChannel.send(new PushFrame(PushFrame.Types.Heartbeat, pushChannel.getId(), null));
+        }
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.deliveries;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.State;
+import com.ltsllc.miranda.deliveries.messages.AcknowledgeMessage;
+import com.ltsllc.miranda.deliveries.messages.CloseChannelMessage;
+import com.ltsllc.miranda.deliveries.messages.EventsPublishedMessage;
+import com.ltsllc.miranda.deliveries.messages.OpenChannelMessage;
+import com.ltsllc.miranda.writer.WriteFailedMessage;
+
+/**
+ * The state the {@link DeliveryManager} spends its life in.
+ */
+public class DeliveryManagerReadyState extends State {
+    public DeliveryManager getDeliveryManager () {
+        return (DeliveryManager) getContainer();
+    }
+
+    public DeliveryManagerReadyState (DeliveryManager deliveryManager) {
+        super(deliveryManager);
+    }
+
+    public State processMessage (Message message) {
+        State nextState = getDeliveryManager().getCurrentState();
+
+        switch (message.getSubject()) {
+            case OpenChannel: {
+                OpenChannelMessage openChannelMessage = (OpenChannelMessage) message;
+                nextState = processOpenChannelMessage(openChannelMessage);
+                break;
+            }
+
+            case CloseChannel: {
+                CloseChannelMessage closeChannelMessage = (CloseChannelMessage) message;
+                nextState = processCloseChannelMessage(closeChannelMessage);
+                break;
+            }
+
+            case EventsPublished: {
+                EventsPublishedMessage eventsPublishedMessage = (EventsPublishedMessage) message;
+                nextState = processEventsPublishedMessage(eventsPublishedMessage);
+                break;
+            }
+
+            case Acknowledge: {
+                AcknowledgeMessage acknowledgeMessage = (AcknowledgeMessage) message;
+                nextState = processAcknowledgeMessage(acknowledgeMessage);
+                break;
+            }
+
+            case ChannelHeartbeat: {
+                nextState = processChannelHeartbeatMessage();
+                break;
+            }
+
+            case WriteSucceeded: {
+                break;
+            }
+
+            case WriteFailed: {
+                WriteFailedMessage writeFailedMessage = (WriteFailedMessage) message;
+                nextState = processWriteFailedMessage(writeFailedMessage);
+                break;
+            }
+
+            default: {
+                nextState = super.processMessage(message);
+                break;
+            }
+        }
+
+        return nextState;
+    }
+
+    public State processOpenChannelMessage (OpenChannelMessage openChannelMessage) {
+        getDeliveryManager().openChannel(openChannelMessage);
+
+        return getDeliveryManager().getCurrentState();
+    }
+
+    public State processCloseChannelMessage (CloseChannelMessage closeChannelMessage) {
+        getDeliveryManager().closeChannel(closeChannelMessage.getChannelId());
+
+        return getDeliveryManager().getCurrentState();
+    }
+
+    public State processEventsPublishedMessage (EventsPublishedMessage eventsPublishedMessage) {
+        getDeliveryManager().eventsPublished(eventsPublishedMessage.getEvents());
+
+        return getDeliveryManager().getCurrentState();
+    }
+
+    public State processAcknowledgeMessage (AcknowledgeMessage acknowledgeMessage) {
+        getDeliveryManager().acknowledge(acknowledgeMessage);
+
+        return getDeliveryManager().getCurrentState();
+    }
+
+    public State processChannelHeartbeatMessage () {
+        getDeliveryManager().heartbeat();
+
+        return getDeliveryManager().getCurrentState();
+    }
+
+    public State processWriteFailedMessage (WriteFailedMessage writeFailedMessage) {
+        getDeliveryManager().writeFailed(writeFailedMessage);
+
+        return getDeliveryManager().getCurrentState();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.deliveries;
+
+import com.google.gson.Gson;
+import com.ltsllc.miranda.miranda.Miranda;
+import org.apache.log4j.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.UUID;
+
+/**
+ * The response stream of a client that has asked for its events to be
+ * pushed to it.
+ *
+ * <P>
+ *     Frames are written one JSON object per line, using non-blocking
+ *     output: {@link #send(PushFrame)} only queues a frame, and the queue is
+ *     written whenever the container says the stream is ready.  The
+ *     {@link DeliveryManager} sends frames from its own thread, so a slow
+ *     client never holds it up; how much can pile up is limited by the
+ *     client's credits.
+ * </P>
+ *
+ * <P>
+ *     When the stream fails or the container gives up on it, the channel
+ *     tells the DeliveryManager to forget it.
+ * </P>
+ */
+public class PushChannel implements WriteListener, AsyncListener {
+    private static Logger logger = Logger.getLogger(PushChannel.class);
+    private static Gson ourGson = new Gson();
+
+    private String id;
+    private String userName;
+    private AsyncContext asyncContext;
+    private ServletOutputStream outputStream;
+    private LinkedList<byte[]> frames = new LinkedList<byte[]>();
+    private boolean closed;
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public AsyncContext getAsyncContext() {
+        return asyncContext;
+    }
+
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public PushChannel (String userName, AsyncContext asyncContext) throws IOException {
+        this.id = UUID.randomUUID().toString();
+        this.userName = userName;
+        this.asyncContext = asyncContext;
+        this.outputStream = asyncContext.getResponse().getOutputStream();
+
+        asyncContext.setTimeout(0);
+        asyncContext.addListener(this);
+    }
+
+    /**
+     * Start writing.  Frames sent before this are held until the container
+     * says the stream is ready.
+     */
+    public void start () {
+        getOutputStream().setWriteListener(this);
+    }
+
+    public void send (PushFrame pushFrame) {
+        String json = ourGson.toJson(pushFrame) + "\n";
+
+        synchronized (this) {
+            if (closed)
+                return;
+
+            frames.add(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        drain();
+    }
+
+    /**
+     * Write as many frames as the stream will take without blocking.
+     */
+    public void drain () {
+        boolean failed = false;
+
+        synchronized (this) {
+            try {
+                while (!closed && !frames.isEmpty() && getOutputStream().isReady()) {
+                    getOutputStream().write(frames.removeFirst());
+                }
+
+                if (!closed && frames.isEmpty() && getOutputStream().isReady())
+                    getOutputStream().flush();
+            } catch (IOException | IllegalStateException e) {
+                logger.info("Push channel " + getId() + " for " + getUserName() + " failed", e);
+                failed = true;
+            }
+        }
+
+        if (failed)
+            close();
+    }
+
+    public void close () {
+        synchronized (this) {
+            if (closed)
+                return;
+
+            closed = true;
+            frames.clear();
+        }
+
+        try {
+            getAsyncContext().complete();
+        } catch (IllegalStateException e) {
+            // the container has already finished with the request
+        }
+
+        Miranda.getInstance().getDeliveryManager().sendCloseChannelMessage(null, this, getId());
+    }
+
+    public void onWritePossible () {
+        drain();
+    }
+
+    public void onError (Throwable throwable) {
+        logger.info("Push channel " + getId() + " for " + getUserName() + " failed", throwable);
+        close();
+    }
+
+    public void onComplete (AsyncEvent asyncEvent) {
+        close();
+    }
+
+    public void onTimeout (AsyncEvent asyncEvent) {
+        close();
+    }
+
+    public void onError (AsyncEvent asyncEvent) {
+        onError(asyncEvent.getThrowable());
+    }
+
+    public void onStartAsync (AsyncEvent asyncEvent) {}
+}
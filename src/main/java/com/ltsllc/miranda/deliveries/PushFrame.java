@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.deliveries;
+
+import java.util.List;
+
+/**
+ * One line of the stream that a {@link PushChannel} writes.
+ *
+ * <P>
+ *     The first frame on a channel is Opened and tells the client the id of
+ *     the channel, which it needs to acknowledge events.  After that come
+ *     Events frames, and Heartbeat frames when there is nothing else to send.
+ * </P>
+ */
+public class PushFrame {
+    public enum Types {
+        Opened,
+        Events,
+        Heartbeat
+    }
+
+    private Types type;
+    private String channel;
+    private List<PushedEvent> events;
+
+    public Types getType() {
+        return type;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public List<PushedEvent> getEvents() {
+        return events;
+    }
+
+    public PushFrame (Types type, String channel, List<PushedEvent> events) {
+        this.type = type;
+        this.channel = channel;
+        this.events = events;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.deliveries;
+
+import com.ltsllc.miranda.event.Event;
+
+/**
+ * An event on its way to a subscription over a {@link PushChannel}.  The
+ * client acknowledges it by its deliveryId, which becomes the guid of the
+ * {@link Delivery}.
+ */
+public class PushedEvent {
+    private String deliveryId;
+    private String subscription;
+    private Event event;
+    private int attempts;
+
+    public String getDeliveryId() {
+        return deliveryId;
+    }
+
+    public String getSubscription() {
+        return subscription;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * How many times the event has been pushed.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public PushedEvent (String deliveryId, String subscription, Event event) {
+        this.deliveryId = deliveryId;
+        this.subscription = subscription;
+        this.event = event;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.deliveries.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.session.Session;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A client has received some pushed events.
+ *
+ * <P>
+ *     Every acknowledged delivery gives its credit back to the channel;
+ *     credits is how many more the client is willing to have outstanding on
+ *     top of that.  Rejected deliveries are ones the client could not
+ *     handle; they give their credit back too, and are pushed again.
+ * </P>
+ */
+public class AcknowledgeMessage extends Message {
+    private Session session;
+    private String channelId;
+    private List<String> deliveryIds;
+    private List<String> rejectedIds;
+    private int credits;
+
+    public Session getSession() {
+        return session;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public List<String> getDeliveryIds() {
+        return deliveryIds;
+    }
+
+    public List<String> getRejectedIds() {
+        return rejectedIds;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+
+    public AcknowledgeMessage (BlockingQueue<Message> senderQueue, Object sender, Session session, String channelId,
+                               List<String> deliveryIds, List<String> rejectedIds, int credits) {
+        super(Subjects.Acknowledge, senderQueue, sender);
+
+        this.session = session;
+        this.channelId = channelId;
+        this.deliveryIds = deliveryIds;
+        this.rejectedIds = rejectedIds;
+        this.credits = credits;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.deliveries.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.event.Event;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Events that have been stored and can be delivered.
+ */
+public class EventsPublishedMessage extends Message {
+    private List<Event> events;
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public EventsPublishedMessage (BlockingQueue<Message> senderQueue, Object sender, List<Event> events) {
+        super(Subjects.EventsPublished, senderQueue, sender);
+
+        this.events = events;
+    }
+}
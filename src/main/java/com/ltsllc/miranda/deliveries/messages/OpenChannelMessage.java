@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.deliveries.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.deliveries.PushChannel;
+import com.ltsllc.miranda.subsciptions.Subscription;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Start pushing the events for some subscriptions over a channel.  Credits
+ * is the number of events that may be sent before the client acknowledges
+ * any of them.
+ */
+public class OpenChannelMessage extends Message {
+    private PushChannel channel;
+    private List<Subscription> subscriptions;
+    private int credits;
+
+    public PushChannel getChannel() {
+        return channel;
+    }
+
+    public List<Subscription> getSubscriptions() {
+        return subscriptions;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+
+    public OpenChannelMessage (BlockingQueue<Message> senderQueue, Object sender, PushChannel channel,
+                               List<Subscription> subscriptions, int credits) {
+        super(Subjects.OpenChannel, senderQueue, sender);
+
+        this.channel = channel;
+        this.subscriptions = subscriptions;
+        this.credits = credits;
+    }
+}
@@ -19,12 +19,18 @@ package com.ltsllc.miranda.directory;
 import com.google.gson.Gson;
 import com.ltsllc.miranda.file.MirandaFile;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.miranda.StartupTimes;
 import com.ltsllc.miranda.reader.Reader;
 import com.ltsllc.miranda.writer.Writer;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -117,8 +123,13 @@ abstract public class MirandaDirectory<T extends DirectoryEntry> extends Miranda
         sendToMe(exceptionDuringScanMessage);
     }
 
+    /**
+     * Ask the reader for every file in the directory.  The reader works on
+     * several of them at once.
+     */
     public void load() throws IOException {
         List<String> list = scan();
+        StartupTimes.started(getDirectoryName(), list.size());
 
         for (String filename : list) {
             getReader().sendReadMessage(getQueue(), this, filename);
@@ -131,30 +142,29 @@ abstract public class MirandaDirectory<T extends DirectoryEntry> extends Miranda
         return list;
     }
 
-    public void scan(String filename, List<String> list) throws IOException {
+    public void scan(String filename, final List<String> list) throws IOException {
         File file = new File(filename);
 
-        if (file.isDirectory()) {
-            scanDirectory(filename, list);
-        } else if (file.exists() && isInteresting(filename)) {
-            list.add(filename);
-        }
-    }
-
-    public void scanDirectory(String directoryName, List<String> list) throws IOException {
-        File directory = new File(directoryName);
-        if (!directory.isDirectory())
+        if (!file.exists())
             return;
 
-        String canonicalPath = directory.getCanonicalPath();
-        String[] contents = directory.list();
-        for (String entry : contents) {
-            String fullName = canonicalPath + File.pathSeparator + entry;
-            scan(fullName, list);
-        }
+        SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                String name = path.toString();
+
+                if (attributes.isRegularFile() && isInteresting(name))
+                    list.add(name);
+
+                return FileVisitResult.CONTINUE;
+            }
+        };
+
+        Files.walkFileTree(file.toPath(), visitor);
     }
 
     public void fileLoaded(String filename, byte[] data) {
+        StartupTimes.loaded(getDirectoryName(), data.length);
+
         String json = new String(data);
         List<T> list = new ArrayList<T>();
 
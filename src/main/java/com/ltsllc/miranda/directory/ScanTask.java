@@ -18,6 +18,11 @@ package com.ltsllc.miranda.directory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -55,17 +60,16 @@ public class ScanTask implements Runnable {
         }
     }
 
-    public void walk (File file, List<File> files) throws IOException {
-        String[] listing = file.list();
-        for (String name : listing) {
-            File newFile = new File (file.getCanonicalFile(), name);
-            if (getMirandaDirectory().isInteresting(name)) {
-                files.add(newFile);
-            }
+    public void walk (File file, final List<File> files) throws IOException {
+        SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                if (getMirandaDirectory().isInteresting(path.getFileName().toString()))
+                    files.add(path.toFile());
 
-            if (newFile.isDirectory()) {
-                walk (newFile, files);
+                return FileVisitResult.CONTINUE;
             }
-        }
+        };
+
+        Files.walkFileTree(file.getCanonicalFile().toPath(), visitor);
     }
 }
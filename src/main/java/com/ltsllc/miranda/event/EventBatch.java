@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.event;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The binary form of a batch of events that are published together.
+ *
+ * <P>
+ *     A batch is the number of events followed by, for each event, its
+ *     method as one byte, the length of its content (-1 if there is none)
+ *     and the content itself.  The whole thing may be gzipped.  Only the
+ *     method and the content are sent; the rest of an event is filled in by
+ *     the server.
+ * </P>
+ */
+public class EventBatch {
+    public enum Compression {
+        None,
+        Gzip
+    }
+
+    public static final int NO_CONTENT = -1;
+    public static final int BUFFER_SIZE = 8192;
+    public static final int DEFAULT_MAX_SIZE = 16777216; // 16MB, uncompressed
+
+    /**
+     * The bytes of each event that are there even if it has no content: the
+     * method and the length.
+     */
+    public static final int EVENT_OVERHEAD = 5;
+
+    /**
+     * Batches are compressed on the publish path, where speed matters more
+     * than the last few percent of size.
+     */
+    public static class FastGZIPOutputStream extends GZIPOutputStream {
+        public FastGZIPOutputStream (OutputStream outputStream) throws IOException {
+            super(outputStream, BUFFER_SIZE);
+
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    /**
+     * A stream that refuses to give out more than a certain number of bytes,
+     * so a small gzipped batch cannot turn into a huge one.
+     */
+    public static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        public long getRemaining() {
+            return remaining;
+        }
+
+        public LimitedInputStream (InputStream inputStream, long limit) {
+            super(inputStream);
+
+            this.remaining = limit;
+        }
+
+        public int read () throws IOException {
+            int value = super.read();
+
+            if (value != -1)
+                consumed(1);
+
+            return value;
+        }
+
+        public int read (byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+
+            if (count > 0)
+                consumed(count);
+
+            return count;
+        }
+
+        public long skip (long count) throws IOException {
+            long skipped = super.skip(count);
+            consumed(skipped);
+            return skipped;
+        }
+
+        private void consumed (long count) throws IOException {
+            remaining -= count;
+
+            if (remaining < 0)
+                throw new IOException("Batch is too large");
+        }
+    }
+
+    public static byte[] encode (List<Event> events, Compression compression) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        OutputStream outputStream = byteArrayOutputStream;
+
+        if (compression == Compression.Gzip)
+            outputStream = new BufferedOutputStream(new FastGZIPOutputStream(outputStream), BUFFER_SIZE);
+
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeInt(events.size());
+
+        for (Event event : events) {
+            Event.Methods method = event.getMethod();
+            if (null == method)
+                method = Event.Methods.Unknown;
+
+            dataOutputStream.writeByte(method.ordinal());
+
+            if (null == event.getContent()) {
+                dataOutputStream.writeInt(NO_CONTENT);
+            } else {
+                dataOutputStream.writeInt(event.getContent().length);
+                dataOutputStream.write(event.getContent());
+            }
+        }
+
+        dataOutputStream.close();
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    public static List<Event> decode (byte[] data, Compression compression, String userName, String topicName)
+            throws IOException {
+        return decode(data, compression, userName, topicName, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Turn a batch back into events.  The events get new guids and the
+     * current time; the caller supplies the rest.
+     *
+     * <P>
+     *     Nothing in the batch is trusted: the count and the lengths are
+     *     checked against what is left of it before anything is allocated,
+     *     and a batch that is more than maxSize bytes once it is uncompressed
+     *     is rejected.
+     * </P>
+     */
+    public static List<Event> decode (byte[] data, Compression compression, String userName, String topicName,
+                                      long maxSize) throws IOException {
+        InputStream inputStream = new ByteArrayInputStream(data);
+        long limit = data.length;
+
+        if (compression == Compression.Gzip) {
+            inputStream = new BufferedInputStream(new GZIPInputStream(inputStream, BUFFER_SIZE), BUFFER_SIZE);
+            limit = maxSize;
+        } else if (data.length > maxSize) {
+            throw new IOException("Batch is too large: " + data.length);
+        }
+
+        LimitedInputStream limitedInputStream = new LimitedInputStream(inputStream, limit);
+        DataInputStream dataInputStream = new DataInputStream(limitedInputStream);
+
+        try {
+            int count = dataInputStream.readInt();
+            if (count < 0 || count > limitedInputStream.getRemaining() / EVENT_OVERHEAD)
+                throw new IOException("Invalid event count: " + count);
+
+            Event.Methods[] methods = Event.Methods.values();
+            List<Event> events = new ArrayList<Event>(count);
+            long now = System.currentTimeMillis();
+
+            for (int i = 0; i < count; i++) {
+                int ordinal = dataInputStream.readUnsignedByte();
+                if (ordinal >= methods.length)
+                    throw new IOException("Invalid method: " + ordinal);
+
+                int length = dataInputStream.readInt();
+                byte[] content = null;
+
+                if (length != NO_CONTENT) {
+                    if (length < 0 || length > limitedInputStream.getRemaining())
+                        throw new IOException("Invalid content length: " + length);
+
+                    content = new byte[length];
+                    dataInputStream.readFully(content);
+                }
+
+                Event event = new Event(userName, UUID.randomUUID().toString(), topicName, now,
+                        methods[ordinal], content);
+
+                events.add(event);
+            }
+
+            return events;
+        } finally {
+            dataInputStream.close();
+        }
+    }
+}
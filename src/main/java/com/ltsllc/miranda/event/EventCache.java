@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.event;
+
+import java.util.*;
+
+/**
+ * The events that are in memory.
+ *
+ * <P>
+ *     A file of events is decrypted all at once, so the cache works a file at
+ *     a time: a page is the events from one file.  Pages are kept in least
+ *     recently used order; when the cache holds more than its capacity in
+ *     events, the least recently used pages are dropped.  Pages that have not
+ *     been used for a while are also dropped when the event manager evicts.
+ *     Dropping a page loses nothing, since the events can be read from their
+ *     file again.
+ * </P>
+ */
+public class EventCache {
+    public static class Page {
+        private String filename;
+        private Map<String, Event> events;
+        private long lastUsed;
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public Map<String, Event> getEvents() {
+            return events;
+        }
+
+        public long getLastUsed() {
+            return lastUsed;
+        }
+
+        public void touch () {
+            lastUsed = System.currentTimeMillis();
+        }
+
+        public Page (String filename, List<Event> list) {
+            this.filename = filename;
+            this.events = new HashMap<String, Event>(list.size() * 2);
+
+            for (Event event : list) {
+                events.put(event.getGuid(), event);
+            }
+
+            touch();
+        }
+    }
+
+    private int capacity;
+    private int size;
+    private LinkedHashMap<String, Page> pages = new LinkedHashMap<String, Page>(16, 0.75f, true);
+    private EventIndex index;
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size () {
+        return size;
+    }
+
+    public EventIndex getIndex() {
+        return index;
+    }
+
+    public EventCache (int capacity, EventIndex index) {
+        this.capacity = capacity;
+        this.index = index;
+    }
+
+    public synchronized void put (String filename, List<Event> events) {
+        Page old = pages.remove(filename);
+        if (null != old)
+            size -= old.getEvents().size();
+
+        Page page = new Page(filename, events);
+        pages.put(filename, page);
+        size += page.getEvents().size();
+
+        trim();
+    }
+
+    /**
+     * Drop least recently used pages until we are within our capacity.  The
+     * page that was used last is always kept, even if it is bigger than the
+     * capacity by itself.
+     */
+    public void trim () {
+        Iterator<Page> iterator = pages.values().iterator();
+
+        while (size > getCapacity() && pages.size() > 1 && iterator.hasNext()) {
+            Page page = iterator.next();
+            size -= page.getEvents().size();
+            iterator.remove();
+        }
+    }
+
+    public synchronized Event get (String guid) {
+        String filename = getIndex().getFilename(guid);
+        if (null == filename)
+            return null;
+
+        Page page = pages.get(filename);
+        if (null == page)
+            return null;
+
+        page.touch();
+        return page.getEvents().get(guid);
+    }
+
+    public synchronized boolean containsPage (String filename) {
+        return pages.containsKey(filename);
+    }
+
+    /**
+     * Drop the pages that have not been used since a given time.
+     *
+     * @return The number of events dropped.
+     */
+    public synchronized int evict (long notUsedSince) {
+        int count = 0;
+        Iterator<Page> iterator = pages.values().iterator();
+
+        while (iterator.hasNext()) {
+            Page page = iterator.next();
+
+            if (page.getLastUsed() < notUsedSince) {
+                count += page.getEvents().size();
+                iterator.remove();
+            }
+        }
+
+        size -= count;
+        return count;
+    }
+
+    public synchronized void remove (String filename) {
+        Page page = pages.remove(filename);
+        if (null != page)
+            size -= page.getEvents().size();
+    }
+
+    public synchronized List<Event> getEvents () {
+        List<Event> list = new ArrayList<Event>(size);
+
+        for (Page page : pages.values()) {
+            list.addAll(page.getEvents().values());
+        }
+
+        return list;
+    }
+}
@@ -17,31 +17,72 @@
 package com.ltsllc.miranda.event;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import com.ltsllc.miranda.directory.MirandaDirectory;
 import com.ltsllc.miranda.directory.MirandaDirectoryLoadingState;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.miranda.StartupTimes;
 import com.ltsllc.miranda.reader.Reader;
 import com.ltsllc.miranda.writer.Writer;
+import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
- * Created by Clark on 5/13/2017.
+ * The events on disk.
+ *
+ * <P>
+ *     Only the {@link EventIndex} is kept for every event.  The events
+ *     themselves are in an {@link EventCache} that holds at most objectLimit
+ *     events; the rest are read from their files when someone asks for them.
+ *     Going over the limit therefore costs a read instead of losing events.
+ * </P>
+ *
+ * <P>
+ *     The index is saved in {@link #INDEX_FILE} by the event manager.  When
+ *     it is there, startup reads it and then only the event files that it
+ *     does not cover or that have changed since it was saved.  The index
+ *     still holds every GUID in memory once it is loaded.
+ * </P>
  */
 public class EventDirectory extends MirandaDirectory<Event> {
+    private static Logger logger = Logger.getLogger(EventDirectory.class);
     private static Gson gson = new Gson();
 
+    private EventIndex index;
+    private EventCache cache;
+
+    public synchronized EventIndex getIndex() {
+        if (null == index)
+            index = new EventIndex();
+
+        return index;
+    }
+
+    public synchronized EventCache getCache() {
+        if (null == cache)
+            cache = new EventCache(getObjectLimit(), getIndex());
+
+        return cache;
+    }
+
     public byte[] getBytes () {
         throw new RuntimeException("not implemented");
     }
 
+    /**
+     * The events that are in memory right now; not every event in the directory.
+     */
     public List getData () {
-        return new ArrayList(getMap().values());
+        return getCache().getEvents();
     }
 
     public EventDirectory (String directoryName, int objectLimit, Reader reader, Writer writer) throws IOException {
@@ -52,6 +93,67 @@ public class EventDirectory extends MirandaDirectory<Event> {
     }
 
     public static final String EVENT_FILE = ".event";
+    public static final String INDEX_FILE = "events.index";
+
+    public String getIndexFilename () {
+        return new File(getDirectory(), INDEX_FILE).getPath();
+    }
+
+    public Type getIndexType () {
+        return new TypeToken<List<EventIndex.FileEntry>>(){}.getType();
+    }
+
+    /**
+     * Read the saved index if there is one, and every file otherwise.
+     */
+    public void load () throws IOException {
+        File indexFile = new File(getIndexFilename());
+
+        if (!indexFile.isFile()) {
+            super.load();
+            return;
+        }
+
+        StartupTimes.started(getDirectoryName(), scan().size());
+        getReader().sendReadMessage(getQueue(), this, indexFile.getPath());
+    }
+
+    /**
+     * The saved index has been read: take the files it describes as they
+     * are and read the rest.
+     */
+    public void indexLoaded (byte[] data) throws IOException {
+        Map<String, EventIndex.FileEntry> entries = new HashMap<String, EventIndex.FileEntry>();
+
+        try {
+            List<EventIndex.FileEntry> list = gson.fromJson(new String(data), getIndexType());
+
+            if (null != list) {
+                for (EventIndex.FileEntry entry : list) {
+                    entries.put(new File(entry.getFilename()).getCanonicalPath(), entry);
+                }
+            }
+        } catch (JsonParseException e) {
+            logger.warn("Could not parse " + getIndexFilename() + ", reading every event file", e);
+        }
+
+        for (String filename : scan()) {
+            File file = new File(filename);
+            EventIndex.FileEntry entry = entries.get(filename);
+
+            if (null == entry || !entry.matches(file)) {
+                getReader().sendReadMessage(getQueue(), this, filename);
+            } else {
+                StartupTimes.loaded(getDirectoryName(), 0);
+                getIndex().addGuids(filename, entry.getGuids());
+
+                if (!getFiles().contains(file))
+                    getFiles().add(file);
+
+                Miranda.fileWatcher.sendWatchMessage(getQueue(), this, file);
+            }
+        }
+    }
 
     public boolean isInteresting (String name) {
         return name.endsWith(EVENT_FILE);
@@ -61,19 +163,50 @@ public class EventDirectory extends MirandaDirectory<Event> {
         return new TypeToken<List<Event>>(){}.getType();
     }
 
-    public void addFile (String filename, byte[] data) {
-        if (getMap().size() >= getObjectLimit())
-            return;
-
+    public List<Event> parse (byte[] data) {
         String json = new String(data);
         List<Event> list = gson.fromJson(json, getListType());
-        for (Event event : list) {
-            add(event);
-        }
+
+        if (null == list)
+            list = new ArrayList<Event>();
+
+        return list;
+    }
+
+    /**
+     * Index the events in a file and keep them while there is room.
+     */
+    public void addFile (String filename, byte[] data) {
+        StartupTimes.loaded(getDirectoryName(), data.length);
+
+        List<Event> list = parse(data);
+        getIndex().addAll(filename, list);
+        getCache().put(filename, list);
 
         File file = new File(filename);
-        getFiles().add(file);
+        if (!getFiles().contains(file))
+            getFiles().add(file);
 
         fireFileLoaded();
     }
+
+    public void fileLoaded (String filename, byte[] data) {
+        if (filename.equals(getIndexFilename())) {
+            try {
+                indexLoaded(data);
+            } catch (IOException e) {
+                logger.error("Exception scanning " + getDirectoryName(), e);
+            }
+
+            return;
+        }
+
+        StartupTimes.loaded(getDirectoryName(), data.length);
+
+        List<Event> list = parse(data);
+        getIndex().addAll(filename, list);
+        getCache().put(filename, list);
+
+        Miranda.fileWatcher.sendWatchMessage(getQueue(), this, new File(filename));
+    }
 }
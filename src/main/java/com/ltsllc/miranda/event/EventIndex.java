@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.event;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Where to find each event: the GUID of every event the directory has, and
+ * the file that holds it.
+ *
+ * <P>
+ *     The index is all that is kept for an event that is not in the
+ *     {@link EventCache}, so it stores no more than the GUID and a shared
+ *     reference to the name of the file.  It is used by both the directory
+ *     and the event manager, so it is thread safe.
+ * </P>
+ *
+ * <P>
+ *     The index is saved as a list of {@link FileEntry}s, so that at startup
+ *     only the files that changed since it was saved have to be read.
+ * </P>
+ */
+public class EventIndex {
+    /**
+     * The events in one file, as the index is saved.  The size and time of
+     * the file tell whether it has changed since.
+     */
+    public static class FileEntry {
+        private String filename;
+        private long lastModified;
+        private long length;
+        private List<String> guids = new ArrayList<String>();
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public List<String> getGuids() {
+            return guids;
+        }
+
+        public FileEntry (File file) {
+            this.filename = file.getPath();
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        /**
+         * Is the file still the one that was indexed?
+         */
+        public boolean matches (File file) {
+            return file.isFile() && file.lastModified() == getLastModified() && file.length() == getLength();
+        }
+    }
+
+    private Map<String, String> guidToFile = new ConcurrentHashMap<String, String>();
+    private Map<String, String> filenames = new ConcurrentHashMap<String, String>();
+    private AtomicBoolean changed = new AtomicBoolean();
+
+    public int size () {
+        return guidToFile.size();
+    }
+
+    public String getFilename (String guid) {
+        return guidToFile.get(guid);
+    }
+
+    public boolean contains (String guid) {
+        return guidToFile.containsKey(guid);
+    }
+
+    /**
+     * Record the events in a file.  The events that were in an earlier version
+     * of the file stay in the index; an event is never moved out of a file.
+     */
+    public void addAll (String filename, List<Event> events) {
+        List<String> guids = new ArrayList<String>(events.size());
+
+        for (Event event : events) {
+            guids.add(event.getGuid());
+        }
+
+        addGuids(filename, guids);
+    }
+
+    public void addGuids (String filename, List<String> guids) {
+        String shared = filenames.putIfAbsent(filename, filename);
+        if (null == shared)
+            shared = filename;
+
+        for (String guid : guids) {
+            guidToFile.put(guid, shared);
+        }
+
+        changed.set(true);
+    }
+
+    public void removeFile (String filename) {
+        filenames.remove(filename);
+        changed.set(true);
+
+        Iterator<String> iterator = guidToFile.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().equals(filename))
+                iterator.remove();
+        }
+    }
+
+    public List<String> getGuids () {
+        return new ArrayList<String>(guidToFile.keySet());
+    }
+
+    /**
+     * Has the index changed since the last time this was called?
+     */
+    public boolean checkChanged () {
+        return changed.getAndSet(false);
+    }
+
+    public void setChanged () {
+        changed.set(true);
+    }
+
+    /**
+     * The index, by file, for saving.  Files that do not exist yet are left
+     * out, as are the files in skip; they are read again at startup.
+     */
+    public List<FileEntry> getFileEntries (Map<String, ?> skip) {
+        Map<String, FileEntry> entries = new HashMap<String, FileEntry>();
+
+        for (Map.Entry<String, String> entry : guidToFile.entrySet()) {
+            String filename = entry.getValue();
+
+            if (skip.containsKey(filename))
+                continue;
+
+            FileEntry fileEntry = entries.get(filename);
+
+            if (null == fileEntry) {
+                File file = new File(filename);
+
+                if (!file.isFile())
+                    continue;
+
+                fileEntry = new FileEntry(file);
+                entries.put(filename, fileEntry);
+            }
+
+            fileEntry.getGuids().add(entry.getKey());
+        }
+
+        return new ArrayList<FileEntry>(entries.values());
+    }
+}
@@ -18,30 +18,89 @@ package com.ltsllc.miranda.event;
 
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.MirandaException;
+import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.StartupPanic;
+import com.ltsllc.miranda.cluster.Cluster;
+import com.ltsllc.miranda.cluster.messages.ReplicatedMessage;
+import com.ltsllc.miranda.cluster.networkMessages.EventsPublishedWireMessage;
+import com.ltsllc.miranda.deliveries.DeliveryManager;
 import com.ltsllc.miranda.event.messages.CreateEventMessage;
 import com.ltsllc.miranda.event.messages.EvictMessage;
+import com.ltsllc.miranda.event.messages.GetEventMessage;
+import com.ltsllc.miranda.event.messages.GetEventResponseMessage;
 import com.ltsllc.miranda.event.messages.NewEventMessage;
+import com.ltsllc.miranda.event.messages.PublishMessage;
+import com.ltsllc.miranda.event.messages.PublishResponseMessage;
 import com.ltsllc.miranda.event.messages.ReadEventMessage;
+import com.ltsllc.miranda.event.messages.RebalanceMessage;
 import com.ltsllc.miranda.manager.DirectoryManager;
 import com.ltsllc.miranda.manager.ListMessage;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.property.MirandaProperties;
+import com.ltsllc.miranda.reader.ReadResponseMessage;
 import com.ltsllc.miranda.reader.Reader;
 import com.ltsllc.miranda.session.Session;
+import com.ltsllc.miranda.topics.Topic;
+import com.ltsllc.miranda.writer.WriteFailedMessage;
+import com.ltsllc.miranda.writer.WriteSucceededMessage;
 import com.ltsllc.miranda.writer.Writer;
+import org.apache.log4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.function.BiConsumer;
 
 /**
  * A DirectoryManager that handles Events
+ *
+ * <P>
+ *     Not every event is in memory; see {@link EventDirectory}.  An event
+ *     that is not is asked for with a {@link GetEventMessage}, and the
+ *     manager reads its file from the {@link Reader} before answering.
+ *     Requests for events in a file that is already being read wait for that
+ *     read instead of starting another one.
+ * </P>
+ *
+ * <P>
+ *     A batch of published events becomes one new file, written with one
+ *     message to the {@link Writer}.  The publisher is answered when the
+ *     writer says the file is written and every event has been replicated as
+ *     the remote policy says, or as soon as one of them cannot be.
+ * </P>
  */
 public class EventManager extends DirectoryManager {
     public static final String NAME = "event manager";
 
+    private static Logger logger = Logger.getLogger(EventManager.class);
+
     private Map<String, Event> eventMap;
+    private Map<String, List<GetEventMessage>> pendingReads = new HashMap<String, List<GetEventMessage>>();
+    private Map<String, PublishMessage> pendingPublishes = new HashMap<String, PublishMessage>();
+    private Map<String, PublishMessage> pendingReplications = new HashMap<String, PublishMessage>();
+
+    public EventDirectory getEventDirectory () {
+        return (EventDirectory) getDirectory();
+    }
+
+    public Map<String, List<GetEventMessage>> getPendingReads() {
+        return pendingReads;
+    }
+
+    public Map<String, PublishMessage> getPendingPublishes() {
+        return pendingPublishes;
+    }
+
+    /**
+     * The batches waiting for their events to be replicated, by event guid.
+     */
+    public Map<String, PublishMessage> getPendingReplications() {
+        return pendingReplications;
+    }
 
     public EventManager(String directoryName, int objectLimit, Reader reader, Writer writer) throws IOException {
         super(NAME, directoryName, objectLimit, reader, writer);
@@ -54,10 +113,12 @@ public class EventManager extends DirectoryManager {
      * Start the manager.
      *
      * <p>
-     *     This entails starting periodic evictions.
+     *     This entails starting the consumer and periodic evictions.
      * </p>
      */
     public void start () {
+        super.start();
+
         try {
             long period = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_EVENT_EVICTION_PERIOD);
             EvictMessage evictEventsMessage = new EvictMessage();
@@ -85,11 +146,362 @@ public class EventManager extends DirectoryManager {
         sendToMe(listMessage);
     }
 
+    public void sendGetEventMessage(BlockingQueue<Message> senderQueue, Object sender, String guid) {
+        GetEventMessage getEventMessage = new GetEventMessage(senderQueue, sender, guid);
+        sendToMe(getEventMessage);
+    }
+
     public void sendNewEventMessage(BlockingQueue<Message> senderQueue, Object sender, Session session, Event event) {
         NewEventMessage newEventMessage = new NewEventMessage(senderQueue, sender, session, event);
         sendToMe(newEventMessage);
     }
 
+    public void sendPublishMessage(BlockingQueue<Message> senderQueue, Object sender, Session session,
+                                   Topic.RemotePolicies remotePolicy, List<Event> events) {
+        PublishMessage publishMessage = new PublishMessage(senderQueue, sender, session, remotePolicy, events);
+        sendToMe(publishMessage);
+    }
+
+    /**
+     * Store events that another node has sent us because we own them.
+     */
+    public void sendStoreReplicasMessage(BlockingQueue<Message> senderQueue, Object sender, List<Event> events) {
+        PublishMessage publishMessage = new PublishMessage(senderQueue, sender, null, Topic.RemotePolicies.None,
+                events, true);
+        sendToMe(publishMessage);
+    }
+
+    /**
+     * Store a batch of published events as a new file.
+     *
+     * <P>
+     *     The events are indexed and cached right away, so they can be read
+     *     while the file is being written.
+     * </P>
+     */
+    public void publish (PublishMessage publishMessage) {
+        List<Event> events = publishMessage.getEvents();
+
+        if (events.isEmpty()) {
+            replyPublish(publishMessage, Results.Success);
+            return;
+        }
+
+        EventDirectory eventDirectory = getEventDirectory();
+        String name = events.get(0).getGuid() + EventDirectory.EVENT_FILE;
+        String filename = new File(eventDirectory.getDirectory(), name).getPath();
+        byte[] data = EventDirectory.getGson().toJson(events, eventDirectory.getListType()).getBytes();
+
+        eventDirectory.getIndex().addAll(filename, events);
+        eventDirectory.getCache().put(filename, events);
+
+        getPendingPublishes().put(filename, publishMessage);
+        getWriter().sendWrite(getQueue(), this, filename, data);
+    }
+
+    /**
+     * The file for a batch is on disk: hand the events to the cluster and
+     * the delivery manager, and send them to the other nodes so that they
+     * can be pushed to the channels open there.  The publisher is told once the cluster has
+     * replicated every event, unless the remote policy is None.  A batch of
+     * replicas has already been through the cluster, so its sender is told
+     * straight away.
+     */
+    public void published (WriteSucceededMessage writeSucceededMessage) {
+        PublishMessage publishMessage = getPendingPublishes().remove(writeSucceededMessage.getFilename());
+
+        if (null == publishMessage)
+            return;
+
+        if (publishMessage.isReplica()) {
+            replyPublish(publishMessage, Results.Success);
+            return;
+        }
+
+        Cluster cluster = Miranda.getInstance().getCluster();
+        Topic.RemotePolicies policy = publishMessage.getRemotePolicy();
+        boolean waitForCluster = null != cluster && null != policy && policy != Topic.RemotePolicies.None;
+
+        if (null != cluster) {
+            for (Event event : publishMessage.getEvents()) {
+                if (waitForCluster) {
+                    getPendingReplications().put(event.getGuid(), publishMessage);
+                    cluster.sendReplicateMessage(getQueue(), this, event, policy);
+                } else {
+                    cluster.sendReplicateMessage(null, this, event, policy);
+                }
+            }
+        }
+
+        DeliveryManager deliveryManager = Miranda.getInstance().getDeliveryManager();
+
+        if (null != deliveryManager)
+            deliveryManager.sendEventsPublishedMessage(getQueue(), this, publishMessage.getEvents());
+
+        if (null != cluster) {
+            EventsPublishedWireMessage eventsPublishedWireMessage =
+                    new EventsPublishedWireMessage(publishMessage.getEvents());
+            cluster.sendBroadcastMessage(null, this, eventsPublishedWireMessage);
+        }
+
+        if (!waitForCluster)
+            replyPublish(publishMessage, Results.Success);
+    }
+
+    /**
+     * The cluster is done with an event.  If it could not be replicated the
+     * publisher of its batch is told so and the rest of the batch is no
+     * longer waited for; otherwise the publisher is told once the last event
+     * of the batch is done.
+     */
+    public void replicated (ReplicatedMessage replicatedMessage) {
+        PublishMessage publishMessage = getPendingReplications().remove(replicatedMessage.getGuid());
+
+        if (null == publishMessage)
+            return;
+
+        if (!replicatedMessage.getSuccess()) {
+            logger.warn("Could not replicate event " + replicatedMessage.getGuid());
+
+            for (Event event : publishMessage.getEvents()) {
+                getPendingReplications().remove(event.getGuid());
+            }
+
+            replyPublish(publishMessage, Results.Exception);
+            return;
+        }
+
+        for (Event event : publishMessage.getEvents()) {
+            if (getPendingReplications().containsKey(event.getGuid()))
+                return;
+        }
+
+        replyPublish(publishMessage, Results.Success);
+    }
+
+    public void publishFailed (WriteFailedMessage writeFailedMessage) {
+        String filename = writeFailedMessage.getFilename();
+
+        if (filename.equals(getEventDirectory().getIndexFilename())) {
+            logger.warn("Could not save the event index", writeFailedMessage.getCause());
+            getEventDirectory().getIndex().setChanged();
+            return;
+        }
+
+        PublishMessage publishMessage = getPendingPublishes().remove(filename);
+
+        if (null == publishMessage)
+            return;
+
+        logger.error("Could not write events to " + filename, writeFailedMessage.getCause());
+
+        getEventDirectory().getCache().remove(filename);
+        getEventDirectory().getIndex().removeFile(filename);
+
+        replyPublish(publishMessage, Results.Exception);
+    }
+
+    public void replyPublish (PublishMessage publishMessage, Results result) {
+        List<String> guids = new ArrayList<String>(publishMessage.getEvents().size());
+
+        if (result == Results.Success) {
+            for (Event event : publishMessage.getEvents()) {
+                guids.add(event.getGuid());
+            }
+        }
+
+        if (null != publishMessage.getSender()) {
+            PublishResponseMessage response = new PublishResponseMessage(getQueue(), this, result, guids);
+            publishMessage.reply(response);
+        }
+    }
+
+    /**
+     * Answer a request for an event, reading the file it is in if we have to.
+     */
+    public void getEvent (GetEventMessage getEventMessage) {
+        String guid = getEventMessage.getGuid();
+        Event event = getEventDirectory().getCache().get(guid);
+
+        if (null != event) {
+            replyGetEvent(getEventMessage, Results.Success, event);
+            return;
+        }
+
+        String filename = getEventDirectory().getIndex().getFilename(guid);
+
+        if (null == filename) {
+            replyGetEvent(getEventMessage, Results.EventNotFound, null);
+            return;
+        }
+
+        List<GetEventMessage> waiting = getPendingReads().get(filename);
+
+        if (null == waiting) {
+            waiting = new ArrayList<GetEventMessage>();
+            getPendingReads().put(filename, waiting);
+            getReader().sendReadMessage(getQueue(), this, filename);
+        }
+
+        waiting.add(getEventMessage);
+    }
+
+    public void replyGetEvent (GetEventMessage getEventMessage, Results result, Event event) {
+        GetEventResponseMessage response = new GetEventResponseMessage(getQueue(), this,
+                getEventMessage.getGuid(), result, event);
+
+        getEventMessage.reply(response);
+    }
+
+    /**
+     * A file that someone was waiting for has been read: put it in the cache
+     * and answer everyone who asked for an event in it.
+     */
+    public void pageRead (ReadResponseMessage readResponseMessage) {
+        String filename = readResponseMessage.getFilename();
+        List<GetEventMessage> waiting = getPendingReads().remove(filename);
+
+        if (null == waiting)
+            return;
+
+        Map<String, Event> events = new HashMap<String, Event>();
+
+        if (readResponseMessage.getResult() == ReadResponseMessage.Results.Success) {
+            List<Event> list = getEventDirectory().parse(readResponseMessage.getData());
+            getEventDirectory().getCache().put(filename, list);
+
+            for (Event event : list) {
+                events.put(event.getGuid(), event);
+            }
+        } else {
+            logger.warn("Could not read events from " + filename + ": " + readResponseMessage.getResult());
+        }
+
+        for (GetEventMessage getEventMessage : waiting) {
+            Event event = events.get(getEventMessage.getGuid());
+
+            if (null != event)
+                replyGetEvent(getEventMessage, Results.Success, event);
+            else if (readResponseMessage.getResult() == ReadResponseMessage.Results.Success)
+                replyGetEvent(getEventMessage, Results.EventNotFound, null);
+            else
+                replyGetEvent(getEventMessage, Results.Exception, null);
+        }
+    }
+
+    /**
+     * Drop the pages that have not been used for an eviction period.
+     */
+    public void evict () {
+        long period = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_EVENT_EVICTION_PERIOD,
+                MirandaProperties.DEFAULT_EVENT_EVICTION_PERIOD);
+
+        int count = getEventDirectory().getCache().evict(System.currentTimeMillis() - period);
+
+        if (count > 0)
+            logger.info("Evicted " + count + " events, " + getEventDirectory().getCache().size() + " remain in memory");
+
+        saveIndex();
+    }
+
+    /**
+     * Save the index if it has changed, so the next startup does not have to
+     * read every event file.  Batches that are still being written are left
+     * out and read at startup like any other file the index does not cover.
+     */
+    public void saveIndex () {
+        EventDirectory eventDirectory = getEventDirectory();
+
+        if (!eventDirectory.getIndex().checkChanged())
+            return;
+
+        List<EventIndex.FileEntry> entries = eventDirectory.getIndex().getFileEntries(getPendingPublishes());
+        byte[] data = EventDirectory.getGson().toJson(entries, eventDirectory.getIndexType()).getBytes();
+        getWriter().sendWrite(getQueue(), this, eventDirectory.getIndexFilename(), data);
+    }
+
+    /**
+     * Copy a batch of events to the nodes that became their owners when the
+     * cluster ring changed.
+     *
+     * <P>
+     *     The events go through the same replication pipeline as new events,
+     *     with a policy of None, and the new owners store them.  Events stay
+     *     here after they are copied; the ones this node no longer owns go
+     *     away when they are evicted.  An event that is not in memory is asked
+     *     for like any other, and is copied when it arrives.
+     * </P>
+     */
+    public void rebalance (RebalanceMessage rebalanceMessage) {
+        EventDirectory eventDirectory = getEventDirectory();
+        List<String> keys = rebalanceMessage.getKeys();
+
+        if (null == keys)
+            keys = eventDirectory.getIndex().getGuids();
+
+        int batchSize = (int) Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_REBALANCE_BATCH_SIZE,
+                MirandaProperties.DEFAULT_CLUSTER_REBALANCE_BATCH_SIZE);
+
+        if (batchSize < 1)
+            batchSize = 1;
+
+        int end = Math.min(keys.size(), rebalanceMessage.getPosition() + batchSize);
+        String localKey = Cluster.getLocalKey();
+        Cluster cluster = Miranda.getInstance().getCluster();
+
+        for (int i = rebalanceMessage.getPosition(); i < end; i++) {
+            String key = keys.get(i);
+
+            List<String> newOwners = rebalanceMessage.getAfter().getNewOwners(rebalanceMessage.getBefore(), key,
+                    rebalanceMessage.getCopies());
+            newOwners.remove(localKey);
+
+            if (newOwners.isEmpty())
+                continue;
+
+            Event event = eventDirectory.getCache().get(key);
+
+            if (null != event) {
+                cluster.sendReplicateMessage(null, this, event, Topic.RemotePolicies.None, newOwners);
+            } else {
+                moveEventLater(key, newOwners);
+            }
+        }
+
+        if (end < keys.size()) {
+            RebalanceMessage next = new RebalanceMessage(getQueue(), this, rebalanceMessage.getBefore(),
+                    rebalanceMessage.getAfter(), rebalanceMessage.getCopies(), keys, end);
+            sendToMe(next);
+        }
+    }
+
+    /**
+     * Ask ourselves for an event that is not in memory and copy it to its new
+     * owners once it has been read.  The reply is matched up by {@link #ask},
+     * so it is handled on this thread.
+     */
+    public void moveEventLater (String key, final List<String> newOwners) {
+        GetEventMessage getEventMessage = new GetEventMessage(getQueue(), this, key);
+
+        ask(getQueue(), getEventMessage, 0).whenComplete(new BiConsumer<Message, Throwable>() {
+            public void accept(Message message, Throwable throwable) {
+                if (null == throwable)
+                    moveEvent((GetEventResponseMessage) message, newOwners);
+            }
+        });
+    }
+
+    /**
+     * An event we asked ourselves for during a rebalance has been read.
+     */
+    public void moveEvent (GetEventResponseMessage getEventResponseMessage, List<String> newOwners) {
+        if (null == getEventResponseMessage.getEvent())
+            return;
+
+        Miranda.getInstance().getCluster().sendReplicateMessage(null, this, getEventResponseMessage.getEvent(),
+                Topic.RemotePolicies.None, newOwners);
+    }
+
     public void createEvent(Event event) {
         eventMap.put(event.getGuid(), event);
     }
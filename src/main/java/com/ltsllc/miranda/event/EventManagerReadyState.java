@@ -18,9 +18,17 @@ package com.ltsllc.miranda.event;
 
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.State;
+import com.ltsllc.miranda.cluster.messages.ReplicatedMessage;
+import com.ltsllc.miranda.event.messages.GetEventMessage;
+import com.ltsllc.miranda.event.messages.GetEventResponseMessage;
 import com.ltsllc.miranda.event.messages.NewEventMessage;
+import com.ltsllc.miranda.event.messages.PublishMessage;
+import com.ltsllc.miranda.event.messages.RebalanceMessage;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.operations.events.NewEventOperation;
+import com.ltsllc.miranda.reader.ReadResponseMessage;
+import com.ltsllc.miranda.writer.WriteFailedMessage;
+import com.ltsllc.miranda.writer.WriteSucceededMessage;
 
 /**
  * Created by Clark on 5/14/2017.
@@ -44,6 +52,59 @@ public class EventManagerReadyState extends State {
                 break;
             }
 
+            case Publish: {
+                PublishMessage publishMessage = (PublishMessage) message;
+                nextState = processPublishMessage(publishMessage);
+                break;
+            }
+
+            case WriteSucceeded: {
+                WriteSucceededMessage writeSucceededMessage = (WriteSucceededMessage) message;
+                nextState = processWriteSucceededMessage(writeSucceededMessage);
+                break;
+            }
+
+            case WriteFailed: {
+                WriteFailedMessage writeFailedMessage = (WriteFailedMessage) message;
+                nextState = processWriteFailedMessage(writeFailedMessage);
+                break;
+            }
+
+            case Replicated: {
+                ReplicatedMessage replicatedMessage = (ReplicatedMessage) message;
+                nextState = processReplicatedMessage(replicatedMessage);
+                break;
+            }
+
+            case Rebalance: {
+                RebalanceMessage rebalanceMessage = (RebalanceMessage) message;
+                nextState = processRebalanceMessage(rebalanceMessage);
+                break;
+            }
+
+            case GetEvent: {
+                GetEventMessage getEventMessage = (GetEventMessage) message;
+                nextState = processGetEventMessage(getEventMessage);
+                break;
+            }
+
+            case GetEventResponse: {
+                GetEventResponseMessage getEventResponseMessage = (GetEventResponseMessage) message;
+                nextState = processGetEventResponseMessage(getEventResponseMessage);
+                break;
+            }
+
+            case ReadResponse: {
+                ReadResponseMessage readResponseMessage = (ReadResponseMessage) message;
+                nextState = processReadResponseMessage(readResponseMessage);
+                break;
+            }
+
+            case Evict: {
+                nextState = processEvictMessage();
+                break;
+            }
+
             default: {
                 nextState = super.processMessage(message);
                 break;
@@ -53,6 +114,63 @@ public class EventManagerReadyState extends State {
         return nextState;
     }
 
+    public State processPublishMessage (PublishMessage publishMessage) {
+        getEventManager().publish(publishMessage);
+
+        return getEventManager().getCurrentState();
+    }
+
+    public State processWriteSucceededMessage (WriteSucceededMessage writeSucceededMessage) {
+        getEventManager().published(writeSucceededMessage);
+
+        return getEventManager().getCurrentState();
+    }
+
+    public State processWriteFailedMessage (WriteFailedMessage writeFailedMessage) {
+        getEventManager().publishFailed(writeFailedMessage);
+
+        return getEventManager().getCurrentState();
+    }
+
+    public State processReplicatedMessage (ReplicatedMessage replicatedMessage) {
+        getEventManager().replicated(replicatedMessage);
+
+        return getEventManager().getCurrentState();
+    }
+
+    public State processRebalanceMessage (RebalanceMessage rebalanceMessage) {
+        getEventManager().rebalance(rebalanceMessage);
+
+        return getEventManager().getCurrentState();
+    }
+
+    public State processGetEventMessage (GetEventMessage getEventMessage) {
+        getEventManager().getEvent(getEventMessage);
+
+        return getEventManager().getCurrentState();
+    }
+
+    /**
+     * The events we ask ourselves for are answered through
+     * {@link com.ltsllc.miranda.Consumer#ask}, so a response that gets here
+     * belongs to a request nobody is waiting for anymore.
+     */
+    public State processGetEventResponseMessage (GetEventResponseMessage getEventResponseMessage) {
+        return getEventManager().getCurrentState();
+    }
+
+    public State processReadResponseMessage (ReadResponseMessage readResponseMessage) {
+        getEventManager().pageRead(readResponseMessage);
+
+        return getEventManager().getCurrentState();
+    }
+
+    public State processEvictMessage () {
+        getEventManager().evict();
+
+        return getEventManager().getCurrentState();
+    }
+
     public State processNewEventMessage (NewEventMessage message) {
         NewEventOperation newEventOperation = new NewEventOperation (getEventManager(),
                 Miranda.getInstance().getTopicManager(), Miranda.getInstance().getCluster(), message.getSession(),
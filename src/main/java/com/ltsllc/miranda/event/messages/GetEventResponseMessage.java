@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.event.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.event.Event;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The answer to a {@link GetEventMessage}.  The event is null unless the
+ * result is {@link Results#Success}.
+ */
+public class GetEventResponseMessage extends Message {
+    private String guid;
+    private Results result;
+    private Event event;
+
+    public String getGuid() {
+        return guid;
+    }
+
+    public Results getResult() {
+        return result;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public GetEventResponseMessage (BlockingQueue<Message> senderQueue, Object sender, String guid, Results result,
+                                    Event event) {
+        super(Subjects.GetEventResponse, senderQueue, sender);
+
+        this.guid = guid;
+        this.result = result;
+        this.event = event;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.event.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.session.Session;
+import com.ltsllc.miranda.topics.Topic;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Publish a batch of events to a topic.  The events are stored together and
+ * the sender is answered once they are on disk.
+ *
+ * <P>
+ *     A batch of replicas, which another node sent us because we own them, is
+ *     stored the same way but is not replicated again.
+ * </P>
+ */
+public class PublishMessage extends Message {
+    private Session session;
+    private Topic.RemotePolicies remotePolicy;
+    private List<Event> events;
+    private boolean replica;
+
+    public Session getSession() {
+        return session;
+    }
+
+    public Topic.RemotePolicies getRemotePolicy() {
+        return remotePolicy;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public boolean isReplica() {
+        return replica;
+    }
+
+    public PublishMessage (BlockingQueue<Message> senderQueue, Object sender, Session session,
+                           Topic.RemotePolicies remotePolicy, List<Event> events) {
+        this(senderQueue, sender, session, remotePolicy, events, false);
+    }
+
+    public PublishMessage (BlockingQueue<Message> senderQueue, Object sender, Session session,
+                           Topic.RemotePolicies remotePolicy, List<Event> events, boolean replica) {
+        super(Subjects.Publish, senderQueue, sender);
+
+        this.session = session;
+        this.remotePolicy = remotePolicy;
+        this.events = events;
+        this.replica = replica;
+    }
+}
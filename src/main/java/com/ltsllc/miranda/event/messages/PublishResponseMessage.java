@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.event.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The answer to a {@link PublishMessage}: the guids of the new events, in
+ * the order they were published.
+ */
+public class PublishResponseMessage extends Message {
+    private Results result;
+    private List<String> guids;
+
+    public Results getResult() {
+        return result;
+    }
+
+    public List<String> getGuids() {
+        return guids;
+    }
+
+    public PublishResponseMessage (BlockingQueue<Message> senderQueue, Object sender, Results result,
+                                   List<String> guids) {
+        super(Subjects.PublishResponse, senderQueue, sender);
+
+        this.result = result;
+        this.guids = guids;
+    }
+}
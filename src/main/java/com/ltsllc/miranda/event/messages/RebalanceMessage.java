@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.event.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.cluster.HashRing;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The cluster ring has changed, so some of the events that this node has
+ * need to be copied to their new owners.
+ *
+ * <P>
+ *     The work is done a batch at a time.  The first message has no keys;
+ *     the manager takes a snapshot of its keys and sends itself a new
+ *     message with the position of the next batch, so other messages get
+ *     processed in between.
+ * </P>
+ */
+public class RebalanceMessage extends Message {
+    private HashRing before;
+    private HashRing after;
+    private int copies;
+    private List<String> keys;
+    private int position;
+
+    public HashRing getBefore() {
+        return before;
+    }
+
+    public HashRing getAfter() {
+        return after;
+    }
+
+    public int getCopies() {
+        return copies;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public RebalanceMessage (BlockingQueue<Message> senderQueue, Object sender, HashRing before, HashRing after,
+                             int copies) {
+        this(senderQueue, sender, before, after, copies, null, 0);
+    }
+
+    public RebalanceMessage (BlockingQueue<Message> senderQueue, Object sender, HashRing before, HashRing after,
+                             int copies, List<String> keys, int position) {
+        super(Subjects.Rebalance, senderQueue, sender);
+
+        this.before = before;
+        this.after = after;
+        this.copies = copies;
+        this.keys = keys;
+        this.position = position;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.file;
+
+import com.ltsllc.miranda.util.Utils;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * A summary of the contents of a {@link SingleFile} that two nodes can use to
+ * find out where their copies differ without sending the whole file.
+ *
+ * <P>
+ *     Every element has a key and a digest.  The keys are spread over
+ *     {@link #BUCKETS} buckets, and the digest of a bucket is the exclusive or
+ *     of the digests of its elements.  That makes the digest of a bucket
+ *     independent of the order of the elements and cheap to update when one
+ *     element changes.
+ * </P>
+ *
+ * <P>
+ *     Two nodes synchronize a file by comparing bucket digests, then the
+ *     element digests of the buckets that differ, and finally sending only
+ *     the elements whose digests differ.
+ * </P>
+ */
+public class HashTree {
+    public static final int BUCKETS = 256;
+    public static final int DIGEST_LENGTH = 20;
+    public static final String ALGORITHM = "SHA-1";
+
+    private byte[][] buckets = new byte[BUCKETS][DIGEST_LENGTH];
+    private Map<String, byte[]> digests = new HashMap<String, byte[]>();
+
+    public Map<String, byte[]> getDigests() {
+        return digests;
+    }
+
+    /**
+     * The bucket for a key.  This has to come out the same on every node,
+     * which {@link String#hashCode()} does.
+     */
+    public static int toBucket (String key) {
+        int hash = key.hashCode();
+        hash = hash ^ (hash >>> 16);
+
+        return hash & (BUCKETS - 1);
+    }
+
+    public static void xor (byte[] accumulator, byte[] digest) {
+        for (int i = 0; i < accumulator.length && i < digest.length; i++) {
+            accumulator[i] ^= digest[i];
+        }
+    }
+
+    public int size () {
+        return getDigests().size();
+    }
+
+    public byte[] getDigest (String key) {
+        return getDigests().get(key);
+    }
+
+    public void put (String key, byte[] digest) {
+        remove(key);
+
+        getDigests().put(key, digest);
+        xor(buckets[toBucket(key)], digest);
+    }
+
+    public void remove (String key) {
+        byte[] old = getDigests().remove(key);
+
+        if (null != old)
+            xor(buckets[toBucket(key)], old);
+    }
+
+    public void clear () {
+        getDigests().clear();
+
+        for (byte[] bucket : buckets) {
+            Arrays.fill(bucket, (byte) 0);
+        }
+    }
+
+    /**
+     * A digest of the whole tree.  Like the bucket digests, it does not depend
+     * on the order of the elements, so two nodes with the same elements get
+     * the same value.
+     */
+    public byte[] getRootDigest () throws GeneralSecurityException {
+        MessageDigest messageDigest = MessageDigest.getInstance(ALGORITHM);
+
+        for (byte[] bucket : buckets) {
+            messageDigest.update(bucket);
+        }
+
+        return messageDigest.digest();
+    }
+
+    public String getBucketDigest (int bucket) {
+        return Utils.bytesToString(buckets[bucket]);
+    }
+
+    public List<String> getBucketDigests () {
+        List<String> list = new ArrayList<String>(BUCKETS);
+
+        for (int i = 0; i < BUCKETS; i++) {
+            list.add(getBucketDigest(i));
+        }
+
+        return list;
+    }
+
+    /**
+     * Return the buckets whose digests are not the same as another node's.
+     */
+    public Set<Integer> getBucketsThatDiffer (List<String> other) {
+        Set<Integer> differ = new HashSet<Integer>();
+
+        for (int i = 0; i < BUCKETS; i++) {
+            if (null == other || i >= other.size() || !getBucketDigest(i).equalsIgnoreCase(other.get(i)))
+                differ.add(i);
+        }
+
+        return differ;
+    }
+
+    /**
+     * Return the digests of the elements in some buckets.
+     *
+     * @return A map from key to the digest of the element, as a hex string.
+     */
+    public Map<String, String> getKeyDigests (Set<Integer> buckets) {
+        Map<String, String> map = new HashMap<String, String>();
+
+        for (Map.Entry<String, byte[]> entry : getDigests().entrySet()) {
+            if (buckets.contains(toBucket(entry.getKey())))
+                map.put(entry.getKey(), Utils.bytesToString(entry.getValue()));
+        }
+
+        return map;
+    }
+
+    /**
+     * Return the keys of another node's elements that we do not have or
+     * that are different from ours.
+     */
+    public List<String> getKeysThatDiffer (Map<String, String> other) {
+        List<String> keys = new ArrayList<String>();
+
+        for (Map.Entry<String, String> entry : other.entrySet()) {
+            byte[] digest = getDigest(entry.getKey());
+
+            if (null == digest || !Utils.bytesToString(digest).equalsIgnoreCase(entry.getValue()))
+                keys.add(entry.getKey());
+        }
+
+        return keys;
+    }
+}
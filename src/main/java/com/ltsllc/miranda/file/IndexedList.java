@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.file;
+
+import java.util.*;
+
+/**
+ * A list that keeps an index of its elements by {@link Matchable#getKey()}.
+ *
+ * <P>
+ *     The files and managers hand out their lists and a lot of code adds to
+ *     and removes from them directly, so the index is kept up to date by the
+ *     list itself rather than by the code that changes it.  The index assumes
+ *     that the key of an element does not change while it is in the list.
+ *     Elements without a key are not indexed.
+ * </P>
+ *
+ * <P>
+ *     When two elements have the same key, the index refers to the first one,
+ *     the same element that a search from the front of the list would find.
+ * </P>
+ */
+public class IndexedList<E extends Matchable<E>> extends ArrayList<E> {
+    private transient Map<String, E> index = new HashMap<String, E>();
+    private transient int duplicates;
+
+    public IndexedList () {
+    }
+
+    public IndexedList (Collection<? extends E> collection) {
+        super(collection);
+
+        reindex();
+    }
+
+    /**
+     * Return a list with the same elements as another, reusing it if it is
+     * already an IndexedList.
+     */
+    public static <T extends Matchable<T>> IndexedList<T> toIndexedList (List<T> list) {
+        if (list instanceof IndexedList)
+            return (IndexedList<T>) list;
+        else if (null == list)
+            return new IndexedList<T>();
+        else
+            return new IndexedList<T>(list);
+    }
+
+    /**
+     * Return the element with a key or null if there isn't one.
+     */
+    public E get (String key) {
+        if (null == key)
+            return null;
+
+        return index.get(key);
+    }
+
+    public boolean containsKey (String key) {
+        return null != get(key);
+    }
+
+    public boolean hasDuplicates () {
+        return duplicates > 0;
+    }
+
+    /**
+     * Called when an element becomes the one that the index has for its key.
+     */
+    protected void indexed (String key, E element) {
+    }
+
+    /**
+     * Called when the index no longer has anything for a key.
+     */
+    protected void unindexed (String key) {
+    }
+
+    /**
+     * Called when the index is emptied.
+     */
+    protected void indexCleared () {
+    }
+
+    public void reindex () {
+        index.clear();
+        duplicates = 0;
+        indexCleared();
+
+        for (E element : this) {
+            addToIndex(element);
+        }
+    }
+
+    private void addToIndex (E element) {
+        if (null == element)
+            return;
+
+        String key = element.getKey();
+
+        if (null == key)
+            return;
+
+        if (index.containsKey(key)) {
+            duplicates++;
+        } else {
+            index.put(key, element);
+            indexed(key, element);
+        }
+    }
+
+    private void removeFromIndex (E element) {
+        if (null == element)
+            return;
+
+        String key = element.getKey();
+
+        if (null == key)
+            return;
+
+        if (index.get(key) != element) {
+            if (duplicates > 0 && index.containsKey(key))
+                duplicates--;
+
+            return;
+        }
+
+        index.remove(key);
+        E replacement = null;
+
+        if (duplicates > 0) {
+            for (E candidate : this) {
+                if (key.equals(candidate.getKey())) {
+                    replacement = candidate;
+                    duplicates--;
+                    break;
+                }
+            }
+        }
+
+        if (null == replacement) {
+            unindexed(key);
+        } else {
+            index.put(key, replacement);
+            indexed(key, replacement);
+        }
+    }
+
+    @Override
+    public boolean add (E element) {
+        super.add(element);
+        addToIndex(element);
+
+        return true;
+    }
+
+    @Override
+    public void add (int position, E element) {
+        super.add(position, element);
+
+        if (null != element && null != element.getKey() && index.containsKey(element.getKey()))
+            reindex();
+        else
+            addToIndex(element);
+    }
+
+    @Override
+    public boolean addAll (Collection<? extends E> collection) {
+        boolean result = super.addAll(collection);
+
+        for (E element : collection) {
+            addToIndex(element);
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean addAll (int position, Collection<? extends E> collection) {
+        boolean result = super.addAll(position, collection);
+        reindex();
+
+        return result;
+    }
+
+    @Override
+    public E set (int position, E element) {
+        E old = super.set(position, element);
+        reindex();
+
+        return old;
+    }
+
+    @Override
+    public E remove (int position) {
+        E old = super.remove(position);
+        removeFromIndex(old);
+
+        return old;
+    }
+
+    @Override
+    public boolean remove (Object object) {
+        int position = indexOf(object);
+
+        if (-1 == position)
+            return false;
+
+        remove(position);
+
+        return true;
+    }
+
+    @Override
+    public boolean removeAll (Collection<?> collection) {
+        boolean result = super.removeAll(collection);
+        reindex();
+
+        return result;
+    }
+
+    @Override
+    public boolean retainAll (Collection<?> collection) {
+        boolean result = super.retainAll(collection);
+        reindex();
+
+        return result;
+    }
+
+    @Override
+    public void clear () {
+        super.clear();
+        index.clear();
+        duplicates = 0;
+        indexCleared();
+    }
+}
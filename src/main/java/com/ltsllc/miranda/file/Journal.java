@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.file;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * The journal that sits next to a {@link SingleFile}.
+ *
+ * <P>
+ *     Rather than rewriting the whole file every time an element is added,
+ *     updated or removed, a SingleFile appends a {@link Record} describing the
+ *     change to &lt;filename&gt;.journal.  When the file is loaded, the records
+ *     are replayed on top of the snapshot.  Every so often the file compacts
+ *     the journal by writing out a new snapshot; the {@link com.ltsllc.miranda.writer.Writer}
+ *     removes the journal once the snapshot is safely on disk.
+ * </P>
+ *
+ * <P>
+ *     Replaying a record is idempotent, so if we crash between writing the
+ *     snapshot and removing the journal nothing is lost or duplicated.
+ * </P>
+ */
+public class Journal {
+    public static final String SUFFIX = ".journal";
+
+    public enum Operations {
+        Add,
+        Update,
+        Remove
+    }
+
+    /**
+     * One change to a SingleFile.  The checksum covers the operation and
+     * the element so that a record that was only partly written when we
+     * went down can be recognized.
+     */
+    public static class Record {
+        private Operations operation;
+        private String json;
+        private long checksum;
+
+        public Operations getOperation() {
+            return operation;
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        public Record (Operations operation, String json) {
+            this.operation = operation;
+            this.json = json;
+            this.checksum = calculateChecksum(operation, json);
+        }
+
+        public boolean isValid () {
+            return null != operation && null != json && checksum == calculateChecksum(operation, json);
+        }
+    }
+
+    private static Gson ourGson = new Gson();
+
+    public static String getFilename (String filename) {
+        return filename + SUFFIX;
+    }
+
+    public static long calculateChecksum (Operations operation, String json) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(operation.toString().getBytes(StandardCharsets.UTF_8));
+        crc32.update(json.getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+
+    public static byte[] toBytes (Operations operation, String json) {
+        Record record = new Record(operation, json);
+        return ourGson.toJson(record).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Turn the bytes of a record back into a record.
+     *
+     * @return The record or null if the bytes do not contain a valid record.
+     */
+    public static Record toRecord (byte[] bytes) {
+        try {
+            Record record = ourGson.fromJson(new String(bytes, StandardCharsets.UTF_8), Record.class);
+
+            if (null == record || !record.isValid())
+                return null;
+
+            return record;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+}
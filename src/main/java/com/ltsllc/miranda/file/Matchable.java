@@ -18,7 +18,18 @@ package com.ltsllc.miranda.file;
 
 /**
  * Created by Clark on 4/14/2017.
+ *
+ * <P>
+ *     Two objects match if they are the same version of the same thing.  Two
+ *     objects with the same key are the same thing, but they may be different
+ *     versions of it.
+ * </P>
  */
 public interface Matchable<E> {
     public boolean matches (E other);
+
+    /**
+     * The identity of the object, for example the name of a user.
+     */
+    public String getKey ();
 }
@@ -20,6 +20,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.Panic;
+import com.ltsllc.miranda.StatusObject;
 import com.ltsllc.miranda.Version;
 import com.ltsllc.miranda.cluster.messages.LoadMessage;
 import com.ltsllc.miranda.deliveries.Comparer;
@@ -27,6 +28,8 @@ import com.ltsllc.miranda.file.messages.AddObjectsMessage;
 import com.ltsllc.miranda.file.messages.RemoveObjectsMessage;
 import com.ltsllc.miranda.file.messages.UpdateObjectsMessage;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.miranda.StartupTimes;
+import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.reader.Reader;
 import com.ltsllc.miranda.util.Utils;
 import org.apache.log4j.Logger;
@@ -35,8 +38,11 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
@@ -63,26 +69,107 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
         setDirty(false);
     }
 
-    private List<E> data = buildEmptyList();
+    private HashTree hashTree;
+    private IndexedList<E> data = buildIndexedList((List<E>) buildEmptyList());
+    private int journalRecords;
+
+    public int getJournalRecords() {
+        return journalRecords;
+    }
 
     public List<E> getData() {
         return data;
     }
 
+    /**
+     * The data of the file, indexed by {@link Matchable#getKey()}.
+     */
+    public IndexedList<E> getIndexedData() {
+        return data;
+    }
+
     public void setData(List<E> list) {
-        this.data = list;
+        if (list == this.data)
+            return;
+
+        this.data = buildIndexedList(list);
+        rebuildHashTree();
+    }
+
+    /**
+     * The digests of the elements of the file.  The list keeps this up to
+     * date as elements are added and removed; a change to an element that is
+     * already in the file has to be reported through {@link #elementChanged}.
+     */
+    public HashTree getHashTree() {
+        if (null == hashTree)
+            hashTree = new HashTree();
+
+        return hashTree;
+    }
+
+    public IndexedList<E> buildIndexedList(List<E> list) {
+        IndexedList<E> indexedList = new IndexedList<E>() {
+            protected void indexed(String key, E element) {
+                if (this == getData()) {
+                    getHashTree().put(key, digest(element));
+                    updateVersion();
+                }
+            }
+
+            protected void unindexed(String key) {
+                if (this == getData()) {
+                    getHashTree().remove(key);
+                    updateVersion();
+                }
+            }
+
+            protected void indexCleared() {
+                if (this == getData()) {
+                    getHashTree().clear();
+                    updateVersion();
+                }
+            }
+        };
+
+        if (null != list)
+            indexedList.addAll(list);
+
+        return indexedList;
+    }
+
+    public void rebuildHashTree() {
+        getHashTree().clear();
+
+        for (E element : getData()) {
+            if (null != element.getKey() && findByKey(element.getKey()) == element)
+                getHashTree().put(element.getKey(), digest(element));
+        }
+
+        updateVersion();
+    }
+
+    /**
+     * Tell the file that an element it contains has been changed in place.
+     */
+    public void elementChanged(E element) {
+        if (null != element.getKey() && findByKey(element.getKey()) == element)
+            getHashTree().put(element.getKey(), digest(element));
+
+        updateVersion();
     }
 
     public void setData (byte[] data) {
         if (null == data) {
-            this.data = new ArrayList();
+            setData(new ArrayList<E>());
         } else {
             ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(data);
             InputStreamReader inputStreamReader = null;
 
             try {
                 inputStreamReader = new InputStreamReader(byteArrayInputStream);
-                this.data = getGson().fromJson(inputStreamReader, getListType());
+                List<E> list = getGson().fromJson(inputStreamReader, getListType());
+                setData(list);
             } catch (Exception e) {
                 Panic panic = new Panic("Exception loading list", e, Panic.Reasons.ExceptionLoadingFile);
                 Miranda.panicMiranda(panic);
@@ -108,29 +195,49 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
     }
 
     public void load() {
+        StartupTimes.started(getFilename(), 1);
         Miranda.getInstance().getReader().sendReadMessage(getQueue(), this, getFilename());
     }
 
+    public void recordLoad (byte[] data) {
+        StartupTimes.loaded(getFilename(), null == data ? 0 : data.length);
+    }
+
     public void processData(byte[] data) {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(data);
-        InputStreamReader inputStreamReader = new InputStreamReader(byteArrayInputStream);
-        List<E> temp = null;
-        temp = getGson().fromJson(inputStreamReader, getListType());
-        setData(temp);
+        processData(data, null, false);
+    }
+
+    public void processData(byte[] data, List<byte[]> journal, boolean journalDamaged) {
+        setData(data);
+        replayJournal(journal, journalDamaged);
         updateVersion();
         setLastLoaded(System.currentTimeMillis());
         fireFileLoaded();
     }
 
+    /**
+     * Forget the current version.  It is calculated from the {@link HashTree}
+     * the next time someone asks for it, so a series of changes only pays for
+     * one calculation.
+     */
     public void updateVersion() {
+        setVersion(null);
+    }
+
+    /**
+     * The version of a SingleFile is the root digest of its {@link HashTree}.
+     * That does not depend on the order of the elements or on how the file is
+     * formatted, so two nodes with the same elements have the same version.
+     */
+    public Version calculateVersion() {
         try {
-            String json = getGson().toJson(getData());
-            Version version = new Version(json);
-            setVersion(version);
+            return Version.createWithSha1(Utils.bytesToString(getHashTree().getRootDigest()));
         } catch (GeneralSecurityException e) {
             Panic panic = new Panic("Exception calculating new version", e, Panic.Reasons.ExceptionTryingToCalculateVersion);
-            Miranda.getInstance().panic(panic);
+            Miranda.panicMiranda(panic);
         }
+
+        return null;
     }
 
     public byte[] getBytes() {
@@ -141,12 +248,7 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
 
     public boolean contains(Object o) {
         E e = (E) o;
-        for (E contained : getData()) {
-            if (contained.matches(e))
-                return true;
-        }
-
-        return false;
+        return null != find(e);
     }
 
 
@@ -159,10 +261,157 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
         updateVersion();
 
         if (write) {
-            getWriter().sendWrite(getQueue(), this, getFilename(), getBytes());
+            journal(Journal.Operations.Add, e);
         }
     }
 
+    /**
+     * Record a change to the file in its journal.
+     *
+     * <P>
+     *     Once the journal has more than {@link #getCompactionThreshold()}
+     *     records the file is compacted.
+     * </P>
+     */
+    public void journal(Journal.Operations operation, E element) {
+        byte[] record = Journal.toBytes(operation, getGson().toJson(element));
+        getWriter().sendAppend(getQueue(), this, getFilename(), record);
+
+        journalRecords++;
+
+        if (journalRecords >= getCompactionThreshold())
+            compact();
+    }
+
+    /**
+     * Record the same change to several elements.
+     *
+     * <P>
+     *     If the records would bring the journal to the compaction threshold
+     *     the file is compacted instead, so a large batch costs one write of
+     *     the file rather than a journal record per element.  The elements
+     *     must already have been changed.
+     * </P>
+     */
+    public void journal(Journal.Operations operation, List<E> elements) {
+        if (elements.isEmpty())
+            return;
+
+        if (journalRecords + elements.size() >= getCompactionThreshold()) {
+            compact();
+            return;
+        }
+
+        for (E element : elements) {
+            byte[] record = Journal.toBytes(operation, getGson().toJson(element));
+            getWriter().sendAppend(getQueue(), this, getFilename(), record);
+        }
+
+        journalRecords += elements.size();
+    }
+
+    public int getCompactionThreshold() {
+        int threshold = 0;
+
+        if (null != Miranda.properties) {
+            try {
+                threshold = Miranda.properties.getIntProperty(MirandaProperties.PROPERTY_JOURNAL_COMPACTION_THRESHOLD);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value for " + MirandaProperties.PROPERTY_JOURNAL_COMPACTION_THRESHOLD, e);
+            }
+        }
+
+        if (threshold < 1)
+            threshold = Integer.parseInt(MirandaProperties.DEFAULT_JOURNAL_COMPACTION_THRESHOLD);
+
+        return threshold;
+    }
+
+    /**
+     * Write out a complete copy of the file.  The writer removes the journal
+     * once the copy is on disk.
+     */
+    public void compact() {
+        write();
+    }
+
+    public void write() {
+        journalRecords = 0;
+        super.write();
+    }
+
+    /**
+     * Apply the records from the journal to the data we got from the file.
+     *
+     * <P>
+     *     A journal that ends in a damaged record cannot be appended to, since
+     *     the next record would be glued onto the damaged one and lost along
+     *     with everything after it.  In that case the file is compacted right
+     *     away: the Writer handles the complete copy before any record that is
+     *     appended later, and removes the damaged journal once the copy is on
+     *     disk.
+     * </P>
+     *
+     * @param records The records from the journal.  Null means there was no journal.
+     * @param damaged Whether the reader stopped at a record it could not read.
+     */
+    public void replayJournal(List<byte[]> records, boolean damaged) {
+        if (null == records)
+            return;
+
+        int count = 0;
+
+        for (byte[] bytes : records) {
+            Journal.Record record = Journal.toRecord(bytes);
+
+            if (null == record) {
+                logger.warn("Ignoring damaged record in the journal for " + getFilename() + " and anything after it");
+                damaged = true;
+                break;
+            }
+
+            E element = toElement(record.getJson());
+
+            switch (record.getOperation()) {
+                case Add: {
+                    if (!contains(element))
+                        getData().add(element);
+                    break;
+                }
+
+                case Update: {
+                    E existingObject = find(element);
+                    if (null != existingObject) {
+                        existingObject.updateFrom(element);
+                        elementChanged(existingObject);
+                    }
+                    break;
+                }
+
+                case Remove: {
+                    E match = findMatch(element);
+                    if (null != match)
+                        getData().remove(match);
+                    break;
+                }
+            }
+
+            count++;
+        }
+
+        journalRecords = count;
+
+        if (damaged) {
+            logger.warn("Replacing the damaged journal for " + getFilename());
+            compact();
+        }
+    }
+
+    public E toElement(String json) {
+        List<E> list = getGson().fromJson("[" + json + "]", getListType());
+        return list.get(0);
+    }
+
 
     public boolean equals(Object o) {
         if (this == o)
@@ -216,6 +465,98 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
         }
     }
 
+    /**
+     * The digest of an element, for a {@link HashTree}.  Other nodes compare
+     * it with their own, so it is taken over the UTF-8 of the JSON rather
+     * than whatever the platform encoding happens to be.
+     */
+    public byte[] digest(E element) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(HashTree.ALGORITHM);
+            return messageDigest.digest(getGson().toJson(element).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            Panic panic = new Panic("Exception calculating digest", e, Panic.Reasons.ExceptionTryingToCalculateVersion);
+            Miranda.panicMiranda(panic);
+            return new byte[HashTree.DIGEST_LENGTH];
+        }
+    }
+
+    public E findByKey(String key) {
+        return getIndexedData().get(key);
+    }
+
+    public List<E> getElements(Collection<String> keys) {
+        List<E> list = new ArrayList<E>(keys.size());
+
+        for (String key : keys) {
+            E element = findByKey(key);
+            if (null != element)
+                list.add(element);
+        }
+
+        return list;
+    }
+
+    /**
+     * Merge elements that another node sent us while synchronizing.
+     *
+     * <P>
+     *     An element we do not have is added.  An element we do have is
+     *     replaced if the other node's copy is newer.  Every change goes into
+     *     the journal.
+     * </P>
+     *
+     * @return The number of elements that were added or replaced.
+     */
+    public int mergeElements(List<E> list) {
+        int changes = 0;
+
+        for (E element : list) {
+            E existing = findByKey(element.getKey());
+
+            if (null == existing) {
+                getData().add(element);
+                journal(Journal.Operations.Add, element);
+                changes++;
+            } else if (isNewer(element, existing)) {
+                getData().remove(existing);
+                journal(Journal.Operations.Remove, existing);
+                getData().add(element);
+                journal(Journal.Operations.Add, element);
+                changes++;
+            }
+        }
+
+        if (changes > 0)
+            updateVersion();
+
+        return changes;
+    }
+
+    /**
+     * Is a copy of an element from another node newer than ours?
+     *
+     * <P>
+     *     The copy that was modified last wins.  When that does not decide it,
+     *     the copy with the larger digest wins, so both nodes end up with the
+     *     same copy.
+     * </P>
+     */
+    public boolean isNewer(E remote, E local) {
+        if (remote instanceof StatusObject && local instanceof StatusObject) {
+            long remoteModified = ((StatusObject) remote).getModified();
+            long localModified = ((StatusObject) local).getModified();
+
+            if (remoteModified != localModified)
+                return remoteModified > localModified;
+        }
+
+        String remoteDigest = Utils.bytesToString(digest(remote));
+        String localDigest = Utils.bytesToString(digest(local));
+
+        return remoteDigest.compareTo(localDigest) > 0;
+    }
+
     public void addSubscriber(BlockingQueue<Message> subscriberQueue) {
         Subscriber subscriber = new Subscriber(subscriberQueue);
         getSubscribers().add(subscriber);
@@ -254,6 +595,10 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
         List<E> updatedObjects = new ArrayList<E>();
         updatedObjects.add(updatedObject);
 
+        sendUpdateObjectsMessage(senderQueue, sender, updatedObjects);
+    }
+
+    public void sendUpdateObjectsMessage(BlockingQueue<Message> senderQueue, Object sender, List<E> updatedObjects) {
         UpdateObjectsMessage updateObjectsMessage = new UpdateObjectsMessage(senderQueue, sender, updatedObjects);
         sendToMe(updateObjectsMessage);
     }
@@ -266,37 +611,73 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
 
     public void addObjects(List list) {
         List<E> newObjects = (List<E>) list;
+        List<E> added = new ArrayList<E>(newObjects.size());
+
         for (E object : newObjects) {
-            if (!contains(object))
+            if (!contains(object)) {
                 getData().add(object);
+                added.add(object);
+            }
         }
 
-        write();
+        journal(Journal.Operations.Add, added);
     }
 
     public void updateObjects(List<E> updatedObjects) {
+        List<E> updated = new ArrayList<E>(updatedObjects.size());
+
         for (E updatedObject : updatedObjects) {
-            update(updatedObject);
+            E existingObject = updateElement(updatedObject);
+
+            if (null != existingObject)
+                updated.add(existingObject);
         }
 
-        checkForDuplicates();
+        journal(Journal.Operations.Update, updated);
 
-        write();
+        //
+        // removing duplicates is not something the journal can record
+        //
+        if (getIndexedData().hasDuplicates()) {
+            int size = getData().size();
+            checkForDuplicates();
+
+            if (size != getData().size())
+                compact();
+        }
     }
 
     public void update(E updatedObject) {
+        E existingObject = updateElement(updatedObject);
+
+        if (null != existingObject)
+            journal(Journal.Operations.Update, existingObject);
+    }
+
+    /**
+     * Update the element that matches an object without journaling it.
+     *
+     * @return The element that was updated or null if there wasn't one.
+     */
+    public E updateElement(E updatedObject) {
         E existingObject = find(updatedObject);
 
         if (null == existingObject) {
             logger.error("Could not find match for update");
         } else {
             existingObject.updateFrom(updatedObject);
+            elementChanged(existingObject);
         }
 
-        write();
+        return existingObject;
     }
 
     public E findMatch(E object) {
+        if (null != object.getKey() && !getIndexedData().hasDuplicates()) {
+            E candidate = findByKey(object.getKey());
+            return (null != candidate && object.matches(candidate)) ? candidate : null;
+        }
+
         for (E candidate : getData()) {
             if (object.matches(candidate))
                 return candidate;
@@ -319,11 +700,23 @@ abstract public class SingleFile<E extends Updateable<E> & Matchable<E>> extends
         }
 
         getData().removeAll(existingObjects);
-
-        write();
+        journal(Journal.Operations.Remove, existingObjects);
     }
 
+    /**
+     * Find the element that matches an object.
+     *
+     * <P>
+     *     Only an element with the same key can match, so the index answers
+     *     this unless the object has no key or the file has duplicates.
+     * </P>
+     */
     public E find(E object) {
+        if (null != object.getKey() && !getIndexedData().hasDuplicates()) {
+            E candidate = findByKey(object.getKey());
+            return (null != candidate && candidate.matches(object)) ? candidate : null;
+        }
+
         for (E candidate : getData()) {
             if (candidate.matches(object))
                 return candidate;
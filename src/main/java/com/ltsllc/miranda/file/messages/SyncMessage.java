@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.file.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.node.networkMessages.SyncWireMessage;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Carries a step of synchronizing a file between a {@link com.ltsllc.miranda.node.Node}
+ * and the file.  The node forwards the ones it gets from the wire to the file,
+ * and puts the ones it gets from the file on the wire.
+ */
+public class SyncMessage extends Message {
+    private SyncWireMessage wireMessage;
+
+    public SyncWireMessage getWireMessage() {
+        return wireMessage;
+    }
+
+    public SyncMessage (BlockingQueue<Message> senderQueue, Object sender, SyncWireMessage wireMessage) {
+        super(Subjects.Sync, senderQueue, sender);
+
+        this.wireMessage = wireMessage;
+    }
+}
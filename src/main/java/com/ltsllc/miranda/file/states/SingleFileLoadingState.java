@@ -65,8 +65,11 @@ abstract public class SingleFileLoadingState extends State {
     public State processReadResponseMessage (ReadResponseMessage readResponseMessage) {
         State nextState = getSingleFile().getCurrentState();
 
+        getSingleFile().recordLoad(readResponseMessage.getData());
+
         if (readResponseMessage.getResult() == ReadResponseMessage.Results.Success) {
-            getSingleFile().processData(readResponseMessage.getData());
+            getSingleFile().processData(readResponseMessage.getData(), readResponseMessage.getJournal(),
+                    readResponseMessage.isJournalDamaged());
             nextState = getReadyState();
         } else if (readResponseMessage.getResult() == ReadResponseMessage.Results.ExceptionReadingFile){
             Panic panic = new Panic ("Error trying to load file", readResponseMessage.getException(), Panic.Reasons.ErrorLoadingFile);
@@ -19,14 +19,14 @@ package com.ltsllc.miranda.file.states;
 import com.google.gson.Gson;
 import com.ltsllc.miranda.*;
 import com.ltsllc.miranda.cluster.messages.LoadMessage;
+import com.ltsllc.miranda.cluster.messages.RemoteVersionMessage;
+import com.ltsllc.miranda.file.HashTree;
 import com.ltsllc.miranda.file.SingleFile;
-import com.ltsllc.miranda.file.messages.AddObjectsMessage;
-import com.ltsllc.miranda.file.messages.GetFileResponseMessage;
-import com.ltsllc.miranda.file.messages.RemoveObjectsMessage;
-import com.ltsllc.miranda.file.messages.UpdateObjectsMessage;
+import com.ltsllc.miranda.file.messages.*;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.miranda.messages.StopMessage;
 import com.ltsllc.miranda.node.messages.GetFileMessage;
+import com.ltsllc.miranda.node.networkMessages.*;
 import com.ltsllc.miranda.reader.ReadResponseMessage;
 import com.ltsllc.miranda.util.Utils;
 import com.ltsllc.miranda.writer.WriteMessage;
@@ -35,6 +35,8 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by Clark on 2/10/2017.
@@ -113,6 +115,18 @@ abstract public class SingleFileReadyState<E> extends MirandaFileReadyState {
                 break;
             }
 
+            case RemoteVersion: {
+                RemoteVersionMessage remoteVersionMessage = (RemoteVersionMessage) message;
+                nextState = processRemoteVersionMessage(remoteVersionMessage);
+                break;
+            }
+
+            case Sync: {
+                SyncMessage syncMessage = (SyncMessage) message;
+                nextState = processSyncMessage(syncMessage);
+                break;
+            }
+
             default :
                 nextState = super.processMessage(message);
                 break;
@@ -147,6 +161,85 @@ abstract public class SingleFileReadyState<E> extends MirandaFileReadyState {
         }
     }
 
+    /**
+     * Another node has a different version of the file, so start synchronizing
+     * with it by sending it our bucket digests.
+     */
+    public State processRemoteVersionMessage (RemoteVersionMessage remoteVersionMessage) {
+        Version remoteVersion = remoteVersionMessage.getVersion().getVersion();
+
+        if (null != remoteVersion && !remoteVersion.equals(getFile().getVersion())) {
+            HashTree hashTree = getFile().getHashTree();
+            String file = remoteVersionMessage.getVersion().getName();
+            SyncBucketsWireMessage syncBucketsWireMessage = new SyncBucketsWireMessage(file, hashTree.getBucketDigests());
+            SyncMessage syncMessage = new SyncMessage(getFile().getQueue(), this, syncBucketsWireMessage);
+            send(remoteVersionMessage.getNode(), syncMessage);
+        }
+
+        return getFile().getCurrentState();
+    }
+
+    /**
+     * Take the next step in synchronizing with another node.
+     *
+     * <P>
+     *     The node that started the synchronization sends its bucket digests,
+     *     gets back the element digests for the buckets that differ, asks for
+     *     the elements that it does not have or that differ and then merges
+     *     them.
+     * </P>
+     */
+    public State processSyncMessage (SyncMessage syncMessage) {
+        SyncWireMessage wireMessage = syncMessage.getWireMessage();
+        String file = wireMessage.getFile();
+        SyncWireMessage response = null;
+
+        switch (wireMessage.getWireSubject()) {
+            case SyncBuckets: {
+                SyncBucketsWireMessage syncBucketsWireMessage = (SyncBucketsWireMessage) wireMessage;
+                HashTree hashTree = getFile().getHashTree();
+                Set<Integer> buckets = hashTree.getBucketsThatDiffer(syncBucketsWireMessage.getBuckets());
+                response = new SyncKeysWireMessage(file, hashTree.getKeyDigests(buckets));
+                break;
+            }
+
+            case SyncKeys: {
+                SyncKeysWireMessage syncKeysWireMessage = (SyncKeysWireMessage) wireMessage;
+                List<String> keys = getFile().getHashTree().getKeysThatDiffer(syncKeysWireMessage.getKeys());
+                if (keys.size() > 0)
+                    response = new GetElementsWireMessage(file, keys);
+                break;
+            }
+
+            case GetElements: {
+                GetElementsWireMessage getElementsWireMessage = (GetElementsWireMessage) wireMessage;
+                List elements = getFile().getElements(getElementsWireMessage.getKeys());
+                response = new ElementsWireMessage(file, ourGson.toJson(elements));
+                break;
+            }
+
+            case Elements: {
+                ElementsWireMessage elementsWireMessage = (ElementsWireMessage) wireMessage;
+                List list = ourGson.fromJson(elementsWireMessage.getElements(), getListType());
+                int changes = getFile().mergeElements(list);
+                logger.info("Synchronizing " + getName() + " changed " + changes + " elements");
+                break;
+            }
+
+            default: {
+                logger.error("Unrecognized synchronization message " + wireMessage.getWireSubject());
+                break;
+            }
+        }
+
+        if (null != response) {
+            SyncMessage reply = new SyncMessage(getFile().getQueue(), this, response);
+            syncMessage.reply(reply);
+        }
+
+        return getFile().getCurrentState();
+    }
+
     private State processGetFileMessage(GetFileMessage getFileMessage) {
         GetFileResponseMessage getFileResponseMessage = null;
 
@@ -219,7 +312,8 @@ abstract public class SingleFileReadyState<E> extends MirandaFileReadyState {
     public State processReadResponseMessage (ReadResponseMessage readResponseMessage) {
         switch (readResponseMessage.getResult()) {
             case Success: {
-                processReadSuccess (readResponseMessage.getData());
+                processReadSuccess (readResponseMessage.getData(), readResponseMessage.getJournal(),
+                        readResponseMessage.isJournalDamaged());
                 break;
             }
 
@@ -244,7 +338,12 @@ abstract public class SingleFileReadyState<E> extends MirandaFileReadyState {
 
 
     public void processReadSuccess (byte[] data) {
+        processReadSuccess(data, null, false);
+    }
+
+    public void processReadSuccess (byte[] data, List<byte[]> journal, boolean journalDamaged) {
         getFile().setData(data);
+        getFile().replayJournal(journal, journalDamaged);
         fireFileLoaded();
     }
 
@@ -72,8 +72,11 @@ abstract public class SingleFileStartingState extends State {
     }
 
     public State processReadResponseMessage(ReadResponseMessage readResponseMessage) {
+        getFile().recordLoad(readResponseMessage.getData());
+
         if (readResponseMessage.getResult() == ReadResponseMessage.Results.Success) {
             getFile().setData(readResponseMessage.getData());
+            getFile().replayJournal(readResponseMessage.getJournal(), readResponseMessage.isJournalDamaged());
             getFile().fireFileLoaded();
             restoreDeferredMessages();
             return getReadyState();
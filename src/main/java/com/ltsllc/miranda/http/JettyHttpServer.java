@@ -25,6 +25,7 @@ import org.apache.log4j.Logger;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 
 import java.util.List;
 
@@ -64,8 +65,14 @@ public class JettyHttpServer extends HttpServer {
     public void addServlets(List<ServletMapping> servlets) {
         ServletHandler servletHandler = new ServletHandler();
 
+        //
+        // the servlets answer from AsyncContexts, so they have to be marked as supporting it
+        //
         for (ServletMapping mapping : servlets) {
-            servletHandler.addServletWithMapping(mapping.getServletClass(), mapping.getPath());
+            ServletHolder servletHolder = servletHandler.addServletWithMapping(mapping.getServletClass(),
+                    mapping.getPath());
+
+            servletHolder.setAsyncSupported(true);
         }
 
         getHandlerCollection().addHandler(servletHandler);
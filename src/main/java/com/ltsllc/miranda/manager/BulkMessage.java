@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.manager;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.SessionMessage;
+import com.ltsllc.miranda.session.Session;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Create, update or delete several objects at once.
+ *
+ * <P>
+ *     The manager applies the whole list before it looks at another
+ *     message, tells its file about the changes with one message and, if
+ *     broadcast is set, tells the cluster with one message.  The session is
+ *     null when the objects came from another node.
+ * </P>
+ */
+public class BulkMessage extends SessionMessage {
+    public enum Operations {
+        Create,
+        Update,
+        Delete
+    }
+
+    private Operations operation;
+    private List objects;
+    private boolean broadcast;
+
+    public Operations getOperation() {
+        return operation;
+    }
+
+    public List getObjects() {
+        return objects;
+    }
+
+    public boolean getBroadcast() {
+        return broadcast;
+    }
+
+    public BulkMessage (BlockingQueue<Message> senderQueue, Object sender, Session session, Operations operation,
+                        List objects, boolean broadcast) {
+        super(Subjects.Bulk, senderQueue, sender, session);
+
+        this.operation = operation;
+        this.objects = objects;
+        this.broadcast = broadcast;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.manager;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The answer to a {@link BulkMessage}: one result for each object, in the
+ * same order.
+ */
+public class BulkResponseMessage extends Message {
+    private List<Results> results;
+
+    public List<Results> getResults() {
+        return results;
+    }
+
+    public BulkResponseMessage (BlockingQueue<Message> senderQueue, Object sender, List<Results> results) {
+        super(Subjects.BulkResponse, senderQueue, sender);
+
+        this.results = results;
+    }
+}
@@ -97,7 +97,7 @@ public abstract class Manager<E, F extends Updateable<F> & Matchable<F>> extends
         setCurrentState(startState);
 
         List<E> newList = new ArrayList<E>();
-        this.data = newList;
+        setData(newList);
     }
 
     public Manager (String name, boolean testMode) {
@@ -107,7 +107,7 @@ public abstract class Manager<E, F extends Updateable<F> & Matchable<F>> extends
         setCurrentState(startState);
 
         List<E> newList = new ArrayList<E>();
-        this.data = newList;
+        setData(newList);
     }
 
     public void sendGarbageCollectionMessage (BlockingQueue<Message> senderQueue, Object sender) {
@@ -16,15 +16,36 @@
 
 package com.ltsllc.miranda.manager;
 
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.cluster.networkMessages.BulkWireMessage;
+import com.ltsllc.miranda.file.IndexedList;
 import com.ltsllc.miranda.file.Matchable;
 import com.ltsllc.miranda.file.Updateable;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.session.Session;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Created by Clark on 5/14/2017.
  */
 abstract public class StandardManager<E extends Updateable<E> & Matchable<E>> extends Manager<E, E> {
+    /**
+     * What the objects in a {@link BulkWireMessage} are.
+     */
+    abstract public BulkWireMessage.Kinds getKind ();
+
+    /**
+     * The result for an update or delete of an object that does not exist.
+     */
+    abstract public Results getNotFoundResult ();
+
     public StandardManager (String name, String filename) throws IOException {
         super (name, filename);
     }
@@ -32,4 +53,144 @@ abstract public class StandardManager<E extends Updateable<E> & Matchable<E>> ex
     public E convert (E e) {
         return e;
     }
+
+    /**
+     * The data is kept in an {@link IndexedList} so that it can be searched by
+     * key.
+     */
+    public void setData (List<E> data) {
+        super.setData(IndexedList.toIndexedList(data));
+    }
+
+    public IndexedList<E> getIndexedData () {
+        return (IndexedList<E>) getData();
+    }
+
+    /**
+     * Return the element with a key or null if there isn't one.
+     */
+    public E findByKey (String key) {
+        return getIndexedData().get(key);
+    }
+
+    /**
+     * Can a session change or delete an existing object?  Everyone can,
+     * unless a subclass says otherwise.  The session is null for changes
+     * that come from other nodes.
+     */
+    public boolean allowChange (Session session, E existing) {
+        return true;
+    }
+
+    public void sendBulkMessage (BlockingQueue<Message> senderQueue, Object sender, Session session,
+                                 BulkMessage.Operations operation, List<E> objects, boolean broadcast) {
+        BulkMessage bulkMessage = new BulkMessage(senderQueue, sender, session, operation, objects, broadcast);
+        sendToMe(bulkMessage);
+    }
+
+    /**
+     * Apply a {@link BulkMessage}.
+     *
+     * @param changed The objects that were actually created, updated or deleted.
+     * @return A result for each object in the message, in the same order.
+     */
+    public List<Results> bulk (BulkMessage bulkMessage, List<E> changed) {
+        List<E> objects = (List<E>) bulkMessage.getObjects();
+        List<Results> results = new ArrayList<Results>(objects.size());
+
+        switch (bulkMessage.getOperation()) {
+            case Create: {
+                createAll(objects, results, changed);
+                break;
+            }
+
+            case Update: {
+                updateAll(bulkMessage.getSession(), objects, results, changed);
+                break;
+            }
+
+            case Delete: {
+                deleteAll(bulkMessage.getSession(), objects, results, changed);
+                break;
+            }
+        }
+
+        return results;
+    }
+
+    public void createAll (List<E> objects, List<Results> results, List<E> changed) {
+        Set<String> keys = new HashSet<String>();
+
+        for (E object : objects) {
+            if (null != findByKey(object.getKey()) || !keys.add(object.getKey())) {
+                results.add(Results.Duplicate);
+            } else {
+                getData().add(object);
+                changed.add(object);
+                results.add(Results.Success);
+            }
+        }
+
+        if (!changed.isEmpty())
+            getFile().sendAddObjectsMessage(getQueue(), this, changed);
+    }
+
+    /**
+     * Update objects.  The session has to be allowed to change both the
+     * existing object and the new one, so an update cannot give an object to
+     * someone else unless an admin makes it.
+     */
+    public void updateAll (Session session, List<E> objects, List<Results> results, List<E> changed) {
+        for (E object : objects) {
+            E existing = findByKey(object.getKey());
+
+            if (null == existing) {
+                results.add(getNotFoundResult());
+            } else if (!allowChange(session, existing) || !allowChange(session, object)) {
+                results.add(Results.NotOwner);
+            } else {
+                existing.updateFrom(object);
+                changed.add(existing);
+                results.add(Results.Success);
+            }
+        }
+
+        if (!changed.isEmpty())
+            getFile().sendUpdateObjectsMessage(getQueue(), this, changed);
+    }
+
+    public void deleteAll (Session session, List<E> objects, List<Results> results, List<E> changed) {
+        for (E object : objects) {
+            E existing = findByKey(object.getKey());
+
+            if (null == existing) {
+                results.add(getNotFoundResult());
+            } else if (!allowChange(session, existing)) {
+                results.add(Results.NotOwner);
+            } else {
+                getData().remove(existing);
+                changed.add(existing);
+                results.add(Results.Success);
+            }
+        }
+
+        if (!changed.isEmpty())
+            getFile().sendRemoveObjectsMessage(getQueue(), this, changed);
+    }
+
+    /**
+     * Tell the other nodes about the objects that a bulk operation changed.
+     */
+    public void broadcast (BulkMessage.Operations operation, List<E> changed) {
+        String json = getFile().getGson().toJson(changed, getFile().getListType());
+        BulkWireMessage bulkWireMessage = new BulkWireMessage(getKind(), operation, json);
+        Miranda.getInstance().getCluster().sendBroadcastMessage(getQueue(), this, bulkWireMessage);
+    }
+
+    /**
+     * Turn the objects in a {@link BulkWireMessage} back into a list.
+     */
+    public List<E> fromJson (String json) {
+        return getFile().getGson().fromJson(json, getFile().getListType());
+    }
 }
@@ -16,9 +16,15 @@
 
 package com.ltsllc.miranda.manager;
 
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.State;
 import com.ltsllc.miranda.file.Matchable;
 import com.ltsllc.miranda.file.Updateable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by Clark on 5/18/2017.
  */
@@ -30,4 +36,38 @@ public class StandardManagerReadyState<E extends Updateable<E> & Matchable<E>> e
     public StandardManagerReadyState (StandardManager manager) {
         super(manager);
     }
+
+    public State processMessage (Message message) {
+        State nextState = getManager().getCurrentState();
+
+        switch (message.getSubject()) {
+            case Bulk: {
+                BulkMessage bulkMessage = (BulkMessage) message;
+                nextState = processBulkMessage(bulkMessage);
+                break;
+            }
+
+            default: {
+                nextState = super.processMessage(message);
+                break;
+            }
+        }
+
+        return nextState;
+    }
+
+    public State processBulkMessage (BulkMessage bulkMessage) {
+        List<E> changed = new ArrayList<E>();
+        List<Results> results = getManager().bulk(bulkMessage, changed);
+
+        if (null != bulkMessage.getSender()) {
+            BulkResponseMessage bulkResponseMessage = new BulkResponseMessage(getManager().getQueue(), this, results);
+            bulkMessage.reply(bulkResponseMessage);
+        }
+
+        if (bulkMessage.getBroadcast() && !changed.isEmpty())
+            getManager().broadcast(bulkMessage.getOperation(), changed);
+
+        return getManager().getCurrentState();
+    }
 }
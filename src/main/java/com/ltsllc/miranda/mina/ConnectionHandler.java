@@ -111,11 +111,20 @@ public class ConnectionHandler extends IoHandlerAdapter {
     public void messageReceived(IoSession session, Object message) throws Exception {
         setSession(session);
         verifyConnection();
+
+        //
+        // if the binary codec is installed, then the message has already been decoded
+        //
+        if (message instanceof WireMessage) {
+            getHandle().deliver((WireMessage) message);
+            return;
+        }
+
         IoBuffer ioBuffer = (IoBuffer) message;
         String json = ioBuffer.getString(getCharset().newDecoder());
         WireMessage wireMessage = getGson().fromJson(json, WireMessage.class);
         Class clazz = Class.forName(wireMessage.getClassName());
         WireMessage pass2 = (WireMessage) getGson().fromJson(json, clazz);
-        getHandle().deliver(wireMessage);
+        getHandle().deliver(pass2);
     }
 }
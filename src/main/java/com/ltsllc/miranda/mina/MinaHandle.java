@@ -27,19 +27,44 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.util.concurrent.BlockingQueue;
 
+/**
+ * A connection to another node.
+ *
+ * <P>
+ *     When the binary codec is installed, frames go through an
+ *     {@link OutboundQueue} that batches them and keeps the logical streams
+ *     from getting in each other's way.
+ * </P>
+ */
 public class MinaHandle extends Handle {
     private IoSession ioSession;
+    private OutboundQueue outboundQueue;
 
     public IoSession getIoSession() {
         return ioSession;
     }
 
+    public OutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
     public MinaHandle(IoSession ioSession, BlockingQueue<Message> queue) {
         super(queue);
         this.ioSession = ioSession;
+        this.outboundQueue = OutboundQueue.build(ioSession);
     }
 
     public void send(WireMessage wireMessage) throws NetworkException {
+        if (WireMessageCodecFactory.isInstalled(getIoSession())) {
+            try {
+                getOutboundQueue().send(wireMessage.getStream(), WireMessageEncoder.toBuffer(wireMessage));
+            } catch (Exception e) {
+                throw new NetworkException("Exception trying to send", e, NetworkException.Errors.ExceptionSending);
+            }
+
+            return;
+        }
+
         try {
             String json = wireMessage.toJson();
             IoBuffer ioBuffer = IoBuffer.allocate(json.length());
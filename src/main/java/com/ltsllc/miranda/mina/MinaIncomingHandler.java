@@ -87,7 +87,7 @@ public class MinaIncomingHandler extends IoHandlerAdapter {
     }
 
     public void send (WireMessage wireMessage) {
-        String json = ourGson.toJson(wireMessage);
+        String json = wireMessage.toJson();
         getSession().write(json);
     }
 
@@ -91,6 +91,7 @@ public class MinaNetwork extends Network {
             SslFilter sslFilter = new SslFilter(sslContext);
             sslFilter.setUseClientMode(true);
             nioSocketConnector.getFilterChain().addLast("tls", sslFilter);
+            WireMessageCodecFactory.install(nioSocketConnector.getFilterChain());
 
             InetSocketAddress inetSocketAddress = new InetSocketAddress(host, port);
 
@@ -104,6 +104,7 @@ public class MinaNetworkListener extends NetworkListener {
         SslFilter sslFilter = new SslFilter(sslContext);
         sslFilter.setNeedClientAuth(true);
         nioSocketAcceptor.getFilterChain().addLast("ssl", sslFilter);
+        WireMessageCodecFactory.install(nioSocketAcceptor.getFilterChain());
 
         Certificate certificate = getTruststore().getCertificate("ca");
         ConnectionHandler connectionHandler = new ConnectionHandler(getNetwork(), certificate);
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.mina;
+
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.network.WireMessageRegistry;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+import com.ltsllc.miranda.property.MirandaProperties;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.IoSession;
+
+import java.util.*;
+
+/**
+ * The frames waiting to go to another node.
+ *
+ * <P>
+ *     Each {@link WireMessage.Streams} has a queue of its own.  Only one write
+ *     is outstanding at a time; when it completes, the next write takes
+ *     frames from the streams in turn until it has {@link #getMaxBatchSize()}
+ *     bytes, so many small messages share a write and one busy stream
+ *     cannot starve the others.  Frames larger than {@link #getFragmentSize()}
+ *     are cut into fragments so that sending a large file only delays a
+ *     session update by a fragment or so.
+ * </P>
+ *
+ * <P>
+ *     When nothing is being written, the first frame waits up to
+ *     {@link #getLinger()} milliseconds for others to join it.
+ * </P>
+ */
+public class OutboundQueue {
+    public static final int FRAGMENT_HEADER_SIZE = 4; // type, stream and flag
+
+    private IoSession ioSession;
+    private long linger;
+    private int fragmentSize;
+    private int maxBatchSize;
+    private Map<WireMessage.Streams, Deque<IoBuffer>> streams = new EnumMap<WireMessage.Streams, Deque<IoBuffer>>(WireMessage.Streams.class);
+    private int nextStream;
+    private boolean writing;
+    private boolean flushScheduled;
+
+    private IoFutureListener<WriteFuture> writeListener = new IoFutureListener<WriteFuture>() {
+        public void operationComplete(WriteFuture future) {
+            writeComplete();
+        }
+    };
+
+    public IoSession getIoSession() {
+        return ioSession;
+    }
+
+    public long getLinger() {
+        return linger;
+    }
+
+    public int getFragmentSize() {
+        return fragmentSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public OutboundQueue (IoSession ioSession, long linger, int fragmentSize, int maxBatchSize) {
+        this.ioSession = ioSession;
+        this.linger = linger;
+        this.fragmentSize = fragmentSize;
+        this.maxBatchSize = maxBatchSize;
+
+        for (WireMessage.Streams stream : WireMessage.Streams.values()) {
+            streams.put(stream, new ArrayDeque<IoBuffer>());
+        }
+    }
+
+    public static OutboundQueue build (IoSession ioSession) {
+        long linger = Long.parseLong(MirandaProperties.DEFAULT_CLUSTER_LINGER);
+        int fragmentSize = Integer.parseInt(MirandaProperties.DEFAULT_CLUSTER_FRAGMENT_SIZE);
+        int maxBatchSize = Integer.parseInt(MirandaProperties.DEFAULT_CLUSTER_MAX_BATCH_SIZE);
+
+        MirandaProperties properties = Miranda.properties;
+
+        if (null != properties) {
+            linger = properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_LINGER, MirandaProperties.DEFAULT_CLUSTER_LINGER);
+            fragmentSize = (int) properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_FRAGMENT_SIZE,
+                    MirandaProperties.DEFAULT_CLUSTER_FRAGMENT_SIZE);
+            maxBatchSize = (int) properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_MAX_BATCH_SIZE,
+                    MirandaProperties.DEFAULT_CLUSTER_MAX_BATCH_SIZE);
+        }
+
+        if (fragmentSize < 1)
+            fragmentSize = Integer.parseInt(MirandaProperties.DEFAULT_CLUSTER_FRAGMENT_SIZE);
+
+        if (maxBatchSize < fragmentSize)
+            maxBatchSize = fragmentSize;
+
+        return new OutboundQueue(ioSession, linger, fragmentSize, maxBatchSize);
+    }
+
+    public synchronized int getPendingFrames () {
+        int count = 0;
+
+        for (Deque<IoBuffer> deque : streams.values()) {
+            count += deque.size();
+        }
+
+        return count;
+    }
+
+    public synchronized void send (WireMessage.Streams stream, IoBuffer frame) {
+        Deque<IoBuffer> deque = streams.get(stream);
+
+        if (frame.remaining() <= getFragmentSize()) {
+            deque.add(frame);
+        } else {
+            fragment(stream, frame, deque);
+        }
+
+        if (writing || flushScheduled)
+            return;
+
+        if (getLinger() <= 0 || null == Miranda.timer) {
+            flush();
+        } else {
+            flushScheduled = true;
+
+            TimerTask timerTask = new TimerTask() {
+                public void run() {
+                    lingerExpired();
+                }
+            };
+
+            Miranda.timer.getTimer().schedule(timerTask, getLinger());
+        }
+    }
+
+    public void fragment (WireMessage.Streams stream, IoBuffer frame, Deque<IoBuffer> deque) {
+        while (frame.hasRemaining()) {
+            int size = Math.min(getFragmentSize(), frame.remaining());
+            boolean last = size == frame.remaining();
+
+            IoBuffer fragment = IoBuffer.allocate(WireMessageEncoder.LENGTH_SIZE + FRAGMENT_HEADER_SIZE + size);
+            fragment.putInt(FRAGMENT_HEADER_SIZE + size);
+            fragment.putShort((short) WireMessageRegistry.FRAGMENT);
+            fragment.put((byte) stream.ordinal());
+            fragment.put((byte) (last ? 1 : 0));
+
+            int limit = frame.limit();
+            frame.limit(frame.position() + size);
+            fragment.put(frame);
+            frame.limit(limit);
+
+            fragment.flip();
+            deque.add(fragment);
+        }
+    }
+
+    public synchronized void lingerExpired () {
+        flushScheduled = false;
+
+        if (!writing)
+            flush();
+    }
+
+    /**
+     * Once a write completes, anything that arrived in the meantime goes out
+     * straight away; the linger only applies to a connection that was idle.
+     */
+    public synchronized void writeComplete () {
+        writing = false;
+        flush();
+    }
+
+    public synchronized void flush () {
+        IoBuffer batch = nextBatch();
+
+        if (null == batch)
+            return;
+
+        writing = true;
+        getIoSession().write(batch).addListener(writeListener);
+    }
+
+    /**
+     * Take frames from the streams in turn until there is enough for a write.
+     *
+     * @return The frames as a single buffer or null if nothing is waiting.
+     */
+    public IoBuffer nextBatch () {
+        WireMessage.Streams[] order = WireMessage.Streams.values();
+        List<IoBuffer> frames = new ArrayList<IoBuffer>();
+        int size = 0;
+        boolean tookSomething = true;
+
+        while (size < getMaxBatchSize() && tookSomething) {
+            tookSomething = false;
+
+            for (int i = 0; i < order.length && size < getMaxBatchSize(); i++) {
+                Deque<IoBuffer> deque = streams.get(order[(nextStream + i) % order.length]);
+                IoBuffer frame = deque.poll();
+
+                if (null != frame) {
+                    frames.add(frame);
+                    size += frame.remaining();
+                    tookSomething = true;
+                }
+            }
+
+            nextStream = (nextStream + 1) % order.length;
+        }
+
+        if (frames.isEmpty())
+            return null;
+
+        return coalesce(frames, size);
+    }
+
+    public static IoBuffer coalesce (List<IoBuffer> frames, int size) {
+        if (frames.size() == 1)
+            return frames.get(0);
+
+        IoBuffer batch = IoBuffer.allocate(size);
+
+        for (IoBuffer frame : frames) {
+            batch.put(frame);
+        }
+
+        batch.flip();
+
+        return batch;
+    }
+}
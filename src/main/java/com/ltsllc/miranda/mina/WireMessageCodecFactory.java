@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.mina;
+
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
+import org.apache.mina.core.filterchain.DefaultIoFilterChainBuilder;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolCodecFactory;
+import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolEncoder;
+
+/**
+ * The codec for the binary cluster protocol.
+ *
+ * <P>
+ *     Each frame is a 4 byte length, followed by a 2 byte type from the
+ *     {@link com.ltsllc.miranda.network.WireMessageRegistry}, followed by the
+ *     message.  The length covers the type and the message.  Since the type
+ *     identifies the class of the message, the receiver only has to parse the
+ *     message once.
+ * </P>
+ *
+ * <P>
+ *     A frame that is larger than the fragment size is sent as a series of
+ *     fragments.  A fragment is a frame of type
+ *     {@link com.ltsllc.miranda.network.WireMessageRegistry#FRAGMENT} whose
+ *     message is a 1 byte stream, a 1 byte flag that is 1 for the last
+ *     fragment, and the next piece of the original frame.  Fragments from
+ *     different streams can be interleaved; see {@link OutboundQueue}.
+ * </P>
+ *
+ * <P>
+ *     When {@link MirandaProperties#PROPERTY_CLUSTER_WIRE_FORMAT} is Json the
+ *     codec is not installed and nodes exchange bare JSON, which is easier
+ *     to read when debugging.  All the nodes in a cluster have to use the same
+ *     format.
+ * </P>
+ */
+public class WireMessageCodecFactory implements ProtocolCodecFactory {
+    public static final String NAME = "codec";
+    public static final String FRAGMENTS = "fragments";
+
+    private WireMessageEncoder encoder;
+    private WireMessageDecoder decoder;
+
+    public WireMessageCodecFactory () {
+        this.encoder = new WireMessageEncoder();
+        this.decoder = new WireMessageDecoder();
+    }
+
+    public ProtocolEncoder getEncoder(IoSession session) throws Exception {
+        return encoder;
+    }
+
+    public ProtocolDecoder getDecoder(IoSession session) throws Exception {
+        return decoder;
+    }
+
+    public static boolean isEnabled () {
+        MirandaProperties properties = Miranda.properties;
+
+        if (null == properties)
+            return true;
+
+        MirandaProperties.WireFormats wireFormat = properties.getWireFormatProperty(MirandaProperties.PROPERTY_CLUSTER_WIRE_FORMAT);
+        return wireFormat == MirandaProperties.WireFormats.Binary;
+    }
+
+    /**
+     * Add the codec to a filter chain if the binary format is enabled.
+     *
+     * <P>
+     *     This should be called after any SSL filter has been added.
+     * </P>
+     */
+    public static void install (DefaultIoFilterChainBuilder filterChain) {
+        if (!isEnabled())
+            return;
+
+        filterChain.addLast(NAME, new ProtocolCodecFilter(new WireMessageCodecFactory()));
+    }
+
+    public static boolean isInstalled (IoSession session) {
+        return session.getFilterChain().contains(NAME);
+    }
+}
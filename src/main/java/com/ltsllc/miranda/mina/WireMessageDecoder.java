@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.mina;
+
+import com.google.gson.Gson;
+import com.ltsllc.miranda.network.Handle;
+import com.ltsllc.miranda.network.NetworkException;
+import com.ltsllc.miranda.network.WireMessageRegistry;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.CumulativeProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turn frames back into {@link WireMessage}s.
+ *
+ * <P>
+ *     The decoder waits until a complete frame has arrived, then parses the
+ *     message directly from the buffer into the class that the type of the
+ *     frame calls for.  See {@link WireMessageCodecFactory} for the layout of
+ *     a frame.
+ * </P>
+ */
+public class WireMessageDecoder extends CumulativeProtocolDecoder {
+    public static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    public static final int TYPE_SIZE = 2;
+    public static final int FRAGMENT_HEADER_SIZE = 2;
+
+    private static Gson ourGson = new Gson();
+
+    protected boolean doDecode(IoSession session, IoBuffer in, ProtocolDecoderOutput out) throws Exception {
+        if (!in.prefixedDataAvailable(WireMessageEncoder.LENGTH_SIZE, MAX_FRAME_SIZE))
+            return false;
+
+        int length = in.getInt();
+
+        //
+        // a frame too short to hold its type would take it from the next
+        // frame, and after that nothing would line up again
+        //
+        if (length < TYPE_SIZE) {
+            session.closeNow();
+            throw new ProtocolDecoderException("Invalid frame length: " + length);
+        }
+
+        int end = in.position() + length;
+        int limit = in.limit();
+
+        try {
+            int type = in.getUnsignedShort();
+            in.limit(end);
+
+            if (type == WireMessageRegistry.FRAGMENT) {
+                WireMessage wireMessage = addFragment(session, in);
+                if (null != wireMessage)
+                    out.write(wireMessage);
+            } else {
+                out.write(decode(type, in));
+            }
+        } finally {
+            in.limit(limit);
+            in.position(end);
+        }
+
+        return true;
+    }
+
+    /**
+     * Add a fragment to the frame that is being put together for its stream.
+     *
+     * @return The message, if this was the last fragment; otherwise null.
+     */
+    public static WireMessage addFragment (IoSession session, IoBuffer in) throws Exception {
+        if (in.remaining() < FRAGMENT_HEADER_SIZE) {
+            session.closeNow();
+            throw new ProtocolDecoderException("Invalid fragment length: " + in.remaining());
+        }
+
+        int stream = in.get();
+        boolean last = in.get() != 0;
+
+        Map<Integer, IoBuffer> fragments = (Map<Integer, IoBuffer>) session.getAttribute(WireMessageCodecFactory.FRAGMENTS);
+        if (null == fragments) {
+            fragments = new HashMap<Integer, IoBuffer>();
+            session.setAttribute(WireMessageCodecFactory.FRAGMENTS, fragments);
+        }
+
+        IoBuffer frame = fragments.get(stream);
+        if (null == frame) {
+            frame = IoBuffer.allocate(in.remaining());
+            frame.setAutoExpand(true);
+            fragments.put(stream, frame);
+        }
+
+        frame.put(in);
+
+        if (frame.position() > MAX_FRAME_SIZE) {
+            throw new NetworkException("Fragmented frame is too large", NetworkException.Errors.ExceptionReceiving);
+        }
+
+        if (!last)
+            return null;
+
+        fragments.remove(stream);
+        frame.flip();
+
+        if (frame.remaining() < WireMessageEncoder.LENGTH_SIZE + TYPE_SIZE) {
+            session.closeNow();
+            throw new ProtocolDecoderException("Fragmented frame is too short: " + frame.remaining());
+        }
+
+        int length = frame.getInt();
+
+        if (length < TYPE_SIZE || length > frame.remaining()) {
+            session.closeNow();
+            throw new ProtocolDecoderException("Invalid length for a fragmented frame: " + length);
+        }
+
+        int type = frame.getUnsignedShort();
+        frame.limit(WireMessageEncoder.LENGTH_SIZE + length);
+
+        return decode(type, frame);
+    }
+
+    public static WireMessage decode (int type, IoBuffer in) throws Exception {
+        if (type == WireMessageRegistry.SELF_DESCRIBING) {
+            String json = in.getString(WireMessageEncoder.CHARSET.newDecoder());
+            return Handle.jsonToWireMessageTwoPass(json);
+        }
+
+        Class<? extends WireMessage> clazz = WireMessageRegistry.getMessageClass(type);
+        if (null == clazz) {
+            throw new NetworkException("Unrecognized message type: " + type, NetworkException.Errors.ExceptionReceiving);
+        }
+
+        Reader reader = new InputStreamReader(in.asInputStream(), WireMessageEncoder.CHARSET);
+        return ourGson.fromJson(reader, clazz);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.mina;
+
+import com.google.gson.Gson;
+import com.ltsllc.miranda.network.WireMessageRegistry;
+import com.ltsllc.miranda.node.networkMessages.WireMessage;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolEncoderAdapter;
+import org.apache.mina.filter.codec.ProtocolEncoderOutput;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Turn a {@link WireMessage} into a frame.
+ *
+ * <P>
+ *     The message is written straight into the buffer as UTF-8 rather than
+ *     going through a String first.  See {@link WireMessageCodecFactory} for
+ *     the layout of a frame.
+ * </P>
+ */
+public class WireMessageEncoder extends ProtocolEncoderAdapter {
+    public static final int LENGTH_SIZE = 4;
+    public static final int INITIAL_BUFFER_SIZE = 256;
+    public static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static Gson ourGson = new Gson();
+
+    public void encode(IoSession session, Object message, ProtocolEncoderOutput out) throws Exception {
+        WireMessage wireMessage = (WireMessage) message;
+        out.write(toBuffer(wireMessage));
+    }
+
+    /**
+     * Get the frame for a message.
+     *
+     * <P>
+     *     A {@link WireMessage#isShared()} message is only encoded the first
+     *     time.  The frame is kept as an array that is never written to again,
+     *     and every connection gets its own buffer that wraps that array, so
+     *     sending it to another node costs neither an encoding nor a copy.
+     * </P>
+     */
+    public static IoBuffer toBuffer (WireMessage wireMessage) throws Exception {
+        if (!wireMessage.isShared())
+            return encode(wireMessage);
+
+        byte[] frame = wireMessage.getFrame();
+
+        if (null == frame) {
+            IoBuffer ioBuffer = encode(wireMessage);
+            frame = new byte[ioBuffer.remaining()];
+            ioBuffer.get(frame);
+            ioBuffer.free();
+
+            wireMessage.setFrame(frame);
+        }
+
+        return IoBuffer.wrap(frame);
+    }
+
+    public static IoBuffer encode (WireMessage wireMessage) throws Exception {
+        IoBuffer ioBuffer = IoBuffer.allocate(INITIAL_BUFFER_SIZE);
+        ioBuffer.setAutoExpand(true);
+
+        ioBuffer.putInt(0);
+        ioBuffer.putShort((short) WireMessageRegistry.getType(wireMessage));
+
+        Writer writer = new OutputStreamWriter(ioBuffer.asOutputStream(), CHARSET);
+        ourGson.toJson(wireMessage, writer);
+        writer.flush();
+
+        ioBuffer.putInt(0, ioBuffer.position() - LENGTH_SIZE);
+        ioBuffer.flip();
+
+        return ioBuffer;
+    }
+}
@@ -36,8 +36,12 @@ import com.ltsllc.miranda.node.messages.UserUpdatedMessage;
 import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.property.NewPropertiesMessage;
 import com.ltsllc.miranda.reader.Reader;
+import com.ltsllc.miranda.scheduler.Scheduler;
 import com.ltsllc.miranda.servlet.property.Property;
 import com.ltsllc.miranda.servlet.status.GetStatusMessage;
+import com.ltsllc.miranda.servlet.status.EncryptionStatus;
+import com.ltsllc.miranda.servlet.status.MailboxStatus;
+import com.ltsllc.miranda.servlet.status.WriterStatus;
 import com.ltsllc.miranda.servlet.status.StatusObject;
 import com.ltsllc.miranda.session.AddSessionMessage;
 import com.ltsllc.miranda.session.Session;
@@ -84,6 +88,7 @@ public class Miranda extends Consumer {
 
     public static FileWatcherService fileWatcher;
     public static MirandaTimer timer;
+    public static Scheduler scheduler;
     public static MirandaProperties properties;
     public static MirandaFactory factory;
     public static boolean panicking = false;
@@ -345,6 +350,11 @@ public class Miranda extends Consumer {
         fileWatcher = null;
         properties = null;
         timer = null;
+
+        if (null != scheduler)
+            scheduler.shutdown();
+
+        scheduler = null;
         logger = null;
 
         httpServer = null;
@@ -417,6 +427,19 @@ public class Miranda extends Consumer {
 
         StatusObject statusObject = new StatusObject(local, list, null);
 
+        List<MailboxStatus> mailboxes = new ArrayList<MailboxStatus>();
+        for (Mailbox mailbox : Mailbox.getMailboxes()) {
+            mailboxes.add(new MailboxStatus(mailbox));
+        }
+
+        statusObject.setMailboxes(mailboxes);
+
+        if (null != getWriter())
+            statusObject.setWriter(new WriterStatus(getWriter()));
+
+        statusObject.setEncryption(new EncryptionStatus());
+        statusObject.setLoadTimes(StartupTimes.getLoadTimes());
+
         return statusObject;
     }
 
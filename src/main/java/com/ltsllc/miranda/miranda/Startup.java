@@ -24,14 +24,21 @@ import com.ltsllc.miranda.event.EventManager;
 import com.ltsllc.miranda.file.FileWatcherService;
 import com.ltsllc.miranda.http.HttpServer;
 import com.ltsllc.miranda.miranda.messages.GarbageCollectionMessage;
+import com.ltsllc.miranda.mina.WireMessageCodecFactory;
 import com.ltsllc.miranda.miranda.states.ReadyState;
 import com.ltsllc.miranda.network.Network;
 import com.ltsllc.miranda.network.NetworkListener;
 import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.reader.Reader;
+import com.ltsllc.miranda.scheduler.Scheduler;
 import com.ltsllc.miranda.servlet.cluster.ClusterStatus;
 import com.ltsllc.miranda.servlet.cluster.ClusterStatusServlet;
+import com.ltsllc.miranda.servlet.delivery.AcknowledgeServlet;
+import com.ltsllc.miranda.servlet.delivery.DeliveryHolder;
+import com.ltsllc.miranda.servlet.delivery.PushServlet;
 import com.ltsllc.miranda.servlet.enctypt.CreateKeyPairServlet;
+import com.ltsllc.miranda.servlet.event.EventHolder;
+import com.ltsllc.miranda.servlet.event.PublishServlet;
 import com.ltsllc.miranda.servlet.file.FileServlet;
 import com.ltsllc.miranda.servlet.login.LoginHolder;
 import com.ltsllc.miranda.servlet.login.LoginServlet;
@@ -56,6 +63,8 @@ import com.ltsllc.miranda.util.Utils;
 import com.ltsllc.miranda.writer.Writer;
 import org.apache.log4j.Logger;
 import org.apache.log4j.xml.DOMConfigurator;
+import org.apache.mina.core.buffer.CachedBufferAllocator;
+import org.apache.mina.core.buffer.IoBuffer;
 
 import java.io.File;
 import java.io.IOException;
@@ -258,12 +267,14 @@ public class Startup extends State {
             getKeys(getKeystorePasswordString());
             startLogger();
             logProperties();
+            startScheduler();
             startWriter();
             startReader();
             defineFactory();
             // startNetwork();
             definePanicPolicy();
             startServices();
+            setupBufferAllocator();
             startSubsystems();
             loadFiles();
             setupSchedule();
@@ -394,6 +405,9 @@ public class Startup extends State {
         servletMapping = new ServletMapping("/servlets/deleteUser", DeleteUserServlet.class);
         mappings.add(servletMapping);
 
+        servletMapping = new ServletMapping("/servlets/bulkUsers", BulkUserServlet.class);
+        mappings.add(servletMapping);
+
         servletMapping = new ServletMapping("/servlets/createKeyPair", CreateKeyPairServlet.class);
         mappings.add(servletMapping);
 
@@ -412,6 +426,9 @@ public class Startup extends State {
         servletMapping = new ServletMapping("/servlets/deleteTopic", DeleteTopicServlet.class);
         mappings.add(servletMapping);
 
+        servletMapping = new ServletMapping("/servlets/bulkTopics", BulkTopicServlet.class);
+        mappings.add(servletMapping);
+
         servletMapping = new ServletMapping("/servlets/fileServlet", FileServlet.class);
         mappings.add(servletMapping);
 
@@ -430,6 +447,18 @@ public class Startup extends State {
         servletMapping = new ServletMapping("/servlets/deleteSubscription", DeleteSubscriptionServlet.class);
         mappings.add(servletMapping);
 
+        servletMapping = new ServletMapping("/servlets/bulkSubscriptions", BulkSubscriptionServlet.class);
+        mappings.add(servletMapping);
+
+        servletMapping = new ServletMapping("/servlets/publish", PublishServlet.class);
+        mappings.add(servletMapping);
+
+        servletMapping = new ServletMapping("/servlets/push", PushServlet.class);
+        mappings.add(servletMapping);
+
+        servletMapping = new ServletMapping("/servlets/acknowledge", AcknowledgeServlet.class);
+        mappings.add(servletMapping);
+
         servletMapping = new ServletMapping("/servlets/shutdown", ShutdownServlet.class);
         mappings.add(servletMapping);
 
@@ -453,6 +482,12 @@ public class Startup extends State {
         SubscriptionHolder.initialize(timeoutPeriod);
         SubscriptionHolder.getInstance().start();
 
+        DeliveryHolder.initialize(timeoutPeriod);
+        DeliveryHolder.getInstance().start();
+
+        EventHolder.initialize(timeoutPeriod);
+        EventHolder.getInstance().start();
+
         ShutdownHolder.initialize(timeoutPeriod);
         ShutdownHolder.getInstance().start();
 
@@ -582,6 +617,38 @@ public class Startup extends State {
         miranda.setSessionManager(sessionManager);
     }
 
+    /**
+     * Switch MINA over to a caching buffer allocator when the binary wire
+     * format is in use, since its codec allocates a buffer for every frame.
+     * The allocator is global, so this has to happen before the network is
+     * started.
+     */
+    public void setupBufferAllocator() {
+        if (WireMessageCodecFactory.isEnabled())
+            IoBuffer.setAllocator(new CachedBufferAllocator());
+    }
+
+    /**
+     * Decide how Consumers get their threads.
+     *
+     * <P>
+     *     This has to happen before any of the subsystems are started, since
+     *     {@link Consumer#start()} looks at {@link Miranda#scheduler} to decide
+     *     whether to create a thread.
+     * </P>
+     */
+    public void startScheduler() {
+        MirandaProperties properties = Miranda.properties;
+
+        MirandaProperties.Schedulers mode = properties.getSchedulerProperty(MirandaProperties.PROPERTY_SCHEDULER);
+        int threads = properties.getIntProperty(MirandaProperties.PROPERTY_SCHEDULER_THREADS);
+        int batchSize = properties.getIntProperty(MirandaProperties.PROPERTY_SCHEDULER_BATCH_SIZE);
+
+        Miranda.scheduler = Scheduler.build(mode, threads, batchSize);
+
+        logger.info("Using the " + mode + " scheduler");
+    }
+
     public void startWriter() {
         Writer writer = new Writer(getPublicKey());
         writer.start();
@@ -643,6 +710,7 @@ public class Startup extends State {
             directoryName = f.getCanonicalPath();
             objectLimit = properties.getIntProperty(MirandaProperties.PROPERTY_DELIVERY_OBJECT_LIMIT);
             DeliveryManager deliveryManager = new DeliveryManager(directoryName, objectLimit, getReader(), getWriter());
+            deliveryManager.start();
             miranda.setDeliveryManager(deliveryManager);
 
         } catch (Exception e) {
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.miranda;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How long each file and directory took to load when the system started.
+ *
+ * <P>
+ *     A subsystem calls {@link #started(String, int)} when it asks for its
+ *     files and {@link #loaded(String, long)} as each one arrives.  Only the
+ *     first load of a name is recorded, so reloading a file later does not
+ *     change its startup time.
+ * </P>
+ */
+public class StartupTimes {
+    public static class LoadTime {
+        private String name;
+        private long started;
+        private long finished = -1;
+        private int files;
+        private int filesLoaded;
+        private long bytes;
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStarted() {
+            return started;
+        }
+
+        public long getFinished() {
+            return finished;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getFilesLoaded() {
+            return filesLoaded;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public boolean isFinished () {
+            return -1 != finished;
+        }
+
+        /**
+         * The time the load took, or has taken so far, in milliseconds.
+         */
+        public long getDuration () {
+            long end = isFinished() ? getFinished() : System.currentTimeMillis();
+            return end - getStarted();
+        }
+
+        public LoadTime (String name, int files) {
+            this.name = name;
+            this.files = files;
+            this.started = System.currentTimeMillis();
+        }
+    }
+
+    private static Logger logger = Logger.getLogger(StartupTimes.class);
+    private static Map<String, LoadTime> ourLoadTimes = new LinkedHashMap<String, LoadTime>();
+
+    public static synchronized void started (String name, int files) {
+        if (ourLoadTimes.containsKey(name))
+            return;
+
+        LoadTime loadTime = new LoadTime(name, files);
+        ourLoadTimes.put(name, loadTime);
+
+        if (files < 1)
+            finish(loadTime);
+    }
+
+    public static synchronized void loaded (String name, long bytes) {
+        LoadTime loadTime = ourLoadTimes.get(name);
+
+        if (null == loadTime || loadTime.isFinished())
+            return;
+
+        loadTime.filesLoaded++;
+        loadTime.bytes += bytes;
+
+        if (loadTime.filesLoaded >= loadTime.files)
+            finish(loadTime);
+    }
+
+    public static void finish (LoadTime loadTime) {
+        loadTime.finished = System.currentTimeMillis();
+
+        logger.info("Loaded " + loadTime.getName() + " in " + loadTime.getDuration() + " msec (" + loadTime.getFiles()
+                + " files, " + loadTime.getBytes() + " bytes)");
+    }
+
+    public static synchronized List<LoadTime> getLoadTimes () {
+        return new ArrayList<LoadTime>(ourLoadTimes.values());
+    }
+}
@@ -78,6 +78,14 @@ abstract public class NetworkListener extends Consumer {
         setCurrentState(readyState);
     }
 
+    /**
+     * A NetworkListener blocks while waiting for new connections, so it needs
+     * a thread of its own.
+     */
+    public boolean isSchedulable () {
+        return false;
+    }
+
     public void newConnectionLoop (BlockingQueue<Handle> handleQueue) {
         while (keepGoing()) {
             Handle newConnection = null;
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.network;
+
+import com.ltsllc.miranda.cluster.networkMessages.*;
+import com.ltsllc.miranda.file.GetFileResponseWireMessage;
+import com.ltsllc.miranda.file.messages.VersionWireMessage;
+import com.ltsllc.miranda.mina.MiscMessage;
+import com.ltsllc.miranda.node.networkMessages.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A mapping between {@link WireMessage.WireSubjects}, the numbers that
+ * identify them on the wire and the classes that carry them.
+ *
+ * <P>
+ *     The numbers are assigned here rather than taken from the ordinal of the
+ *     subject so that adding a subject does not change the meaning of the
+ *     existing numbers.  A number must never be reused.  Type {@link #SELF_DESCRIBING}
+ *     means that the payload is a message whose class has to be found from its
+ *     className attribute, and type {@link #FRAGMENT} means that the payload
+ *     is a piece of a larger frame.
+ * </P>
+ */
+public class WireMessageRegistry {
+    public static final int SELF_DESCRIBING = 0;
+    public static final int FRAGMENT = 0xFFFF;
+
+    private static Object[][] ourTable = {
+            {WireMessage.WireSubjects.ClusterFile, 1, ClusterFileWireMessage.class},
+            {WireMessage.WireSubjects.DeleteSubscription, 2, DeleteSubscriptionWireMessage.class},
+            {WireMessage.WireSubjects.DeleteTopic, 3, DeleteTopicWireMessage.class},
+            {WireMessage.WireSubjects.DeleteUser, 4, DeleteUserWireMessage.class},
+            {WireMessage.WireSubjects.ExpiredSessions, 5, SessionsExpiredWireMessage.class},
+            {WireMessage.WireSubjects.GetDeliveries, 6, GetDeliveriesWireMessage.class},
+            {WireMessage.WireSubjects.GetFile, 7, GetFileWireMessage.class},
+            {WireMessage.WireSubjects.GetFileResponse, 8, GetFileResponseWireMessage.class},
+            {WireMessage.WireSubjects.GetMessages, 9, GetMessagesWireMessage.class},
+            {WireMessage.WireSubjects.GetVersions, 10, GetVersionsWireMessage.class},
+            {WireMessage.WireSubjects.Join, 11, JoinWireMessage.class},
+            {WireMessage.WireSubjects.JoinResponse, 12, JoinResponseWireMessage.class},
+            {WireMessage.WireSubjects.Misc, 13, MiscMessage.class},
+            {WireMessage.WireSubjects.NewSession, 14, NewSessionWireMessage.class},
+            {WireMessage.WireSubjects.NewSubscription, 15, NewSubscriptionWireMessage.class},
+            {WireMessage.WireSubjects.NewTopic, 16, NewTopicWireMessage.class},
+            {WireMessage.WireSubjects.NewUser, 17, NewUserWireMessage.class},
+            {WireMessage.WireSubjects.ShuttingDown, 18, ShuttingDownWireMessage.class},
+            {WireMessage.WireSubjects.Stop, 19, StopWireMessage.class},
+            {WireMessage.WireSubjects.Stopping, 20, StoppingWireMessage.class},
+            {WireMessage.WireSubjects.StopResponse, 21, StopResponseWireMessage.class},
+            {WireMessage.WireSubjects.UpdateSubscription, 22, UpdateSubscriptionWireMessage.class},
+            {WireMessage.WireSubjects.UpdateTopic, 23, UpdateTopicWireMessage.class},
+            {WireMessage.WireSubjects.UpdateUser, 24, UpdateUserWireMessage.class},
+            {WireMessage.WireSubjects.Versions, 25, VersionsWireMessage.class},
+            {WireMessage.WireSubjects.Version, 26, VersionWireMessage.class},
+            {WireMessage.WireSubjects.SyncBuckets, 27, SyncBucketsWireMessage.class},
+            {WireMessage.WireSubjects.SyncKeys, 28, SyncKeysWireMessage.class},
+            {WireMessage.WireSubjects.GetElements, 29, GetElementsWireMessage.class},
+            {WireMessage.WireSubjects.Elements, 30, ElementsWireMessage.class},
+            {WireMessage.WireSubjects.Heartbeat, 31, HeartbeatWireMessage.class},
+            {WireMessage.WireSubjects.HeartbeatResponse, 32, HeartbeatResponseWireMessage.class},
+            {WireMessage.WireSubjects.ReplicateEvents, 33, ReplicateEventsWireMessage.class},
+            {WireMessage.WireSubjects.ReplicationAcks, 34, ReplicationAcksWireMessage.class},
+            {WireMessage.WireSubjects.Bulk, 35, BulkWireMessage.class},
+            {WireMessage.WireSubjects.EventsPublished, 36, EventsPublishedWireMessage.class}
+    };
+
+    private static Map<WireMessage.WireSubjects, Integer> ourTypes = new HashMap<WireMessage.WireSubjects, Integer>();
+    private static Map<Integer, Class<? extends WireMessage>> ourClasses = new HashMap<Integer, Class<? extends WireMessage>>();
+
+    static {
+        for (Object[] row : ourTable) {
+            register((WireMessage.WireSubjects) row[0], (Integer) row[1], (Class<? extends WireMessage>) row[2]);
+        }
+    }
+
+    public static synchronized void register (WireMessage.WireSubjects subject, int type, Class<? extends WireMessage> clazz) {
+        ourTypes.put(subject, type);
+        ourClasses.put(type, clazz);
+    }
+
+    /**
+     * Return the number that identifies a message on the wire.
+     *
+     * <P>
+     *     A message is only identified by its subject if its class is the
+     *     one that is registered for that subject; otherwise the message has
+     *     to describe itself.
+     * </P>
+     */
+    public static synchronized int getType (WireMessage wireMessage) {
+        Integer type = ourTypes.get(wireMessage.getWireSubject());
+
+        if (null == type || ourClasses.get(type) != wireMessage.getClass())
+            return SELF_DESCRIBING;
+
+        return type;
+    }
+
+    /**
+     * Return the class for a type or null if the type is not recognized.
+     */
+    public static synchronized Class<? extends WireMessage> getMessageClass (int type) {
+        return ourClasses.get(type);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node;
+
+/**
+ * A phi accrual failure detector for another node.
+ *
+ * <P>
+ *     Rather than declaring a node dead after a fixed timeout, the detector
+ *     remembers the intervals between the heartbeats it has gotten from the
+ *     node and reports phi: how unlikely it is, given those intervals, that
+ *     the node is still alive but just hasn't been heard from yet.  A phi of
+ *     1 means about a 10% chance of being wrong, 2 about 1%, 3 about 0.1%
+ *     and so on.  A node whose phi is above the threshold is suspected.
+ * </P>
+ *
+ * <P>
+ *     The acceptable pause is added to the mean interval so that a node that
+ *     stops for a garbage collection is not suspected straight away.  Any
+ *     traffic from the node counts as a sign of life, but only heartbeats are
+ *     used for the intervals since other messages come in bursts.
+ * </P>
+ *
+ * <P>
+ *     A detector can be given an estimate of the heartbeat interval when it
+ *     is created.  The history then starts out with that interval, and the
+ *     clock starts when the detector is created, so a node that never says
+ *     anything at all comes to be suspected like any other.
+ * </P>
+ */
+public class FailureDetector {
+    public static final int WINDOW_SIZE = 100;
+    public static final double MIN_STANDARD_DEVIATION = 100.0; // milliseconds
+
+    private double threshold;
+    private long acceptablePause;
+    private long[] intervals = new long[WINDOW_SIZE];
+    private int count;
+    private int next;
+    private long lastHeartbeat = -1;
+    private long lastHeard = -1;
+    private boolean suspected;
+    private long suspectedSince = -1;
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public long getAcceptablePause() {
+        return acceptablePause;
+    }
+
+    public synchronized boolean isSuspected() {
+        return suspected;
+    }
+
+    public synchronized long getLastHeard() {
+        return lastHeard;
+    }
+
+    public FailureDetector (double threshold, long acceptablePause) {
+        this.threshold = threshold;
+        this.acceptablePause = acceptablePause;
+    }
+
+    public FailureDetector (double threshold, long acceptablePause, long firstHeartbeatEstimate, long now) {
+        this(threshold, acceptablePause);
+
+        if (firstHeartbeatEstimate > 0) {
+            intervals[0] = firstHeartbeatEstimate - firstHeartbeatEstimate / 4;
+            intervals[1] = firstHeartbeatEstimate + firstHeartbeatEstimate / 4;
+            count = 2;
+            next = 2;
+            lastHeard = now;
+        }
+    }
+
+    /**
+     * Decide whether the node is suspected as of now.
+     *
+     * @return true if the node went from trusted to suspected or back again.
+     */
+    public synchronized boolean update (long now) {
+        boolean wasSuspected = suspected;
+        suspected = phi(now) >= getThreshold();
+
+        if (suspected && !wasSuspected)
+            suspectedSince = now;
+        else if (!suspected)
+            suspectedSince = -1;
+
+        return suspected != wasSuspected;
+    }
+
+    /**
+     * How long the node has been suspected without a break.
+     *
+     * @return The time in milliseconds, or 0 if the node is not suspected.
+     */
+    public synchronized long getSuspectedFor (long now) {
+        return suspected ? now - suspectedSince : 0;
+    }
+
+    public synchronized void heartbeat (long now) {
+        if (-1 != lastHeartbeat) {
+            intervals[next] = now - lastHeartbeat;
+            next = (next + 1) % WINDOW_SIZE;
+
+            if (count < WINDOW_SIZE)
+                count++;
+        }
+
+        lastHeartbeat = now;
+        heard(now);
+    }
+
+    public synchronized void heard (long now) {
+        if (now > lastHeard)
+            lastHeard = now;
+    }
+
+    public synchronized double getMean () {
+        if (0 == count)
+            return 0.0;
+
+        double sum = 0.0;
+
+        for (int i = 0; i < count; i++) {
+            sum += intervals[i];
+        }
+
+        return sum / count;
+    }
+
+    public synchronized double getStandardDeviation () {
+        if (count < 2)
+            return 0.0;
+
+        double mean = getMean();
+        double sum = 0.0;
+
+        for (int i = 0; i < count; i++) {
+            double difference = intervals[i] - mean;
+            sum += difference * difference;
+        }
+
+        return Math.sqrt(sum / count);
+    }
+
+    /**
+     * Calculate phi.
+     *
+     * <P>
+     *     This uses a logistic approximation of the normal distribution.  Until
+     *     there have been two heartbeats there is nothing to go on, so the
+     *     result is 0.
+     * </P>
+     */
+    public synchronized double phi (long now) {
+        if (0 == count)
+            return 0.0;
+
+        double mean = getMean() + getAcceptablePause();
+        double standardDeviation = Math.max(getStandardDeviation(), MIN_STANDARD_DEVIATION);
+        double elapsed = now - lastHeard;
+
+        double y = (elapsed - mean) / standardDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+
+        if (elapsed > mean)
+            return -Math.log10(e / (1.0 + e));
+        else
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+    public boolean isAvailable (long now) {
+        return phi(now) < getThreshold();
+    }
+}
@@ -20,12 +20,16 @@ import com.ltsllc.miranda.Consumer;
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.State;
 import com.ltsllc.miranda.cluster.Cluster;
+import com.ltsllc.miranda.cluster.Replication;
+import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.network.Network;
 import com.ltsllc.miranda.network.messages.SendNetworkMessage;
+import com.ltsllc.miranda.node.messages.ReplicateEventMessage;
 import com.ltsllc.miranda.node.networkMessages.StopWireMessage;
 import com.ltsllc.miranda.node.networkMessages.WireMessage;
 import com.ltsllc.miranda.node.states.ConnectingState;
 import com.ltsllc.miranda.node.states.NodeIncomingStartState;
+import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.servlet.status.NodeStatus;
 import org.apache.log4j.Logger;
 
@@ -76,7 +80,55 @@ public class Node extends Consumer
     private Network network;
     private int handle = -1;
     private Cluster cluster;
+    private FailureDetector failureDetector = buildFailureDetector();
+    private RoundTripTimes roundTripTimes = new RoundTripTimes();
+    private ReplicationPipeline replicationPipeline = ReplicationPipeline.build(this);
 
+    public static FailureDetector buildFailureDetector () {
+        String threshold = MirandaProperties.DEFAULT_CLUSTER_PHI_THRESHOLD;
+        long acceptablePause = Long.parseLong(MirandaProperties.DEFAULT_CLUSTER_ACCEPTABLE_PAUSE);
+        long heartbeatPeriod = Long.parseLong(MirandaProperties.DEFAULT_CLUSTER_HEARTBEAT_PERIOD);
+
+        if (null != Miranda.properties) {
+            String value = Miranda.properties.getProperty(MirandaProperties.PROPERTY_CLUSTER_PHI_THRESHOLD);
+            if (null != value)
+                threshold = value;
+
+            acceptablePause = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_ACCEPTABLE_PAUSE,
+                    MirandaProperties.DEFAULT_CLUSTER_ACCEPTABLE_PAUSE);
+
+            heartbeatPeriod = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_HEARTBEAT_PERIOD,
+                    MirandaProperties.DEFAULT_CLUSTER_HEARTBEAT_PERIOD);
+        }
+
+        double phiThreshold;
+
+        try {
+            phiThreshold = Double.parseDouble(threshold.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value for " + MirandaProperties.PROPERTY_CLUSTER_PHI_THRESHOLD + ": " + threshold);
+            phiThreshold = Double.parseDouble(MirandaProperties.DEFAULT_CLUSTER_PHI_THRESHOLD);
+        }
+
+        return new FailureDetector(phiThreshold, acceptablePause, heartbeatPeriod, System.currentTimeMillis());
+    }
+
+    public FailureDetector getFailureDetector() {
+        return failureDetector;
+    }
+
+    public RoundTripTimes getRoundTripTimes() {
+        return roundTripTimes;
+    }
+
+    public ReplicationPipeline getReplicationPipeline() {
+        return replicationPipeline;
+    }
+
+    public void sendReplicateEventMessage (BlockingQueue<Message> senderQueue, Object sender, Replication replication) {
+        ReplicateEventMessage replicateEventMessage = new ReplicateEventMessage(senderQueue, sender, replication);
+        sendToMe(replicateEventMessage);
+    }
 
     public String getDns() {
         return dns;
@@ -126,6 +178,16 @@ public class Node extends Consumer
         this.handle = handle;
     }
 
+    /**
+     * The same key as {@link NodeElement#getKey()}.
+     */
+    public String getKey () {
+        if (null == getDns())
+            return null;
+
+        return getDns() + ":" + getPort();
+    }
+
     public boolean equalsElement (NodeElement nodeElement) {
         if (null == getDns())
             return false;
@@ -146,6 +208,14 @@ public class Node extends Consumer
         return -1 != handle;
     }
 
+    /**
+     * Is the node connected and not suspected by its {@link FailureDetector}?
+     * Only available nodes own events or are asked to replicate them.
+     */
+    public boolean isAvailable() {
+        return isConnected() && !getFailureDetector().isSuspected();
+    }
+
 
     public NodeElement getUpdatedElement () {
         NodeElement nodeElement = new NodeElement(getDns(), getIp(), getPort(), getDescription());
@@ -184,8 +254,18 @@ public class Node extends Consumer
     }
 
     public NodeStatus getStatus () {
-        NodeStatus.NodeStatuses status = isConnected() ? NodeStatus.NodeStatuses.Online : NodeStatus.NodeStatuses.Offline;
+        NodeStatus.NodeStatuses status = NodeStatus.NodeStatuses.Offline;
+
+        if (isConnected()) {
+            status = getFailureDetector().isSuspected() ? NodeStatus.NodeStatuses.Suspected : NodeStatus.NodeStatuses.Online;
+        }
+
         NodeStatus nodeStatus = new NodeStatus(getDns(), getIp(), getPort(), getDescription(), status);
+        nodeStatus.setPhi(getFailureDetector().phi(System.currentTimeMillis()));
+        nodeStatus.setLastRoundTrip(getRoundTripTimes().getLast());
+        nodeStatus.setMeanRoundTrip(getRoundTripTimes().getMean());
+        nodeStatus.setRoundTrip99(getRoundTripTimes().getPercentile(99.0));
+        nodeStatus.setRoundTripHistogram(getRoundTripTimes().getHistogram());
         return nodeStatus;
     }
 
@@ -240,6 +240,10 @@ public class NodeElement implements Perishable, Updateable<NodeElement>, Matchab
         setDescription(other.getDescription());
     }
 
+    public String getKey () {
+        return getDns() + ":" + getPort();
+    }
+
     public boolean matches (NodeElement other) {
         return getDns().equals(other.getDns()) && getPort() == other.getPort();
     }
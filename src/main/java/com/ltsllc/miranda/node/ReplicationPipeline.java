@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node;
+
+import com.ltsllc.miranda.cluster.Replication;
+import com.ltsllc.miranda.cluster.networkMessages.ReplicateEventsWireMessage;
+import com.ltsllc.miranda.cluster.networkMessages.ReplicationAcksWireMessage;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
+import com.ltsllc.miranda.topics.Topic;
+import com.ltsllc.miranda.writer.FlushMessage;
+
+import java.util.*;
+
+/**
+ * The events on their way to or from another node.
+ *
+ * <P>
+ *     Going out, events are not sent one at a time and waited for.  Up to
+ *     window events can be waiting for acknowledgement at once, and whatever
+ *     has piled up while the node was busy goes out in one
+ *     {@link ReplicateEventsWireMessage} of up to batchSize events.
+ * </P>
+ *
+ * <P>
+ *     Coming in, events whose policy is Written can only be acknowledged once
+ *     the event manager has stored them.  The event manager answers in the
+ *     order it gets the batches, so the batches waiting for a write are kept
+ *     in the same order.
+ * </P>
+ *
+ * <P>
+ *     A pipeline belongs to a {@link Node} and is only used from its thread.
+ * </P>
+ */
+public class ReplicationPipeline {
+    private Node node;
+    private int window;
+    private int batchSize;
+    private long linger;
+    private boolean flushScheduled;
+    private long nextSequence;
+    private Deque<Replication> waiting = new ArrayDeque<Replication>();
+    private Map<Long, Replication> inFlight = new LinkedHashMap<Long, Replication>();
+    private Deque<List<Long>> awaitingWrite = new ArrayDeque<List<Long>>();
+
+    public Node getNode() {
+        return node;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getLinger() {
+        return linger;
+    }
+
+    public Deque<Replication> getWaiting() {
+        return waiting;
+    }
+
+    public Map<Long, Replication> getInFlight() {
+        return inFlight;
+    }
+
+    public Deque<List<Long>> getAwaitingWrite() {
+        return awaitingWrite;
+    }
+
+    public ReplicationPipeline (Node node, int window, int batchSize, long linger) {
+        this.node = node;
+        this.window = Math.max(1, window);
+        this.batchSize = Math.max(1, batchSize);
+        this.linger = linger;
+    }
+
+    public static ReplicationPipeline build (Node node) {
+        int window = Integer.parseInt(MirandaProperties.DEFAULT_CLUSTER_REPLICATION_WINDOW);
+        int batchSize = Integer.parseInt(MirandaProperties.DEFAULT_CLUSTER_REPLICATION_BATCH_SIZE);
+        long linger = Long.parseLong(MirandaProperties.DEFAULT_CLUSTER_LINGER);
+
+        if (null != Miranda.properties) {
+            window = (int) Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_REPLICATION_WINDOW,
+                    MirandaProperties.DEFAULT_CLUSTER_REPLICATION_WINDOW);
+            batchSize = (int) Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_REPLICATION_BATCH_SIZE,
+                    MirandaProperties.DEFAULT_CLUSTER_REPLICATION_BATCH_SIZE);
+            linger = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_CLUSTER_LINGER,
+                    MirandaProperties.DEFAULT_CLUSTER_LINGER);
+        }
+
+        return new ReplicationPipeline(node, window, batchSize, linger);
+    }
+
+    public void add (Replication replication) {
+        getWaiting().add(replication);
+
+        if (getWaiting().size() >= getBatchSize())
+            flush();
+    }
+
+    /**
+     * Arrange for the waiting events to be sent once the linger has passed,
+     * so a partial batch is never left waiting for events that do not come.
+     * If there is no linger, or no timer to tell us when it has passed, send
+     * them now.
+     */
+    public void flushLater () {
+        if (getLinger() < 1 || null == Miranda.timer) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            FlushMessage flushMessage = new FlushMessage(getNode().getQueue(), this);
+            Miranda.timer.sendScheduleOnce(getLinger(), getNode().getQueue(), flushMessage);
+        }
+    }
+
+    /**
+     * Send as much as the window allows.  Whatever the window holds back is
+     * sent as acknowledgements free it up.
+     */
+    public void flush () {
+        flushScheduled = false;
+
+        while (!getWaiting().isEmpty() && getInFlight().size() < getWindow()) {
+            int room = Math.min(getBatchSize(), getWindow() - getInFlight().size());
+            List<ReplicateEventsWireMessage.Entry> entries = new ArrayList<ReplicateEventsWireMessage.Entry>(room);
+
+            while (entries.size() < room && !getWaiting().isEmpty()) {
+                Replication replication = getWaiting().poll();
+                long sequence = nextSequence++;
+
+                if (replication.getPolicy() != Topic.RemotePolicies.None)
+                    getInFlight().put(sequence, replication);
+
+                entries.add(new ReplicateEventsWireMessage.Entry(sequence, replication.getPolicy(),
+                        replication.getEvent()));
+            }
+
+            transmit(new ReplicateEventsWireMessage(entries));
+        }
+    }
+
+    public void transmit (ReplicateEventsWireMessage replicateEventsWireMessage) {
+        getNode().sendOnWire(replicateEventsWireMessage);
+    }
+
+    public void acknowledged (ReplicationAcksWireMessage replicationAcksWireMessage) {
+        if (null != replicationAcksWireMessage.getAcknowledged()) {
+            for (Long sequence : replicationAcksWireMessage.getAcknowledged()) {
+                Replication replication = getInFlight().remove(sequence);
+                if (null != replication)
+                    replication.acknowledge();
+            }
+        }
+
+        if (null != replicationAcksWireMessage.getFailed()) {
+            for (Long sequence : replicationAcksWireMessage.getFailed()) {
+                Replication replication = getInFlight().remove(sequence);
+                if (null != replication)
+                    replication.fail();
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * The connection is gone, so nothing that was sent to the node is going to
+     * be acknowledged.
+     */
+    public void failAll () {
+        for (Replication replication : getInFlight().values()) {
+            replication.fail();
+        }
+
+        for (Replication replication : getWaiting()) {
+            if (replication.getPolicy() != Topic.RemotePolicies.None)
+                replication.fail();
+        }
+
+        getInFlight().clear();
+        getWaiting().clear();
+        getAwaitingWrite().clear();
+    }
+}
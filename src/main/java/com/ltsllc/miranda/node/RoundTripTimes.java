@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A histogram of times in milliseconds.  Each node keeps one for the round
+ * trip times of its heartbeats, and the cluster keeps one per remote policy
+ * for how long replication takes.
+ */
+public class RoundTripTimes {
+    public static final long[] BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 }; // milliseconds
+
+    private long[] counts = new long[BOUNDS.length + 1];
+    private long count;
+    private long sum;
+    private long max;
+    private long last = -1;
+
+    public synchronized void record (long roundTrip) {
+        int bucket = 0;
+
+        while (bucket < BOUNDS.length && roundTrip > BOUNDS[bucket]) {
+            bucket++;
+        }
+
+        counts[bucket]++;
+        count++;
+        sum += roundTrip;
+        last = roundTrip;
+
+        if (roundTrip > max)
+            max = roundTrip;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getLast() {
+        return last;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return 0 == count ? 0.0 : ((double) sum) / count;
+    }
+
+    /**
+     * An estimate of a percentile: the upper bound of the bucket that it
+     * falls in, or the maximum for the last bucket.
+     */
+    public synchronized long getPercentile (double percentile) {
+        if (0 == count)
+            return 0;
+
+        long target = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += counts[i];
+
+            if (seen >= target)
+                return BOUNDS[i];
+        }
+
+        return max;
+    }
+
+    public synchronized Map<String, Long> getHistogram () {
+        Map<String, Long> histogram = new LinkedHashMap<String, Long>();
+
+        for (int i = 0; i < BOUNDS.length; i++) {
+            histogram.put("<=" + BOUNDS[i] + "ms", counts[i]);
+        }
+
+        histogram.put(">" + BOUNDS[BOUNDS.length - 1] + "ms", counts[BOUNDS.length]);
+
+        return histogram;
+    }
+}
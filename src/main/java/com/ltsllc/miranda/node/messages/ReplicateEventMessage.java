@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node.messages;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.cluster.Replication;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Send an event to the node this message is sent to as part of a
+ * {@link Replication}.
+ */
+public class ReplicateEventMessage extends Message {
+    private Replication replication;
+
+    public Replication getReplication() {
+        return replication;
+    }
+
+    public ReplicateEventMessage (BlockingQueue<Message> senderQueue, Object sender, Replication replication) {
+        super(Subjects.ReplicateEvent, senderQueue, sender);
+
+        this.replication = replication;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node.networkMessages;
+
+import java.util.List;
+
+/**
+ * Ask for the elements of a file that are missing or different.
+ */
+public class GetElementsWireMessage extends SyncWireMessage {
+    private List<String> keys;
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public GetElementsWireMessage (String file, List<String> keys) {
+        super(WireSubjects.GetElements, file);
+
+        this.keys = keys;
+    }
+}
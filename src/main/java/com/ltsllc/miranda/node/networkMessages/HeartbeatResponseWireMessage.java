@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node.networkMessages;
+
+public class HeartbeatResponseWireMessage extends WireMessage {
+    private long sent;
+
+    public long getSent() {
+        return sent;
+    }
+
+    public HeartbeatResponseWireMessage (long sent) {
+        super(WireSubjects.HeartbeatResponse);
+
+        this.sent = sent;
+    }
+}
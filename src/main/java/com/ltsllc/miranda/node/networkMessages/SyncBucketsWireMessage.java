@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node.networkMessages;
+
+import java.util.List;
+
+/**
+ * The first step of synchronizing a file: the digests of all the buckets of
+ * the sender's copy.
+ */
+public class SyncBucketsWireMessage extends SyncWireMessage {
+    private List<String> buckets;
+
+    public List<String> getBuckets() {
+        return buckets;
+    }
+
+    public SyncBucketsWireMessage (String file, List<String> buckets) {
+        super(WireSubjects.SyncBuckets, file);
+
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node.networkMessages;
+
+import java.util.Map;
+
+/**
+ * The answer to a {@link SyncBucketsWireMessage}: the digests of the elements
+ * in the buckets that were different.  An empty map means the files are the
+ * same.
+ */
+public class SyncKeysWireMessage extends SyncWireMessage {
+    private Map<String, String> keys;
+
+    public Map<String, String> getKeys() {
+        return keys;
+    }
+
+    public SyncKeysWireMessage (String file, Map<String, String> keys) {
+        super(WireSubjects.SyncKeys, file);
+
+        this.keys = keys;
+    }
+}
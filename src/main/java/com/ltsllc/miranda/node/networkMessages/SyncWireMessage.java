@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.node.networkMessages;
+
+/**
+ * A step in synchronizing a file with another node.
+ *
+ * @see com.ltsllc.miranda.file.HashTree
+ */
+abstract public class SyncWireMessage extends WireMessage {
+    private String file;
+
+    public String getFile() {
+        return file;
+    }
+
+    public SyncWireMessage (WireSubjects subject, String file) {
+        super(subject);
+
+        this.file = file;
+    }
+}
@@ -25,20 +25,26 @@ public class WireMessage {
     private static Gson ourGson = new Gson();
 
     public enum WireSubjects {
+        Bulk,
         ClusterFile,
         DeleteSubscription,
         DeleteTopic,
         DeleteUser,
+        Elements,
+        EventsPublished,
         ExpiredSessions,
         GetClusterFile,
         GetFile,
         GetFileResponse,
         GetMessages,
         GetDeliveries,
+        GetElements,
         GetSubscriptionsFile,
         GetTopicsFile,
         GetUsersFile,
         GetVersions,
+        Heartbeat,
+        HeartbeatResponse,
         Join,
         JoinResponse,
         Misc,
@@ -48,10 +54,14 @@ public class WireMessage {
         NewSubscription,
         NewTopic,
         NewUser,
+        ReplicateEvents,
+        ReplicationAcks,
         ShuttingDown,
         Stop,
         Stopping,
         StopResponse,
+        SyncBuckets,
+        SyncKeys,
         UpdateSubscription,
         UpdateTopic,
         UpdateUser,
@@ -59,9 +69,46 @@ public class WireMessage {
         Version
     }
 
+    /**
+     * The logical streams that share a connection to a node.  Messages on
+     * one stream stay in order, but a large message on one stream does not
+     * hold up the others.
+     */
+    public enum Streams {
+        Control,
+        Sessions,
+        Files,
+        Events
+    }
+
     private WireSubjects subject;
     private String className;
 
+    /**
+     * A shared message is sent to more than one node, so its encoded forms
+     * are kept and reused instead of being recreated for every connection.
+     * A message must not be changed once it is shared.
+     */
+    private transient volatile boolean shared;
+    private transient volatile String json;
+    private transient volatile byte[] frame;
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public void share() {
+        shared = true;
+    }
+
+    public byte[] getFrame() {
+        return frame;
+    }
+
+    public void setFrame(byte[] frame) {
+        this.frame = frame;
+    }
+
     public WireSubjects getWireSubject() {
         return subject;
     }
@@ -75,8 +122,47 @@ public class WireMessage {
         this.className = getClass().getCanonicalName();
     }
 
+    public Streams getStream () {
+        switch (getWireSubject()) {
+            case NewSession:
+            case ExpiredSessions:
+                return Streams.Sessions;
+
+            case ClusterFile:
+            case GetClusterFile:
+            case GetFile:
+            case GetFileResponse:
+            case GetSubscriptionsFile:
+            case GetTopicsFile:
+            case GetUsersFile:
+            case SyncBuckets:
+            case SyncKeys:
+            case GetElements:
+            case Elements:
+            case Bulk:
+                return Streams.Files;
+
+            case NewEvent:
+            case NewEventResponse:
+            case ReplicateEvents:
+            case EventsPublished:
+            case GetMessages:
+            case GetDeliveries:
+                return Streams.Events;
+
+            default:
+                return Streams.Control;
+        }
+    }
+
     public String getJson () {
-        return ourGson.toJson(this);
+        if (!isShared())
+            return ourGson.toJson(this);
+
+        if (null == json)
+            json = ourGson.toJson(this);
+
+        return json;
     }
 
     public String toJson () {
@@ -18,12 +18,22 @@ package com.ltsllc.miranda.node.states;
 
 import com.ltsllc.miranda.*;
 import com.ltsllc.miranda.cluster.Cluster;
+import com.ltsllc.miranda.cluster.ClusterFile;
 import com.ltsllc.miranda.cluster.messages.VersionsMessage;
+import com.ltsllc.miranda.cluster.networkMessages.BulkWireMessage;
 import com.ltsllc.miranda.cluster.networkMessages.DeleteUserWireMessage;
+import com.ltsllc.miranda.cluster.networkMessages.EventsPublishedWireMessage;
 import com.ltsllc.miranda.cluster.networkMessages.NewUserWireMessage;
+import com.ltsllc.miranda.cluster.networkMessages.ReplicateEventsWireMessage;
+import com.ltsllc.miranda.cluster.networkMessages.ReplicationAcksWireMessage;
 import com.ltsllc.miranda.cluster.networkMessages.UpdateUserWireMessage;
+import com.ltsllc.miranda.deliveries.DeliveryManager;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.event.messages.PublishResponseMessage;
 import com.ltsllc.miranda.file.GetFileResponseWireMessage;
 import com.ltsllc.miranda.file.messages.GetFileResponseMessage;
+import com.ltsllc.miranda.file.messages.SyncMessage;
+import com.ltsllc.miranda.manager.StandardManager;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.miranda.messages.GetVersionsMessage;
 import com.ltsllc.miranda.miranda.messages.StopMessage;
@@ -33,18 +43,22 @@ import com.ltsllc.miranda.node.Conversation;
 import com.ltsllc.miranda.node.ConversationMessage;
 import com.ltsllc.miranda.node.NameVersion;
 import com.ltsllc.miranda.node.Node;
+import com.ltsllc.miranda.node.ReplicationPipeline;
 import com.ltsllc.miranda.node.messages.*;
 import com.ltsllc.miranda.node.networkMessages.*;
 import com.ltsllc.miranda.subsciptions.SubscriptionsFile;
+import com.ltsllc.miranda.topics.Topic;
 import com.ltsllc.miranda.topics.TopicsFile;
 import com.ltsllc.miranda.user.UsersFile;
 import com.ltsllc.miranda.user.messages.GetUsersFileMessage;
+import com.ltsllc.miranda.writer.FlushMessage;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Created by Clark on 1/29/2017.
@@ -73,7 +87,39 @@ public class NodeReadyState extends NodeState {
     public State processNetworkMessage(NetworkMessage networkMessage) {
         State nextState = this;
 
+        getNode().getFailureDetector().heard(System.currentTimeMillis());
+
         switch (networkMessage.getWireMessage().getWireSubject()) {
+            case ReplicateEvents: {
+                ReplicateEventsWireMessage replicateEventsWireMessage = (ReplicateEventsWireMessage) networkMessage.getWireMessage();
+                nextState = processReplicateEventsWireMessage(replicateEventsWireMessage);
+                break;
+            }
+
+            case EventsPublished: {
+                EventsPublishedWireMessage eventsPublishedWireMessage = (EventsPublishedWireMessage) networkMessage.getWireMessage();
+                nextState = processEventsPublishedWireMessage(eventsPublishedWireMessage);
+                break;
+            }
+
+            case ReplicationAcks: {
+                ReplicationAcksWireMessage replicationAcksWireMessage = (ReplicationAcksWireMessage) networkMessage.getWireMessage();
+                nextState = processReplicationAcksWireMessage(replicationAcksWireMessage);
+                break;
+            }
+
+            case Heartbeat: {
+                HeartbeatWireMessage heartbeatWireMessage = (HeartbeatWireMessage) networkMessage.getWireMessage();
+                nextState = processHeartbeatWireMessage(heartbeatWireMessage);
+                break;
+            }
+
+            case HeartbeatResponse: {
+                HeartbeatResponseWireMessage heartbeatResponseWireMessage = (HeartbeatResponseWireMessage) networkMessage.getWireMessage();
+                nextState = processHeartbeatResponseWireMessage(heartbeatResponseWireMessage);
+                break;
+            }
+
             case GetVersions: {
                 GetVersionsWireMessage getVersionsWireMessage = (GetVersionsWireMessage) networkMessage.getWireMessage();
                 nextState = processGetVersionsWireMessage(getVersionsWireMessage);
@@ -110,6 +156,12 @@ public class NodeReadyState extends NodeState {
                 break;
             }
 
+            case Bulk: {
+                BulkWireMessage bulkWireMessage = (BulkWireMessage) networkMessage.getWireMessage();
+                nextState = processBulkWireMessage(bulkWireMessage);
+                break;
+            }
+
             case UpdateUser: {
                 UpdateUserWireMessage updateUserWireMessage = (UpdateUserWireMessage) networkMessage.getWireMessage();
                 nextState = processUpdateUserWireMessage(updateUserWireMessage);
@@ -122,6 +174,15 @@ public class NodeReadyState extends NodeState {
                 break;
             }
 
+            case SyncBuckets:
+            case SyncKeys:
+            case GetElements:
+            case Elements: {
+                SyncWireMessage syncWireMessage = (SyncWireMessage) networkMessage.getWireMessage();
+                nextState = processSyncWireMessage(syncWireMessage);
+                break;
+            }
+
             default: {
                 nextState = super.processNetworkMessage(networkMessage);
                 break;
@@ -152,6 +213,7 @@ public class NodeReadyState extends NodeState {
             }
 
             case ConnectionClosed: {
+                getNode().getReplicationPipeline().failAll();
                 nextState = StopState.getInstance();
                 break;
             }
@@ -180,12 +242,36 @@ public class NodeReadyState extends NodeState {
                 break;
             }
 
+            case Sync: {
+                SyncMessage syncMessage = (SyncMessage) message;
+                nextState = processSyncMessage(syncMessage);
+                break;
+            }
+
             case SendNetworkMessage: {
                 SendNetworkMessage sendNetworkMessage = (SendNetworkMessage) message;
                 nextState = processSendNetworkMessage(sendNetworkMessage);
                 break;
             }
 
+            case ReplicateEvent: {
+                ReplicateEventMessage replicateEventMessage = (ReplicateEventMessage) message;
+                nextState = processReplicateEventMessage(replicateEventMessage);
+                break;
+            }
+
+            case Flush: {
+                FlushMessage flushMessage = (FlushMessage) message;
+                nextState = processFlushMessage(flushMessage);
+                break;
+            }
+
+            case PublishResponse: {
+                PublishResponseMessage publishResponseMessage = (PublishResponseMessage) message;
+                nextState = processPublishResponseMessage(publishResponseMessage);
+                break;
+            }
+
             case Shutdown: {
                 ShutdownMessage shutdownMessage = (ShutdownMessage) message;
                 nextState = processShutdownMessage(shutdownMessage);
@@ -286,6 +372,42 @@ public class NodeReadyState extends NodeState {
     }
 
 
+    private BlockingQueue<Message> getFileQueue(String file) {
+        if (file.equalsIgnoreCase(Cluster.NAME) || file.equalsIgnoreCase("clusters")) {
+            return ClusterFile.getInstance().getQueue();
+        } else if (file.equalsIgnoreCase(UsersFile.FILE_NAME)) {
+            return UsersFile.getInstance().getQueue();
+        } else if (file.equalsIgnoreCase(TopicsFile.FILE_NAME)) {
+            return TopicsFile.getInstance().getQueue();
+        } else if (file.equalsIgnoreCase(SubscriptionsFile.FILE_NAME)) {
+            return SubscriptionsFile.getInstance().getQueue();
+        } else {
+            return null;
+        }
+    }
+
+
+    public State processSyncWireMessage(SyncWireMessage syncWireMessage) {
+        BlockingQueue<Message> queue = getFileQueue(syncWireMessage.getFile());
+
+        if (null == queue) {
+            logger.error("Unknown file " + syncWireMessage.getFile());
+        } else {
+            SyncMessage syncMessage = new SyncMessage(getNode().getQueue(), this, syncWireMessage);
+            send(queue, syncMessage);
+        }
+
+        return this;
+    }
+
+
+    public State processSyncMessage(SyncMessage syncMessage) {
+        sendOnWire(syncMessage.getWireMessage());
+
+        return this;
+    }
+
+
     private State processVersionsMessage(VersionsMessage versionsMessage) {
         State nextState = this;
 
@@ -324,6 +446,128 @@ public class NodeReadyState extends NodeState {
         return getNode().getCurrentState();
     }
 
+    /**
+     * The other node's clock is only echoed back to it, so the two clocks do
+     * not have to agree.
+     */
+    public State processHeartbeatWireMessage (HeartbeatWireMessage heartbeatWireMessage) {
+        getNode().getFailureDetector().heartbeat(System.currentTimeMillis());
+
+        HeartbeatResponseWireMessage heartbeatResponseWireMessage = new HeartbeatResponseWireMessage(heartbeatWireMessage.getSent());
+        sendOnWire(heartbeatResponseWireMessage);
+
+        return getNode().getCurrentState();
+    }
+
+    public State processHeartbeatResponseWireMessage (HeartbeatResponseWireMessage heartbeatResponseWireMessage) {
+        long roundTrip = System.currentTimeMillis() - heartbeatResponseWireMessage.getSent();
+
+        if (roundTrip >= 0)
+            getNode().getRoundTripTimes().record(roundTrip);
+
+        return getNode().getCurrentState();
+    }
+
+    /**
+     * Queue an event for the node.  If more messages are waiting, more events
+     * are probably among them, so the batch is sent once they have been
+     * processed or the linger has passed, whichever comes first.
+     */
+    public State processReplicateEventMessage (ReplicateEventMessage replicateEventMessage) {
+        getNode().getReplicationPipeline().add(replicateEventMessage.getReplication());
+
+        if (getNode().hasPendingMessages())
+            getNode().getReplicationPipeline().flushLater();
+        else
+            getNode().getReplicationPipeline().flush();
+
+        return getNode().getCurrentState();
+    }
+
+    public State processFlushMessage (FlushMessage flushMessage) {
+        getNode().getReplicationPipeline().flush();
+
+        return getNode().getCurrentState();
+    }
+
+    public State processReplicationAcksWireMessage (ReplicationAcksWireMessage replicationAcksWireMessage) {
+        getNode().getReplicationPipeline().acknowledged(replicationAcksWireMessage);
+
+        return getNode().getCurrentState();
+    }
+
+    /**
+     * Keep the events another node has sent us.
+     *
+     * <P>
+     *     Every batch is handed to the event manager, which stores the events
+     *     in the event directory like any others.  Events whose policy is
+     *     Acknowledged are acknowledged right away; the ones whose policy is
+     *     Written are acknowledged when the event manager says they are on
+     *     disk.
+     * </P>
+     */
+    public State processReplicateEventsWireMessage (ReplicateEventsWireMessage replicateEventsWireMessage) {
+        List<Long> acknowledged = new ArrayList<Long>();
+        List<Long> written = new ArrayList<Long>();
+        List<Event> events = new ArrayList<Event>(replicateEventsWireMessage.getEntries().size());
+
+        for (ReplicateEventsWireMessage.Entry entry : replicateEventsWireMessage.getEntries()) {
+            events.add(entry.getEvent());
+
+            if (entry.getPolicy() == Topic.RemotePolicies.Written)
+                written.add(entry.getSequence());
+            else if (entry.getPolicy() == Topic.RemotePolicies.Acknowledged)
+                acknowledged.add(entry.getSequence());
+        }
+
+        if (!acknowledged.isEmpty()) {
+            ReplicationAcksWireMessage replicationAcksWireMessage = new ReplicationAcksWireMessage(acknowledged, null);
+            sendOnWire(replicationAcksWireMessage);
+        }
+
+        if (!events.isEmpty()) {
+            getNode().getReplicationPipeline().getAwaitingWrite().add(written);
+
+            Miranda.getInstance().getEventManager().sendStoreReplicasMessage(getNode().getQueue(), this, events);
+        }
+
+        return getNode().getCurrentState();
+    }
+
+    /**
+     * Push the events that were published on another node to the channels
+     * that are open on this one.
+     */
+    public State processEventsPublishedWireMessage (EventsPublishedWireMessage eventsPublishedWireMessage) {
+        DeliveryManager deliveryManager = Miranda.getInstance().getDeliveryManager();
+
+        if (null != deliveryManager && null != eventsPublishedWireMessage.getEvents())
+            deliveryManager.sendEventsPublishedMessage(null, this, eventsPublishedWireMessage.getEvents());
+
+        return getNode().getCurrentState();
+    }
+
+    public State processPublishResponseMessage (PublishResponseMessage publishResponseMessage) {
+        List<Long> written = getNode().getReplicationPipeline().getAwaitingWrite().poll();
+
+        if (publishResponseMessage.getResult() != Results.Success)
+            logger.error("Could not store the events replicated from " + getNode().getDns() + ":" + getNode().getPort());
+
+        if (null != written && !written.isEmpty()) {
+            ReplicationAcksWireMessage replicationAcksWireMessage = null;
+
+            if (publishResponseMessage.getResult() == Results.Success)
+                replicationAcksWireMessage = new ReplicationAcksWireMessage(written, null);
+            else
+                replicationAcksWireMessage = new ReplicationAcksWireMessage(null, written);
+
+            sendOnWire(replicationAcksWireMessage);
+        }
+
+        return getNode().getCurrentState();
+    }
+
     public State processSendNetworkMessage(SendNetworkMessage sendNetworkMessage) {
         getNode().sendOnWire(sendNetworkMessage.getWireMessage());
 
@@ -342,6 +586,36 @@ public class NodeReadyState extends NodeState {
         return getNode().getCurrentState();
     }
 
+    /**
+     * Apply the changes another node made in bulk.  They are not broadcast
+     * again.
+     */
+    public State processBulkWireMessage(BulkWireMessage bulkWireMessage) {
+        StandardManager manager = null;
+
+        switch (bulkWireMessage.getKind()) {
+            case Users: {
+                manager = Miranda.getInstance().getUserManager();
+                break;
+            }
+
+            case Topics: {
+                manager = Miranda.getInstance().getTopicManager();
+                break;
+            }
+
+            case Subscriptions: {
+                manager = Miranda.getInstance().getSubscriptionManager();
+                break;
+            }
+        }
+
+        List objects = manager.fromJson(bulkWireMessage.getObjects());
+        manager.sendBulkMessage(null, this, null, bulkWireMessage.getOperation(), objects, false);
+
+        return getNode().getCurrentState();
+    }
+
     public State processUpdateUserWireMessage(UpdateUserWireMessage updateUserWireMessage) {
         Miranda.getInstance().sendUserUpdatedMessage(getNode().getQueue(), this,
                 updateUserWireMessage.getUserObject().asUser());
@@ -26,6 +26,8 @@ import com.ltsllc.miranda.node.Node;
 import com.ltsllc.miranda.node.messages.RetryMessage;
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * A node that can't connect to a remote system enters this state.
  *
@@ -60,7 +62,7 @@ public class RetryingState extends NodeState {
         retryCount = 0;
 
         RetryMessage retryMessage = new RetryMessage(getNode().getQueue(), this);
-        Miranda.timer.sendScheduleOnce(INITIAL_DELAY, getNode().getQueue(), retryMessage);
+        Miranda.timer.sendScheduleOnce(backoff(0), getNode().getQueue(), retryMessage);
 
         return this;
     }
@@ -105,16 +107,34 @@ public class RetryingState extends NodeState {
     public static final long MAX_TIME = 60000; // one minute
     public static final int MAX_RETRY_COUNT = 10;
 
-    private State processConnectFailedMessage (ConnectFailedMessage connectFailedMessage) {
-        incrementRetries();
-        int retryCount = getRetryCount() - 1;
-        if (retryCount > MAX_RETRY_COUNT)
-            retryCount = MAX_RETRY_COUNT;
-
-        long delay = INITIAL_DELAY << retryCount;
+    /**
+     * How long to wait before the next attempt.
+     *
+     * <P>
+     *     The delay doubles with each failure up to {@link #MAX_TIME}.  Half of
+     *     it is random so that the nodes of a cluster that lost a peer at the
+     *     same moment do not all try to reconnect at the same moment.
+     * </P>
+     *
+     * @param retries The number of attempts that have failed so far.
+     * @return The delay in milliseconds.
+     */
+    public static long backoff (int retries) {
+        if (retries > MAX_RETRY_COUNT)
+            retries = MAX_RETRY_COUNT;
+
+        long delay = INITIAL_DELAY << retries;
         if (delay > MAX_TIME)
             delay = MAX_TIME;
 
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private State processConnectFailedMessage (ConnectFailedMessage connectFailedMessage) {
+        incrementRetries();
+        long delay = backoff(getRetryCount());
+
         RetryMessage retryMessage = new RetryMessage(getNode().getQueue(), this);
         Miranda.timer.sendScheduleOnce(delay, getNode().getQueue(), retryMessage);
 
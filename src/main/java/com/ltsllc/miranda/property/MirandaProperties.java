@@ -82,6 +82,17 @@ public class MirandaProperties {
         Mina
     }
 
+    public enum WireFormats {
+        Json,
+        Binary
+    }
+
+    public enum Schedulers {
+        Threads,
+        Pool,
+        Virtual
+    }
+
     public enum WebSevers {
         Netty,
         Jetty
@@ -109,6 +120,17 @@ public class MirandaProperties {
 
     public static final String DELIVERY_PACKAGE = PACKAGE_NAME + "delivery,";
 
+    public static final String MAILBOX_PACKAGE = PACKAGE_NAME + "mailbox.";
+
+    public static final String JOURNAL_PACKAGE = PACKAGE_NAME + "journal.";
+
+    public static final String WRITER_PACKAGE = PACKAGE_NAME + "writer.";
+    public static final String READER_PACKAGE = PACKAGE_NAME + "reader.";
+
+    public static final String MAILBOX_CAPACITY = "Capacity";
+    public static final String MAILBOX_OVERFLOW_POLICY = "OverflowPolicy";
+    public static final String MAILBOX_BATCH_SIZE = "BatchSize";
+
     public static final String PROPERTY_DELAY_BETWEEN_RETRIES = "com.ltsllc.miranda.DelayBetweenRetries";
     public static final String PROPERTY_DELIVERY_DIRECTORY = "com.ltsllc.miranda.DeliveryDirectory";
     public static final String PROPERTY_FILE_CHECK_PERIOD = PACKAGE_NAME + "FileCheckPeriod";
@@ -120,6 +142,9 @@ public class MirandaProperties {
     public static final String PROPERTY_MESSAGE_PORT = "com.ltsllc.miranda.MessagePort";
     public static final String PROPERTY_NETWORK = PACKAGE_NAME + "Network";
     public static final String PROPERTY_PROPERTIES_FILE = PACKAGE_NAME + "PropertiesFile";
+    public static final String PROPERTY_SCHEDULER = PACKAGE_NAME + "Scheduler";
+    public static final String PROPERTY_SCHEDULER_THREADS = PACKAGE_NAME + "SchedulerThreads";
+    public static final String PROPERTY_SCHEDULER_BATCH_SIZE = PACKAGE_NAME + "SchedulerBatchSize";
     public static final String PROPERTY_SUBSCRIPTIONS_FILE = "com.ltsllc.miranda.SubscriptionsFile";
     public static final String PROPERTY_TOPICS_FILE = "com.ltsllc.miranda.TopicsFile";
     public static final String PROPERTY_USERS_FILE = "com.ltsllc.miranda.UsersFile";
@@ -128,9 +153,22 @@ public class MirandaProperties {
     public static final String PROPERTY_CLUSTER_HEALTH_CHECK_PERIOD = CLUSTER_PACKAGE + "HealthCheckPeriod";
     public static final String PROPERTY_CLUSTER_TIMEOUT = CLUSTER_PACKAGE + "Timeout";
     public static final String PROPERTY_CLUSTER_PORT = CLUSTER_PACKAGE + "Port";
+    public static final String PROPERTY_CLUSTER_WIRE_FORMAT = CLUSTER_PACKAGE + "WireFormat";
+    public static final String PROPERTY_CLUSTER_LINGER = CLUSTER_PACKAGE + "Linger";
+    public static final String PROPERTY_CLUSTER_HEARTBEAT_PERIOD = CLUSTER_PACKAGE + "HeartbeatPeriod";
+    public static final String PROPERTY_CLUSTER_PHI_THRESHOLD = CLUSTER_PACKAGE + "PhiThreshold";
+    public static final String PROPERTY_CLUSTER_ACCEPTABLE_PAUSE = CLUSTER_PACKAGE + "AcceptablePause";
+    public static final String PROPERTY_CLUSTER_VIRTUAL_NODES = CLUSTER_PACKAGE + "VirtualNodes";
+    public static final String PROPERTY_CLUSTER_COPIES = CLUSTER_PACKAGE + "Copies";
+    public static final String PROPERTY_CLUSTER_REBALANCE_BATCH_SIZE = CLUSTER_PACKAGE + "RebalanceBatchSize";
+    public static final String PROPERTY_CLUSTER_REPLICATION_WINDOW = CLUSTER_PACKAGE + "ReplicationWindow";
+    public static final String PROPERTY_CLUSTER_REPLICATION_BATCH_SIZE = CLUSTER_PACKAGE + "ReplicationBatchSize";
+    public static final String PROPERTY_CLUSTER_FRAGMENT_SIZE = CLUSTER_PACKAGE + "FragmentSize";
+    public static final String PROPERTY_CLUSTER_MAX_BATCH_SIZE = CLUSTER_PACKAGE + "MaxBatchSize";
 
     public static final String PROPERTY_CERTIFICATE_ALIAS = ENCRYPTION_PACKAGE + "CertificateAlias";
     public static final String PROPERTY_ENCRYPTION_MODE = ENCRYPTION_PACKAGE + "Mode";
+    public static final String PROPERTY_ENCRYPTION_KEY_ROTATION_PERIOD = ENCRYPTION_PACKAGE + "KeyRotationPeriod";
 
     public static final String PROPERTY_PANIC_LIMIT = PANIC_PACKAGE + "Limit";
     public static final String PROPERTY_PANIC_TIMEOUT = PANIC_PACKAGE + "Timeout";
@@ -161,8 +199,21 @@ public class MirandaProperties {
 
     public static final String PROPERTY_EVENT_OBJECT_LIMIT = EVENT_PACKAGE + "ObjectLimit";
     public static final String PROPERTY_EVENT_EVICTION_PERIOD = EVENT_PACKAGE + "EvictionPeriod";
+    public static final String PROPERTY_EVENT_MAX_BATCH_SIZE = EVENT_PACKAGE + "MaxBatchSize";
 
     public static final String PROPERTY_DELIVERY_OBJECT_LIMIT = DELIVERY_PACKAGE + "ObjectLimit";
+    public static final String PROPERTY_DELIVERY_HEARTBEAT_PERIOD = DELIVERY_PACKAGE + "HeartbeatPeriod";
+    public static final String PROPERTY_DELIVERY_MAX_BACKLOG = DELIVERY_PACKAGE + "MaxBacklog";
+    public static final String PROPERTY_DELIVERY_MAX_ATTEMPTS = DELIVERY_PACKAGE + "MaxAttempts";
+
+    public static final String PROPERTY_MAILBOX_CAPACITY = MAILBOX_PACKAGE + MAILBOX_CAPACITY;
+    public static final String PROPERTY_MAILBOX_OVERFLOW_POLICY = MAILBOX_PACKAGE + MAILBOX_OVERFLOW_POLICY;
+    public static final String PROPERTY_MAILBOX_BATCH_SIZE = MAILBOX_PACKAGE + MAILBOX_BATCH_SIZE;
+
+    public static final String PROPERTY_JOURNAL_COMPACTION_THRESHOLD = JOURNAL_PACKAGE + "CompactionThreshold";
+
+    public static final String PROPERTY_WRITER_MAX_DELAY = WRITER_PACKAGE + "MaxDelay";
+    public static final String PROPERTY_READER_THREADS = READER_PACKAGE + "Threads";
 
     public static final String DEFAULT_FILE_CHECK_PERIOD  = "1000";
     public static final String DEFAULT_PROPERTIES_FILENAME = "miranda.properties";
@@ -178,16 +229,32 @@ public class MirandaProperties {
     public static final String DEFAULT_GARBAGE_COLLECTION_PERIOD = "3600000"; // once/hour
     public static final String DEFAULT_NETWORK = Networks.Mina.toString();
     public static final String DEFAULT_MAX_WRITE_FAILURES = "5";
+    public static final String DEFAULT_SCHEDULER = Schedulers.Threads.toString();
+    public static final String DEFAULT_SCHEDULER_THREADS = "0"; // one per processor
+    public static final String DEFAULT_SCHEDULER_BATCH_SIZE = "64";
 
     public static final String DEFAULT_CLUSTER_FILE = "data/cluster.json";
     public static final String DEFAULT_CLUSTER_HEALTH_CHECK_PERIOD = "86400000"; // one day
     public static final String DEFAULT_CLUSTER_TIMEOUT = "604800000"; // one week
     public static final String DEFAULT_CLUSTER_PORT = "6789";
+    public static final String DEFAULT_CLUSTER_WIRE_FORMAT = WireFormats.Binary.toString();
+    public static final String DEFAULT_CLUSTER_LINGER = "1"; // milliseconds
+    public static final String DEFAULT_CLUSTER_HEARTBEAT_PERIOD = "1000"; // one second
+    public static final String DEFAULT_CLUSTER_PHI_THRESHOLD = "8";
+    public static final String DEFAULT_CLUSTER_ACCEPTABLE_PAUSE = "3000"; // three seconds
+    public static final String DEFAULT_CLUSTER_VIRTUAL_NODES = "128";
+    public static final String DEFAULT_CLUSTER_COPIES = "2"; // an owner and one replica
+    public static final String DEFAULT_CLUSTER_REBALANCE_BATCH_SIZE = "100";
+    public static final String DEFAULT_CLUSTER_REPLICATION_WINDOW = "1024"; // events waiting for acknowledgement per node
+    public static final String DEFAULT_CLUSTER_REPLICATION_BATCH_SIZE = "128"; // events per wire message
+    public static final String DEFAULT_CLUSTER_FRAGMENT_SIZE = "16384"; // one TLS record
+    public static final String DEFAULT_CLUSTER_MAX_BATCH_SIZE = "65536";
 
     public static final String DEFAULT_PANIC_LIMIT = "3";
     public static final String DEFAULT_PANIC_TIMEOUT = "3600000"; // one hour
 
     public static final String DEFAULT_ENCRYPTION_MODE = "localCA";
+    public static final String DEFAULT_ENCRYPTION_KEY_ROTATION_PERIOD = ONE_HOUR;
     public static final String DEFAULT_TRUST_STORE = "truststore";
     public static final String DEFAULT_TRUST_STORE_ALIAS = "ca";
     public static final String DEFAULT_CERTIFICATE_ALIAS = "server";
@@ -210,8 +277,21 @@ public class MirandaProperties {
 
     public static final String DEFAULT_EVENT_OBJECT_LIMIT = "1000000";
     public static final String DEFAULT_EVENT_EVICTION_PERIOD = ONE_HOUR;
+    public static final String DEFAULT_EVENT_MAX_BATCH_SIZE = "16777216"; // bytes, once uncompressed
 
     public static final String DEFAULT_DELIVERY_OBJECT_LIMIT = "1000000";
+    public static final String DEFAULT_DELIVERY_HEARTBEAT_PERIOD = "15000"; // milliseconds
+    public static final String DEFAULT_DELIVERY_MAX_BACKLOG = "10000"; // events waiting for credits, per channel
+    public static final String DEFAULT_DELIVERY_MAX_ATTEMPTS = "3"; // pushes of an event the client rejects
+
+    public static final String DEFAULT_MAILBOX_CAPACITY = "0"; // unbounded
+    public static final String DEFAULT_MAILBOX_OVERFLOW_POLICY = "Shed";
+    public static final String DEFAULT_MAILBOX_BATCH_SIZE = "32";
+
+    public static final String DEFAULT_JOURNAL_COMPACTION_THRESHOLD = "1000"; // records
+
+    public static final String DEFAULT_WRITER_MAX_DELAY = "10"; // milliseconds, 0 means write immediately
+    public static final String DEFAULT_READER_THREADS = "0"; // 0 means one per processor
 
     public static String[][] DEFAULT_PROPERTIES = {
             {PROPERTY_USERS_FILE, DEFAULT_USERS_FILE},
@@ -226,8 +306,12 @@ public class MirandaProperties {
             {PROPERTY_PROPERTIES_FILE, DEFAULT_PROPERTIES_FILENAME},
             {PROPERTY_NETWORK, DEFAULT_NETWORK},
             {PROPERTY_MAX_WRITE_FAILURES, DEFAULT_MAX_WRITE_FAILURES},
+            {PROPERTY_SCHEDULER, DEFAULT_SCHEDULER},
+            {PROPERTY_SCHEDULER_THREADS, DEFAULT_SCHEDULER_THREADS},
+            {PROPERTY_SCHEDULER_BATCH_SIZE, DEFAULT_SCHEDULER_BATCH_SIZE},
 
             {PROPERTY_ENCRYPTION_MODE, DEFAULT_ENCRYPTION_MODE},
+            {PROPERTY_ENCRYPTION_KEY_ROTATION_PERIOD, DEFAULT_ENCRYPTION_KEY_ROTATION_PERIOD},
             {PROPERTY_TRUST_STORE_FILENAME, DEFAULT_TRUST_STORE},
             {PROPERTY_TRUST_STORE_ALIAS, DEFAULT_TRUST_STORE_ALIAS},
             {PROPERTY_CERTIFICATE_ALIAS, DEFAULT_CERTIFICATE_ALIAS},
@@ -236,6 +320,18 @@ public class MirandaProperties {
             {PROPERTY_CLUSTER_HEALTH_CHECK_PERIOD, DEFAULT_CLUSTER_HEALTH_CHECK_PERIOD},
             {PROPERTY_CLUSTER_PORT, DEFAULT_CLUSTER_PORT},
             {PROPERTY_CLUSTER_TIMEOUT, DEFAULT_CLUSTER_TIMEOUT},
+            {PROPERTY_CLUSTER_WIRE_FORMAT, DEFAULT_CLUSTER_WIRE_FORMAT},
+            {PROPERTY_CLUSTER_LINGER, DEFAULT_CLUSTER_LINGER},
+            {PROPERTY_CLUSTER_HEARTBEAT_PERIOD, DEFAULT_CLUSTER_HEARTBEAT_PERIOD},
+            {PROPERTY_CLUSTER_PHI_THRESHOLD, DEFAULT_CLUSTER_PHI_THRESHOLD},
+            {PROPERTY_CLUSTER_ACCEPTABLE_PAUSE, DEFAULT_CLUSTER_ACCEPTABLE_PAUSE},
+            {PROPERTY_CLUSTER_VIRTUAL_NODES, DEFAULT_CLUSTER_VIRTUAL_NODES},
+            {PROPERTY_CLUSTER_COPIES, DEFAULT_CLUSTER_COPIES},
+            {PROPERTY_CLUSTER_REBALANCE_BATCH_SIZE, DEFAULT_CLUSTER_REBALANCE_BATCH_SIZE},
+            {PROPERTY_CLUSTER_REPLICATION_WINDOW, DEFAULT_CLUSTER_REPLICATION_WINDOW},
+            {PROPERTY_CLUSTER_REPLICATION_BATCH_SIZE, DEFAULT_CLUSTER_REPLICATION_BATCH_SIZE},
+            {PROPERTY_CLUSTER_FRAGMENT_SIZE, DEFAULT_CLUSTER_FRAGMENT_SIZE},
+            {PROPERTY_CLUSTER_MAX_BATCH_SIZE, DEFAULT_CLUSTER_MAX_BATCH_SIZE},
 
             {PROPERTY_DELAY_BETWEEN_RETRIES, DEFAULT_DELAY_BETWEEN_RETRIES},
             {PROPERTY_GARBAGE_COLLECTION_PERIOD, DEFAULT_GARBAGE_COLLECTION_PERIOD},
@@ -261,8 +357,21 @@ public class MirandaProperties {
 
             {PROPERTY_EVENT_OBJECT_LIMIT, DEFAULT_EVENT_OBJECT_LIMIT},
             {PROPERTY_EVENT_EVICTION_PERIOD, DEFAULT_EVENT_EVICTION_PERIOD},
+            {PROPERTY_EVENT_MAX_BATCH_SIZE, DEFAULT_EVENT_MAX_BATCH_SIZE},
+
+            {PROPERTY_DELIVERY_OBJECT_LIMIT, DEFAULT_DELIVERY_OBJECT_LIMIT},
+            {PROPERTY_DELIVERY_HEARTBEAT_PERIOD, DEFAULT_DELIVERY_HEARTBEAT_PERIOD},
+            {PROPERTY_DELIVERY_MAX_BACKLOG, DEFAULT_DELIVERY_MAX_BACKLOG},
+            {PROPERTY_DELIVERY_MAX_ATTEMPTS, DEFAULT_DELIVERY_MAX_ATTEMPTS},
 
-            {PROPERTY_DELIVERY_OBJECT_LIMIT, DEFAULT_DELIVERY_OBJECT_LIMIT}
+            {PROPERTY_MAILBOX_CAPACITY, DEFAULT_MAILBOX_CAPACITY},
+            {PROPERTY_MAILBOX_OVERFLOW_POLICY, DEFAULT_MAILBOX_OVERFLOW_POLICY},
+            {PROPERTY_MAILBOX_BATCH_SIZE, DEFAULT_MAILBOX_BATCH_SIZE},
+
+            {PROPERTY_JOURNAL_COMPACTION_THRESHOLD, DEFAULT_JOURNAL_COMPACTION_THRESHOLD},
+
+            {PROPERTY_WRITER_MAX_DELAY, DEFAULT_WRITER_MAX_DELAY},
+            {PROPERTY_READER_THREADS, DEFAULT_READER_THREADS}
     };
 
     private Properties properties;
@@ -399,6 +508,32 @@ public class MirandaProperties {
         return webServer;
     }
 
+    public WireFormats getWireFormatProperty (String name) {
+        String value = getProperty(name);
+        WireFormats wireFormat = WireFormats.Binary;
+
+        if (null != value && value.trim().equalsIgnoreCase(WireFormats.Json.toString()))
+            wireFormat = WireFormats.Json;
+
+        return wireFormat;
+    }
+
+    public Schedulers getSchedulerProperty (String name) {
+        String value = getProperty(name);
+        Schedulers scheduler = Schedulers.Threads;
+
+        if (null != value) {
+            value = value.trim();
+
+            for (Schedulers candidate : Schedulers.values()) {
+                if (candidate.toString().equalsIgnoreCase(value))
+                    scheduler = candidate;
+            }
+        }
+
+        return scheduler;
+    }
+
     public Networks getNetworkProperty () {
         return getNetworkProperty(PROPERTY_NETWORK);
     }
@@ -47,6 +47,10 @@ public class Property implements Updateable<Property>, Matchable<Property> {
         setValue(other.getValue());
     }
 
+    public String getKey () {
+        return getName();
+    }
+
     public boolean matches (Property other) {
         return getName().equals(other.getName());
     }
@@ -18,6 +18,7 @@ package com.ltsllc.miranda.reader;
 
 import com.ltsllc.miranda.Message;
 
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
 /**
@@ -35,6 +36,8 @@ public class ReadResponseMessage extends Message {
     private String filename;
     private Results result;
     private byte[] data;
+    private List<byte[]> journal;
+    private boolean journalDamaged;
 
     public String getFilename() {
         return filename;
@@ -84,6 +87,25 @@ public class ReadResponseMessage extends Message {
         this.filename = filename;
     }
 
+    public List<byte[]> getJournal() {
+        return journal;
+    }
+
+    public void setJournal(List<byte[]> journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Did the journal end with a record that could not be read?
+     */
+    public boolean isJournalDamaged() {
+        return journalDamaged;
+    }
+
+    public void setJournalDamaged(boolean journalDamaged) {
+        this.journalDamaged = journalDamaged;
+    }
+
     public Throwable getException() {
         return exception;
     }
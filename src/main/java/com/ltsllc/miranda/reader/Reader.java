@@ -18,26 +18,49 @@ package com.ltsllc.miranda.reader;
 
 import com.google.gson.Gson;
 import com.ltsllc.miranda.*;
+import com.ltsllc.miranda.file.Journal;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.util.Utils;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
- * Created by Clark on 5/3/2017.
+ * Reads and decrypts files for the rest of the system.
+ *
+ * <P>
+ *     Reading and decrypting a file is slow compared to everything else the
+ *     system does, and at startup every file is asked for at once.  The reader
+ *     therefore only accepts requests; the work is done by a pool of worker
+ *     threads, each of which replies to the requester when its file is ready.
+ *     The replies for different files can arrive in any order.
+ * </P>
  */
 public class Reader extends Consumer {
     public static class ReadResult {
         public Results result;
         public String filename;
         public byte[] data;
+        public List<byte[]> journal;
+        public boolean journalDamaged;
         public Throwable exception;
 
         public void setAdditionalInfo (Throwable t) {
@@ -51,6 +74,7 @@ public class Reader extends Consumer {
     private static Gson gson = new Gson();
 
     private PrivateKey privateKey;
+    private ExecutorService workers;
 
     public PrivateKey getPrivateKey() {
         return privateKey;
@@ -60,43 +84,171 @@ public class Reader extends Consumer {
         this.privateKey = privateKey;
     }
 
+    public ExecutorService getWorkers() {
+        return workers;
+    }
+
     public Reader (PrivateKey privateKey) {
         super (NAME);
 
         this.privateKey = privateKey;
+        this.workers = buildWorkers();
 
         ReaderReadyState readerReadyState = new ReaderReadyState(this);
         setCurrentState(readerReadyState);
     }
 
+    public static ExecutorService buildWorkers () {
+        int threads = 0;
+
+        if (null != Miranda.properties)
+            threads = (int) Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_READER_THREADS,
+                    MirandaProperties.DEFAULT_READER_THREADS);
+
+        if (threads < 1)
+            threads = Runtime.getRuntime().availableProcessors();
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, NAME + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
     public ReadResult read (String filename) throws IOException, GeneralSecurityException {
         ReadResult result = new ReadResult();
-        FileReader fileReader = null;
-        FileInputStream fileInputStream = null;
         result.result = Results.Unknown;
         result.filename = filename;
 
         File file = new File (filename);
-        if (!file.exists()) {
+        File journal = new File (Journal.getFilename(filename));
+
+        if (!file.exists() && !journal.exists()) {
             result.result = Results.FileNotFound;
         } else {
             try {
-                fileReader = new FileReader(file);
-                EncryptedMessage encryptedMessage = gson.fromJson(fileReader, EncryptedMessage.class);
-                byte[] plainText = getPrivateKey().decrypt(encryptedMessage);
+                if (file.exists())
+                    result.data = readFile(file);
+
+                result.journal = new ArrayList<byte[]>();
+                result.journalDamaged = !readJournal(journal, result.journal);
                 result.result = Results.Success;
-                result.data = plainText;
             } catch (Exception e) {
                 result.result = Results.Exception;
                 result.exception = e;
-            } finally {
-                Utils.closeIgnoreExceptions(fileReader);
             }
         }
 
         return result;
     }
 
+    /**
+     * Read and decrypt a file.
+     *
+     * <P>
+     *     Files in the chunked format described in {@link EncryptedFile} are
+     *     decrypted as they are read.  Files written before that format
+     *     existed are the JSON for an {@link EncryptedMessage}; they are still
+     *     understood, and are replaced with the new format the next time they
+     *     are written.
+     * </P>
+     */
+    public byte[] readFile (File file) throws IOException, GeneralSecurityException {
+        FileChannel fileChannel = null;
+
+        try {
+            fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+            ByteBuffer start = ByteBuffer.allocate(EncryptedFile.MAGIC.length);
+            EncryptedFile.read(fileChannel, start);
+
+            if (EncryptedFile.hasMagic(start.array())) {
+                fileChannel.position(0);
+                return getPrivateKey().decrypt(fileChannel);
+            }
+        } finally {
+            Utils.closeIgnoreExceptions(fileChannel);
+        }
+
+        return readOldFormat(file);
+    }
+
+    public byte[] readOldFormat (File file) throws IOException, GeneralSecurityException {
+        FileReader fileReader = null;
+
+        try {
+            fileReader = new FileReader(file);
+            EncryptedMessage encryptedMessage = gson.fromJson(fileReader, EncryptedMessage.class);
+            return getPrivateKey().decrypt(encryptedMessage);
+        } finally {
+            Utils.closeIgnoreExceptions(fileReader);
+        }
+    }
+
+    /**
+     * Read the records in a journal.
+     *
+     * <P>
+     *     A record that cannot be decrypted is one that was being written when
+     *     the system went down.  Since records are only ever added to the end
+     *     of a journal, that record and anything after it are ignored.  The
+     *     file that owns the journal is told, so that it can replace the
+     *     journal before anything else is appended to it.
+     * </P>
+     *
+     * @param records The list to add the decrypted records to, in the order
+     *                they were written.
+     * @return true if every record could be read, false if the journal is
+     * damaged.  A journal that does not exist is not damaged.
+     */
+    public boolean readJournal (File journal, List<byte[]> records) throws IOException {
+        if (!journal.exists())
+            return true;
+
+        BufferedReader bufferedReader = null;
+
+        try {
+            bufferedReader = new BufferedReader(new FileReader(journal));
+
+            for (String line = bufferedReader.readLine(); null != line; line = bufferedReader.readLine()) {
+                if (line.trim().length() < 1)
+                    continue;
+
+                try {
+                    records.add(decryptRecord(line.trim()));
+                } catch (Exception e) {
+                    logger.warn("Ignoring damaged record in " + journal + " and anything after it", e);
+                    return false;
+                }
+            }
+        } finally {
+            Utils.closeIgnoreExceptions(bufferedReader);
+        }
+
+        return true;
+    }
+
+    /**
+     * Records are hex encoded in the format described in {@link EncryptedFile},
+     * except for records written before that format existed, which are the
+     * JSON for an {@link EncryptedMessage}.
+     */
+    public byte[] decryptRecord (String line) throws IOException, GeneralSecurityException {
+        if (line.startsWith("{")) {
+            EncryptedMessage encryptedMessage = gson.fromJson(line, EncryptedMessage.class);
+            return getPrivateKey().decrypt(encryptedMessage);
+        }
+
+        byte[] bytes = Utils.hexStringToBytes(line);
+        return getPrivateKey().decrypt(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
     public byte[] decrypt (EncryptedMessage encryptedMessage) throws GeneralSecurityException, IOException {
         return getPrivateKey().decrypt(encryptedMessage);
     }
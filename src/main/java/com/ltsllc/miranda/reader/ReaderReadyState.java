@@ -22,6 +22,7 @@ import com.ltsllc.miranda.State;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Created by Clark on 5/3/2017.
@@ -54,7 +55,27 @@ public class ReaderReadyState extends State {
         return nextState;
     }
 
-    public State processReadMessage (ReadMessage readMessage) {
+    /**
+     * Hand the read to a worker.  If the workers have been shut down, do it
+     * here instead.
+     */
+    public State processReadMessage (final ReadMessage readMessage) {
+        Runnable runnable = new Runnable() {
+            public void run() {
+                read(readMessage);
+            }
+        };
+
+        try {
+            getReader().getWorkers().execute(runnable);
+        } catch (RejectedExecutionException e) {
+            read(readMessage);
+        }
+
+        return getReader().getCurrentState();
+    }
+
+    public void read (ReadMessage readMessage) {
         ReadResponseMessage response = new ReadResponseMessage(getReader().getQueue(), this);
         response.setFilename(readMessage.getFilename());
 
@@ -64,6 +85,8 @@ public class ReaderReadyState extends State {
 
             if (readResult.result == Results.Success) {
                 response.setData(readResult.data);
+                response.setJournal(readResult.journal);
+                response.setJournalDamaged(readResult.journalDamaged);
             } else if (readResult.result == Results.Exception) {
                 response.setException(readResult.exception);
             }
@@ -73,7 +96,5 @@ public class ReaderReadyState extends State {
         }
 
         readMessage.reply(response);
-
-        return getReader().getCurrentState();
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.scheduler;
+
+import com.ltsllc.miranda.Consumer;
+import com.ltsllc.miranda.Mailbox;
+import com.ltsllc.miranda.Panic;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs {@link Consumer}s on a shared pool of threads instead of giving each
+ * one a thread of its own.
+ *
+ * <P>
+ *     A scheduled Consumer only occupies a thread while its {@link Mailbox}
+ *     has something in it.  At most one thread runs a given Consumer at a
+ *     time, so a Consumer still sees its messages one at a time and in the
+ *     order they arrived.  A Consumer that has processed batchSize messages
+ *     gives up its thread and is rescheduled so that a busy Consumer cannot
+ *     starve the others.
+ * </P>
+ */
+public class Scheduler {
+    public static final String NAME = "scheduler";
+
+    private static Logger logger = Logger.getLogger(Scheduler.class);
+
+    private ExecutorService executorService;
+    private int batchSize;
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Scheduler (ExecutorService executorService, int batchSize) {
+        this.executorService = executorService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Build a scheduler for a mode.
+     *
+     * @param mode The type of scheduler to build.
+     * @param threads The number of threads in the pool.  Zero or less means one per processor.
+     * @param batchSize The maximum number of messages a Consumer processes before giving up its thread.
+     * @return The new scheduler or null if the mode is {@link MirandaProperties.Schedulers#Threads}.
+     */
+    public static Scheduler build (MirandaProperties.Schedulers mode, int threads, int batchSize) {
+        if (threads < 1)
+            threads = Runtime.getRuntime().availableProcessors();
+
+        if (batchSize < 1)
+            batchSize = 1;
+
+        ExecutorService executorService = null;
+
+        switch (mode) {
+            case Virtual: {
+                executorService = buildVirtualThreadExecutor();
+                if (null == executorService) {
+                    logger.warn("Virtual threads are not supported by this JVM, using a work stealing pool instead");
+                    executorService = Executors.newWorkStealingPool(threads);
+                }
+                break;
+            }
+
+            case Pool: {
+                executorService = Executors.newWorkStealingPool(threads);
+                break;
+            }
+
+            default: {
+                return null;
+            }
+        }
+
+        return new Scheduler(executorService, batchSize);
+    }
+
+    /**
+     * Virtual threads only exist in newer JVMs, so we have to ask for them
+     * by name.
+     *
+     * @return An executor that uses a virtual thread per task or null if the JVM does not support them.
+     */
+    public static ExecutorService buildVirtualThreadExecutor () {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Start running a Consumer.
+     *
+     * <P>
+     *     The Consumer is claimed before its mailbox starts talking to us, so
+     *     messages that arrive before the start state has run wait for it.
+     * </P>
+     */
+    public void start (Consumer consumer) {
+        Mailbox mailbox = (Mailbox) consumer.getQueue();
+
+        consumer.claim();
+        mailbox.setScheduler(this);
+        execute(consumer);
+    }
+
+    /**
+     * Arrange for a Consumer to run, unless it is already running or waiting to run.
+     */
+    public void schedule (Consumer consumer) {
+        if (consumer.claim())
+            execute(consumer);
+    }
+
+    public void execute (final Consumer consumer) {
+        Runnable runnable = new Runnable() {
+            public void run() {
+                consumer.runScheduled(Scheduler.this);
+            }
+        };
+
+        try {
+            getExecutorService().execute(runnable);
+        } catch (RejectedExecutionException e) {
+            Panic panic = new Panic("Exception trying to schedule " + consumer, e, Panic.Reasons.ExceptionScheduling);
+            Miranda.panicMiranda(panic);
+        }
+    }
+
+    public void shutdown () {
+        getExecutorService().shutdown();
+    }
+}
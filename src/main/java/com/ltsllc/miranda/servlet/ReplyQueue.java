@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.servlet;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.timer.TimeoutMessage;
+import org.apache.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * A queue that exists for one request.
+ *
+ * <P>
+ *     A ReplyQueue is passed as the sender queue of a request, so the reply
+ *     that a manager sends with {@link Message#reply(Message)} lands here
+ *     instead of in the mailbox of a shared {@link ServletHolder}.  The first
+ *     message that arrives completes the future for the request; anything
+ *     after that is ignored.
+ * </P>
+ *
+ * <P>
+ *     Each queue gets a correlation ID and stays in the table of outstanding
+ *     requests until its future completes, whether that is because of a
+ *     reply, a timeout or someone cancelling the future.  A timeout arrives
+ *     as a {@link TimeoutMessage} from {@link Miranda#timer} and completes
+ *     the future with a {@link TimeoutException}.  When there is no timer,
+ *     as when running without the rest of the system, the queue times itself
+ *     out.
+ * </P>
+ */
+public class ReplyQueue extends LinkedBlockingQueue<Message> {
+    private static Logger logger = Logger.getLogger(ReplyQueue.class);
+    private static Map<Long, ReplyQueue> ourOutstanding = new ConcurrentHashMap<Long, ReplyQueue>();
+    private static ScheduledExecutorService ourTimeouts;
+
+    /**
+     * The executor for timeouts when there is no {@link Miranda#timer}.  It
+     * is only created if it is needed.
+     */
+    public static synchronized ScheduledExecutorService getTimeouts () {
+        if (null == ourTimeouts) {
+            ThreadFactory threadFactory = new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "reply queue timeouts");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+
+            ourTimeouts = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        }
+
+        return ourTimeouts;
+    }
+
+    public static int getOutstandingCount () {
+        return ourOutstanding.size();
+    }
+
+    public static ReplyQueue getOutstanding (long correlationId) {
+        return ourOutstanding.get(correlationId);
+    }
+
+    private long correlationId;
+    private CompletableFuture<Message> future;
+    private AtomicBoolean completed = new AtomicBoolean();
+
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public CompletableFuture<Message> getFuture() {
+        return future;
+    }
+
+    public ReplyQueue () {
+        this.correlationId = Message.nextCorrelationId();
+        this.future = new CompletableFuture<Message>();
+
+        ourOutstanding.put(correlationId, this);
+
+        future.whenComplete(new BiConsumer<Message, Throwable>() {
+            public void accept(Message message, Throwable throwable) {
+                ourOutstanding.remove(getCorrelationId());
+            }
+        });
+    }
+
+    /**
+     * Build a queue that gives up after a period of time.
+     *
+     * @param timeout The number of milliseconds to wait for a reply.  Zero or
+     *                less means wait forever, in which case the caller has to
+     *                cancel the future if it gives up.
+     * @return The new queue.
+     */
+    public static ReplyQueue build (long timeout) {
+        final ReplyQueue replyQueue = new ReplyQueue();
+
+        if (timeout > 0) {
+            final TimeoutMessage timeoutMessage = new TimeoutMessage(replyQueue, replyQueue);
+
+            if (null != Miranda.timer) {
+                Miranda.timer.sendScheduleOnce(timeout, replyQueue, timeoutMessage);
+            } else {
+                Runnable runnable = new Runnable() {
+                    public void run() {
+                        replyQueue.complete(timeoutMessage);
+                    }
+                };
+
+                getTimeouts().schedule(runnable, timeout, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return replyQueue;
+    }
+
+    public void complete (Message message) {
+        if (!completed.compareAndSet(false, true) || getFuture().isDone()) {
+            logger.debug("Ignoring " + message.getSubject() + " for " + this + " which has already completed");
+            return;
+        }
+
+        if (message.getSubject() == Message.Subjects.Timeout) {
+            TimeoutException timeoutException = new TimeoutException("Request " + getCorrelationId() + " timed out");
+            getFuture().completeExceptionally(timeoutException);
+        } else {
+            getFuture().complete(message);
+        }
+    }
+
+    @Override
+    public boolean offer (Message message) {
+        complete(message);
+        return true;
+    }
+
+    @Override
+    public boolean offer (Message message, long timeout, TimeUnit unit) {
+        return offer(message);
+    }
+
+    @Override
+    public void put (Message message) {
+        offer(message);
+    }
+
+    @Override
+    public boolean add (Message message) {
+        return offer(message);
+    }
+
+    public String toString () {
+        return "reply queue " + getCorrelationId();
+    }
+}
@@ -18,15 +18,32 @@ package com.ltsllc.miranda.servlet;
 
 
 import com.ltsllc.miranda.Consumer;
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.State;
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.manager.BulkResponseMessage;
+import com.ltsllc.miranda.manager.StandardManager;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.session.Session;
 import org.apache.log4j.Logger;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * A class that gives servlets the ability to receive messages
+ *
+ * <P>
+ *     A holder is shared by every request, so a request should not wait on
+ *     the holder itself.  Instead, it sends its message with a
+ *     {@link ReplyQueue} from {@link #createReplyQueue()} and gets a future
+ *     that is completed by the reply.
+ * </P>
  */
 public class ServletHolder extends Consumer {
     private static Logger logger = Logger.getLogger(ServletHolder.class);
@@ -109,14 +126,52 @@ public class ServletHolder extends Consumer {
         notifyAll();
     }
 
+    /**
+     * Check a session.  The session manager's store is safe to read from any
+     * thread, so this does not have to wait for a reply.
+     */
     public Session getSession (long sessionId) throws TimeoutException {
-        setSession(null);
+        return Miranda.getInstance().getSessionManager().checkSession(sessionId);
+    }
 
-        Miranda.getInstance().getSessionManager().sendCheckSessionMessage (getQueue(), this, sessionId);
+    public ReplyQueue createReplyQueue () {
+        return ReplyQueue.build(getTimeoutPeriod());
+    }
+
+    /**
+     * Block until a future completes.  This is for callers that cannot use
+     * the future directly; servlets should not call it.
+     */
+    public <T> T await (CompletableFuture<T> future) throws TimeoutException {
+        try {
+            return future.get(getTimeoutPeriod(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException)
+                throw (TimeoutException) e.getCause();
 
-        sleep();
+            throw new IllegalStateException("Exception while waiting", e.getCause());
+        }
+    }
 
-        return getSession();
+    /**
+     * Send a {@link BulkMessage} to a manager.
+     *
+     * @return A future for the result of each object, in the same order.
+     */
+    public CompletableFuture<List<Results>> bulkAsync (StandardManager manager, Session session,
+                                                      BulkMessage.Operations operation, List objects) {
+        ReplyQueue replyQueue = createReplyQueue();
+        manager.sendBulkMessage(replyQueue, this, session, operation, objects, true);
+
+        return replyQueue.getFuture().thenApply(new Function<Message, List<Results>>() {
+            public List<Results> apply(Message message) {
+                BulkResponseMessage bulkResponseMessage = (BulkResponseMessage) message;
+                return bulkResponseMessage.getResults();
+            }
+        });
     }
 
     public void setSessionAndAwaken (Session session) {
@@ -19,13 +19,16 @@ package com.ltsllc.miranda.servlet.cluster;
 import com.ltsllc.miranda.servlet.status.NodeStatus;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by Clark on 3/10/2017.
  */
 public class ClusterStatusObject {
     private List<NodeStatus> nodes = new ArrayList<NodeStatus>();
+    private Map<String, LatencyStatus> replicationLatencies = new LinkedHashMap<String, LatencyStatus>();
 
     public List<NodeStatus> getNodes() {
         return nodes;
@@ -35,6 +38,17 @@ public class ClusterStatusObject {
         this.nodes = nodes;
     }
 
+    /**
+     * The replication latencies, by remote policy.
+     */
+    public Map<String, LatencyStatus> getReplicationLatencies() {
+        return replicationLatencies;
+    }
+
+    public void setReplicationLatencies(Map<String, LatencyStatus> replicationLatencies) {
+        this.replicationLatencies = replicationLatencies;
+    }
+
     public ClusterStatusObject (List<NodeStatus> nodes) {
         this.nodes = new ArrayList<NodeStatus>(nodes);
     }
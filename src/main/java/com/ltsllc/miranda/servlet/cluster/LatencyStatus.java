@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.cluster;
+
+import com.ltsllc.miranda.node.RoundTripTimes;
+
+import java.util.Map;
+
+/**
+ * How long the events for one remote policy took to be replicated, in
+ * milliseconds.
+ */
+public class LatencyStatus {
+    private long count;
+    private double mean;
+    private long latency50;
+    private long latency99;
+    private Map<String, Long> histogram;
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getLatency50() {
+        return latency50;
+    }
+
+    public long getLatency99() {
+        return latency99;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public LatencyStatus (RoundTripTimes times) {
+        this.count = times.getCount();
+        this.mean = times.getMean();
+        this.latency50 = times.getPercentile(50.0);
+        this.latency99 = times.getPercentile(99.0);
+        this.histogram = times.getHistogram();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.delivery;
+
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+
+import java.util.List;
+
+/**
+ * Acknowledge a batch of pushed events, and optionally give the channel more
+ * credits.  Rejected deliveries are ones the client could not handle, which
+ * the server pushes again.
+ */
+public class AcknowledgeRequestObject extends RequestObject {
+    private String channel;
+    private List<String> deliveries;
+    private List<String> rejected;
+    private int credits;
+
+    public AcknowledgeRequestObject(String sessionIdString, String channel, List<String> deliveries, int credits) {
+        this(sessionIdString, channel, deliveries, null, credits);
+    }
+
+    public AcknowledgeRequestObject(String sessionIdString, String channel, List<String> deliveries,
+                                    List<String> rejected, int credits) {
+        super(sessionIdString);
+
+        this.channel = channel;
+        this.deliveries = deliveries;
+        this.rejected = rejected;
+        this.credits = credits;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public List<String> getDeliveries() {
+        return deliveries;
+    }
+
+    public List<String> getRejected() {
+        return rejected;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+}
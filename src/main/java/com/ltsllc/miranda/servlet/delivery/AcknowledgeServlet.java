@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.delivery;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import com.ltsllc.miranda.servlet.session.SessionServlet;
+import com.ltsllc.miranda.user.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Acknowledge events that were pushed over a channel.
+ */
+public class AcknowledgeServlet extends SessionServlet {
+    public Class getRequestClass () {
+        return AcknowledgeRequestObject.class;
+    }
+
+    public ServletHolder getServletHolder () {
+        return DeliveryHolder.getInstance();
+    }
+
+    public ResultObject createResultObject () {
+        return new ResultObject();
+    }
+
+    public boolean allowAccess () {
+        return getSession().getUser().getCategory() == User.UserTypes.Subscriber;
+    }
+
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject) {
+        AcknowledgeRequestObject acknowledgeRequestObject = (AcknowledgeRequestObject) requestObject;
+
+        if (null == acknowledgeRequestObject.getChannel()) {
+            ResultObject resultObject = createResultObject();
+            resultObject.setResult(Results.InvalidRequest);
+            return CompletableFuture.completedFuture(resultObject);
+        }
+
+        return toResultObjectFuture(DeliveryHolder.getInstance().acknowledgeAsync(getSession(),
+                acknowledgeRequestObject.getChannel(), acknowledgeRequestObject.getDeliveries(),
+                acknowledgeRequestObject.getRejected(), acknowledgeRequestObject.getCredits()));
+    }
+
+    public ResultObject performService (HttpServletRequest request, HttpServletResponse response,
+                                        RequestObject requestObject) throws TimeoutException {
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.delivery;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.deliveries.PushChannel;
+import com.ltsllc.miranda.deliveries.messages.AcknowledgeResponseMessage;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.servlet.ReplyQueue;
+import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.session.Session;
+import com.ltsllc.miranda.subsciptions.Subscription;
+import com.ltsllc.miranda.subsciptions.messages.GetSubscriptionsResponseMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Gives the push servlets access to the delivery manager.
+ */
+public class DeliveryHolder extends ServletHolder {
+    private static DeliveryHolder ourInstance;
+
+    public static DeliveryHolder getInstance() {
+        return ourInstance;
+    }
+
+    public static void setInstance(DeliveryHolder instance) {
+        DeliveryHolder.ourInstance = instance;
+    }
+
+    public static synchronized void initialize (long timeout) {
+        if (null == ourInstance) {
+            ourInstance = new DeliveryHolder(timeout);
+        }
+    }
+
+    public DeliveryHolder(long timeout) {
+        super("delivery holder", timeout);
+
+        DeliveryHolderReadyState readyState = new DeliveryHolderReadyState(this);
+        setCurrentState(readyState);
+    }
+
+    /**
+     * Start pushing the events for the subscriptions of a user over a channel.
+     *
+     * @return A future that completes with the number of subscriptions the
+     * channel carries.
+     */
+    public CompletableFuture<Integer> openChannelAsync (final Session session, final PushChannel pushChannel,
+                                                        final int credits) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getSubscriptionManager().sendGetSubscriptionsMessage(replyQueue, this);
+
+        return replyQueue.getFuture().thenApply(new Function<Message, Integer>() {
+            public Integer apply(Message message) {
+                GetSubscriptionsResponseMessage getSubscriptionsResponseMessage = (GetSubscriptionsResponseMessage) message;
+                List<Subscription> subscriptions = new ArrayList<Subscription>();
+
+                for (Subscription subscription : getSubscriptionsResponseMessage.getSubscriptions()) {
+                    if (session.getUser().getName().equals(subscription.getOwner()))
+                        subscriptions.add(subscription);
+                }
+
+                Miranda.getInstance().getDeliveryManager().sendOpenChannelMessage(null, DeliveryHolder.this,
+                        pushChannel, subscriptions, credits);
+
+                return subscriptions.size();
+            }
+        });
+    }
+
+    public CompletableFuture<Results> acknowledgeAsync (Session session, String channelId, List<String> deliveryIds,
+                                                        List<String> rejectedIds, int credits) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getDeliveryManager().sendAcknowledgeMessage(replyQueue, this, session, channelId,
+                deliveryIds, rejectedIds, credits);
+
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                AcknowledgeResponseMessage acknowledgeResponseMessage = (AcknowledgeResponseMessage) message;
+                return acknowledgeResponseMessage.getResult();
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.delivery;
+
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+
+/**
+ * Open a push channel.  Credits is how many events the client will take
+ * before it acknowledges any of them.
+ */
+public class PushRequestObject extends RequestObject {
+    private int credits;
+
+    public PushRequestObject(String sessionIdString, int credits) {
+        super(sessionIdString);
+
+        this.credits = credits;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.delivery;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.deliveries.PushChannel;
+import com.ltsllc.miranda.servlet.miranda.MirandaServlet;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import com.ltsllc.miranda.session.Session;
+import com.ltsllc.miranda.user.User;
+import com.ltsllc.miranda.util.Utils;
+import org.apache.log4j.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Open a channel that the events for the caller's subscriptions are pushed
+ * over.
+ *
+ * <P>
+ *     Unlike the other session servlets the response does not end: it is a
+ *     stream of {@link com.ltsllc.miranda.deliveries.PushFrame}s, one per
+ *     line, sent with chunked encoding for as long as the client stays
+ *     connected.  If the channel cannot be opened the response is an
+ *     ordinary {@link ResultObject} instead.
+ * </P>
+ */
+public class PushServlet extends MirandaServlet {
+    private static Logger logger = Logger.getLogger(PushServlet.class);
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    public void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        ResultObject resultObject = new ResultObject();
+        Session session = null;
+        PushRequestObject pushRequestObject = null;
+
+        try {
+            String json = Utils.readInputStream(request.getInputStream());
+            pushRequestObject = getGson().fromJson(json, PushRequestObject.class);
+
+            if (null != pushRequestObject)
+                session = DeliveryHolder.getInstance().getSession(pushRequestObject.getSessionId());
+
+            if (null == pushRequestObject) {
+                resultObject.setResult(Results.InvalidRequest);
+            } else if (null == session) {
+                resultObject.setResult(Results.SessionNotFound);
+            } else if (session.getUser().getCategory() != User.UserTypes.Subscriber
+                    && session.getUser().getCategory() != User.UserTypes.Admin) {
+                resultObject.setResult(Results.InsufficientPermissions);
+            }
+        } catch (TimeoutException e) {
+            resultObject.setResult(Results.Timeout);
+        }
+
+        if (null != resultObject.getResult()) {
+            respond(response.getOutputStream(), resultObject);
+            return;
+        }
+
+        response.setContentType(CONTENT_TYPE);
+        response.setStatus(HttpServletResponse.SC_OK);
+
+        AsyncContext asyncContext = request.startAsync();
+        final PushChannel pushChannel = new PushChannel(session.getUser().getName(), asyncContext);
+        pushChannel.start();
+
+        //
+        // if the channel never gets opened, nothing else is going to end the response
+        //
+        DeliveryHolder.getInstance().openChannelAsync(session, pushChannel, pushRequestObject.getCredits())
+                .whenComplete(new BiConsumer<Integer, Throwable>() {
+                    public void accept(Integer subscriptions, Throwable throwable) {
+                        if (null != throwable) {
+                            logger.warn("Could not open push channel " + pushChannel.getId(), throwable);
+                            pushChannel.close();
+                        }
+                    }
+                });
+
+        logger.info("Push channel " + pushChannel.getId() + " requested by " + session.getUser().getName());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.event;
+
+import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.event.messages.PublishResponseMessage;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.servlet.ReplyQueue;
+import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.session.Session;
+import com.ltsllc.miranda.topics.Topic;
+import com.ltsllc.miranda.topics.messages.GetTopicResponseMessage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Gives the event servlets access to the event manager.
+ */
+public class EventHolder extends ServletHolder {
+    private static EventHolder ourInstance;
+
+    public static EventHolder getInstance() {
+        return ourInstance;
+    }
+
+    public static void setInstance(EventHolder instance) {
+        EventHolder.ourInstance = instance;
+    }
+
+    public static synchronized void initialize (long timeout) {
+        if (null == ourInstance) {
+            ourInstance = new EventHolder(timeout);
+        }
+    }
+
+    public EventHolder(long timeout) {
+        super("event holder", timeout);
+
+        EventHolderReadyState readyState = new EventHolderReadyState(this);
+        setCurrentState(readyState);
+    }
+
+    /**
+     * Publish a batch of events to a topic.
+     *
+     * <P>
+     *     The topic is looked up first, both to make sure that it exists and
+     *     to find out how its events are replicated.  The whole batch then
+     *     goes to the event manager in one message.
+     * </P>
+     */
+    public CompletableFuture<PublishResultObject> publishAsync (final Session session, String topicName,
+                                                                final List<Event> events) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getTopicManager().sendGetTopicMessage(replyQueue, this, topicName);
+
+        return replyQueue.getFuture().thenCompose(new Function<Message, CompletableFuture<PublishResultObject>>() {
+            public CompletableFuture<PublishResultObject> apply(Message message) {
+                GetTopicResponseMessage getTopicResponseMessage = (GetTopicResponseMessage) message;
+                Topic topic = getTopicResponseMessage.getTopic();
+
+                if (null == topic) {
+                    PublishResultObject publishResultObject = new PublishResultObject();
+                    publishResultObject.setResult(Results.TopicNotFound);
+                    return CompletableFuture.completedFuture(publishResultObject);
+                }
+
+                ReplyQueue publishReplyQueue = createReplyQueue();
+                Miranda.getInstance().getEventManager().sendPublishMessage(publishReplyQueue, EventHolder.this,
+                        session, topic.getRemotePolicy(), events);
+
+                return publishReplyQueue.getFuture().thenApply(new Function<Message, PublishResultObject>() {
+                    public PublishResultObject apply(Message message) {
+                        PublishResponseMessage publishResponseMessage = (PublishResponseMessage) message;
+                        PublishResultObject publishResultObject = new PublishResultObject();
+                        publishResultObject.setResult(publishResponseMessage.getResult());
+                        publishResultObject.setGuids(publishResponseMessage.getGuids());
+
+                        return publishResultObject;
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.event;
+
+import com.ltsllc.miranda.servlet.ServletHolderReadyState;
+
+/**
+ * Replies go to the {@link com.ltsllc.miranda.servlet.ReplyQueue} of each
+ * request, so there is nothing here beyond what every holder does.
+ */
+public class EventHolderReadyState extends ServletHolderReadyState {
+    public EventHolder getEventHolder () {
+        return (EventHolder) getContainer();
+    }
+
+    public EventHolderReadyState (EventHolder eventHolder) {
+        super(eventHolder);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.event;
+
+import com.ltsllc.miranda.event.EventBatch;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+
+/**
+ * A batch of events for one topic.  The events are an {@link EventBatch},
+ * base64 encoded.
+ */
+public class PublishRequestObject extends RequestObject {
+    private String topicName;
+    private EventBatch.Compression compression;
+    private String events;
+
+    public PublishRequestObject(String sessionIdString, String topicName, EventBatch.Compression compression,
+                                String events) {
+        super(sessionIdString);
+
+        this.topicName = topicName;
+        this.compression = compression;
+        this.events = events;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public EventBatch.Compression getCompression() {
+        return compression;
+    }
+
+    public String getEvents() {
+        return events;
+    }
+}
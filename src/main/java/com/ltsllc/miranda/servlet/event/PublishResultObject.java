@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.event;
+
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+
+import java.util.List;
+
+/**
+ * The guids of a batch of published events, in the order they were sent.
+ */
+public class PublishResultObject extends ResultObject {
+    private List<String> guids;
+
+    public List<String> getGuids() {
+        return guids;
+    }
+
+    public void setGuids(List<String> guids) {
+        this.guids = guids;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.event;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.event.EventBatch;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
+import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import com.ltsllc.miranda.servlet.session.SessionServlet;
+import com.ltsllc.miranda.user.User;
+import org.apache.log4j.Logger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Publish a batch of events to a topic with one request.
+ */
+public class PublishServlet extends SessionServlet {
+    private static Logger logger = Logger.getLogger(PublishServlet.class);
+
+    public Class getRequestClass () {
+        return PublishRequestObject.class;
+    }
+
+    public ServletHolder getServletHolder () {
+        return EventHolder.getInstance();
+    }
+
+    public ResultObject createResultObject () {
+        return new PublishResultObject();
+    }
+
+    public long getMaxBatchSize () {
+        if (null == Miranda.properties)
+            return Long.parseLong(MirandaProperties.DEFAULT_EVENT_MAX_BATCH_SIZE);
+
+        return Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_EVENT_MAX_BATCH_SIZE,
+                MirandaProperties.DEFAULT_EVENT_MAX_BATCH_SIZE);
+    }
+
+    public boolean allowAccess () {
+        return getSession().getUser().getCategory() == User.UserTypes.Publisher;
+    }
+
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject) {
+        PublishRequestObject publishRequestObject = (PublishRequestObject) requestObject;
+        List<Event> events = null;
+
+        if (null != publishRequestObject.getTopicName() && null != publishRequestObject.getEvents()) {
+            try {
+                byte[] data = Base64.getDecoder().decode(publishRequestObject.getEvents());
+                events = EventBatch.decode(data, publishRequestObject.getCompression(),
+                        getSession().getUser().getName(), publishRequestObject.getTopicName(), getMaxBatchSize());
+            } catch (IllegalArgumentException | IOException e) {
+                logger.warn("Invalid batch of events", e);
+            }
+        }
+
+        if (null == events) {
+            ResultObject resultObject = createResultObject();
+            resultObject.setResult(Results.InvalidRequest);
+            return CompletableFuture.completedFuture(resultObject);
+        }
+
+        CompletableFuture<PublishResultObject> future = EventHolder.getInstance().publishAsync(getSession(),
+                publishRequestObject.getTopicName(), events);
+
+        return future.thenApply(new Function<PublishResultObject, ResultObject>() {
+            public ResultObject apply(PublishResultObject publishResultObject) {
+                return publishResultObject;
+            }
+        });
+    }
+
+    public ResultObject performService (HttpServletRequest request, HttpServletResponse response,
+                                        RequestObject requestObject) throws TimeoutException {
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
+    }
+}
@@ -16,16 +16,25 @@
 
 package com.ltsllc.miranda.servlet.login;
 
+import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.servlet.ReplyQueue;
 import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.session.LoginResponseMessage;
 import com.ltsllc.miranda.session.Session;
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/1/2017.
+ *
+ * <P>
+ *     Like the other holders, each login gets its own {@link ReplyQueue}.
+ * </P>
  */
 public class LoginHolder extends ServletHolder {
     public static class LoginResult {
@@ -51,25 +60,6 @@ public class LoginHolder extends ServletHolder {
         ourInstance = new LoginHolder(timeout);
     }
 
-    private Session session;
-    private Results result;
-
-    public Results getResult() {
-        return result;
-    }
-
-    public void setResult(Results result) {
-        this.result = result;
-    }
-
-    public Session getSession() {
-        return session;
-    }
-
-    public void setSession(Session session) {
-        this.session = session;
-    }
-
     public LoginHolder (long timeout) {
         super("login", timeout);
 
@@ -77,22 +67,19 @@ public class LoginHolder extends ServletHolder {
         setCurrentState(readyState);
     }
 
-    public LoginResult login(String name) throws TimeoutException {
-        setResult (Results.Unknown);
-        setSession(null);
-
-        Miranda.getInstance().sendLoginMessage (getQueue(), this, name);
+    public CompletableFuture<LoginResult> loginAsync (String name) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendLoginMessage (replyQueue, this, name);
 
-        sleep();
-
-        LoginResult loginResult = new LoginResult(getResult(), getSession());
-        return loginResult;
+        return replyQueue.getFuture().thenApply(new Function<Message, LoginResult>() {
+            public LoginResult apply(Message message) {
+                LoginResponseMessage loginResponseMessage = (LoginResponseMessage) message;
+                return new LoginResult(loginResponseMessage.getResult(), loginResponseMessage.getSession());
+            }
+        });
     }
 
-    public void setResultAndWakeup (LoginResult loginResult) {
-        setResult(loginResult.result);
-        setSession(loginResult.session);
-        wake();
+    public LoginResult login(String name) throws TimeoutException {
+        return await(loginAsync(name));
     }
-
 }
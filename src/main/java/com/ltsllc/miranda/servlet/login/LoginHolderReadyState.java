@@ -16,16 +16,18 @@
 
 package com.ltsllc.miranda.servlet.login;
 
-import com.ltsllc.miranda.Message;
-import com.ltsllc.miranda.Results;
-import com.ltsllc.miranda.State;
-import com.ltsllc.miranda.session.LoginResponseMessage;
-import com.ltsllc.miranda.session.messages.GetSessionResponseMessage;
+import com.ltsllc.miranda.servlet.ServletHolderReadyState;
 
 /**
  * Created by Clark on 4/1/2017.
+ *
+ * <P>
+ *     Login replies go to the {@link com.ltsllc.miranda.servlet.ReplyQueue}
+ *     of the login, so this state only has to handle the messages that every
+ *     holder gets.
+ * </P>
  */
-public class LoginHolderReadyState extends State {
+public class LoginHolderReadyState extends ServletHolderReadyState {
     public LoginHolder getLoginHolder () {
         return (LoginHolder) getContainer();
     }
@@ -33,44 +35,4 @@ public class LoginHolderReadyState extends State {
     public LoginHolderReadyState (LoginHolder loginHolder) {
         super(loginHolder);
     }
-
-    public State processMessage (Message message) {
-        State nextState = getLoginHolder().getCurrentState();
-
-        switch (message.getSubject()) {
-            case LoginResponse: {
-                LoginResponseMessage loginResponseMessage = (LoginResponseMessage) message;
-                nextState = processLoginResponseMessage(loginResponseMessage);
-                break;
-            }
-
-            default: {
-                nextState = super.processMessage(message);
-                break;
-            }
-        }
-
-        return nextState;
-    }
-
-    public State processGetSessionResponseMessage (GetSessionResponseMessage getSessionResponseMessage) {
-        if (getSessionResponseMessage.getResult() == Results.Success)
-                getLoginHolder().setSession(getSessionResponseMessage.getSession());
-
-        LoginHolder.LoginResult loginResult = new LoginHolder.LoginResult(getSessionResponseMessage.getResult(),
-                getSessionResponseMessage.getSession());
-
-        getLoginHolder().setResultAndWakeup(loginResult);
-
-        return getLoginHolder().getCurrentState();
-    }
-
-    public State processLoginResponseMessage (LoginResponseMessage loginResponseMessage) {
-        LoginHolder.LoginResult loginResult = new LoginHolder.LoginResult(loginResponseMessage.getResult(),
-                loginResponseMessage.getSession());
-
-        getLoginHolder().setResultAndWakeup(loginResult);
-
-        return getLoginHolder().getCurrentState();
-    }
 }
@@ -20,16 +20,25 @@ import com.ltsllc.miranda.EncryptedMessage;
 import com.ltsllc.miranda.MirandaException;
 import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.servlet.miranda.MirandaServlet;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import com.ltsllc.miranda.servlet.session.AsyncResponse;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 /**
  * Created by Clark on 3/31/2017.
+ *
+ * <P>
+ *     Like the session servlets, a login is answered asynchronously, so the
+ *     container thread is not held while the session manager works.
+ * </P>
  */
 public class LoginServlet extends MirandaServlet {
     public void doOptions (HttpServletRequest request, HttpServletResponse response) {
@@ -41,30 +50,59 @@ public class LoginServlet extends MirandaServlet {
         response.setHeader("Access-Control-Max-Age", "1209600");
     }
 
+    public ResultObject createResultObject () {
+        return new LoginResultObject();
+    }
+
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        LoginResultObject result = new LoginResultObject();
+        final AsyncResponse asyncResponse = new AsyncResponse(this, req.startAsync(),
+                LoginHolder.getInstance().getTimeoutPeriod());
 
         try {
             LoginObject loginObject = fromJson(req.getInputStream(), LoginObject.class);
-            LoginHolder.LoginResult loginResult = LoginHolder.getInstance().login(loginObject.getName());
-            result.setResult(loginResult.result);
 
-            if (loginResult.session != null) {
-                result.setCategory(loginResult.session.getUser().getCategory().toString());
-                String sessionIdString = Long.toString(loginResult.session.getId());
-                byte[] plainText = sessionIdString.getBytes();
-                EncryptedMessage encryptedMessage = loginResult.session.getUser().getPublicKey().encrypt(plainText);
-                result.setEncryptedMessage(encryptedMessage);
-            }
-        } catch (MirandaException | GeneralSecurityException e) {
+            LoginHolder.getInstance().loginAsync(loginObject.getName()).whenComplete(
+                    new BiConsumer<LoginHolder.LoginResult, Throwable>() {
+                        public void accept(LoginHolder.LoginResult loginResult, Throwable throwable) {
+                            asyncResponse.respond(toLoginResultObject(loginResult, throwable));
+                        }
+                    });
+        } catch (MirandaException e) {
+            LoginResultObject result = new LoginResultObject();
             result.setResult(Results.Exception);
             result.setException(e);
-        } catch (TimeoutException e) {
+            asyncResponse.respond(result);
+        }
+    }
+
+    public LoginResultObject toLoginResultObject (LoginHolder.LoginResult loginResult, Throwable throwable) {
+        LoginResultObject result = new LoginResultObject();
+
+        if (throwable instanceof CompletionException && null != throwable.getCause())
+            throwable = throwable.getCause();
+
+        if (throwable instanceof TimeoutException) {
             result.setResult(Results.Timeout);
+        } else if (null != throwable) {
+            result.setResult(Results.Exception);
+            result.setException(throwable);
+        } else {
+            result.setResult(loginResult.result);
+
+            try {
+                if (loginResult.session != null) {
+                    result.setCategory(loginResult.session.getUser().getCategory().toString());
+                    String sessionIdString = Long.toString(loginResult.session.getId());
+                    byte[] plainText = sessionIdString.getBytes();
+                    EncryptedMessage encryptedMessage = loginResult.session.getUser().getPublicKey().encrypt(plainText);
+                    result.setEncryptedMessage(encryptedMessage);
+                }
+            } catch (GeneralSecurityException e) {
+                result.setResult(Results.Exception);
+                result.setException(e);
+            }
         }
 
-        resp.setHeader("Access-Control-Allow-Origin", "*");
-        respond(resp.getOutputStream(), result);
-        resp.setStatus(200);
+        return result;
     }
 }
@@ -20,6 +20,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import com.ltsllc.miranda.MirandaException;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.user.JSPublicKeySerializer;
 
 import javax.servlet.ServletOutputStream;
@@ -46,6 +47,14 @@ public class MirandaServlet extends HttpServlet {
         return true;
     }
 
+    /**
+     * The object that a servlet answers with when a request fails before it
+     * gets a result of its own, for example when it times out.
+     */
+    public ResultObject createResultObject () {
+        return new ResultObject();
+    }
+
     public static final String LOGIN_PAGE = "/login.html";
 
     private static Gson gson = createGson();
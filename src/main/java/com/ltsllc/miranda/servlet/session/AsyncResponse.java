@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.servlet.session;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.servlet.miranda.MirandaServlet;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import org.apache.log4j.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The response to one asynchronous request.
+ *
+ * <P>
+ *     A request can be answered by its reply or by the container timing it
+ *     out, whichever happens first.  The other one is ignored.  Replies are
+ *     usually completed on the thread of the manager that sent them, so the
+ *     response is written on a container thread to keep the manager from
+ *     blocking on the network.
+ * </P>
+ */
+public class AsyncResponse implements AsyncListener {
+    private static Logger logger = Logger.getLogger(AsyncResponse.class);
+
+    private MirandaServlet servlet;
+    private AsyncContext asyncContext;
+    private AtomicBoolean responded = new AtomicBoolean();
+
+    public MirandaServlet getServlet() {
+        return servlet;
+    }
+
+    public AsyncContext getAsyncContext() {
+        return asyncContext;
+    }
+
+    public AsyncResponse (MirandaServlet servlet, AsyncContext asyncContext, long timeout) {
+        this.servlet = servlet;
+        this.asyncContext = asyncContext;
+
+        asyncContext.setTimeout(timeout);
+        asyncContext.addListener(this);
+    }
+
+    public void respond (final ResultObject resultObject) {
+        if (!responded.compareAndSet(false, true))
+            return;
+
+        Runnable runnable = new Runnable() {
+            public void run() {
+                write(resultObject);
+            }
+        };
+
+        getAsyncContext().start(runnable);
+    }
+
+    public void write (ResultObject resultObject) {
+        try {
+            HttpServletResponse response = (HttpServletResponse) getAsyncContext().getResponse();
+            response.setHeader("Access-Control-Allow-Origin", "*");
+            response.setStatus(200);
+            getServlet().respond(response.getOutputStream(), resultObject);
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("Exception trying to write response", e);
+        } finally {
+            getAsyncContext().complete();
+        }
+    }
+
+    public void onTimeout (AsyncEvent asyncEvent) {
+        if (!responded.compareAndSet(false, true))
+            return;
+
+        ResultObject resultObject = getServlet().createResultObject();
+        resultObject.setResult(Results.Timeout);
+        write(resultObject);
+    }
+
+    public void onError (AsyncEvent asyncEvent) {
+        if (responded.compareAndSet(false, true)) {
+            logger.warn("Error during request", asyncEvent.getThrowable());
+            getAsyncContext().complete();
+        }
+    }
+
+    public void onComplete (AsyncEvent asyncEvent) {}
+
+    public void onStartAsync (AsyncEvent asyncEvent) {}
+}
@@ -19,6 +19,7 @@ package com.ltsllc.miranda.servlet.session;
 import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.servlet.ServletHolder;
 import com.ltsllc.miranda.servlet.miranda.MirandaServlet;
+import com.ltsllc.miranda.servlet.objects.BulkResultObject;
 import com.ltsllc.miranda.servlet.objects.RequestObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.session.Session;
@@ -29,10 +30,29 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/28/2017.
+ *
+ * <P>
+ *     Requests are handled asynchronously: doPost starts an
+ *     {@link javax.servlet.AsyncContext}, asks {@link #performServiceAsync}
+ *     for a future and returns the container thread right away.  The
+ *     response is written when the future completes or the request times
+ *     out.
+ * </P>
+ *
+ * <P>
+ *     One servlet instance handles every request, so the session of the
+ *     current request is kept per thread.  It is only valid while doPost is
+ *     running; a subclass that needs it later should copy it.
+ * </P>
  */
 abstract public class SessionServlet extends MirandaServlet {
     abstract public Class<? extends RequestObject> getRequestClass();
@@ -43,18 +63,95 @@ abstract public class SessionServlet extends MirandaServlet {
     abstract public ServletHolder getServletHolder();
 
     abstract public ResultObject createResultObject();
-    private Session session;
+
+    private static ThreadLocal<Session> ourSession = new ThreadLocal<Session>();
 
     public Session getSession() {
-        return session;
+        return ourSession.get();
     }
 
     public void setSession(Session session) {
-        this.session = session;
+        if (null == session)
+            ourSession.remove();
+        else
+            ourSession.set(session);
+    }
+
+    /**
+     * Perform the service for a request.
+     *
+     * <P>
+     *     The default calls {@link #performService} on the calling thread.
+     *     Subclasses that talk to other subsystems should override this so
+     *     they do not tie up a container thread while they wait for a reply.
+     * </P>
+     */
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject) {
+        CompletableFuture<ResultObject> future = new CompletableFuture<ResultObject>();
+
+        try {
+            future.complete(performService(request, response, requestObject));
+        } catch (ServletException | IOException | TimeoutException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Turn a future for a result into a future for a plain {@link ResultObject}.
+     */
+    public CompletableFuture<ResultObject> toResultObjectFuture (CompletableFuture<Results> future) {
+        return future.thenApply(new Function<Results, ResultObject>() {
+            public ResultObject apply(Results result) {
+                ResultObject resultObject = new ResultObject();
+                resultObject.setResult(result);
+
+                return resultObject;
+            }
+        });
+    }
+
+    /**
+     * Turn a future for the results of a bulk request into a future for a
+     * {@link BulkResultObject}.
+     */
+    public CompletableFuture<ResultObject> toBulkResultObjectFuture (CompletableFuture<List<Results>> future) {
+        return future.thenApply(new Function<List<Results>, ResultObject>() {
+            public ResultObject apply(List<Results> results) {
+                BulkResultObject bulkResultObject = new BulkResultObject();
+                bulkResultObject.setResult(Results.Success);
+                bulkResultObject.setResults(results);
+
+                return bulkResultObject;
+            }
+        });
     }
 
+    public ResultObject toResultObject (ResultObject resultObject, Throwable throwable) {
+        if (null == throwable)
+            return resultObject;
+
+        if (throwable instanceof CompletionException && null != throwable.getCause())
+            throwable = throwable.getCause();
+
+        resultObject = createResultObject();
+
+        if (throwable instanceof TimeoutException) {
+            resultObject.setResult(Results.Timeout);
+        } else {
+            resultObject.setResult(Results.Exception);
+            resultObject.setException(throwable);
+        }
+
+        return resultObject;
+    }
 
     public void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        final AsyncResponse asyncResponse = new AsyncResponse(this, request.startAsync(),
+                getServletHolder().getTimeoutPeriod());
+
         ResultObject resultObject = null;
 
         try {
@@ -67,7 +164,13 @@ abstract public class SessionServlet extends MirandaServlet {
                 resultObject.setResult(Results.SessionNotFound);
                 response.sendRedirect(LOGIN_PAGE);
             } else if (allowAccess() || getSession().getUser().getCategory() == User.UserTypes.Admin) {
-                resultObject = performService(request, response, requestObject);
+                CompletableFuture<ResultObject> future = performServiceAsync(request, response, requestObject);
+
+                future.whenComplete(new BiConsumer<ResultObject, Throwable>() {
+                    public void accept(ResultObject resultObject, Throwable throwable) {
+                        asyncResponse.respond(toResultObject(resultObject, throwable));
+                    }
+                });
             } else {
                 resultObject = createResultObject();
                 resultObject.setResult(Results.InsufficientPermissions);
@@ -75,16 +178,15 @@ abstract public class SessionServlet extends MirandaServlet {
         } catch (TimeoutException e) {
             resultObject = createResultObject();
             resultObject.setResult(Results.Timeout);
-        } catch (IOException | ServletException e) {
+        } catch (IOException e) {
             resultObject = createResultObject();
             resultObject.setResult(Results.Exception);
             resultObject.setException(e);
+        } finally {
+            setSession(null);
         }
 
-        respond(response.getOutputStream(), resultObject);
-        response.setHeader("Access-Control-Allow-Origin", "*");
-        response.setStatus(200);
+        if (null != resultObject)
+            asyncResponse.respond(resultObject);
     }
-
-
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.servlet.status;
+
+import com.ltsllc.miranda.Ciphers;
+
+/**
+ * How much encrypting and decrypting we have done.
+ */
+public class EncryptionStatus {
+    private long encryptions;
+    private long bytesEncrypted;
+    private long decryptions;
+    private long bytesDecrypted;
+    private long keysWrapped;
+    private long keysUnwrapped;
+
+    public long getEncryptions() {
+        return encryptions;
+    }
+
+    public long getBytesEncrypted() {
+        return bytesEncrypted;
+    }
+
+    public long getDecryptions() {
+        return decryptions;
+    }
+
+    public long getBytesDecrypted() {
+        return bytesDecrypted;
+    }
+
+    public long getKeysWrapped() {
+        return keysWrapped;
+    }
+
+    public long getKeysUnwrapped() {
+        return keysUnwrapped;
+    }
+
+    public EncryptionStatus () {
+        this.encryptions = Ciphers.getEncryptions();
+        this.bytesEncrypted = Ciphers.getBytesEncrypted();
+        this.decryptions = Ciphers.getDecryptions();
+        this.bytesDecrypted = Ciphers.getBytesDecrypted();
+        this.keysWrapped = Ciphers.getKeysWrapped();
+        this.keysUnwrapped = Ciphers.getKeysUnwrapped();
+    }
+}
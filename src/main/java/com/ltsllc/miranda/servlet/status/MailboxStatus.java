@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.status;
+
+import com.ltsllc.miranda.Mailbox;
+
+/**
+ * How far behind a subsystem is.
+ */
+public class MailboxStatus {
+    private String name;
+    private int depth;
+    private int capacity;
+    private int highWaterMark;
+    private long shed;
+    private String overflowPolicy;
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public long getShed() {
+        return shed;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public MailboxStatus (Mailbox mailbox) {
+        this.name = mailbox.getName();
+        this.depth = mailbox.size();
+        this.capacity = mailbox.getCapacity();
+        this.highWaterMark = mailbox.getHighWaterMark();
+        this.shed = mailbox.getShedCount();
+        this.overflowPolicy = mailbox.getOverflowPolicy().toString();
+    }
+}
@@ -18,16 +18,24 @@ package com.ltsllc.miranda.servlet.status;
 
 import com.ltsllc.miranda.node.NodeElement;
 
+import java.util.Map;
+
 /**
  * Created by Clark on 3/10/2017.
  */
 public class NodeStatus extends NodeElement {
     public enum NodeStatuses {
         Online,
+        Suspected,
         Offline
     }
 
     private NodeStatuses nodeStatus;
+    private double phi;
+    private long lastRoundTrip;
+    private double meanRoundTrip;
+    private long roundTrip99;
+    private Map<String, Long> roundTripHistogram;
 
     public NodeStatuses getNodeStatus() {
         return nodeStatus;
@@ -37,6 +45,46 @@ public class NodeStatus extends NodeElement {
         this.nodeStatus = nodeStatus;
     }
 
+    public double getPhi() {
+        return phi;
+    }
+
+    public void setPhi(double phi) {
+        this.phi = phi;
+    }
+
+    public long getLastRoundTrip() {
+        return lastRoundTrip;
+    }
+
+    public void setLastRoundTrip(long lastRoundTrip) {
+        this.lastRoundTrip = lastRoundTrip;
+    }
+
+    public double getMeanRoundTrip() {
+        return meanRoundTrip;
+    }
+
+    public void setMeanRoundTrip(double meanRoundTrip) {
+        this.meanRoundTrip = meanRoundTrip;
+    }
+
+    public long getRoundTrip99() {
+        return roundTrip99;
+    }
+
+    public void setRoundTrip99(long roundTrip99) {
+        this.roundTrip99 = roundTrip99;
+    }
+
+    public Map<String, Long> getRoundTripHistogram() {
+        return roundTripHistogram;
+    }
+
+    public void setRoundTripHistogram(Map<String, Long> roundTripHistogram) {
+        this.roundTripHistogram = roundTripHistogram;
+    }
+
     public NodeStatus (String dns, String ip, int port, String descrition, NodeStatuses nodeStatus) {
         super(dns, ip, port, descrition);
 
@@ -16,6 +16,7 @@
 
 package com.ltsllc.miranda.servlet.status;
 
+import com.ltsllc.miranda.miranda.StartupTimes;
 import com.ltsllc.miranda.node.NodeElement;
 import com.ltsllc.miranda.servlet.property.Property;
 
@@ -29,6 +30,42 @@ public class StatusObject {
     private List<NodeElement> cluster = new ArrayList<NodeElement>();
     private List<Property> properties = new ArrayList<Property>();
     private NodeElement local;
+    private List<MailboxStatus> mailboxes = new ArrayList<MailboxStatus>();
+    private WriterStatus writer;
+    private EncryptionStatus encryption;
+    private List<StartupTimes.LoadTime> loadTimes = new ArrayList<StartupTimes.LoadTime>();
+
+    public List<StartupTimes.LoadTime> getLoadTimes() {
+        return loadTimes;
+    }
+
+    public void setLoadTimes(List<StartupTimes.LoadTime> loadTimes) {
+        this.loadTimes = loadTimes;
+    }
+
+    public EncryptionStatus getEncryption() {
+        return encryption;
+    }
+
+    public void setEncryption(EncryptionStatus encryption) {
+        this.encryption = encryption;
+    }
+
+    public WriterStatus getWriter() {
+        return writer;
+    }
+
+    public void setWriter(WriterStatus writer) {
+        this.writer = writer;
+    }
+
+    public List<MailboxStatus> getMailboxes() {
+        return mailboxes;
+    }
+
+    public void setMailboxes(List<MailboxStatus> mailboxes) {
+        this.mailboxes = mailboxes;
+    }
 
     public List<NodeElement> getCluster() {
         return cluster;
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.servlet.status;
+
+import com.ltsllc.miranda.writer.Writer;
+
+/**
+ * How well the writer is coalescing writes.
+ */
+public class WriterStatus {
+    private long writesRequested;
+    private long physicalWrites;
+
+    public long getWritesRequested() {
+        return writesRequested;
+    }
+
+    public long getPhysicalWrites() {
+        return physicalWrites;
+    }
+
+    public WriterStatus (Writer writer) {
+        this.writesRequested = writer.getWritesRequested();
+        this.physicalWrites = writer.getPhysicalWrites();
+    }
+}
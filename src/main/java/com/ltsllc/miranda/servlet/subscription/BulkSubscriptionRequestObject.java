@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.subscription;
+
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.subsciptions.Subscription;
+
+import java.util.List;
+
+/**
+ * Create, update or delete several subscriptions with one request.
+ */
+public class BulkSubscriptionRequestObject extends RequestObject {
+    private BulkMessage.Operations operation;
+    private List<Subscription> subscriptions;
+
+    public BulkSubscriptionRequestObject(String sessionIdString, BulkMessage.Operations operation, List<Subscription> subscriptions) {
+        super(sessionIdString);
+
+        this.operation = operation;
+        this.subscriptions = subscriptions;
+    }
+
+    public BulkMessage.Operations getOperation() {
+        return operation;
+    }
+
+    public List<Subscription> getSubscriptions() {
+        return subscriptions;
+    }
+}
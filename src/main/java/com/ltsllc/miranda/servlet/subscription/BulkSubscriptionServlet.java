@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.subscription;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.servlet.objects.BulkResultObject;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import com.ltsllc.miranda.servlet.session.SessionServlet;
+import com.ltsllc.miranda.subsciptions.Subscription;
+import com.ltsllc.miranda.user.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Create, update or delete many subscriptions with one request.
+ */
+public class BulkSubscriptionServlet extends SessionServlet {
+    public Class getRequestClass () {
+        return BulkSubscriptionRequestObject.class;
+    }
+
+    public ServletHolder getServletHolder () {
+        return SubscriptionHolder.getInstance();
+    }
+
+    public ResultObject createResultObject () {
+        return new BulkResultObject();
+    }
+
+    public boolean allowAccess () {
+        return getSession().getUser().getCategory() == User.UserTypes.Subscriber;
+    }
+
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject) {
+        BulkSubscriptionRequestObject bulkSubscriptionRequestObject = (BulkSubscriptionRequestObject) requestObject;
+
+        if (null == bulkSubscriptionRequestObject.getOperation() || null == bulkSubscriptionRequestObject.getSubscriptions()) {
+            ResultObject resultObject = createResultObject();
+            resultObject.setResult(Results.InvalidRequest);
+            return CompletableFuture.completedFuture(resultObject);
+        }
+
+        if (bulkSubscriptionRequestObject.getOperation() == BulkMessage.Operations.Create) {
+            for (Subscription subscription : bulkSubscriptionRequestObject.getSubscriptions()) {
+                subscription.setOwner(getSession().getUser().getName());
+            }
+        }
+
+        return toBulkResultObjectFuture(SubscriptionHolder.getInstance().bulkSubscriptionsAsync(getSession(),
+                bulkSubscriptionRequestObject.getOperation(), bulkSubscriptionRequestObject.getSubscriptions()));
+    }
+
+    public ResultObject performService (HttpServletRequest request, HttpServletResponse response,
+                                        RequestObject requestObject) throws TimeoutException {
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
+    }
+}
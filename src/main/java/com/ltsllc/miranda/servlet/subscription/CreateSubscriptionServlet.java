@@ -16,14 +16,11 @@
 
 package com.ltsllc.miranda.servlet.subscription;
 
-import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by Clark on 4/22/2017.
@@ -34,14 +31,11 @@ public class CreateSubscriptionServlet extends SubscriptionServlet {
     }
 
 
-    public ResultObject basicPerformService(HttpServletRequest req, HttpServletResponse resp, SubscriptionRequestObject requestObject)
-            throws ServletException, IOException, TimeoutException
+    public CompletableFuture<ResultObject> basicPerformService(HttpServletRequest req, HttpServletResponse resp,
+                                                               SubscriptionRequestObject requestObject)
     {
-        ResultObject resultObject = new ResultObject();
         requestObject.getSubscription().setOwner(getSession().getUser().getName());
-        Results result = SubscriptionHolder.getInstance().createSubscription(requestObject.getSubscription());
-        resultObject.setResult(result);
-
-        return resultObject;
+        return toResultObjectFuture(SubscriptionHolder.getInstance().createSubscriptionAsync(getSession(),
+                requestObject.getSubscription()));
     }
 }
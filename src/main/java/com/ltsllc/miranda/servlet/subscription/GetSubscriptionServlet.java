@@ -21,11 +21,10 @@ import com.ltsllc.miranda.servlet.ReadObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.subsciptions.Subscription;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/22/2017.
@@ -35,18 +34,24 @@ public class GetSubscriptionServlet extends SubscriptionServlet {
         return new ResultObject();
     }
 
-    public ReadObject basicPerformService(HttpServletRequest req, HttpServletResponse resp, SubscriptionRequestObject requestObject)
-            throws ServletException, IOException, TimeoutException {
-        ReadObject<Subscription> resultObject = new ReadObject();
+    public CompletableFuture<ResultObject> basicPerformService(HttpServletRequest req, HttpServletResponse resp,
+                                                               SubscriptionRequestObject requestObject) {
+        CompletableFuture<Subscription> future = SubscriptionHolder.getInstance().getSubscriptionAsync(
+                requestObject.getSubscription().getName());
 
-        Subscription subscription = SubscriptionHolder.getInstance().getSubscription(requestObject.getSubscription().getName());
-        if (null == subscription)
-            resultObject.setResult(Results.SubscriptionNotFound);
-        else {
-            resultObject.setObject(subscription);
-            resultObject.setResult(Results.Success);
-        }
+        return future.thenApply(new Function<Subscription, ResultObject>() {
+            public ResultObject apply(Subscription subscription) {
+                ReadObject<Subscription> resultObject = new ReadObject<Subscription>();
 
-        return resultObject;
+                if (null == subscription)
+                    resultObject.setResult(Results.SubscriptionNotFound);
+                else {
+                    resultObject.setObject(subscription);
+                    resultObject.setResult(Results.Success);
+                }
+
+                return resultObject;
+            }
+        });
     }
 }
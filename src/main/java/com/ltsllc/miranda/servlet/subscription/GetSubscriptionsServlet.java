@@ -21,12 +21,11 @@ import com.ltsllc.miranda.servlet.ListObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.subsciptions.Subscription;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/22/2017.
@@ -36,14 +35,18 @@ public class GetSubscriptionsServlet extends SubscriptionServlet {
         return new SubscriptionsResult();
     }
 
-    public ListObject basicPerformService(HttpServletRequest req, HttpServletResponse resp, SubscriptionRequestObject requestObject)
-            throws IOException, ServletException, TimeoutException {
+    public CompletableFuture<ResultObject> basicPerformService(HttpServletRequest req, HttpServletResponse resp,
+                                                               SubscriptionRequestObject requestObject) {
+        CompletableFuture<List<Subscription>> future = SubscriptionHolder.getInstance().getSubscriptionsAsync();
 
-        ListObject subscriptionsResult = new ListObject();
-        List<Subscription> subscriptionList = SubscriptionHolder.getInstance().getSubscriptions();
-        subscriptionsResult.setList(subscriptionList);
-        subscriptionsResult.setResult(Results.Success);
+        return future.thenApply(new Function<List<Subscription>, ResultObject>() {
+            public ResultObject apply(List<Subscription> subscriptionList) {
+                ListObject subscriptionsResult = new ListObject();
+                subscriptionsResult.setList(subscriptionList);
+                subscriptionsResult.setResult(Results.Success);
 
-        return subscriptionsResult;
+                return subscriptionsResult;
+            }
+        });
     }
 }
@@ -16,14 +16,25 @@
 
 package com.ltsllc.miranda.servlet.subscription;
 
+import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.manager.BulkMessage;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.servlet.ReplyQueue;
 import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.session.Session;
 import com.ltsllc.miranda.subsciptions.Subscription;
+import com.ltsllc.miranda.subsciptions.messages.*;
+import com.ltsllc.miranda.topics.Topic;
+import com.ltsllc.miranda.topics.messages.GetTopicsResponseMessage;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/22/2017.
@@ -31,40 +42,6 @@ import java.util.concurrent.TimeoutException;
 public class SubscriptionHolder extends ServletHolder {
     private static SubscriptionHolder ourInstance;
 
-    private List<Subscription> subscriptionsList;
-    private Subscription subscription;
-    private Results getResult;
-    private Results createResult;
-    private Results updateResult;
-    private Results deleteResult;
-
-    public List<Subscription> getSubscriptionList () {
-        if (subscriptionsList == null)
-            subscriptionsList = new ArrayList<Subscription>();
-
-        return subscriptionsList;
-    }
-
-    public void setSubscriptionsList (List<Subscription> list) {
-        this.subscriptionsList = list;
-    }
-
-    public Subscription getSubscription() {
-        return subscription;
-    }
-
-    public void setSubscription(Subscription subscription) {
-        this.subscription = subscription;
-    }
-
-    public Results getGetResult() {
-        return getResult;
-    }
-
-    public void setGetResult(Results getResult) {
-        this.getResult = getResult;
-    }
-
     public static SubscriptionHolder getInstance () {
         return ourInstance;
     }
@@ -77,30 +54,6 @@ public class SubscriptionHolder extends ServletHolder {
         ourInstance = new SubscriptionHolder(timeout);
     }
 
-    public Results getDeleteResult() {
-        return deleteResult;
-    }
-
-    public void setDeleteResult(Results deleteResult) {
-        this.deleteResult = deleteResult;
-    }
-
-    public Results getUpdateResult() {
-        return updateResult;
-    }
-
-    public void setUpdateResult(Results updateResult) {
-        this.updateResult = updateResult;
-    }
-
-    public Results getCreateResult() {
-        return createResult;
-    }
-
-    public void setCreateResult(Results createResult) {
-        this.createResult = createResult;
-    }
-
     public SubscriptionHolder (long timeout) {
         super ("subscription holder", timeout);
 
@@ -108,84 +61,143 @@ public class SubscriptionHolder extends ServletHolder {
         setCurrentState(readyState);
     }
 
-    public List<Subscription> getSubscriptions () throws TimeoutException {
-        setSubscriptionsList(null);
-
-        Miranda.getInstance().getSubscriptionManager().sendGetSubscriptionsMessage(getQueue(), this);
+    public CompletableFuture<List<Subscription>> getSubscriptionsAsync () {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getSubscriptionManager().sendGetSubscriptionsMessage(replyQueue, this);
 
-        sleep();
-
-        return getSubscriptionList();
+        return replyQueue.getFuture().thenApply(new Function<Message, List<Subscription>>() {
+            public List<Subscription> apply(Message message) {
+                GetSubscriptionsResponseMessage getSubscriptionsResponseMessage = (GetSubscriptionsResponseMessage) message;
+                return new ArrayList<Subscription>(getSubscriptionsResponseMessage.getSubscriptions());
+            }
+        });
     }
 
-    public Subscription getSubscription (String name) throws TimeoutException {
-        setGetResult(Results.Unknown);
-
-        Miranda.getInstance().getSubscriptionManager().sendGetSubscriptionMessage(getQueue(), this, name);
+    public List<Subscription> getSubscriptions () throws TimeoutException {
+        return await(getSubscriptionsAsync());
+    }
 
-        sleep();
+    public CompletableFuture<Subscription> getSubscriptionAsync (String name) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getSubscriptionManager().sendGetSubscriptionMessage(replyQueue, this, name);
 
-        return getSubscription();
+        return replyQueue.getFuture().thenApply(new Function<Message, Subscription>() {
+            public Subscription apply(Message message) {
+                GetSubscriptionResponseMessage getSubscriptionResponseMessage = (GetSubscriptionResponseMessage) message;
+                return getSubscriptionResponseMessage.getSubscription();
+            }
+        });
     }
 
-    public Results createSubscription (Subscription subscription) throws TimeoutException {
-        setCreateResult(Results.Unknown);
-
-        Miranda.getInstance().sendCreateSubscriptionMessage(getQueue(), this, getSession(), subscription);
+    public Subscription getSubscription (String name) throws TimeoutException {
+        return await(getSubscriptionAsync(name));
+    }
 
-        sleep();
+    public CompletableFuture<Results> createSubscriptionAsync (Session session, Subscription subscription) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendCreateSubscriptionMessage(replyQueue, this, session, subscription);
 
-        return getCreateResult();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                CreateSubscriptionResponseMessage createSubscriptionResponseMessage = (CreateSubscriptionResponseMessage) message;
+                return createSubscriptionResponseMessage.getResult();
+            }
+        });
     }
 
-    public Results updateSubscription (Subscription subscription) throws TimeoutException {
-        setUpdateResult(Results.Unknown);
-
-        Miranda.getInstance().sendUpdateSubscriptionMessage(getQueue(), this, getSession(), subscription);
+    public Results createSubscription (Session session, Subscription subscription) throws TimeoutException {
+        return await(createSubscriptionAsync(session, subscription));
+    }
 
-        sleep();
+    public CompletableFuture<Results> updateSubscriptionAsync (Session session, Subscription subscription) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendUpdateSubscriptionMessage(replyQueue, this, session, subscription);
 
-        return getUpdateResult();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                UpdateSubscriptionResponseMessage updateSubscriptionResponseMessage = (UpdateSubscriptionResponseMessage) message;
+                return updateSubscriptionResponseMessage.getResult();
+            }
+        });
     }
 
-    public Results deleteSubscription (String name) throws TimeoutException {
-        setDeleteResult(Results.Unknown);
+    public Results updateSubscription (Session session, Subscription subscription) throws TimeoutException {
+        return await(updateSubscriptionAsync(session, subscription));
+    }
 
-        Miranda.getInstance().sendDeleteSubscriptionMessage (getQueue(), this, getSession(), name);
+    public CompletableFuture<Results> deleteSubscriptionAsync (Session session, String name) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendDeleteSubscriptionMessage (replyQueue, this, session, name);
 
-        sleep();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                DeleteSubscriptionResponseMessage deleteSubscriptionResponseMessage = (DeleteSubscriptionResponseMessage) message;
+                return deleteSubscriptionResponseMessage.getResult();
+            }
+        });
+    }
 
-        return getDeleteResult();
+    public Results deleteSubscription (Session session, String name) throws TimeoutException {
+        return await(deleteSubscriptionAsync(session, name));
     }
 
-    public void setSubscriptionsAndAwaken (List<Subscription> subscriptions) {
-        setSubscriptionsList(subscriptions);
+    /**
+     * Create, update or delete several subscriptions at once.
+     *
+     * <P>
+     *     A new subscription has to be for a topic that exists, so for a
+     *     create we get the topics first and only send the subscriptions
+     *     that pass to the manager; the others get {@link Results#TopicNotFound}.
+     * </P>
+     */
+    public CompletableFuture<List<Results>> bulkSubscriptionsAsync (final Session session,
+                                                                   final BulkMessage.Operations operation,
+                                                                   final List<Subscription> subscriptions) {
+        if (operation != BulkMessage.Operations.Create)
+            return bulkAsync(Miranda.getInstance().getSubscriptionManager(), session, operation, subscriptions);
 
-        wake();
-    }
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getTopicManager().sendGetTopicsMessage(replyQueue, this);
 
-    public void setSubscriptionAndAwaken (Results result, Subscription subscription) {
-        setGetResult(result);
-        setSubscription(subscription);
+        return replyQueue.getFuture().thenCompose(new Function<Message, CompletableFuture<List<Results>>>() {
+            public CompletableFuture<List<Results>> apply(Message message) {
+                GetTopicsResponseMessage getTopicsResponseMessage = (GetTopicsResponseMessage) message;
+                final Set<String> topics = new HashSet<String>();
 
-        wake();
-    }
+                for (Topic topic : getTopicsResponseMessage.getTopics()) {
+                    topics.add(topic.getName());
+                }
 
-    public void setCreateResultAndAwaken (Results result) {
-        setCreateResult(result);
+                final List<Subscription> valid = new ArrayList<Subscription>();
 
-        wake();
-    }
+                for (Subscription subscription : subscriptions) {
+                    if (topics.contains(subscription.getTopic()))
+                        valid.add(subscription);
+                }
 
-    public void setUpdateResultAndAwaken (Results result) {
-        setUpdateResult(result);
+                CompletableFuture<List<Results>> future;
 
-        wake();
-    }
+                if (valid.isEmpty())
+                    future = CompletableFuture.completedFuture((List<Results>) new ArrayList<Results>());
+                else
+                    future = bulkAsync(Miranda.getInstance().getSubscriptionManager(), session, operation, valid);
 
-    public void setDeleteResultAndAwaken (Results result) {
-        setDeleteResult(result);
+                return future.thenApply(new Function<List<Results>, List<Results>>() {
+                    public List<Results> apply(List<Results> validResults) {
+                        List<Results> results = new ArrayList<Results>(subscriptions.size());
+                        int next = 0;
 
-        wake();
+                        for (Subscription subscription : subscriptions) {
+                            if (topics.contains(subscription.getTopic()))
+                                results.add(validResults.get(next++));
+                            else
+                                results.add(Results.TopicNotFound);
+                        }
+
+                        return results;
+                    }
+                });
+            }
+        });
     }
 }
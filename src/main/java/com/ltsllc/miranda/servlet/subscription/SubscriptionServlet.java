@@ -21,10 +21,9 @@ import com.ltsllc.miranda.servlet.objects.RequestObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.servlet.session.SessionServlet;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 
 import static com.ltsllc.miranda.user.User.UserTypes.Subscriber;
@@ -33,9 +32,8 @@ import static com.ltsllc.miranda.user.User.UserTypes.Subscriber;
  * Created by Clark on 4/28/2017.
  */
 abstract public class SubscriptionServlet extends SessionServlet {
-    abstract ResultObject basicPerformService (HttpServletRequest request, HttpServletResponse response,
-                                               SubscriptionRequestObject requestObject)
-        throws IOException, ServletException, TimeoutException;
+    abstract CompletableFuture<ResultObject> basicPerformService (HttpServletRequest request, HttpServletResponse response,
+                                                                  SubscriptionRequestObject requestObject);
 
     public ServletHolder getServletHolder () {
         return SubscriptionHolder.getInstance();
@@ -49,11 +47,16 @@ abstract public class SubscriptionServlet extends SessionServlet {
         return getSession().getUser().getCategory() == Subscriber;
     }
 
-    public ResultObject performService (HttpServletRequest request, HttpServletResponse response, RequestObject requestObject)
-        throws IOException, ServletException, TimeoutException
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject)
     {
         SubscriptionRequestObject subscriptionRequestObject = (SubscriptionRequestObject) requestObject;
-        ResultObject resultObject = basicPerformService(request, response, subscriptionRequestObject);
-        return resultObject;
+        return basicPerformService(request, response, subscriptionRequestObject);
+    }
+
+    public ResultObject performService (HttpServletRequest request, HttpServletResponse response, RequestObject requestObject)
+        throws TimeoutException
+    {
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.topic;
+
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.topics.Topic;
+
+import java.util.List;
+
+/**
+ * Create, update or delete several topics with one request.
+ */
+public class BulkTopicRequestObject extends RequestObject {
+    private BulkMessage.Operations operation;
+    private List<Topic> topics;
+
+    public BulkTopicRequestObject(String sessionIdString, BulkMessage.Operations operation, List<Topic> topics) {
+        super(sessionIdString);
+
+        this.operation = operation;
+        this.topics = topics;
+    }
+
+    public BulkMessage.Operations getOperation() {
+        return operation;
+    }
+
+    public List<Topic> getTopics() {
+        return topics;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.topic;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.servlet.objects.BulkResultObject;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import com.ltsllc.miranda.servlet.session.SessionServlet;
+import com.ltsllc.miranda.topics.Topic;
+import com.ltsllc.miranda.user.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Create, update or delete many topics with one request.  The topic manager
+ * applies them together, so the topics file is written and the cluster is
+ * told once for the whole request.
+ */
+public class BulkTopicServlet extends SessionServlet {
+    public Class getRequestClass () {
+        return BulkTopicRequestObject.class;
+    }
+
+    public ServletHolder getServletHolder () {
+        return TopicHolder.getInstance();
+    }
+
+    public ResultObject createResultObject () {
+        return new BulkResultObject();
+    }
+
+    public boolean allowAccess () {
+        return getSession().getUser().getCategory() == User.UserTypes.Publisher;
+    }
+
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject) {
+        BulkTopicRequestObject bulkTopicRequestObject = (BulkTopicRequestObject) requestObject;
+
+        if (null == bulkTopicRequestObject.getOperation() || null == bulkTopicRequestObject.getTopics()) {
+            ResultObject resultObject = createResultObject();
+            resultObject.setResult(Results.InvalidRequest);
+            return CompletableFuture.completedFuture(resultObject);
+        }
+
+        if (bulkTopicRequestObject.getOperation() == BulkMessage.Operations.Create) {
+            for (Topic topic : bulkTopicRequestObject.getTopics()) {
+                topic.setOwner(getSession().getUser().getName());
+            }
+        }
+
+        return toBulkResultObjectFuture(getServletHolder().bulkAsync(Miranda.getInstance().getTopicManager(),
+                getSession(), bulkTopicRequestObject.getOperation(), bulkTopicRequestObject.getTopics()));
+    }
+
+    public ResultObject performService (HttpServletRequest request, HttpServletResponse response,
+                                        RequestObject requestObject) throws TimeoutException {
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
+    }
+}
@@ -16,15 +16,12 @@
 
 package com.ltsllc.miranda.servlet.topic;
 
-import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.user.User;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
 
 
 public class CreateTopicServlet extends TopicServlet {
@@ -37,14 +34,9 @@ public class CreateTopicServlet extends TopicServlet {
         return new ResultObject();
     }
 
-    public ResultObject basicPerformService(HttpServletRequest req, HttpServletResponse resp,
-                                            TopicRequestObject requestObject)
-            throws ServletException, IOException, TimeoutException {
-        ResultObject resultObject = new ResultObject();
+    public CompletableFuture<ResultObject> basicPerformService(HttpServletRequest req, HttpServletResponse resp,
+                                                               TopicRequestObject requestObject) {
         requestObject.getTopic().setOwner(getSession().getUser().getName());
-        Results result = TopicHolder.getInstance().createTopic(requestObject.getTopic());
-        resultObject.setResult(result);
-
-        return resultObject;
+        return toResultObjectFuture(TopicHolder.getInstance().createTopicAsync(requestObject.getTopic()));
     }
 }
@@ -21,11 +21,10 @@ import com.ltsllc.miranda.servlet.ReadObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.topics.Topic;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/11/2017.
@@ -35,18 +34,23 @@ public class GetTopicServlet extends TopicServlet {
         return new TopicResultObject();
     }
 
-    public ResultObject basicPerformService(HttpServletRequest req, HttpServletResponse resp, TopicRequestObject requestObject)
-            throws ServletException, IOException, TimeoutException {
-        ReadObject<Topic> readObject = new ReadObject<Topic>();
+    public CompletableFuture<ResultObject> basicPerformService(HttpServletRequest req, HttpServletResponse resp,
+                                                               TopicRequestObject requestObject) {
+        CompletableFuture<Topic> future = TopicHolder.getInstance().getTopicAsync(requestObject.getTopic().getName());
 
-        Topic topic = TopicHolder.getInstance().getTopic(requestObject.getTopic().getName());
-        if (topic == null) {
-            readObject.setResult(Results.TopicNotFound);
-        } else {
-            readObject.setResult(Results.Success);
-            readObject.setObject(topic);
-        }
+        return future.thenApply(new Function<Topic, ResultObject>() {
+            public ResultObject apply(Topic topic) {
+                ReadObject<Topic> readObject = new ReadObject<Topic>();
 
-        return readObject;
+                if (topic == null) {
+                    readObject.setResult(Results.TopicNotFound);
+                } else {
+                    readObject.setResult(Results.Success);
+                    readObject.setObject(topic);
+                }
+
+                return readObject;
+            }
+        });
     }
 }
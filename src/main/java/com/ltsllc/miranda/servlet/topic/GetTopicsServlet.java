@@ -21,12 +21,11 @@ import com.ltsllc.miranda.servlet.ListObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.topics.Topic;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/9/2017.
@@ -40,13 +39,16 @@ public class GetTopicsServlet extends TopicServlet {
         return new ResultObject();
     }
 
-    public ListObject basicPerformService(HttpServletRequest req, HttpServletResponse resp, TopicRequestObject requestObject)
-            throws ServletException, IOException, TimeoutException {
-        ListObject result = new ListObject();
-        List<Topic> topics = TopicHolder.getInstance().getTopicList();
-        result.setResult(Results.Success);
-        result.setList(topics);
+    public CompletableFuture<ResultObject> basicPerformService(HttpServletRequest req, HttpServletResponse resp,
+                                                               TopicRequestObject requestObject) {
+        return TopicHolder.getInstance().getTopicListAsync().thenApply(new Function<List<Topic>, ResultObject>() {
+            public ResultObject apply(List<Topic> topics) {
+                ListObject result = new ListObject();
+                result.setResult(Results.Success);
+                result.setList(topics);
 
-        return result;
+                return result;
+            }
+        });
     }
 }
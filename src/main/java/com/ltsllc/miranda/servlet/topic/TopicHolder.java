@@ -16,73 +16,34 @@
 
 package com.ltsllc.miranda.servlet.topic;
 
+import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.servlet.ReplyQueue;
 import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.session.Session;
 import com.ltsllc.miranda.topics.Topic;
+import com.ltsllc.miranda.topics.messages.*;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/9/2017.
+ *
+ * <P>
+ *     Every request gets its own {@link ReplyQueue}, so requests from
+ *     different servlet threads can be outstanding at the same time.
+ * </P>
  */
 public class TopicHolder extends ServletHolder {
     private static TopicHolder ourInstance;
     private static Logger logger = Logger.getLogger(TopicHolder.class);
 
-    private List<Topic> topics;
-    private Topic topic;
-    private Results createResult;
-    private Results updateResult;
-    private Results deleteResult;
-
-    public Topic getTopic() {
-        return topic;
-    }
-
-    public void setTopic(Topic topic) {
-        this.topic = topic;
-    }
-
-    public List<Topic> getTopics() {
-        if (null == topics)
-            topics = new ArrayList<Topic>();
-
-        return topics;
-    }
-
-    public Results getDeleteResult() {
-        return deleteResult;
-    }
-
-    public void setDeleteResult(Results deleteResult) {
-        this.deleteResult = deleteResult;
-    }
-
-    public Results getUpdateResult() {
-
-        return updateResult;
-    }
-
-    public void setUpdateResult(Results updateResult) {
-        this.updateResult = updateResult;
-    }
-
-    public Results getCreateResult() {
-        return createResult;
-    }
-
-    public void setCreateResult(Results createResult) {
-        this.createResult = createResult;
-    }
-
-    public void setTopics(List<Topic> topics) {
-        this.topics = topics;
-    }
-
     public static TopicHolder getInstance() {
         return ourInstance;
     }
@@ -104,74 +65,83 @@ public class TopicHolder extends ServletHolder {
         setCurrentState(readyState);
     }
 
-    public List<Topic> getTopicList () throws TimeoutException {
-        setTopics(null);
-        Miranda.getInstance().getTopicManager().sendGetTopicsMessage(getQueue(), this);
-
-        sleep();
+    public CompletableFuture<List<Topic>> getTopicListAsync () {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getTopicManager().sendGetTopicsMessage(replyQueue, this);
 
-        return getTopics();
+        return replyQueue.getFuture().thenApply(new Function<Message, List<Topic>>() {
+            public List<Topic> apply(Message message) {
+                GetTopicsResponseMessage getTopicsResponseMessage = (GetTopicsResponseMessage) message;
+                return new ArrayList<Topic>(getTopicsResponseMessage.getTopics());
+            }
+        });
     }
 
-    public Results createTopic (Topic topic) throws TimeoutException {
-        setCreateResult(Results.Unknown);
-        Miranda.getInstance().getTopicManager().sendCreateTopicMessage(getQueue(), this, topic);
-
-        sleep();
-
-        return getCreateResult();
+    public List<Topic> getTopicList () throws TimeoutException {
+        return await(getTopicListAsync());
     }
 
-    public Topic getTopic(String name) throws TimeoutException {
-        setTopic(null);
-        Miranda.getInstance().getTopicManager().sendGetTopicMessage (getQueue(), this, name);
+    public CompletableFuture<Results> createTopicAsync (Topic topic) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getTopicManager().sendCreateTopicMessage(replyQueue, this, topic);
 
-        sleep();
-
-        return getTopic();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                CreateTopicResponseMessage createTopicResponseMessage = (CreateTopicResponseMessage) message;
+                return createTopicResponseMessage.getResult();
+            }
+        });
     }
 
-    public void setTopicAndAwaken (Topic topic) {
-        setTopic(topic);
-        wake();
+    public Results createTopic (Topic topic) throws TimeoutException {
+        return await(createTopicAsync(topic));
     }
 
-    public Results updateTopic (Topic topic) throws TimeoutException {
-        setUpdateResult(Results.Unknown);
-        Miranda.getInstance().sendUpdateTopicMessage(getQueue(), this, getSession(), topic);
+    public CompletableFuture<Topic> getTopicAsync (String name) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getTopicManager().sendGetTopicMessage (replyQueue, this, name);
 
-        sleep();
-
-        return getUpdateResult();
+        return replyQueue.getFuture().thenApply(new Function<Message, Topic>() {
+            public Topic apply(Message message) {
+                GetTopicResponseMessage getTopicResponseMessage = (GetTopicResponseMessage) message;
+                return getTopicResponseMessage.getTopic();
+            }
+        });
     }
 
-    public Results deleteTopic (String topicName) throws TimeoutException {
-        setDeleteResult(Results.Unknown);
-        Miranda.getInstance().sendDeleteTopicMessage(getQueue(), this, getSession(), topicName);
+    public Topic getTopic(String name) throws TimeoutException {
+        return await(getTopicAsync(name));
+    }
 
-        sleep();
+    public CompletableFuture<Results> updateTopicAsync (Session session, Topic topic) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendUpdateTopicMessage(replyQueue, this, session, topic);
 
-        return getDeleteResult();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                UpdateTopicResponseMessage updateTopicResponseMessage = (UpdateTopicResponseMessage) message;
+                return updateTopicResponseMessage.getResult();
+            }
+        });
     }
 
-    public void setUpdateResultAndAwaken (Results result) {
-        setUpdateResult(result);
-        wake();
+    public Results updateTopic (Session session, Topic topic) throws TimeoutException {
+        return await(updateTopicAsync(session, topic));
     }
 
-    public void setTopicsAndAwaken (List<Topic> topics) {
-        List<Topic> newList = new ArrayList<Topic>(topics);
-        setTopics(newList);
-        wake();
-    }
+    public CompletableFuture<Results> deleteTopicAsync (Session session, String topicName) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendDeleteTopicMessage(replyQueue, this, session, topicName);
 
-    public void setCreateResultAndAwaken (Results result) {
-        setCreateResult(result);
-        wake();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                DeleteTopicResponseMessage deleteTopicResponseMessage = (DeleteTopicResponseMessage) message;
+                return deleteTopicResponseMessage.getResult();
+            }
+        });
     }
 
-    public void setDeleteResultAndAwaken (Results result) {
-        setDeleteResult(result);
-        wake();
+    public Results deleteTopic (Session session, String topicName) throws TimeoutException {
+        return await(deleteTopicAsync(session, topicName));
     }
 }
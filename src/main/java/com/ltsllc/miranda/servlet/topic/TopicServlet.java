@@ -21,18 +21,17 @@ import com.ltsllc.miranda.servlet.objects.RequestObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.servlet.session.SessionServlet;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 
 /**
  * Created by Clark on 4/28/2017.
  */
 abstract public class TopicServlet extends SessionServlet {
-    abstract ResultObject basicPerformService (HttpServletRequest request, HttpServletResponse response,
-                                               TopicRequestObject requestObject) throws IOException, ServletException, TimeoutException;
+    abstract CompletableFuture<ResultObject> basicPerformService (HttpServletRequest request, HttpServletResponse response,
+                                                                  TopicRequestObject requestObject);
 
     public boolean allowAccess () {
         return true;
@@ -42,12 +41,16 @@ abstract public class TopicServlet extends SessionServlet {
         return TopicRequestObject.class;
     }
 
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject) {
+        TopicRequestObject topicRequestObject = (TopicRequestObject) requestObject;
+        return basicPerformService(request, response, topicRequestObject);
+    }
+
     public ResultObject performService (HttpServletRequest request, HttpServletResponse response, RequestObject requestObject)
-            throws IOException, ServletException, TimeoutException
+            throws TimeoutException
     {
-        TopicRequestObject topicRequestObject = (TopicRequestObject) requestObject;
-        ResultObject resultObject = basicPerformService(request, response, topicRequestObject);
-        return resultObject;
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
     }
 
     public ServletHolder getServletHolder () {
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.user;
+
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.user.User;
+
+import java.util.List;
+
+/**
+ * Create, update or delete several users with one request.
+ */
+public class BulkUserRequestObject extends RequestObject {
+    private BulkMessage.Operations operation;
+    private List<User> users;
+
+    public BulkUserRequestObject(String sessionIdString, BulkMessage.Operations operation, List<User> users) {
+        super(sessionIdString);
+
+        this.operation = operation;
+        this.users = users;
+    }
+
+    public BulkMessage.Operations getOperation() {
+        return operation;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ltsllc.miranda.servlet.user;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.servlet.objects.BulkResultObject;
+import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import com.ltsllc.miranda.servlet.session.SessionServlet;
+import com.ltsllc.miranda.user.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Create, update or delete many users with one request.  Only an admin can
+ * use it.
+ */
+public class BulkUserServlet extends SessionServlet {
+    public Class getRequestClass () {
+        return BulkUserRequestObject.class;
+    }
+
+    public ServletHolder getServletHolder () {
+        return UserHolder.getInstance();
+    }
+
+    public ResultObject createResultObject () {
+        return new BulkResultObject();
+    }
+
+    public boolean allowAccess () {
+        return false;
+    }
+
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject) {
+        BulkUserRequestObject bulkUserRequestObject = (BulkUserRequestObject) requestObject;
+
+        if (null == bulkUserRequestObject.getOperation() || null == bulkUserRequestObject.getUsers()) {
+            ResultObject resultObject = createResultObject();
+            resultObject.setResult(Results.InvalidRequest);
+            return CompletableFuture.completedFuture(resultObject);
+        }
+
+        List<User> users = bulkUserRequestObject.getUsers();
+
+        if (bulkUserRequestObject.getOperation() == BulkMessage.Operations.Create) {
+            users = new ArrayList<User>(bulkUserRequestObject.getUsers().size());
+
+            for (User user : bulkUserRequestObject.getUsers()) {
+                users.add(new User(user.getName(), user.getCategory(), user.getDescription(), user.getPublicKeyPem()));
+            }
+        }
+
+        return toBulkResultObjectFuture(UserHolder.getInstance().bulkUsersAsync(getSession(),
+                bulkUserRequestObject.getOperation(), users));
+    }
+
+    public ResultObject performService (HttpServletRequest request, HttpServletResponse response,
+                                        RequestObject requestObject) throws TimeoutException {
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
+    }
+}
@@ -16,14 +16,11 @@
 
 package com.ltsllc.miranda.servlet.user;
 
-import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by Clark on 4/11/2017.
@@ -33,13 +30,9 @@ public class DeleteUserServlet extends UserServlet {
         return new ResultObject();
     }
 
-    public ResultObject basicService(HttpServletRequest req, HttpServletResponse resp, UserRequestObject requestObject)
-            throws ServletException, IOException, TimeoutException {
-
-        ResultObject resultObject = new ResultObject();
-        Results result = UserHolder.getInstance().deleteUser(requestObject.getUser().getName());
-        resultObject.setResult(result);
-
-        return resultObject;
+    public CompletableFuture<ResultObject> basicService(HttpServletRequest req, HttpServletResponse resp,
+                                                        UserRequestObject requestObject) {
+        return toResultObjectFuture(UserHolder.getInstance().deleteUserAsync(getSession(),
+                requestObject.getUser().getName()));
     }
 }
@@ -19,12 +19,12 @@ package com.ltsllc.miranda.servlet.user;
 import com.ltsllc.miranda.servlet.ReadObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.user.User;
+import com.ltsllc.miranda.user.messages.GetUserResponseMessage;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/10/2017.
@@ -34,14 +34,20 @@ public class GetUserServlet extends UserServlet {
         return new ResultObject();
     }
 
-    public ReadObject basicService(HttpServletRequest request, HttpServletResponse response,
-                                   UserRequestObject requestObject) throws ServletException, IOException, TimeoutException
+    public CompletableFuture<ResultObject> basicService(HttpServletRequest request, HttpServletResponse response,
+                                                        UserRequestObject requestObject)
     {
-        UserHolder.getInstance().getUser(requestObject.getUser().getName());
-        ReadObject<User> readObject = new ReadObject<User>();
-        readObject.setResult(UserHolder.getInstance().getGetUserResults());
-        readObject.setObject(UserHolder.getInstance().getUser());
+        CompletableFuture<GetUserResponseMessage> future = UserHolder.getInstance().getUserAsync(
+                requestObject.getUser().getName());
 
-        return readObject;
+        return future.thenApply(new Function<GetUserResponseMessage, ResultObject>() {
+            public ResultObject apply(GetUserResponseMessage getUserResponseMessage) {
+                ReadObject<User> readObject = new ReadObject<User>();
+                readObject.setResult(getUserResponseMessage.getResult());
+                readObject.setObject(getUserResponseMessage.getUser());
+
+                return readObject;
+            }
+        });
     }
 }
@@ -21,12 +21,11 @@ import com.ltsllc.miranda.servlet.ListObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.user.User;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/11/2017.
@@ -36,14 +35,17 @@ public class GetUsersServlet extends UserServlet {
         return new UserListResultObject();
     }
 
-    public ListObject basicService(HttpServletRequest req, HttpServletResponse resp, UserRequestObject requestObject)
-            throws IOException, ServletException, TimeoutException {
-        List<User> users = UserHolder.getInstance().getUsers();
-        ListObject listObject = new ListObject();
+    public CompletableFuture<ResultObject> basicService(HttpServletRequest req, HttpServletResponse resp,
+                                                        UserRequestObject requestObject) {
+        return UserHolder.getInstance().getUsersAsync().thenApply(new Function<List<User>, ResultObject>() {
+            public ResultObject apply(List<User> users) {
+                ListObject listObject = new ListObject();
 
-        listObject.setResult(Results.Success);
-        listObject.setList(users);
+                listObject.setResult(Results.Success);
+                listObject.setList(users);
 
-        return listObject;
+                return listObject;
+            }
+        });
     }
 }
@@ -16,14 +16,28 @@
 
 package com.ltsllc.miranda.servlet.user;
 
+import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.manager.BulkMessage;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.servlet.ReplyQueue;
 import com.ltsllc.miranda.servlet.ServletHolder;
+import com.ltsllc.miranda.session.Session;
+import com.ltsllc.miranda.subsciptions.Subscription;
+import com.ltsllc.miranda.subsciptions.messages.GetSubscriptionsResponseMessage;
+import com.ltsllc.miranda.topics.Topic;
+import com.ltsllc.miranda.topics.messages.GetTopicsResponseMessage;
 import com.ltsllc.miranda.user.User;
+import com.ltsllc.miranda.user.messages.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Created by Clark on 4/10/2017.
@@ -31,61 +45,6 @@ import java.util.concurrent.TimeoutException;
 public class UserHolder extends ServletHolder {
     private static UserHolder ourInstance;
 
-    private Results userCreateResults;
-    private Results userUpdateResults;
-    private Results userDeleteResults;
-    private Results getUserResults;
-    private List<User> userList;
-    private User user;
-
-    public Results getGetUserResults() {
-        return getUserResults;
-    }
-
-    public void setGetUserResults(Results getUserResults) {
-        this.getUserResults = getUserResults;
-    }
-
-    public User getUser() {
-        return user;
-    }
-
-    public void setUser(User user) {
-        this.user = user;
-    }
-
-    public List<User> getUserList() {
-        return userList;
-    }
-
-    public void setUserList(List<User> userList) {
-        this.userList = userList;
-    }
-
-    public Results getUserCreateResults() {
-        return userCreateResults;
-    }
-
-    public void setUserCreateResults(Results userCreateResults) {
-        this.userCreateResults = userCreateResults;
-    }
-
-    public Results getUserDeleteResults() {
-        return userDeleteResults;
-    }
-
-    public void setUserDeleteResults(Results userDeleteResults) {
-        this.userDeleteResults = userDeleteResults;
-    }
-
-    public Results getUserUpdateResults() {
-        return userUpdateResults;
-    }
-
-    public void setUserUpdateResults(Results userUpdateResults) {
-        this.userUpdateResults = userUpdateResults;
-    }
-
     public static UserHolder getInstance () {
         return ourInstance;
     }
@@ -106,74 +65,164 @@ public class UserHolder extends ServletHolder {
         setCurrentState(readyState);
     }
 
-    public List<User> getUsers () throws TimeoutException {
-        Miranda.getInstance().getUserManager().sendGetUsers(getQueue(), this);
+    public CompletableFuture<List<User>> getUsersAsync () {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getUserManager().sendGetUsers(replyQueue, this);
 
-        sleep();
+        return replyQueue.getFuture().thenApply(new Function<Message, List<User>>() {
+            public List<User> apply(Message message) {
+                GetUsersResponseMessage getUsersResponseMessage = (GetUsersResponseMessage) message;
+                return new ArrayList<User>(getUsersResponseMessage.getUsers());
+            }
+        });
+    }
 
-        return getUserList();
+    public List<User> getUsers () throws TimeoutException {
+        return await(getUsersAsync());
     }
 
-    public void setUsersAndAwaken (List<User> users) {
-        List<User> userList = new ArrayList<User>(users);
-        setUserList(userList);
-        wake();
+    /**
+     * Ask for a user.  The reply carries both the result and the user, so the
+     * caller gets the whole message.
+     */
+    public CompletableFuture<GetUserResponseMessage> getUserAsync (String name) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().getUserManager().sendGetUserMessage(replyQueue, this, name);
+
+        return replyQueue.getFuture().thenApply(new Function<Message, GetUserResponseMessage>() {
+            public GetUserResponseMessage apply(Message message) {
+                return (GetUserResponseMessage) message;
+            }
+        });
     }
 
     public User getUser (String name) throws TimeoutException {
-        setUser(null);
-        Miranda.getInstance().getUserManager().sendGetUserMessage(getQueue(), this, name);
+        return await(getUserAsync(name)).getUser();
+    }
 
-        sleep();
+    public CompletableFuture<Results> createUserAsync (Session session, User user) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendCreateUserMessage(replyQueue, this, session, user);
 
-        return getUser();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                CreateUserResponseMessage createUserResponseMessage = (CreateUserResponseMessage) message;
+                return createUserResponseMessage.getResult();
+            }
+        });
     }
 
-    public Results createUser (User user) throws TimeoutException {
-        setUserCreateResults(Results.Unknown);
-        Miranda.getInstance().sendCreateUserMessage(getQueue(), this, getSession(), user);
+    public Results createUser (Session session, User user) throws TimeoutException {
+        return await(createUserAsync(session, user));
+    }
 
-        sleep();
+    public CompletableFuture<Results> updateUserAsync (Session session, User user) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendUpdateUserMessage (replyQueue, this, session, user);
 
-        return getUserCreateResults();
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                UpdateUserResponseMessage updateUserResponseMessage = (UpdateUserResponseMessage) message;
+                return updateUserResponseMessage.getResult();
+            }
+        });
     }
 
-    public void setUserCreatedAndAwaken (Results result) {
-        setUserCreateResults(result);
-        wake();
+    public Results updateUser (Session session, User user) throws TimeoutException {
+        return await(updateUserAsync(session, user));
     }
 
-    public void setUserAndAwaken (User user) {
-        setUser(user);
-        wake();
+    public CompletableFuture<Results> deleteUserAsync (Session session, String name) {
+        ReplyQueue replyQueue = createReplyQueue();
+        Miranda.getInstance().sendDeleteUserMessage (replyQueue, this, session, name);
+
+        return replyQueue.getFuture().thenApply(new Function<Message, Results>() {
+            public Results apply(Message message) {
+                DeleteUserResponseMessage deleteUserResponseMessage = (DeleteUserResponseMessage) message;
+                return deleteUserResponseMessage.getResult();
+            }
+        });
     }
 
-    public Results updateUser (User user) throws TimeoutException {
-        setUserUpdateResults(Results.Unknown);
-        Miranda.getInstance().sendUpdateUserMessage (getQueue(), this, getSession(), user);
+    public Results deleteUser (Session session, String name) throws TimeoutException {
+        return await(deleteUserAsync(session, name));
+    }
 
-        sleep();
+    /**
+     * Create, update or delete several users at once.
+     *
+     * <P>
+     *     A user that still owns a topic or a subscription cannot be deleted,
+     *     so for a delete we get the topics and subscriptions first and only
+     *     send the users that own nothing to the manager; the others get
+     *     {@link Results#UserOwnsProperty}.
+     * </P>
+     */
+    public CompletableFuture<List<Results>> bulkUsersAsync (final Session session,
+                                                           final BulkMessage.Operations operation,
+                                                           final List<User> users) {
+        if (operation != BulkMessage.Operations.Delete)
+            return bulkAsync(Miranda.getInstance().getUserManager(), session, operation, users);
 
-        return getUserUpdateResults();
-    }
+        ReplyQueue topicsReplyQueue = createReplyQueue();
+        Miranda.getInstance().getTopicManager().sendGetTopicsMessage(topicsReplyQueue, this);
 
-    public void setUserUpdatedAndAwaken (Results result) {
-        setUserUpdateResults(result);
-        wake();
-    }
+        ReplyQueue subscriptionsReplyQueue = createReplyQueue();
+        Miranda.getInstance().getSubscriptionManager().sendGetSubscriptionsMessage(subscriptionsReplyQueue, this);
 
-    public Results deleteUser (String name) throws TimeoutException {
-        setUserDeleteResults(Results.Unknown);
-        Miranda.getInstance().sendDeleteUserMessage (getQueue(), this, getSession(), name);
+        CompletableFuture<Set<String>> ownersFuture = topicsReplyQueue.getFuture().thenCombine(
+                subscriptionsReplyQueue.getFuture(), new BiFunction<Message, Message, Set<String>>() {
+            public Set<String> apply(Message topicsMessage, Message subscriptionsMessage) {
+                GetTopicsResponseMessage getTopicsResponseMessage = (GetTopicsResponseMessage) topicsMessage;
+                GetSubscriptionsResponseMessage getSubscriptionsResponseMessage =
+                        (GetSubscriptionsResponseMessage) subscriptionsMessage;
 
-        sleep();
+                Set<String> owners = new HashSet<String>();
 
-        return getUserDeleteResults();
-    }
+                for (Topic topic : getTopicsResponseMessage.getTopics()) {
+                    owners.add(topic.getOwner());
+                }
 
-    public void setUserDeletedAndAwaken (Results result) {
-        setUserDeleteResults(result);
-        wake();
-    }
+                for (Subscription subscription : getSubscriptionsResponseMessage.getSubscriptions()) {
+                    owners.add(subscription.getOwner());
+                }
+
+                return owners;
+            }
+        });
 
+        return ownersFuture.thenCompose(new Function<Set<String>, CompletableFuture<List<Results>>>() {
+            public CompletableFuture<List<Results>> apply(final Set<String> owners) {
+                List<User> valid = new ArrayList<User>();
+
+                for (User user : users) {
+                    if (!owners.contains(user.getName()))
+                        valid.add(user);
+                }
+
+                CompletableFuture<List<Results>> future;
+
+                if (valid.isEmpty())
+                    future = CompletableFuture.completedFuture((List<Results>) new ArrayList<Results>());
+                else
+                    future = bulkAsync(Miranda.getInstance().getUserManager(), session, operation, valid);
+
+                return future.thenApply(new Function<List<Results>, List<Results>>() {
+                    public List<Results> apply(List<Results> validResults) {
+                        List<Results> results = new ArrayList<Results>(users.size());
+                        int next = 0;
+
+                        for (User user : users) {
+                            if (owners.contains(user.getName()))
+                                results.add(Results.UserOwnsProperty);
+                            else
+                                results.add(validResults.get(next++));
+                        }
+
+                        return results;
+                    }
+                });
+            }
+        });
+    }
 }
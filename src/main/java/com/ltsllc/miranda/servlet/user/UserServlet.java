@@ -23,18 +23,17 @@ import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.servlet.session.SessionServlet;
 import com.ltsllc.miranda.user.User;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 
 /**
  * Created by Clark on 4/27/2017.
  */
 abstract public class UserServlet extends SessionServlet {
-    abstract public ResultObject basicService (HttpServletRequest request, HttpServletResponse response,
-                                               UserRequestObject requestObject) throws ServletException, IOException, TimeoutException;
+    abstract public CompletableFuture<ResultObject> basicService (HttpServletRequest request, HttpServletResponse response,
+                                                                  UserRequestObject requestObject);
 
     public ServletHolder getServletHolder() {
         return UserHolder.getInstance();
@@ -48,18 +47,24 @@ abstract public class UserServlet extends SessionServlet {
         return false;
     }
 
-    public ResultObject performService(HttpServletRequest request, HttpServletResponse response,
-                                                RequestObject requestObject) throws ServletException, IOException, TimeoutException
+    public CompletableFuture<ResultObject> performServiceAsync (HttpServletRequest request, HttpServletResponse response,
+                                                                RequestObject requestObject)
     {
         UserRequestObject userRequestObject = (UserRequestObject) requestObject;
 
         if (getSession().getUser().getCategory() != User.UserTypes.Admin) {
             ResultObject resultObject = createResultObject();
             resultObject.setResult(Results.InsufficientPermissions);
-            return resultObject;
+            return CompletableFuture.completedFuture(resultObject);
         } else {
             return basicService(request, response, userRequestObject);
         }
     }
 
+    public ResultObject performService(HttpServletRequest request, HttpServletResponse response,
+                                                RequestObject requestObject) throws TimeoutException
+    {
+        return getServletHolder().await(performServiceAsync(request, response, requestObject));
+    }
+
 }
@@ -23,7 +23,7 @@ import com.ltsllc.miranda.user.User;
  */
 public class Session {
     private User user;
-    private long expires;
+    private volatile long expires;
     private long id;
 
     public User getUser() {
@@ -30,29 +30,37 @@ import com.ltsllc.miranda.util.ImprovedRandom;
 import org.apache.log4j.Logger;
 
 import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 /**
  * This class is in charge of all the sessions for the System.
+ *
+ * <P>
+ *     The sessions themselves live in a {@link SessionStore}, which can be
+ *     read from any thread.  Servlets check sessions by calling
+ *     {@link #checkSession(long)} directly rather than sending a message
+ *     and waiting for the reply.
+ * </P>
  */
 public class SessionManager extends Consumer {
     private static Logger logger = Logger.getLogger(SessionManager.class);
 
     private ImprovedRandom random;
-    private Map<Long, Session> sessions;
-    private Map<String, Session> userToSession;
+    private SessionStore store;
     private long sessionLength;
 
     public ImprovedRandom getRandom() {
         return random;
     }
 
+    public SessionStore getStore() {
+        return store;
+    }
+
     public Map<Long, Session> getSessions() {
-        return sessions;
+        return store.getSessions();
     }
 
     public long getSessionLength() {
@@ -64,14 +72,13 @@ public class SessionManager extends Consumer {
     }
 
     public Map<String, Session> getUserToSession() {
-        return userToSession;
+        return store.getUserToSession();
     }
 
     public SessionManager() throws MirandaException {
         super("session manager");
 
-        sessions = new HashMap<Long, Session>();
-        userToSession = new HashMap<String, Session>();
+        store = new SessionStore();
 
         SecureRandom secureRandom = new SecureRandom();
         random = new ImprovedRandom(secureRandom);
@@ -83,36 +90,30 @@ public class SessionManager extends Consumer {
     }
 
     public Session createSession (User user) {
-        Long session = null;
-
-        while (null == session || getSessions().containsKey(session)) {
-            session = getRandom().nextNonNegativeLong();
-        }
-
         long now = System.currentTimeMillis();
+        Session newSession = null;
 
-        Session newSession = new Session (user, now + getSessionLength(), session.longValue());
+        do {
+            newSession = new Session (user, now + getSessionLength(), getRandom().nextNonNegativeLong());
+        } while (!getStore().add(newSession));
 
         logger.info("Created session " + newSession.getId() + " for " + user.getName());
 
-        getSessions().put(newSession.getId(), newSession);
-        getUserToSession().put(user.getName(), newSession);
-
         return newSession;
     }
 
     public boolean isSessionValid (long id) {
-        Session session = getSessions().get(id);
+        Session session = getStore().get(id);
 
         if (null == session)
             return false;
 
         long now = System.currentTimeMillis();
-        return session.getExpires() < now;
+        return session.getExpires() > now;
     }
 
     public void updateSession (long id) throws UnknownSession {
-        Session session = sessions.get (id);
+        Session session = getStore().get (id);
         if (null == session)
             throw new UnknownSession(id);
 
@@ -123,23 +124,9 @@ public class SessionManager extends Consumer {
     public void performGarbageCollection () {
         long now = System.currentTimeMillis();
 
-        List<Session> expired = new ArrayList<Session>();
-
-        for (Long key : getSessions().keySet())
-        {
-            Session session = getSessions().get(key);
-            if (now >= session.getExpires())
-            {
-                expired.add (session);
-            }
-        }
+        List<Session> expired = getStore().expire(now);
 
         if (expired.size() > 0) {
-            for (Session session : expired) {
-                getSessions().put (session.getId(), null);
-                getUserToSession().put (session.getUser().getName(), null);
-            }
-
             Miranda miranda = Miranda.getInstance();
             Cluster cluster = miranda.getCluster();
             cluster.sendSessionsExpiredMessage(getQueue(), this, expired);
@@ -148,12 +135,12 @@ public class SessionManager extends Consumer {
 
     public void addSession (Session session) {
         try {
-            Session oldSession = getSessions().get(session.getId());
+            Session oldSession = getStore().get(session.getId());
 
             if (null != oldSession) {
                 updateSession(oldSession.getId());
             } else {
-                getSessions().put(session.getId(), session);
+                getStore().add(session);
             }
         } catch (MirandaException e) {
             logger.error("Exception trying to add session", e);
@@ -173,7 +160,10 @@ public class SessionManager extends Consumer {
     public void expireSessions (List<Session> expiredSessions) {
         for (Session session : expiredSessions) {
             logger.info ("Expiring session " + session.getId());
-            getSessions().put(session.getId(), null);
+
+            Session existing = getStore().get(session.getId());
+            if (null != existing)
+                getStore().remove(existing);
         }
     }
 
@@ -188,7 +178,7 @@ public class SessionManager extends Consumer {
     }
 
     public Session getSessionFor (String name) {
-        return getUserToSession().get(name);
+        return getStore().getSessionFor(name);
     }
 
     public void sendCheckSessionMessage (BlockingQueue<Message> senderQueue, Object sender, long sessionId) {
@@ -196,14 +186,25 @@ public class SessionManager extends Consumer {
         sendToMe(checkSessionMessage);
     }
 
+    /**
+     * Check a session and, if it is still good, push back when it expires.
+     *
+     * <P>
+     *     This method is safe to call from any thread.
+     * </P>
+     *
+     * @return The session or null if there is no such session or it has expired.
+     */
     public Session checkSession (long sessionId) {
-        Session session = getSessions().get(sessionId);
+        Session session = getStore().get(sessionId);
 
         if (session != null) {
-            long sessionLength = Miranda.properties.getLongProperty(MirandaProperties.PROPERTY_SESSION_LENGTH,
-                    MirandaProperties.DEFAULT_SESSION_LENGTH);
+            long now = System.currentTimeMillis();
+
+            if (session.getExpires() <= now)
+                return null;
 
-            session.extendExpires(sessionLength);
+            session.setExpires(now + getSessionLength());
         }
 
         return session;
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The sessions for the system, in a form that servlets can read directly.
+ *
+ * <P>
+ *     Sessions are found by id or by the name of their user.  They are also
+ *     kept in an index of buckets ordered by when they expire, each bucket
+ *     covering {@link #BUCKET_SIZE} milliseconds, so that finding the expired
+ *     sessions only looks at the buckets whose time has come.
+ * </P>
+ *
+ * <P>
+ *     Extending a session does not move it in the index.  When its old bucket
+ *     comes due the session is seen to have more time and is put in the
+ *     bucket for its new expiration time.  This keeps checking a session,
+ *     which happens on every request, down to a map lookup.
+ * </P>
+ */
+public class SessionStore {
+    public static final long BUCKET_SIZE = 1000;
+
+    private Map<Long, Session> sessions = new ConcurrentHashMap<Long, Session>();
+    private Map<String, Session> userToSession = new ConcurrentHashMap<String, Session>();
+    private ConcurrentSkipListMap<Long, Queue<Session>> expirations = new ConcurrentSkipListMap<Long, Queue<Session>>();
+
+    public Map<Long, Session> getSessions() {
+        return sessions;
+    }
+
+    public Map<String, Session> getUserToSession() {
+        return userToSession;
+    }
+
+    public int size () {
+        return sessions.size();
+    }
+
+    public Session get (long id) {
+        return sessions.get(id);
+    }
+
+    public Session getSessionFor (String name) {
+        return userToSession.get(name);
+    }
+
+    /**
+     * Add a session.
+     *
+     * @return true if the session was added; false if there was already a session with that id.
+     */
+    public boolean add (Session session) {
+        if (null != sessions.putIfAbsent(session.getId(), session))
+            return false;
+
+        if (null != session.getUser())
+            userToSession.put(session.getUser().getName(), session);
+
+        index(session);
+
+        return true;
+    }
+
+    public void remove (Session session) {
+        sessions.remove(session.getId(), session);
+
+        if (null != session.getUser())
+            userToSession.remove(session.getUser().getName(), session);
+    }
+
+    public static long toBucket (long time) {
+        return time - (time % BUCKET_SIZE) + BUCKET_SIZE;
+    }
+
+    public void index (Session session) {
+        Long bucket = toBucket(session.getExpires());
+        Queue<Session> queue = expirations.get(bucket);
+
+        if (null == queue) {
+            Queue<Session> newQueue = new ConcurrentLinkedQueue<Session>();
+            queue = expirations.putIfAbsent(bucket, newQueue);
+
+            if (null == queue)
+                queue = newQueue;
+        }
+
+        queue.add(session);
+    }
+
+    /**
+     * Remove the sessions that have expired.
+     *
+     * <P>
+     *     This should only be called by one thread at a time.
+     * </P>
+     *
+     * @param now The current time.
+     * @return The sessions that were removed.
+     */
+    public List<Session> expire (long now) {
+        List<Session> expired = new ArrayList<Session>();
+        ConcurrentNavigableMap<Long, Queue<Session>> due = expirations.headMap(now, true);
+
+        while (!due.isEmpty()) {
+            Map.Entry<Long, Queue<Session>> entry = due.pollFirstEntry();
+
+            if (null == entry)
+                break;
+
+            for (Session session : entry.getValue()) {
+                if (sessions.get(session.getId()) != session)
+                    continue;
+
+                if (session.getExpires() > now) {
+                    index(session);
+                } else {
+                    remove(session);
+                    expired.add(session);
+                }
+            }
+        }
+
+        return expired;
+    }
+}
@@ -140,6 +140,10 @@ public class Subscription extends StatusObject<Subscription> implements Perishab
         setErrorPolicy(other.getErrorPolicy());
     }
 
+    public String getKey () {
+        return getName();
+    }
+
     public boolean matches (Subscription other) {
         if (!super.matches(other))
             return false;
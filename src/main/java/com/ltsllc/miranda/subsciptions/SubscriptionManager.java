@@ -19,11 +19,13 @@ package com.ltsllc.miranda.subsciptions;
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.State;
+import com.ltsllc.miranda.cluster.networkMessages.BulkWireMessage;
 import com.ltsllc.miranda.file.SingleFile;
 import com.ltsllc.miranda.manager.StandardManager;
 import com.ltsllc.miranda.miranda.Miranda;
 import com.ltsllc.miranda.session.Session;
 import com.ltsllc.miranda.subsciptions.messages.*;
+import com.ltsllc.miranda.user.User;
 
 import java.io.IOException;
 import java.util.List;
@@ -116,12 +118,7 @@ public class SubscriptionManager extends StandardManager<Subscription> {
     }
 
     public Subscription findSubscription(String name) {
-        for (Subscription subscription : getSubscriptions()) {
-            if (name.equals(subscription.getName()))
-                return subscription;
-        }
-
-        return null;
+        return findByKey(name);
     }
 
     public Results updateSubscription (Subscription subscription) {
@@ -156,4 +153,20 @@ public class SubscriptionManager extends StandardManager<Subscription> {
     public Subscription convert (Subscription subscription) {
         return subscription;
     }
+
+    public BulkWireMessage.Kinds getKind () {
+        return BulkWireMessage.Kinds.Subscriptions;
+    }
+
+    public Results getNotFoundResult () {
+        return Results.SubscriptionNotFound;
+    }
+
+    public boolean allowChange (Session session, Subscription subscription) {
+        if (null == session)
+            return true;
+
+        User user = session.getUser();
+        return user.getCategory() == User.UserTypes.Admin || user.getName().equals(subscription.getOwner());
+    }
 }
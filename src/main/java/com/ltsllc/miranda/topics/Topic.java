@@ -86,6 +86,10 @@ public class Topic extends StatusObject<Topic> implements Perishable {
         setRemotePolicy(other.getRemotePolicy());
     }
 
+    public String getKey () {
+        return getName();
+    }
+
     public boolean matches (Topic other) {
         if (!super.matches(other))
             return false;
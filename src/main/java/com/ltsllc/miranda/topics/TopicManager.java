@@ -17,13 +17,17 @@
 package com.ltsllc.miranda.topics;
 
 import com.ltsllc.miranda.Message;
+import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.State;
+import com.ltsllc.miranda.cluster.networkMessages.BulkWireMessage;
 import com.ltsllc.miranda.file.SingleFile;
 import com.ltsllc.miranda.manager.StandardManager;
 import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.session.Session;
 import com.ltsllc.miranda.subsciptions.messages.OwnerQueryMessage;
 import com.ltsllc.miranda.topics.messages.*;
 import com.ltsllc.miranda.topics.states.TopicManagerStartState;
+import com.ltsllc.miranda.user.User;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
@@ -85,12 +89,7 @@ public class TopicManager extends StandardManager <Topic> {
     }
 
     public Topic getTopic (String name) {
-        for (Topic topic : getTopics()) {
-            if (topic.getName().equals(name))
-                return topic;
-        }
-
-        return null;
+        return findByKey(name);
     }
 
     public boolean contains (String name) {
@@ -188,4 +187,23 @@ public class TopicManager extends StandardManager <Topic> {
     public Topic convert (Topic topic) {
         return topic;
     }
+
+    public BulkWireMessage.Kinds getKind () {
+        return BulkWireMessage.Kinds.Topics;
+    }
+
+    public Results getNotFoundResult () {
+        return Results.TopicNotFound;
+    }
+
+    /**
+     * Only the owner of a topic or an admin can change it.
+     */
+    public boolean allowChange (Session session, Topic topic) {
+        if (null == session)
+            return true;
+
+        User user = session.getUser();
+        return user.getCategory() == User.UserTypes.Admin || user.getName().equals(topic.getOwner());
+    }
 }
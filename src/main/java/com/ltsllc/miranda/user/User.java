@@ -215,6 +215,10 @@ public class User extends StatusObject<User> implements Perishable, Serializable
         setDescription(other.getDescription());
     }
 
+    public String getKey () {
+        return getName();
+    }
+
     public boolean matches (User other) {
         if (!super.matches(other))
             return false;
@@ -18,7 +18,9 @@ package com.ltsllc.miranda.user;
 
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.MirandaException;
+import com.ltsllc.miranda.Results;
 import com.ltsllc.miranda.State;
+import com.ltsllc.miranda.cluster.networkMessages.BulkWireMessage;
 import com.ltsllc.miranda.file.SingleFile;
 import com.ltsllc.miranda.manager.StandardManager;
 import com.ltsllc.miranda.miranda.Miranda;
@@ -84,11 +86,8 @@ public class UserManager extends StandardManager<User> {
     }
 
     public boolean contains (User user) {
-        for (User aUser : getUsers())
-            if (aUser.equals(user))
-                return true;
-
-        return false;
+        User existing = findByKey(user.getKey());
+        return null != existing && existing.equals(user);
     }
 
     public void addUser (User user) throws DuplicateUserException {
@@ -106,12 +105,7 @@ public class UserManager extends StandardManager<User> {
     }
 
     public User getUser (String name) {
-        for (User user : getUsers()) {
-            if (user.getName().equals(name))
-                return user;
-        }
-
-        return null;
+        return findByKey(name);
     }
 
     public void deleteUser (String name) {
@@ -188,4 +182,12 @@ public class UserManager extends StandardManager<User> {
     public User convert (User user) {
         return user;
     }
-}
\ No newline at end of file
+
+    public BulkWireMessage.Kinds getKind () {
+        return BulkWireMessage.Kinds.Users;
+    }
+
+    public Results getNotFoundResult () {
+        return Results.UserNotFound;
+    }
+}
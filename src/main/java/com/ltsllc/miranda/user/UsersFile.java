@@ -21,6 +21,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.MirandaException;
+import com.ltsllc.miranda.file.Journal;
 import com.ltsllc.miranda.file.SingleFile;
 import com.ltsllc.miranda.reader.Reader;
 import com.ltsllc.miranda.servlet.user.UserObject;
@@ -71,14 +72,14 @@ public class UsersFile extends SingleFile<User> {
 
     public void addUser (User user) {
         getData().add(user);
-        write();
+        journal(Journal.Operations.Add, user);
     }
 
     public void add (User user, boolean write) {
         getData().add(user);
 
         if (write) {
-            write();
+            journal(Journal.Operations.Add, user);
         }
     }
 
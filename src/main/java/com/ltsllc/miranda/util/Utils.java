@@ -38,6 +38,7 @@ import javax.net.ssl.TrustManagerFactory;
 import java.io.*;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.*;
 import java.security.cert.X509Certificate;
 
@@ -161,6 +162,16 @@ public class Utils {
         }
     }
 
+    public static void closeIgnoreExceptions(FileChannel fileChannel) {
+        if (null != fileChannel) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+
+            }
+        }
+    }
+
     public static void closeIgnoreExceptions(Reader r) {
         if (null != r)
             try {
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.writer;
+
+import com.ltsllc.miranda.Message;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Add a record to the end of a file, instead of replacing the file.
+ */
+public class AppendMessage extends Message {
+    private String filename;
+    private byte[] record;
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public byte[] getRecord() {
+        return record;
+    }
+
+    public AppendMessage (String filename, byte[] record, BlockingQueue<Message> senderQueue, Object sender) {
+        super(Subjects.Append, senderQueue, sender);
+
+        this.filename = filename;
+        this.record = record;
+    }
+}
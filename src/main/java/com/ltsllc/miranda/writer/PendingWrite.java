@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Long Term Software LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ltsllc.miranda.writer;
+
+import com.ltsllc.miranda.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The writes to a file that the {@link Writer} has been asked to perform but
+ * has not yet flushed.
+ *
+ * <P>
+ *     Only the most recent complete copy of a file matters, so a new copy
+ *     replaces the old one along with any journal records that came before it.
+ *     Journal records that come after the copy are kept, in order.  Everyone
+ *     who asked for a write is remembered so that they can be told how it
+ *     went once the data is on disk.
+ * </P>
+ */
+public class PendingWrite {
+    private String filename;
+    private byte[] data;
+    private List<byte[]> records = new ArrayList<byte[]>();
+    private List<Message> requests = new ArrayList<Message>();
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public List<byte[]> getRecords() {
+        return records;
+    }
+
+    public List<Message> getRequests() {
+        return requests;
+    }
+
+    public PendingWrite (String filename) {
+        this.filename = filename;
+    }
+
+    public void write (WriteMessage writeMessage) {
+        data = writeMessage.getBuffer();
+        records.clear();
+        requests.add(writeMessage);
+    }
+
+    public void append (AppendMessage appendMessage) {
+        records.add(appendMessage.getRecord());
+        requests.add(appendMessage);
+    }
+}
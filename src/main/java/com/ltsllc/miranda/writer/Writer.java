@@ -21,35 +21,82 @@ import com.ltsllc.miranda.Consumer;
 import com.ltsllc.miranda.EncryptedMessage;
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.PublicKey;
+import com.ltsllc.miranda.file.Journal;
+import com.ltsllc.miranda.miranda.Miranda;
+import com.ltsllc.miranda.property.MirandaProperties;
 import com.ltsllc.miranda.util.Utils;
+import org.apache.log4j.Logger;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by Clark on 12/31/2016.
+ *
+ * <P>
+ *     The writer does not write a file as soon as it is asked to.  Requests
+ *     are held for up to {@link MirandaProperties#PROPERTY_WRITER_MAX_DELAY}
+ *     milliseconds so that several writes to the same file turn into one;
+ *     everyone who asked is answered once the data is on disk.
+ * </P>
  */
 public class Writer extends Consumer {
+    private static Logger logger = Logger.getLogger(Writer.class);
     private static Gson gson = new Gson();
 
     private PublicKey publicKey;
+    private Map<String, PendingWrite> pendingWrites = new LinkedHashMap<String, PendingWrite>();
+    private long maxDelay;
+    private boolean flushScheduled;
+    private AtomicLong writesRequested = new AtomicLong();
+    private AtomicLong physicalWrites = new AtomicLong();
 
     public PublicKey getPublicKey() {
         return publicKey;
     }
 
+    public Map<String, PendingWrite> getPendingWrites() {
+        return pendingWrites;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public long getWritesRequested() {
+        return writesRequested.get();
+    }
+
+    public long getPhysicalWrites() {
+        return physicalWrites.get();
+    }
 
     public Writer (PublicKey publicKey) {
         super("writer");
-        BlockingQueue<Message> queue = new LinkedBlockingQueue<Message>();
-        setQueue(queue);
 
         WriterReadyState writerReadyState = new WriterReadyState(this);
         setCurrentState(writerReadyState);
 
         this.publicKey = publicKey;
+
+        MirandaProperties properties = Miranda.properties;
+        if (null != properties)
+            this.maxDelay = properties.getLongProperty(MirandaProperties.PROPERTY_WRITER_MAX_DELAY,
+                    MirandaProperties.DEFAULT_WRITER_MAX_DELAY);
     }
 
     public void write (String filename, byte[] data) throws IOException, GeneralSecurityException {
@@ -58,19 +105,150 @@ public class Writer extends Consumer {
         if (file.exists())
             backup(file);
 
-        EncryptedMessage encryptedMessage = encrypt(data);
+        FileChannel fileChannel = null;
+
+        try {
+            fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+
+            getPublicKey().encrypt(data, fileChannel);
+            fileChannel.force(true);
+        } finally {
+            Utils.closeIgnoreExceptions(fileChannel);
+        }
+
+        physicalWrites.incrementAndGet();
+
+        removeJournal(filename);
+    }
+
+    /**
+     * Add a record to the journal for a file.
+     *
+     * <P>
+     *     Each record is encrypted on its own and written as a single line so
+     *     that the {@link com.ltsllc.miranda.reader.Reader} can read them back
+     *     one at a time.
+     * </P>
+     */
+    public void append (String filename, byte[] record) throws IOException, GeneralSecurityException {
+        List<byte[]> records = new ArrayList<byte[]>();
+        records.add(record);
+        append(filename, records);
+    }
 
-        FileWriter fileWriter = null;
+    public void append (String filename, List<byte[]> records) throws IOException, GeneralSecurityException {
+        FileOutputStream fileOutputStream = null;
 
         try {
-            fileWriter = new FileWriter(filename);
-            String json = gson.toJson(encryptedMessage);
-            fileWriter.write(json);
+            fileOutputStream = new FileOutputStream(Journal.getFilename(filename), true);
+
+            for (byte[] record : records) {
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                getPublicKey().encrypt(record, Channels.newChannel(byteArrayOutputStream));
+                String line = Utils.bytesToString(byteArrayOutputStream.toByteArray()) + "\n";
+                fileOutputStream.write(line.getBytes(StandardCharsets.UTF_8));
+            }
+
+            fileOutputStream.getFD().sync();
         } finally {
-            Utils.closeIgnoreExceptions(fileWriter);
+            Utils.closeIgnoreExceptions(fileOutputStream);
+        }
+
+        physicalWrites.incrementAndGet();
+    }
+
+    public void addPendingWrite (WriteMessage writeMessage) {
+        writesRequested.incrementAndGet();
+        getPendingWrite(writeMessage.getFilename()).write(writeMessage);
+        flushLater();
+    }
+
+    public void addPendingAppend (AppendMessage appendMessage) {
+        writesRequested.incrementAndGet();
+        getPendingWrite(appendMessage.getFilename()).append(appendMessage);
+        flushLater();
+    }
+
+    public PendingWrite getPendingWrite (String filename) {
+        PendingWrite pendingWrite = pendingWrites.get(filename);
+
+        if (null == pendingWrite) {
+            pendingWrite = new PendingWrite(filename);
+            pendingWrites.put(filename, pendingWrite);
+        }
+
+        return pendingWrite;
+    }
+
+    /**
+     * Arrange for the pending writes to be flushed once the maximum delay
+     * has passed.  If there is no delay, or no timer to tell us when it has
+     * passed, flush them now.
+     */
+    public void flushLater () {
+        if (getMaxDelay() < 1 || null == Miranda.timer) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            FlushMessage flushMessage = new FlushMessage(getQueue(), this);
+            Miranda.timer.sendScheduleOnce(getMaxDelay(), getQueue(), flushMessage);
+        }
+    }
+
+    /**
+     * Write out everything we have been holding on to and tell everyone who
+     * asked how it went.
+     */
+    public void flush () {
+        flushScheduled = false;
+
+        List<PendingWrite> list = new ArrayList<PendingWrite>(pendingWrites.values());
+        pendingWrites.clear();
+
+        for (PendingWrite pendingWrite : list) {
+            Exception exception = null;
+
+            try {
+                if (null != pendingWrite.getData())
+                    write(pendingWrite.getFilename(), pendingWrite.getData());
+
+                if (pendingWrite.getRecords().size() > 0)
+                    append(pendingWrite.getFilename(), pendingWrite.getRecords());
+            } catch (IOException | GeneralSecurityException e) {
+                logger.error("Exception writing " + pendingWrite.getFilename(), e);
+                exception = e;
+            }
+
+            for (Message request : pendingWrite.getRequests()) {
+                if (null != request.getSender())
+                    request.reply(createReply(pendingWrite.getFilename(), exception));
+            }
         }
     }
 
+    /**
+     * Every request gets a reply of its own, since replying marks the reply
+     * with the request it answers.
+     */
+    public Message createReply (String filename, Exception exception) {
+        if (null == exception)
+            return new WriteSucceededMessage(getQueue(), filename, this);
+        else
+            return new WriteFailedMessage(getQueue(), filename, exception, this);
+    }
+
+    /**
+     * Once a complete copy of a file has been written, the changes in its
+     * journal are part of it and the journal can go.
+     */
+    public void removeJournal (String filename) throws IOException {
+        File journal = new File(Journal.getFilename(filename));
+
+        if (journal.exists() && !journal.delete())
+            throw new IOException("Could not remove journal: " + journal);
+    }
+
     private static final int BUFFER_SIZE = 8192;
 
     public void backup (File file) throws IOException
@@ -107,6 +285,11 @@ public class Writer extends Consumer {
         sendToMe(writeMessage);
     }
 
+    public void sendAppend (BlockingQueue<Message> senderQueue, Object sender, String filename, byte[] record) {
+        AppendMessage appendMessage = new AppendMessage(filename, record, senderQueue, sender);
+        sendToMe(appendMessage);
+    }
+
     public EncryptedMessage encrypt (byte[] plaintext) throws GeneralSecurityException {
         return getPublicKey().encrypt(plaintext);
     }
@@ -18,9 +18,7 @@ package com.ltsllc.miranda.writer;
 
 import com.ltsllc.miranda.Message;
 import com.ltsllc.miranda.State;
-
-import java.io.IOException;
-import java.security.GeneralSecurityException;
+import com.ltsllc.miranda.miranda.messages.StopMessage;
 
 /**
  * Created by Clark on 1/3/2017.
@@ -45,6 +43,18 @@ public class WriterReadyState extends State {
                 break;
             }
 
+            case Append: {
+                AppendMessage appendMessage = (AppendMessage) m;
+                nextState = processAppendMessage(appendMessage);
+                break;
+            }
+
+            case Flush: {
+                FlushMessage flushMessage = (FlushMessage) m;
+                nextState = processFlushMessage(flushMessage);
+                break;
+            }
+
             default: {
                 nextState = super.processMessage(m);
                 break;
@@ -55,15 +65,27 @@ public class WriterReadyState extends State {
     }
 
     private State processWriteMessage (WriteMessage writeMessage) {
-        try{
-            getWriter().write(writeMessage.getFilename(), writeMessage.getBuffer());
-            WriteSucceededMessage writeSucceededMessage = new WriteSucceededMessage(getWriter().getQueue(), writeMessage.getFilename(), this);
-            writeMessage.reply(writeSucceededMessage);
-        } catch (IOException | GeneralSecurityException e) {
-            WriteFailedMessage writeFailedMessage = new WriteFailedMessage(getWriter().getQueue(), writeMessage.getFilename(), e, this);
-            writeMessage.reply(writeFailedMessage);
-        }
+        getWriter().addPendingWrite(writeMessage);
 
         return this;
     }
+
+    private State processAppendMessage (AppendMessage appendMessage) {
+        getWriter().addPendingAppend(appendMessage);
+
+        return this;
+    }
+
+    private State processFlushMessage (FlushMessage flushMessage) {
+        getWriter().flush();
+
+        return this;
+    }
+
+    @Override
+    public State processStopMessage (StopMessage stopMessage) {
+        getWriter().flush();
+
+        return super.processStopMessage(stopMessage);
+    }
 }
@@ -0,0 +1,74 @@
+package com.ltsllc.mirandaClient;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for a {@link Session}.
+ *
+ * <P>
+ *     Pool wait is the time a request spent waiting for a connection from the
+ *     pool.  If it grows, the session has more requests in flight than
+ *     connections to carry them.  Bytes decoded counts the response bodies
+ *     read by the session.
+ * </P>
+ */
+public class ClientMetrics {
+    private AtomicLong connectionRequests = new AtomicLong();
+    private AtomicLong poolWaitNanos = new AtomicLong();
+    private AtomicLong maxPoolWaitNanos = new AtomicLong();
+    private AtomicLong replies = new AtomicLong();
+    private AtomicLong bytesDecoded = new AtomicLong();
+
+    public long getConnectionRequests() {
+        return connectionRequests.get();
+    }
+
+    public long getPoolWaitNanos() {
+        return poolWaitNanos.get();
+    }
+
+    public long getMaxPoolWaitNanos() {
+        return maxPoolWaitNanos.get();
+    }
+
+    public long getReplies() {
+        return replies.get();
+    }
+
+    public long getBytesDecoded() {
+        return bytesDecoded.get();
+    }
+
+    public double getAveragePoolWaitMillis () {
+        long count = getConnectionRequests();
+
+        if (count == 0)
+            return 0;
+
+        return ((double) getPoolWaitNanos()) / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public void poolWait (long nanos) {
+        connectionRequests.incrementAndGet();
+        poolWaitNanos.addAndGet(nanos);
+
+        long max = maxPoolWaitNanos.get();
+        while (nanos > max && !maxPoolWaitNanos.compareAndSet(max, nanos)) {
+            max = maxPoolWaitNanos.get();
+        }
+    }
+
+    public void replyDecoded (long bytes) {
+        replies.incrementAndGet();
+        bytesDecoded.addAndGet(bytes);
+    }
+
+    public String toString () {
+        return "connection requests: " + getConnectionRequests()
+                + ", average pool wait: " + getAveragePoolWaitMillis() + "ms"
+                + ", max pool wait: " + TimeUnit.NANOSECONDS.toMillis(getMaxPoolWaitNanos()) + "ms"
+                + ", replies: " + getReplies()
+                + ", bytes decoded: " + getBytesDecoded();
+    }
+}
@@ -0,0 +1,80 @@
+package com.ltsllc.mirandaClient;
+
+/**
+ * How a {@link Session} manages its connections to the server.
+ *
+ * <P>
+ *     A Session usually talks to a single Miranda node, so maxPerRoute is the
+ *     setting that limits how many requests can be on the wire at once.
+ *     Connections are kept alive for at most keepAlive milliseconds, or less
+ *     if the server says so, and connections that have been idle for
+ *     maxIdle milliseconds are closed by a background thread.  A value of
+ *     zero or less turns off the limit in question.
+ * </P>
+ */
+public class ConnectionSettings {
+    public static final int DEFAULT_MAX_TOTAL = 100;
+    public static final long DEFAULT_KEEP_ALIVE = 60000;
+    public static final long DEFAULT_MAX_IDLE = 30000;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2000;
+
+    private int maxTotal;
+    private int maxPerRoute;
+    private long keepAlive;
+    private long maxIdle;
+    private int validateAfterInactivity;
+
+    public ConnectionSettings (int maxPerRoute) {
+        this(Math.max(DEFAULT_MAX_TOTAL, maxPerRoute), maxPerRoute, DEFAULT_KEEP_ALIVE, DEFAULT_MAX_IDLE,
+                DEFAULT_VALIDATE_AFTER_INACTIVITY);
+    }
+
+    public ConnectionSettings (int maxTotal, int maxPerRoute, long keepAlive, long maxIdle,
+                               int validateAfterInactivity) {
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.keepAlive = keepAlive;
+        this.maxIdle = maxIdle;
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(long maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ltsllc.mirandaClient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream that keeps track of how many bytes have been read through it.
+ */
+public class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    public long getCount() {
+        return count;
+    }
+
+    public CountingInputStream (InputStream inputStream) {
+        super(inputStream);
+    }
+
+    @Override
+    public int read () throws IOException {
+        int c = super.read();
+
+        if (c != -1)
+            count++;
+
+        return c;
+    }
+
+    @Override
+    public int read (byte[] buffer, int offset, int length) throws IOException {
+        int bytesRead = super.read(buffer, offset, length);
+
+        if (bytesRead > 0)
+            count += bytesRead;
+
+        return bytesRead;
+    }
+
+    @Override
+    public long skip (long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported () {
+        return false;
+    }
+}
@@ -0,0 +1,318 @@
+package com.ltsllc.mirandaClient;
+
+import com.google.gson.stream.JsonReader;
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.deliveries.PushFrame;
+import com.ltsllc.miranda.deliveries.PushedEvent;
+import com.ltsllc.miranda.servlet.delivery.AcknowledgeRequestObject;
+import com.ltsllc.miranda.servlet.delivery.PushRequestObject;
+import com.ltsllc.miranda.servlet.objects.ResultObject;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the events for the subscriptions of a {@link Session} as the
+ * server pushes them, instead of polling for them.
+ *
+ * <P>
+ *     The channel is one long POST to /servlets/push whose response is a
+ *     stream of {@link PushFrame}s, which are decoded as they arrive by a
+ *     thread of the channel's own.  Each event is handed to a
+ *     {@link DeliveryListener} and then acknowledged.  If the listener
+ *     throws, the delivery is rejected instead, which gives its credit back
+ *     and has the server push the event again.  Acknowledgements and
+ *     rejections are collected and sent together, once ackBatchSize of them
+ *     are waiting or ackLinger milliseconds after the first one.
+ * </P>
+ *
+ * <P>
+ *     The server sends at most credits events that have not been
+ *     acknowledged, so credits should be comfortably more than ackBatchSize.
+ * </P>
+ */
+public class DeliveryChannel {
+    public static final String PUSH_URL = "/servlets/push";
+    public static final String ACKNOWLEDGE_URL = "/servlets/acknowledge";
+
+    public static final int DEFAULT_CREDITS = 1024;
+    public static final int DEFAULT_ACK_BATCH_SIZE = 128;
+    public static final long DEFAULT_ACK_LINGER = 10;
+
+    private static Logger logger = Logger.getLogger(DeliveryChannel.class);
+
+    private Session session;
+    private DeliveryListener listener;
+    private int credits;
+    private int ackBatchSize;
+    private long ackLinger;
+    private String channelId;
+    private HttpPost httpPost;
+    private Thread thread;
+    private ScheduledExecutorService timer;
+    private List<String> acknowledgements = new ArrayList<String>();
+    private List<String> rejections = new ArrayList<String>();
+    private volatile boolean closed;
+
+    public Session getSession() {
+        return session;
+    }
+
+    public DeliveryListener getListener() {
+        return listener;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    public long getAckLinger() {
+        return ackLinger;
+    }
+
+    public synchronized String getChannelId() {
+        return channelId;
+    }
+
+    public synchronized void setChannelId(String channelId) {
+        this.channelId = channelId;
+    }
+
+    public ScheduledExecutorService getTimer() {
+        return timer;
+    }
+
+    public DeliveryChannel (Session session, DeliveryListener listener) {
+        this(session, listener, DEFAULT_CREDITS, DEFAULT_ACK_BATCH_SIZE, DEFAULT_ACK_LINGER);
+    }
+
+    public DeliveryChannel (Session session, DeliveryListener listener, int credits, int ackBatchSize,
+                            long ackLinger) {
+        this.session = session;
+        this.listener = listener;
+        this.credits = credits;
+        this.ackBatchSize = Math.max(1, ackBatchSize);
+        this.ackLinger = ackLinger;
+    }
+
+    /**
+     * Connect and start receiving events.
+     */
+    public synchronized void open () {
+        if (null != thread)
+            return;
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "miranda delivery acknowledgements");
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        timer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        Runnable runnable = new Runnable() {
+            public void run() {
+                receive();
+            }
+        };
+
+        thread = new Thread(runnable, "miranda delivery channel");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void receive () {
+        Throwable cause = null;
+
+        try {
+            PushRequestObject pushRequestObject = new PushRequestObject(getSession().getSessionId(), getCredits());
+            String json = Session.getGson().toJson(pushRequestObject);
+
+            synchronized (this) {
+                httpPost = new HttpPost(getSession().getUrl() + PUSH_URL);
+                httpPost.setEntity(new StringEntity(json));
+            }
+
+            HttpResponse httpResponse = getSession().getHttpClient().execute(httpPost);
+            HttpEntity entity = httpResponse.getEntity();
+            JsonReader jsonReader = new JsonReader(new BufferedReader(new InputStreamReader(entity.getContent(),
+                    StandardCharsets.UTF_8)));
+            jsonReader.setLenient(true);
+
+            try {
+                while (!closed && jsonReader.hasNext()) {
+                    PushFrame pushFrame = Session.getGson().fromJson(jsonReader, PushFrame.class);
+
+                    if (null == pushFrame.getType()) {
+                        ResultObject resultObject = Session.getGson().fromJson(Session.getGson().toJson(pushFrame),
+                                ResultObject.class);
+                        throw new OperationException("Could not open the push channel: " + resultObject.getResult());
+                    }
+
+                    receive(pushFrame);
+                }
+            } finally {
+                jsonReader.close();
+            }
+        } catch (Throwable throwable) {
+            if (!closed)
+                cause = throwable;
+        }
+
+        close();
+        getListener().channelClosed(cause);
+    }
+
+    public void receive (PushFrame pushFrame) {
+        switch (pushFrame.getType()) {
+            case Opened: {
+                setChannelId(pushFrame.getChannel());
+                break;
+            }
+
+            case Events: {
+                for (PushedEvent pushedEvent : pushFrame.getEvents()) {
+                    try {
+                        getListener().eventDelivered(pushedEvent.getSubscription(), pushedEvent.getEvent());
+                    } catch (RuntimeException e) {
+                        logger.warn("Listener failed for delivery " + pushedEvent.getDeliveryId(), e);
+                        reject(pushedEvent.getDeliveryId());
+                        continue;
+                    }
+
+                    acknowledge(pushedEvent.getDeliveryId());
+                }
+                break;
+            }
+
+            default: {
+                break;
+            }
+        }
+    }
+
+    public void acknowledge (String deliveryId) {
+        boolean first;
+        boolean full;
+
+        synchronized (this) {
+            acknowledgements.add(deliveryId);
+            first = acknowledgements.size() + rejections.size() == 1;
+            full = acknowledgements.size() + rejections.size() >= getAckBatchSize();
+        }
+
+        scheduleAcknowledgements(first, full);
+    }
+
+    /**
+     * Tell the server that a delivery could not be handled, so that it gives
+     * the credit back and pushes the event again.
+     */
+    public void reject (String deliveryId) {
+        boolean first;
+        boolean full;
+
+        synchronized (this) {
+            rejections.add(deliveryId);
+            first = acknowledgements.size() + rejections.size() == 1;
+            full = acknowledgements.size() + rejections.size() >= getAckBatchSize();
+        }
+
+        scheduleAcknowledgements(first, full);
+    }
+
+    public void scheduleAcknowledgements (boolean first, boolean full) {
+        if (full) {
+            sendAcknowledgements();
+        } else if (first) {
+            Runnable runnable = new Runnable() {
+                public void run() {
+                    sendAcknowledgements();
+                }
+            };
+
+            getTimer().schedule(runnable, getAckLinger(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Send whatever acknowledgements and rejections are waiting.
+     */
+    public void sendAcknowledgements () {
+        final List<String> deliveries;
+        final List<String> rejected;
+
+        synchronized (this) {
+            if (acknowledgements.isEmpty() && rejections.isEmpty())
+                return;
+
+            deliveries = acknowledgements;
+            acknowledgements = new ArrayList<String>();
+            rejected = rejections;
+            rejections = new ArrayList<String>();
+        }
+
+        Callable<Results> callable = new Callable<Results>() {
+            public Results call() throws IOException {
+                AcknowledgeRequestObject acknowledgeRequestObject = new AcknowledgeRequestObject(
+                        getSession().getSessionId(), getChannelId(), deliveries, rejected, 0);
+
+                ResultObject resultObject = getSession().post(getSession().getUrl() + ACKNOWLEDGE_URL,
+                        acknowledgeRequestObject, ResultObject.class);
+
+                Results result = null == resultObject ? Results.SessionNotFound : resultObject.getResult();
+
+                if (result != Results.Success)
+                    logger.warn("Could not acknowledge " + (deliveries.size() + rejected.size()) + " deliveries: "
+                            + result);
+
+                return result;
+            }
+        };
+
+        getSession().submit(callable);
+    }
+
+    /**
+     * Stop receiving events.  Acknowledgements that are waiting are sent first.
+     */
+    public void close () {
+        HttpPost post;
+
+        synchronized (this) {
+            if (closed)
+                return;
+
+            closed = true;
+            post = httpPost;
+        }
+
+        sendAcknowledgements();
+
+        if (null != post)
+            post.abort();
+
+        if (null != getTimer())
+            getTimer().shutdown();
+    }
+}
@@ -0,0 +1,22 @@
+package com.ltsllc.mirandaClient;
+
+import com.ltsllc.miranda.event.Event;
+
+/**
+ * Something that wants to know about the events pushed over a
+ * {@link DeliveryChannel}.
+ */
+public interface DeliveryListener {
+    /**
+     * An event has arrived for one of the subscriptions of the session.  The
+     * event is acknowledged once this returns, so an event whose listener
+     * throws is not acknowledged.
+     */
+    void eventDelivered (String subscription, Event event);
+
+    /**
+     * The channel has closed, either because {@link DeliveryChannel#close()}
+     * was called or because the connection was lost.
+     */
+    void channelClosed (Throwable cause);
+}
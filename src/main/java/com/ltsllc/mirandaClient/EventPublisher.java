@@ -0,0 +1,267 @@
+package com.ltsllc.mirandaClient;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.event.Event;
+import com.ltsllc.miranda.event.EventBatch;
+import com.ltsllc.miranda.servlet.event.PublishRequestObject;
+import com.ltsllc.miranda.servlet.event.PublishResultObject;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes events in batches.
+ *
+ * <P>
+ *     Events for the same topic are collected into a batch, which is sent
+ *     when it reaches maxBatchBytes of content or when it is linger
+ *     milliseconds old, whichever comes first.  A batch goes to the server as
+ *     one request in the binary form of {@link EventBatch}, optionally
+ *     gzipped, and the server stores it with one write.
+ * </P>
+ *
+ * <P>
+ *     Each call to {@link #publish(String, Event.Methods, byte[])} returns a
+ *     future that completes with the guid of the event once its batch has
+ *     been written and replicated as the remote policy of the topic requires,
+ *     or exceptionally if the batch could not be published.  For a topic
+ *     whose policy is None, that is as soon as the batch is on disk.
+ * </P>
+ */
+public class EventPublisher {
+    public static final String PUBLISH_URL = "/servlets/publish";
+    public static final long DEFAULT_LINGER = 5;
+    public static final int DEFAULT_MAX_BATCH_BYTES = 256 * 1024;
+
+    public static class Batch {
+        private String topicName;
+        private List<Event> events = new ArrayList<Event>();
+        private List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>();
+        private int bytes;
+
+        public String getTopicName() {
+            return topicName;
+        }
+
+        public List<Event> getEvents() {
+            return events;
+        }
+
+        public List<CompletableFuture<String>> getFutures() {
+            return futures;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+
+        public Batch (String topicName) {
+            this.topicName = topicName;
+        }
+
+        public CompletableFuture<String> add (Event event) {
+            CompletableFuture<String> future = new CompletableFuture<String>();
+
+            events.add(event);
+            futures.add(future);
+
+            bytes += EventBatch.EVENT_OVERHEAD;
+            if (null != event.getContent())
+                bytes += event.getContent().length;
+
+            return future;
+        }
+
+        public void fail (Throwable throwable) {
+            for (CompletableFuture<String> future : futures) {
+                future.completeExceptionally(throwable);
+            }
+        }
+    }
+
+    private Session session;
+    private long linger;
+    private int maxBatchBytes;
+    private EventBatch.Compression compression;
+    private Map<String, Batch> batches = new HashMap<String, Batch>();
+    private ScheduledExecutorService timer;
+
+    public Session getSession() {
+        return session;
+    }
+
+    public long getLinger() {
+        return linger;
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public EventBatch.Compression getCompression() {
+        return compression;
+    }
+
+    public Map<String, Batch> getBatches() {
+        return batches;
+    }
+
+    public ScheduledExecutorService getTimer() {
+        return timer;
+    }
+
+    public EventPublisher (Session session) {
+        this(session, DEFAULT_LINGER, DEFAULT_MAX_BATCH_BYTES, EventBatch.Compression.None);
+    }
+
+    public EventPublisher (Session session, long linger, int maxBatchBytes, EventBatch.Compression compression) {
+        this.session = session;
+        this.linger = linger;
+        this.maxBatchBytes = maxBatchBytes;
+        this.compression = compression;
+        this.timer = createTimer();
+    }
+
+    public ScheduledExecutorService createTimer () {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "miranda publisher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    public CompletableFuture<String> publish (String topicName, Event.Methods method, byte[] content) {
+        Event event = new Event(null, null, topicName, 0, method, content);
+        Batch full = null;
+        CompletableFuture<String> future;
+
+        synchronized (this) {
+            Batch batch = getBatches().get(topicName);
+
+            if (null == batch) {
+                batch = new Batch(topicName);
+                getBatches().put(topicName, batch);
+
+                if (getLinger() > 0)
+                    scheduleFlush(batch);
+            }
+
+            future = batch.add(event);
+
+            if (getLinger() <= 0 || batch.getBytes() >= getMaxBatchBytes()) {
+                getBatches().remove(topicName);
+                full = batch;
+            }
+        }
+
+        if (null != full)
+            send(full);
+
+        return future;
+    }
+
+    public void scheduleFlush (final Batch batch) {
+        Runnable runnable = new Runnable() {
+            public void run() {
+                flush(batch);
+            }
+        };
+
+        getTimer().schedule(runnable, getLinger(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send a batch if no one else has sent it already.
+     */
+    public void flush (Batch batch) {
+        synchronized (this) {
+            if (getBatches().get(batch.getTopicName()) != batch)
+                return;
+
+            getBatches().remove(batch.getTopicName());
+        }
+
+        send(batch);
+    }
+
+    /**
+     * Send everything that is waiting without waiting for the linger time.
+     */
+    public void flush () {
+        List<Batch> waiting;
+
+        synchronized (this) {
+            waiting = new ArrayList<Batch>(getBatches().values());
+            getBatches().clear();
+        }
+
+        for (Batch batch : waiting) {
+            send(batch);
+        }
+    }
+
+    public void send (final Batch batch) {
+        Callable<Void> callable = new Callable<Void>() {
+            public Void call() {
+                try {
+                    publish(batch);
+                } catch (Throwable throwable) {
+                    batch.fail(throwable);
+                }
+
+                return null;
+            }
+        };
+
+        getSession().submit(callable);
+    }
+
+    public void publish (Batch batch) throws Exception {
+        byte[] data = EventBatch.encode(batch.getEvents(), getCompression());
+        String events = Base64.getEncoder().encodeToString(data);
+
+        PublishRequestObject publishRequestObject = new PublishRequestObject(getSession().getSessionId(),
+                batch.getTopicName(), getCompression(), events);
+
+        PublishResultObject publishResultObject = getSession().post(getSession().getUrl() + PUBLISH_URL,
+                publishRequestObject, PublishResultObject.class);
+
+        Results result = Results.SessionNotFound;
+        if (null != publishResultObject)
+            result = publishResultObject.getResult();
+
+        if (result != Results.Success || null == publishResultObject.getGuids()
+                || publishResultObject.getGuids().size() != batch.getEvents().size()) {
+            batch.fail(new OperationException("Could not publish " + batch.getEvents().size() + " events to "
+                    + batch.getTopicName() + ": " + result));
+            return;
+        }
+
+        List<String> guids = publishResultObject.getGuids();
+
+        for (int i = 0; i < guids.size(); i++) {
+            batch.getFutures().get(i).complete(guids.get(i));
+        }
+    }
+
+    /**
+     * Send what is waiting and stop the timer.
+     */
+    public void close () {
+        flush();
+        getTimer().shutdown();
+    }
+}
@@ -0,0 +1,52 @@
+package com.ltsllc.mirandaClient;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection pool that records how long each request waited for a
+ * connection in a {@link ClientMetrics}.
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+    private ClientMetrics metrics;
+
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    public MeteredConnectionManager (Registry<ConnectionSocketFactory> registry, ClientMetrics metrics) {
+        super(registry);
+
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ConnectionRequest requestConnection (HttpRoute route, Object state) {
+        final ConnectionRequest connectionRequest = super.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+
+                try {
+                    return connectionRequest.get(timeout, timeUnit);
+                } finally {
+                    getMetrics().poolWait(System.nanoTime() - start);
+                }
+            }
+
+            public boolean cancel() {
+                return connectionRequest.cancel();
+            }
+        };
+    }
+}
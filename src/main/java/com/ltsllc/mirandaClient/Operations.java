@@ -10,14 +10,22 @@ import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.user.JSPublicKeySerializer;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Type;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Created by Clark on 6/5/2017.
+ *
+ * <P>
+ *     Each operation has an asynchronous version that returns a
+ *     {@link CompletableFuture} and is carried out by the {@link Session};
+ *     the plain version waits for it.
+ * </P>
  */
 public abstract class Operations {
     abstract public RequestObject getRequestObject (String sessionId, Object object);
@@ -63,64 +71,110 @@ public abstract class Operations {
         return getSession().getReply(httpResponse, type);
     }
 
+    /**
+     * Wait for an asynchronous request, turning its failure back into the
+     * exception the request threw.
+     */
+    public static <T> T await (CompletableFuture<T> future) throws IOException, OperationException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for the server");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            else if (cause instanceof OperationException)
+                throw (OperationException) cause;
+            else if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            else
+                throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Like {@link #await(CompletableFuture)} for requests that cannot throw
+     * an {@link OperationException}.
+     */
+    public static <T> T awaitIO (CompletableFuture<T> future) throws IOException {
+        try {
+            return await(future);
+        } catch (OperationException e) {
+            throw new IOException(e);
+        }
+    }
+
     public <E> ReadObject read (String sessionId, E e) throws IOException {
-        String url = getUrl() + getReadUrl();
-        HttpPost httpPost = new HttpPost(url);
+        return awaitIO(readAsync(sessionId, e));
+    }
 
-        RequestObject requestObject = getRequestObject(sessionId, e);
-        String json = getGson().toJson(requestObject);
-        StringEntity stringEntity = new StringEntity(json);
-        httpPost.setEntity(stringEntity);
+    public <E> CompletableFuture<ReadObject> readAsync (final String sessionId, final E e) {
+        final String url = getUrl() + getReadUrl();
 
-        HttpResponse httpResponse = getHttpClient().execute(httpPost);
-        ReadObject readResult = getReply(httpResponse, getReadObjectType());
+        Callable<ReadObject> callable = new Callable<ReadObject>() {
+            public ReadObject call() throws IOException {
+                RequestObject requestObject = getRequestObject(sessionId, e);
+                ReadObject readResult = getSession().post(url, requestObject, getReadObjectType());
 
-        if (null == readResult) {
-            readResult = new ReadObject();
-            readResult.setResult(Results.SessionNotFound);
-        }
+                if (null == readResult) {
+                    readResult = new ReadObject();
+                    readResult.setResult(Results.SessionNotFound);
+                }
 
-        return readResult;
+                return readResult;
+            }
+        };
+
+        return getSession().submit(callable);
     }
 
     public <T> Results create (String sessionId, T t) throws IOException, OperationException {
-        String url = getUrl() + getCreateUrl();
-        HttpPost httpPost = new HttpPost(url);
+        return await(createAsync(sessionId, t));
+    }
 
-        RequestObject requestObject = getRequestObject(sessionId, t);
-        String json = getGson().toJson(requestObject);
+    public <T> CompletableFuture<Results> createAsync (final String sessionId, final T t) {
+        final String url = getUrl() + getCreateUrl();
 
-        StringEntity stringEntity = new StringEntity(json);
-        httpPost.setEntity(stringEntity);
+        Callable<Results> callable = new Callable<Results>() {
+            public Results call() throws IOException, OperationException {
+                RequestObject requestObject = getRequestObject(sessionId, t);
+                ResultObject resultObject = getSession().post(url, requestObject, ResultObject.class);
 
-        HttpResponse httpResponse = getHttpClient().execute(httpPost);
-        ResultObject resultObject = getReply(httpResponse, ResultObject.class);
+                if (resultObject == null) {
+                    throw new OperationException ("null response object");
+                } else {
+                    return resultObject.getResult();
+                }
+            }
+        };
 
-        if (resultObject == null) {
-            throw new OperationException ("null response object");
-        } else {
-            return resultObject.getResult();
-        }
+        return getSession().submit(callable);
     }
 
-
     public ListObject list (String sessionId) throws IOException {
-        String url = getUrl() + getListUrl();
-        HttpPost httpPost = new HttpPost(url);
+        return awaitIO(listAsync(sessionId));
+    }
 
-        RequestObject requestObject = getRequestObject(sessionId, null);
-        String json = getGson().toJson(requestObject);
-        StringEntity stringEntity = new StringEntity(json);
-        httpPost.setEntity(stringEntity);
+    public CompletableFuture<ListObject> listAsync (final String sessionId) {
+        final String url = getUrl() + getListUrl();
 
-        HttpResponse httpResponse = getHttpClient().execute(httpPost);
-        ListObject listResult = getReply(httpResponse, ListObject.class);
+        Callable<ListObject> callable = new Callable<ListObject>() {
+            public ListObject call() throws IOException {
+                RequestObject requestObject = getRequestObject(sessionId, null);
+                ListObject listResult = getSession().post(url, requestObject, ListObject.class);
 
-        if (null == listResult) {
-            listResult = new ListObject();
-            listResult.setResult(Results.SessionNotFound);
-        }
+                if (null == listResult) {
+                    listResult = new ListObject();
+                    listResult.setResult(Results.SessionNotFound);
+                }
+
+                return listResult;
+            }
+        };
 
-        return listResult;
+        return getSession().submit(callable);
     }
 }
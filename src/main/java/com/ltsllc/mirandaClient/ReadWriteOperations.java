@@ -1,13 +1,16 @@
 package com.ltsllc.mirandaClient;
 
 import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.manager.BulkMessage;
+import com.ltsllc.miranda.servlet.objects.BulkResultObject;
 import com.ltsllc.miranda.servlet.objects.RequestObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by Clark on 6/7/2017.
@@ -15,49 +18,102 @@ import java.io.IOException;
 public abstract class ReadWriteOperations extends Operations {
     abstract String getUpdateUrl ();
     abstract String getDeleteUrl ();
+    abstract String getBulkUrl ();
+    abstract RequestObject getBulkRequestObject (String sessionId, BulkMessage.Operations operation, List list);
 
     public ReadWriteOperations (Session session) {
         super(session);
     }
 
     public <T> Results update (String sessionId, T t) throws IOException {
-        String url = getUrl() + getUpdateUrl();
-        HttpPost httpPost = new HttpPost(url);
+        return awaitIO(updateAsync(sessionId, t));
+    }
+
+    public <T> CompletableFuture<Results> updateAsync (String sessionId, T t) {
+        return post(getUrl() + getUpdateUrl(), sessionId, t);
+    }
+
+    public <T> Results delete (String sessionId, T t) throws IOException {
+        return awaitIO(deleteAsync(sessionId, t));
+    }
 
-        RequestObject requestObject = getRequestObject(sessionId, t);
-        String json = getGson().toJson(requestObject);
+    public <T> CompletableFuture<Results> deleteAsync (String sessionId, T t) {
+        return post(getUrl() + getDeleteUrl(), sessionId, t);
+    }
 
-        StringEntity stringEntity = new StringEntity(json);
-        httpPost.setEntity(stringEntity);
+    public <T> CompletableFuture<Results> post (final String url, final String sessionId, final T t) {
+        Callable<Results> callable = new Callable<Results>() {
+            public Results call() throws IOException {
+                RequestObject requestObject = getRequestObject(sessionId, t);
+                ResultObject resultObject = getSession().post(url, requestObject, ResultObject.class);
 
-        HttpResponse httpResponse = getHttpClient().execute(httpPost);
-        ResultObject resultObject = getReply(httpResponse, ResultObject.class);
+                if (null == resultObject) {
+                    return Results.SessionNotFound;
+                } else {
+                    return resultObject.getResult();
+                }
+            }
+        };
 
-        if (null == resultObject) {
-            return Results.SessionNotFound;
-        } else {
-            return resultObject.getResult();
-        }
+        return getSession().submit(callable);
     }
 
-    public <T> Results delete (String sessionId, T t) throws IOException {
-        String url = getUrl() + getDeleteUrl();
-        HttpPost httpPost = new HttpPost(url);
+    public <T> List<Results> createAll (String sessionId, List<T> list) throws IOException {
+        return awaitIO(createAllAsync(sessionId, list));
+    }
 
-        RequestObject requestObject = getRequestObject(sessionId, t);
-        String json = getGson().toJson(requestObject);
+    public <T> CompletableFuture<List<Results>> createAllAsync (String sessionId, List<T> list) {
+        return bulk(sessionId, BulkMessage.Operations.Create, list);
+    }
 
-        StringEntity stringEntity = new StringEntity(json);
-        httpPost.setEntity(stringEntity);
+    public <T> List<Results> updateAll (String sessionId, List<T> list) throws IOException {
+        return awaitIO(updateAllAsync(sessionId, list));
+    }
 
-        HttpResponse httpResponse = getHttpClient().execute(httpPost);
-        ResultObject resultObject = getReply(httpResponse, ResultObject.class);
+    public <T> CompletableFuture<List<Results>> updateAllAsync (String sessionId, List<T> list) {
+        return bulk(sessionId, BulkMessage.Operations.Update, list);
+    }
 
-        if (null == resultObject) {
-            return Results.SessionNotFound;
-        } else {
-            return resultObject.getResult();
-        }
+    public <T> List<Results> deleteAll (String sessionId, List<T> list) throws IOException {
+        return awaitIO(deleteAllAsync(sessionId, list));
     }
 
+    public <T> CompletableFuture<List<Results>> deleteAllAsync (String sessionId, List<T> list) {
+        return bulk(sessionId, BulkMessage.Operations.Delete, list);
+    }
+
+    /**
+     * Send a whole list in one request.  The result has one entry for each
+     * element of the list, in the same order.
+     */
+    public <T> CompletableFuture<List<Results>> bulk (final String sessionId, final BulkMessage.Operations operation,
+                                                      final List<T> list) {
+        Callable<List<Results>> callable = new Callable<List<Results>>() {
+            public List<Results> call() throws IOException {
+                RequestObject requestObject = getBulkRequestObject(sessionId, operation, list);
+                BulkResultObject resultObject = getSession().post(getUrl() + getBulkUrl(), requestObject,
+                        BulkResultObject.class);
+
+                if (null == resultObject) {
+                    List<Results> results = new ArrayList<Results>(list.size());
+                    for (T t : list) {
+                        results.add(Results.SessionNotFound);
+                    }
+
+                    return results;
+                } else if (null == resultObject.getResults()) {
+                    List<Results> results = new ArrayList<Results>(list.size());
+                    for (T t : list) {
+                        results.add(resultObject.getResult());
+                    }
+
+                    return results;
+                } else {
+                    return resultObject.getResults();
+                }
+            }
+        };
+
+        return getSession().submit(callable);
+    }
 }
@@ -10,35 +10,67 @@ import com.ltsllc.miranda.servlet.login.LoginResultObject;
 import com.ltsllc.miranda.user.JSPublicKeySerializer;
 import com.ltsllc.miranda.user.User;
 import com.ltsllc.miranda.util.Utils;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.apache.log4j.Logger;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Created by Clark on 6/2/2017.
+ * A connection to a Miranda server.
+ *
+ * <P>
+ *     Requests are carried out by a pool of maxInFlight threads, so that many
+ *     requests can be outstanding at once; the rest wait their turn.  Unless
+ *     told otherwise, the connection pool allows as many connections to the
+ *     server, since by default it would only allow two.  See
+ *     {@link ConnectionSettings} for the other connection settings.
+ * </P>
+ *
+ * <P>
+ *     Replies are decoded by Gson as they are read from the connection rather
+ *     than being collected into a String first.
+ * </P>
  */
 public class Session {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    public static final int BUFFER_SIZE = 8192;
+
     private static Gson gson = buildGson();
 
     private static Logger logger = Logger.getLogger(Session.class);
@@ -51,12 +83,32 @@ public class Session {
     private UserOperations userOperations;
     private TopicOperations topicOperations;
     private SubscriptionOperations subscriptionOperations;
+    private int maxInFlight;
+    private ExecutorService executorService;
+    private ConnectionSettings connectionSettings;
+    private ClientMetrics metrics;
 
     public Session(User user, PrivateKey privateKey, String url) {
+        this(user, privateKey, url, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public Session(User user, PrivateKey privateKey, String url, int maxInFlight) {
+        this(user, privateKey, url, maxInFlight, new ConnectionSettings(Math.max(1, maxInFlight)));
+    }
+
+    public Session(User user, PrivateKey privateKey, String url, int maxInFlight,
+                   ConnectionSettings connectionSettings) {
+        if (maxInFlight < 1)
+            maxInFlight = 1;
+
         this.user = user;
         this.privateKey = privateKey;
         this.url = url;
+        this.maxInFlight = maxInFlight;
+        this.connectionSettings = connectionSettings;
+        this.metrics = new ClientMetrics();
         this.httpClient = createHttpClient();
+        this.executorService = createExecutorService();
         this.userOperations = new UserOperations(this);
         this.topicOperations = new TopicOperations(this);
         this.subscriptionOperations = new SubscriptionOperations(this);
@@ -120,27 +172,49 @@ public class Session {
         return gson;
     }
 
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public ConnectionSettings getConnectionSettings() {
+        return connectionSettings;
+    }
+
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Decode the body of a response.
+     *
+     * <P>
+     *     Closing the stream at the end gives the connection back to the pool.
+     * </P>
+     */
     public <T> T getReply (HttpResponse httpResponse, Type type) throws IOException {
-        InputStream inputStream = null;
-        InputStreamReader inputStreamReader = null;
+        HttpEntity entity = httpResponse.getEntity();
+        CountingInputStream countingInputStream = null;
+        Reader reader = null;
 
         try {
-            inputStream = httpResponse.getEntity().getContent();
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            Charset charset = ContentType.getOrDefault(entity).getCharset();
+            if (null == charset)
+                charset = StandardCharsets.UTF_8;
 
-            int c = inputStream.read();
-            while (c != -1) {
-                byteArrayOutputStream.write(c);
-                c = inputStream.read();
-            }
-
-            String json = new String(byteArrayOutputStream.toByteArray());
+            countingInputStream = new CountingInputStream(entity.getContent());
+            reader = new BufferedReader(new InputStreamReader(countingInputStream, charset), BUFFER_SIZE);
 
-            Object object = getGson().fromJson(json, type);
+            Object object = getGson().fromJson(reader, type);
             return (T) object;
         } finally {
-            Utils.closeIgnoreExceptions(inputStream);
-            Utils.closeIgnoreExceptions(inputStreamReader);
+            Utils.closeIgnoreExceptions(reader);
+
+            if (null != countingInputStream)
+                getMetrics().replyDecoded(countingInputStream.getCount());
         }
     }
 
@@ -162,12 +236,122 @@ public class Session {
                 .register("https", sslsf)
                 .build();
 
-        final PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(registry);
-        cm.setMaxTotal(100);
-        return HttpClients.custom()
+        ConnectionSettings settings = getConnectionSettings();
+
+        final MeteredConnectionManager cm = new MeteredConnectionManager(registry, getMetrics());
+        cm.setMaxTotal(Math.max(settings.getMaxTotal(), settings.getMaxPerRoute()));
+        cm.setDefaultMaxPerRoute(settings.getMaxPerRoute());
+
+        if (settings.getValidateAfterInactivity() > 0)
+            cm.setValidateAfterInactivity(settings.getValidateAfterInactivity());
+
+        HttpClientBuilder httpClientBuilder = HttpClients.custom()
                 .setSSLSocketFactory(sslsf)
                 .setConnectionManager(cm)
-                .build();
+                .setKeepAliveStrategy(createKeepAliveStrategy(settings.getKeepAlive()));
+
+        if (settings.getMaxIdle() > 0) {
+            httpClientBuilder.evictExpiredConnections();
+            httpClientBuilder.evictIdleConnections(settings.getMaxIdle(), TimeUnit.MILLISECONDS);
+        }
+
+        return httpClientBuilder.build();
+    }
+
+    /**
+     * Keep connections for as long as the server allows, but no longer than
+     * keepAlive milliseconds.
+     */
+    public static ConnectionKeepAliveStrategy createKeepAliveStrategy (final long keepAlive) {
+        return new ConnectionKeepAliveStrategy() {
+            public long getKeepAliveDuration(HttpResponse httpResponse, HttpContext httpContext) {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(httpResponse,
+                        httpContext);
+
+                if (keepAlive > 0 && (duration <= 0 || duration > keepAlive))
+                    duration = keepAlive;
+
+                return duration;
+            }
+        };
+    }
+
+    public ExecutorService createExecutorService () {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "miranda client-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        return Executors.newFixedThreadPool(getMaxInFlight(), threadFactory);
+    }
+
+    /**
+     * Carry out a request without waiting for it.
+     *
+     * @param callable The request.
+     * @return A future that completes with the result of the request, or
+     * exceptionally with whatever it threw.
+     */
+    public <T> CompletableFuture<T> submit (final Callable<T> callable) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+
+        Runnable runnable = new Runnable() {
+            public void run() {
+                try {
+                    future.complete(callable.call());
+                } catch (Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                }
+            }
+        };
+
+        try {
+            getExecutorService().execute(runnable);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Post an object as JSON and return the reply.
+     */
+    public <T> T post (String url, Object request, Type type) throws IOException {
+        HttpPost httpPost = new HttpPost(url);
+        String json = getGson().toJson(request);
+        StringEntity stringEntity = new StringEntity(json);
+        httpPost.setEntity(stringEntity);
+
+        HttpResponse httpResponse = getHttpClient().execute(httpPost);
+        return getReply(httpResponse, type);
+    }
+
+    /**
+     * Stop the threads that carry out requests.  Requests that have already
+     * been submitted are finished, then the connections are closed.
+     */
+    public void close () {
+        getExecutorService().shutdown();
+
+        try {
+            getExecutorService().awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (getHttpClient() instanceof Closeable) {
+            try {
+                ((Closeable) getHttpClient()).close();
+            } catch (IOException e) {
+                logger.warn("Exception closing connections", e);
+            }
+        }
     }
 
     public void connect () throws IOException, GeneralSecurityException {
@@ -1,12 +1,15 @@
 package com.ltsllc.mirandaClient;
 
 import com.google.gson.reflect.TypeToken;
+import com.ltsllc.miranda.manager.BulkMessage;
 import com.ltsllc.miranda.servlet.ReadObject;
 import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.subscription.BulkSubscriptionRequestObject;
 import com.ltsllc.miranda.servlet.subscription.SubscriptionRequestObject;
 import com.ltsllc.miranda.subsciptions.Subscription;
 
 import java.lang.reflect.Type;
+import java.util.List;
 
 /**
  * Created by Clark on 6/7/2017.
@@ -42,6 +45,14 @@ public class SubscriptionOperations extends ReadWriteOperations {
         return "/servlets/deleteSubscription";
     }
 
+    public String getBulkUrl () {
+        return "/servlets/bulkSubscriptions";
+    }
+
+    public RequestObject getBulkRequestObject (String sessionId, BulkMessage.Operations operation, List list) {
+        return new BulkSubscriptionRequestObject(sessionId, operation, list);
+    }
+
     public Type getReadObjectType () {
         return new TypeToken<ReadObject<Subscription>>() {}.getType();
     }
@@ -1,14 +1,17 @@
 package com.ltsllc.mirandaClient;
 
 import com.google.gson.reflect.TypeToken;
+import com.ltsllc.miranda.manager.BulkMessage;
 import com.ltsllc.miranda.servlet.ReadObject;
 import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.topic.BulkTopicRequestObject;
 import com.ltsllc.miranda.servlet.objects.ResultObject;
 import com.ltsllc.miranda.servlet.topic.TopicRequestObject;
 import com.ltsllc.miranda.servlet.topic.TopicResultObject;
 import com.ltsllc.miranda.topics.Topic;
 
 import java.lang.reflect.Type;
+import java.util.List;
 
 /**
  * Created by Clark on 6/5/2017.
@@ -38,6 +41,14 @@ public class TopicOperations extends ReadWriteOperations {
         return "/servlets/deleteTopic";
     }
 
+    public String getBulkUrl () {
+        return "/servlets/bulkTopics";
+    }
+
+    public RequestObject getBulkRequestObject (String sessionId, BulkMessage.Operations operation, List list) {
+        return new BulkTopicRequestObject(sessionId, operation, list);
+    }
+
     public String getListUrl () {
         return "/servlets/getTopics";
     }
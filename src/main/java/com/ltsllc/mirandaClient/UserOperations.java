@@ -1,12 +1,15 @@
 package com.ltsllc.mirandaClient;
 
 import com.google.gson.reflect.TypeToken;
+import com.ltsllc.miranda.manager.BulkMessage;
 import com.ltsllc.miranda.servlet.ReadObject;
 import com.ltsllc.miranda.servlet.objects.RequestObject;
+import com.ltsllc.miranda.servlet.user.BulkUserRequestObject;
 import com.ltsllc.miranda.servlet.user.UserRequestObject;
 import com.ltsllc.miranda.user.User;
 
 import java.lang.reflect.Type;
+import java.util.List;
 
 /**
  * Created by Clark on 6/5/2017.
@@ -36,6 +39,14 @@ public class UserOperations extends ReadWriteOperations {
         return "/servlets/deleteUser";
     }
 
+    public String getBulkUrl () {
+        return "/servlets/bulkUsers";
+    }
+
+    public RequestObject getBulkRequestObject (String sessionId, BulkMessage.Operations operation, List list) {
+        return new BulkUserRequestObject(sessionId, operation, list);
+    }
+
     public String getListUrl () {
         return "/servlets/getUsers";
     }
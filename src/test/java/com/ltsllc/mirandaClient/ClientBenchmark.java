@@ -0,0 +1,148 @@
+package com.ltsllc.mirandaClient;
+
+import com.ltsllc.miranda.Results;
+import com.ltsllc.miranda.topics.Topic;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+/**
+ * How many requests a second the client gets through against a stub server
+ * that takes a fixed time to answer each one.
+ *
+ * <P>
+ *     This is not a unit test; run it with
+ *     java com.ltsllc.mirandaClient.ClientBenchmark [requests] [delay in ms].
+ *     It posts topic creates with 1, 4, 16 and 64 requests in flight, then 16
+ *     in flight over a connection pool of two per route, which is what the
+ *     client used to have.
+ * </P>
+ */
+public class ClientBenchmark {
+    public static final int DEFAULT_REQUESTS = 2000;
+    public static final long DEFAULT_DELAY = 5;
+    public static final int[] IN_FLIGHT = { 1, 4, 16, 64 };
+    public static final String REPLY = "{\"result\":\"Success\"}";
+
+    /**
+     * A server that reads the request, waits and then says it succeeded.
+     */
+    public static class StubServer implements HttpHandler {
+        private HttpServer httpServer;
+        private long delay;
+
+        public long getDelay() {
+            return delay;
+        }
+
+        public int getPort () {
+            return httpServer.getAddress().getPort();
+        }
+
+        public StubServer (long delay) throws IOException {
+            this.delay = delay;
+            this.httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 256);
+            this.httpServer.createContext("/", this);
+            this.httpServer.setExecutor(Executors.newCachedThreadPool());
+        }
+
+        public void start () {
+            httpServer.start();
+        }
+
+        public void stop () {
+            httpServer.stop(0);
+        }
+
+        public void handle (HttpExchange httpExchange) throws IOException {
+            InputStream inputStream = httpExchange.getRequestBody();
+            byte[] buffer = new byte[Session.BUFFER_SIZE];
+
+            while (inputStream.read(buffer) != -1) {
+            }
+
+            try {
+                Thread.sleep(getDelay());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            byte[] reply = REPLY.getBytes(StandardCharsets.UTF_8);
+            httpExchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            httpExchange.sendResponseHeaders(200, reply.length);
+
+            OutputStream outputStream = httpExchange.getResponseBody();
+            outputStream.write(reply);
+            outputStream.close();
+        }
+    }
+
+    public static double run (String url, int requests, int inFlight, ConnectionSettings connectionSettings)
+            throws Exception {
+        Session session = new Session(null, null, url, inFlight, connectionSettings);
+        TopicOperations topicOperations = session.getTopicOperations();
+
+        try {
+            long start = System.nanoTime();
+            List<CompletableFuture<Results>> futures = new ArrayList<CompletableFuture<Results>>(requests);
+
+            for (int i = 0; i < requests; i++) {
+                Topic topic = new Topic("benchmark" + i, "admin");
+                futures.add(topicOperations.createAsync("benchmark", topic));
+            }
+
+            for (CompletableFuture<Results> future : futures) {
+                if (future.get() != Results.Success)
+                    throw new IllegalStateException("the stub server did not answer Success");
+            }
+
+            double seconds = (System.nanoTime() - start) / 1000000000.0;
+            return requests / seconds;
+        } finally {
+            session.close();
+        }
+    }
+
+    public static void main (String[] argv) throws Exception {
+        int requests = DEFAULT_REQUESTS;
+        long delay = DEFAULT_DELAY;
+
+        if (argv.length > 0)
+            requests = Integer.parseInt(argv[0]);
+
+        if (argv.length > 1)
+            delay = Long.parseLong(argv[1]);
+
+        StubServer stubServer = new StubServer(delay);
+        stubServer.start();
+
+        try {
+            String url = "http://localhost:" + stubServer.getPort();
+
+            System.out.println(requests + " POSTs against a stub server that takes " + delay + "ms per request");
+            System.out.println();
+            System.out.println("  in flight   requests/s");
+
+            for (int inFlight : IN_FLIGHT) {
+                double rate = run(url, requests, inFlight, new ConnectionSettings(inFlight));
+                System.out.println(String.format("  %-11d %.0f", inFlight, rate));
+            }
+
+            double rate = run(url, requests, 16, new ConnectionSettings(2));
+            System.out.println();
+            System.out.println(String.format("16 in flight with a pool of two per route: %.0f requests/s", rate));
+        } finally {
+            stubServer.stop();
+        }
+    }
+}
@@ -9,6 +9,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by Clark on 6/5/2017.
@@ -90,4 +93,31 @@ public class TestTopicOperations extends TestSession {
         assert (listingResult.getResult() == Results.Success);
         assert (listingResult.getList().size() > 0);
     }
+
+    @Test
+    public void testReadAsync () throws Exception {
+        CompletableFuture<ReadObject> first = getTopicOperations().readAsync(getSession().getSessionId(), getTopic());
+        CompletableFuture<ReadObject> second = getTopicOperations().readAsync(getSession().getSessionId(), getTopic());
+
+        assert (first.get().getResult() == Results.Success);
+        assert (second.get().getResult() == Results.Success);
+    }
+
+    @Test
+    public void testCreateAll () throws Exception {
+        List<Topic> topics = new ArrayList<Topic>();
+        topics.add(getTopic());
+        topics.add(new Topic("whatever2", TEST_TOPIC_OWNER));
+
+        List<Results> results = getTopicOperations().createAll(getSession().getSessionId(), topics);
+
+        assert (results.size() == 2);
+        assert (results.get(0) == Results.Duplicate);
+        assert (results.get(1) == Results.Success);
+
+        results = getTopicOperations().deleteAll(getSession().getSessionId(), topics);
+
+        assert (results.get(0) == Results.Success);
+        assert (results.get(1) == Results.Success);
+    }
 }